@@ -254,6 +254,10 @@ module KBaseFeatureValues {
         condition_clusters - (optional) list of labeled condition clusters
         feature_dendrogram - (optional) maybe output from hierchical clustering approaches
         condition_dendogram - (optional) maybe output from hierchical clustering approaches
+        feature_leaf_order - (optional) positions of features in order of leaves
+            of feature dendrogram
+        condition_leaf_order - (optional) positions of conditions in order of
+            leaves of condition dendrogram
         original_data - pointer to the original data used to make this cluster set
         report - information collected during cluster construction.
 
@@ -262,6 +266,7 @@ module KBaseFeatureValues {
         @metadata ws length(condition_clusters) as n_condition_clusters
         @optional condition_clusters 
         @optional feature_dendrogram condition_dendrogram
+        @optional feature_leaf_order condition_leaf_order
         @optional original_data report
     */
     typedef structure {
@@ -269,6 +274,8 @@ module KBaseFeatureValues {
         list<labeled_cluster> condition_clusters;
         string feature_dendrogram;
         string condition_dendrogram;
+        list<int> feature_leaf_order;
+        list<int> condition_leaf_order;
         ws_matrix_id original_data;
         AnalysisReport report;
     } FeatureClusters;
@@ -335,12 +342,15 @@ module KBaseFeatureValues {
         int max_iter;
         int random_seed;
         string algorithm;
+        string dimension;
         string out_workspace;
         string out_clusterset_id;
     } ClusterKMeansParams;
 
     /*
-        Clusters features by K-means clustering.
+        Clusters features by K-means clustering. If dimension is conditions
+        (default is features) conditions are clustered instead and stored as
+        condition_clusters.
     */
     funcdef cluster_k_means(ClusterKMeansParams params)
         returns (string workspace_ref) authentication required;
@@ -354,16 +364,59 @@ module KBaseFeatureValues {
         int max_items;
         ws_matrix_id input_data;
         string algorithm;
+        string dimension;
         string out_workspace;
         string out_clusterset_id;
     } ClusterHierarchicalParams;
 
     /*
-        Clusters features by hierarchical clustering.
+        Clusters features by hierarchical clustering. If dimension is conditions
+        (default is features) conditions are clustered instead using
+        condition_height_cutoff and stored as condition_clusters and
+        condition_dendrogram.
+        distance_metric is one of pearson (default), abs_pearson, spearman,
+        cosine, euclidean or manhattan, linkage_criteria is complete (default),
+        average or single. feature_height_cutoff (condition_height_cutoff for
+        conditions) is height relative to the root at which dendrogram is cut
+        into clusters (default is 1, one cluster). If max_items is set then only
+        this number of rows with the highest variance is clustered. algorithm is
+        hclust (default) or flashClust, both give the same tree.
     */
     funcdef cluster_hierarchical(ClusterHierarchicalParams params)
         returns (string workspace_ref) authentication required;
 
+    /*
+        distance_metric - distance between features and between conditions:
+            pearson (1 - Pearson correlation, default), abs_pearson, spearman,
+            cosine, euclidean or manhattan
+        linkage_criteria - complete (default), average or single
+        feature_height_cutoff - height relative to the root at which feature
+            dendrogram is cut into clusters (default is 1, one cluster)
+        condition_height_cutoff - the same for condition dendrogram
+        optimal_leaf_ordering - if true then children of dendrogram nodes are
+            flipped so that sum of distances between neighbouring leaves is
+            minimal (supported for at most 3000 features or conditions),
+            default is false
+    */
+    typedef structure {
+        ws_matrix_id input_data;
+        string distance_metric;
+        string linkage_criteria;
+        float feature_height_cutoff;
+        float condition_height_cutoff;
+        boolean optimal_leaf_ordering;
+        string out_workspace;
+        string out_clusterset_id;
+    } ClusterTwoWayParams;
+
+    /*
+        Clusters both features and conditions by hierarchical clustering. Matrix
+        is loaded once and two clusterings are made concurrently, both
+        dendrograms and their leaf orders are stored in FeatureClusters.
+    */
+    funcdef cluster_two_way(ClusterTwoWayParams params)
+        returns (string workspace_ref) authentication required;
+
 
     typedef structure {
         float feature_height_cutoff;
@@ -406,14 +459,25 @@ module KBaseFeatureValues {
         ws_matrix_id input_data;
     } ValidateMatrixParams;
 
+    /*
+        Checks matrix in one pass over its values (ids, shape, missing and
+        non-finite values, feature mapping and declared type/scale) and
+        returns report describing found problems.
+    */
     funcdef validate_matrix(ValidateMatrixParams params)
-        returns () authentication optional;
+        returns (AnalysisReport report) authentication optional;
 
     /*
         transform_type - type of matrix change (one of: add, multiply,
-            normalize, missing, ?).
+            normalize, missing, missing_row_mean, missing_col_mean,
+            missing_knn, log2, log10, ln, row_mean_center,
+            row_median_center, row_zscore, col_mean_center,
+            col_median_center, col_zscore, quantile, ?), several types
+            can be chained in comma-separated list applied from left to
+            right (e.g. "log2,quantile,row_zscore").
         transform_value - optional field defining volume of change if
-            it's necessary for chosen transform_type.
+            it's necessary for chosen transform_type (number of neighbours
+            for missing_knn, default 10).
     */
     typedef structure {
         string transform_type;
@@ -426,6 +490,40 @@ module KBaseFeatureValues {
     funcdef correct_matrix(CorrectMatrixParams params)
         returns (string workspace_ref) authentication required;
 
+    /*
+        Thresholds are applied to statistics of present values of rows, rows
+        should pass all defined thresholds.
+        min_variance - minimal sample variance of row
+        max_missing_fraction - maximal fraction of missing values in row
+        min_fold_change - minimal ratio of maximum to minimum of row (it's
+            computed from difference of values for ln, log2 and log10 scales
+            and for log-ratio matrices of other scales which are treated as
+            log2, matrices of raw values which are not all positive are
+            rejected)
+        min_mean - minimal mean of row
+        max_rows - maximal number of rows with the highest variance kept
+            among rows passing thresholds
+        out_matrix_id - optional target matrix object name (if not specified 
+            then target object overwrites input_data).
+    */
+    typedef structure {
+        ws_matrix_id input_data;
+        float min_variance;
+        float max_missing_fraction;
+        float min_fold_change;
+        float min_mean;
+        int max_rows;
+        string out_workspace;
+        string out_matrix_id;
+    } FilterMatrixParams;
+
+    /*
+        Selects rows of matrix by variance, missing values, fold change and
+        mean and saves them as new matrix object of the same type.
+    */
+    funcdef filter_matrix(FilterMatrixParams params)
+        returns (string workspace_ref) authentication required;
+
     /*
         out_matrix_id - optional target matrix object name (if not specified 
             then target object overwrites input_data).
@@ -689,13 +787,19 @@ module KBaseFeatureValues {
     	input_data - worskapce reference to the ExpressionMatrix object (later we should allow to work with other Float2DMatrix-like matrices, e.g. fitness)
     	item_indeces - indeces of items for whch descriptors should be built. Either item_indeces or item_ids should be provided. If both are provided, item_indeces will be used.
     	item_ids - ids of items for whch descriptors should be built. Either item_indeces or item_ids should be provided. If both are provided, item_indeces will be used.
-    	requested_property_types - list of property types to be populated for each item. Currently supported property types are: 'function'      	
+    	item_id_prefix - select items which ids start with this prefix (case-insensitive, items go in alphabetical order of ids), it is used only if neither item_indeces nor item_ids are provided
+    	requested_property_types - list of property types to be populated for each item of rows (ignored for columns). Currently supported property types are: 'function' (default), 'type' and 'aliases'      	
+    	offset - number of selected items to skip (optional, default 0)
+    	limit - maximum number of descriptors to return (optional, all selected items by default)
     */  	
 	typedef structure{
         ws_matrix_id input_data;        
     	list<int> item_indeces;
     	list<string> item_ids;
+    	string item_id_prefix;
     	list<string> requested_property_types;
+    	int offset;
+    	int limit;
 	} GetMatrixItemDescriptorsParams;
 	
 	
@@ -831,6 +935,93 @@ module KBaseFeatureValues {
     funcdef get_submatrix_stat(GetSubmatrixStatParams)
     	returns (SubmatrixStat) authentication required;
 
+    /*
+        Parameters to get a window of values of matrix (used by heatmap viewers).
+        input_data - reference to the source matrix
+        row_offset - position of the first row of window in row ordering (default value = 0)
+        row_count - number of rows in window (default: all rows after row_offset)
+        col_offset - position of the first column of window (default value = 0)
+        col_count - number of columns in window (default: all columns after col_offset)
+        clusters_ref - optional reference to FeatureClusters object built for the matrix, rows are ordered according to it
+        row_ordering - 'dendrogram' (leaf order of feature_dendrogram) or 'clusters' (rows of the same cluster go together),
+            default is 'dendrogram' if FeatureClusters object has dendrogram and 'clusters' otherwise. Rows which are not
+            in clusters go at the end.
+    */
+    typedef structure{
+        ws_matrix_id input_data;
+        int row_offset;
+        int row_count;
+        int col_offset;
+        int col_count;
+        ws_featureclusters_id clusters_ref;
+        string row_ordering;
+    } GetMatrixValuesWindowParams;
+
+    /*
+        Window of values of matrix.
+        rows_count - number of rows in the whole matrix
+        columns_count - number of columns in the whole matrix
+        row_indeces - indeces of rows of window in matrix
+        column_indeces - indeces of columns of window in matrix
+        row_ids - ids of rows of window
+        column_ids - ids of columns of window
+        shape - number of rows and number of columns of window
+        values - values of window in row-major order (value of row i and column j is at position i * shape[1] + j),
+            missing values are null
+    */
+    typedef structure{
+        int rows_count;
+        int columns_count;
+        list<int> row_indeces;
+        list<int> column_indeces;
+        list<string> row_ids;
+        list<string> column_ids;
+        list<int> shape;
+        list<float> values;
+    } MatrixValuesWindow;
+
+    funcdef get_matrix_values_window(GetMatrixValuesWindowParams)
+        returns (MatrixValuesWindow) authentication required;
+
+    /*
+        Parameters to get overview of matrix fitting into heatmap of limited size.
+        input_data - reference to the source matrix
+        width - maximum number of blocks of columns (pixels of heatmap in horizontal direction)
+        height - maximum number of blocks of rows (pixels of heatmap in vertical direction)
+    */
+    typedef structure{
+        ws_matrix_id input_data;
+        int width;
+        int height;
+    } GetMatrixOverviewParams;
+
+    /*
+        Overview of matrix made of blocks of rows and columns (one level of multi-resolution pyramid).
+        rows_count - number of rows in the whole matrix
+        columns_count - number of columns in the whole matrix
+        row_level - each block is made of 2^row_level rows (last block can be smaller)
+        column_level - each block is made of 2^column_level columns (last block can be smaller)
+        shape - number of rows and number of columns of blocks
+        means - means of present values of blocks in row-major order (null for blocks without values)
+        mins - minimums of present values of blocks in row-major order (null for blocks without values)
+        maxs - maximums of present values of blocks in row-major order (null for blocks without values)
+        missing_fractions - fractions of missing values of blocks in row-major order
+    */
+    typedef structure{
+        int rows_count;
+        int columns_count;
+        int row_level;
+        int column_level;
+        list<int> shape;
+        list<float> means;
+        list<float> mins;
+        list<float> maxs;
+        list<float> missing_fractions;
+    } MatrixOverview;
+
+    funcdef get_matrix_overview(GetMatrixOverviewParams)
+        returns (MatrixOverview) authentication required;
+
     /*
         input_shock_id and input_file_path - alternative intput params,
         genome_ref - optional reference to a Genome object that will be
@@ -860,10 +1051,16 @@ module KBaseFeatureValues {
     funcdef tsv_file_to_matrix(TsvFileToMatrixParams params)
         returns (TsvFileToMatrixOutput) authentication required;
 
+    /*
+        format - optional field, can be one of "TSV" or "BINARY" ("TSV" is default value).
+            "BINARY" is compact container with ids, float32/float64 values, missing-value
+            bitmap and per-row stats.
+    */
     typedef structure {
         ws_matrix_id input_ref;
         boolean to_shock;
         string file_path;
+        string format;
     } MatrixToTsvFileParams;
 
     typedef structure {
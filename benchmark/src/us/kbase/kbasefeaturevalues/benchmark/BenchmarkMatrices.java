@@ -0,0 +1,86 @@
+package us.kbase.kbasefeaturevalues.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+
+/**
+ * Input matrices of benchmarks: synthetic ones of given shape and fraction
+ * of missing values, and matrices parsed from test/data/upload* fixtures.
+ */
+public class BenchmarkMatrices {
+    public static final String FIXTURE_DIR = "test/data";
+
+    /**
+     * Parses shape written as ROWSxCOLS (for example 20000x200).
+     */
+    public static int[] parseShape(String shape) {
+        String[] parts = shape.toLowerCase().split("x");
+        if (parts.length != 2)
+            throw new IllegalStateException("Matrix shape should be ROWSxCOLS: " + shape);
+        return new int[] {Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+    }
+
+    /**
+     * Generates log-ratio like matrix. Rows belong to a few groups sharing
+     * profile over columns (so correlations aren't all around zero), every
+     * row has its own offset and noise level. Cells are missing (null) with
+     * given probability. The same seed gives the same matrix.
+     */
+    public static FloatMatrix2D generate(int rowCount, int colCount, double missingFraction,
+            long seed) {
+        Random rnd = new Random(seed);
+        int groupCount = 10;
+        double[][] profiles = new double[groupCount][colCount];
+        for (double[] profile : profiles)
+            for (int j = 0; j < colCount; j++)
+                profile[j] = rnd.nextGaussian();
+        List<String> rowIds = new ArrayList<String>(rowCount);
+        List<List<Double>> values = new ArrayList<List<Double>>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rowIds.add("feature" + i);
+            double[] profile = profiles[rnd.nextInt(groupCount)];
+            double offset = rnd.nextGaussian() * 2;
+            double noise = 0.2 + rnd.nextDouble();
+            List<Double> row = new ArrayList<Double>(colCount);
+            for (int j = 0; j < colCount; j++) {
+                if (rnd.nextDouble() < missingFraction)
+                    row.add(null);
+                else
+                    row.add(offset + profile[j] + rnd.nextGaussian() * noise);
+            }
+            values.add(row);
+        }
+        List<String> colIds = new ArrayList<String>(colCount);
+        for (int j = 0; j < colCount; j++)
+            colIds.add("condition" + j);
+        return new FloatMatrix2D().withRowIds(rowIds).withColIds(colIds).withValues(values);
+    }
+
+    /**
+     * Loads matrix of fixture directory (upload1 is in MicrobesOnline format,
+     * other ones are simple TSV files).
+     */
+    public static FloatMatrix2D loadFixture(String name) throws Exception {
+        File dir = new File(FIXTURE_DIR, name);
+        if (name.equals("upload1")) {
+            File moFile = new File(dir,
+                    "Desulfovibrio_vulgaris_Hildenborough_microarray_log_level_data.txt");
+            BufferedReader br = new BufferedReader(new FileReader(moFile));
+            try {
+                return ExpressionUploader.parseMicrobsOnlineFormat(br).getData();
+            } finally {
+                br.close();
+            }
+        }
+        File inputFile = ExpressionUploader.findTabFile(dir);
+        return ExpressionUploader.parse(null, inputFile, "Simple", null, false, null, null,
+                null).getData();
+    }
+}
@@ -0,0 +1,22 @@
+package us.kbase.kbasefeaturevalues.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+
+/**
+ * Hot paths on real matrices of test fixtures (benchmark should be started
+ * from root folder of repository).
+ */
+@State(Scope.Benchmark)
+public class FixtureMatrixBenchmark extends MatrixHotPathsBenchmark {
+    @Param({"upload1", "upload2", "upload3", "upload4", "upload5", "upload6"})
+    public String fixture;
+
+    @Override
+    protected FloatMatrix2D loadMatrix() throws Exception {
+        return BenchmarkMatrices.loadFixture(fixture);
+    }
+}
@@ -0,0 +1,137 @@
+package us.kbase.kbasefeaturevalues.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.GetMatrixSetStatParams;
+import us.kbase.kbasefeaturevalues.ItemSetStat;
+import us.kbase.kbasefeaturevalues.ItemStat;
+import us.kbase.kbasefeaturevalues.MatrixUtil;
+import us.kbase.kbasefeaturevalues.PairwiseComparison;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+/**
+ * Hot paths of matrix statistics used by get_matrix_stat,
+ * get_submatrix_stat and uploaders. Subclasses define where the matrix comes
+ * from. Throughput and sampled time (percentiles including p99) are reported,
+ * allocation rate comes from GC profiler (-prof gc, see benchmark target in
+ * build.xml).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+public abstract class MatrixHotPathsBenchmark {
+    /** Maximal number of rows of submatrix in pairwise and submatrix benchmarks. */
+    public static final int SUBSET_SIZE = 500;
+
+    private FloatMatrix2D data;
+    private PrimitiveMatrix values;
+    private List<Long> rowSubset;
+    private int[] rowIndeces;
+    private int[] colIndeces;
+    private int[] missingRows;
+    private int[] missingCols;
+
+    protected abstract FloatMatrix2D loadMatrix() throws Exception;
+
+    @Setup
+    public void setup() throws Exception {
+        data = loadMatrix();
+        values = PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float64);
+        int rowCount = values.getRowCount();
+        int subsetSize = Math.min(SUBSET_SIZE, rowCount);
+        rowIndeces = new int[subsetSize];
+        rowSubset = new ArrayList<Long>(subsetSize);
+        for (int k = 0; k < subsetSize; k++) {
+            // Rows are spread over the whole matrix like rows of a cluster
+            rowIndeces[k] = (int)((long)k * rowCount / subsetSize);
+            rowSubset.add((long)rowIndeces[k]);
+        }
+        colIndeces = new int[values.getColCount()];
+        for (int j = 0; j < colIndeces.length; j++)
+            colIndeces[j] = j;
+        int missingCount = 0;
+        for (int i = 0; i < rowCount; i++)
+            for (int j = 0; j < colIndeces.length; j++)
+                if (values.isMissing(i, j))
+                    missingCount++;
+        missingRows = new int[missingCount];
+        missingCols = new int[missingCount];
+        int pos = 0;
+        for (int i = 0; i < rowCount; i++) {
+            for (int j = 0; j < colIndeces.length; j++) {
+                if (values.isMissing(i, j)) {
+                    missingRows[pos] = i;
+                    missingCols[pos] = j;
+                    pos++;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ItemStat> rowsStat() {
+        return FloatMatrix2DUtil.getRowsStat(values, null, null, false);
+    }
+
+    @Benchmark
+    public List<ItemStat> columnsStat() {
+        return FloatMatrix2DUtil.getColumnsStat(values, null, null, false);
+    }
+
+    @Benchmark
+    public ItemSetStat rowsSetStat() {
+        return FloatMatrix2DUtil.getRowsSetStat(values, new GetMatrixSetStatParams()
+                .withItemIndecesFor(rowSubset).withFlAvgs(1L).withFlMins(1L).withFlMaxs(1L)
+                .withFlStds(1L).withFlMissingValues(1L));
+    }
+
+    @Benchmark
+    public PairwiseComparison rowsPairwiseComparison() {
+        return FloatMatrix2DUtil.geRowstPairwiseComparison(values, rowIndeces, colIndeces);
+    }
+
+    @Benchmark
+    public List<List<Double>> submatrixValues() {
+        return FloatMatrix2DUtil.getSubmatrixValues(values, rowIndeces, colIndeces);
+    }
+
+    /**
+     * Boxed matrix is filled in place, so missing cells are restored after
+     * every call (restoring touches only missing cells).
+     */
+    @Benchmark
+    public FloatMatrix2D fillMissingValues() {
+        MatrixUtil.fillMissingValues(data);
+        List<List<Double>> rows = data.getValues();
+        for (int k = 0; k < missingRows.length; k++)
+            rows.get(missingRows[k]).set(missingCols[k], null);
+        return data;
+    }
+
+    @Benchmark
+    public PrimitiveMatrix fillMissingValuesPrimitive() {
+        MatrixUtil.fillMissingValues(values);
+        for (int k = 0; k < missingRows.length; k++)
+            values.set(missingRows[k], missingCols[k], Double.NaN);
+        return values;
+    }
+}
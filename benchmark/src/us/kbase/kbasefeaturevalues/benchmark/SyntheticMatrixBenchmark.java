@@ -0,0 +1,27 @@
+package us.kbase.kbasefeaturevalues.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+
+/**
+ * Hot paths on generated matrices. Default shapes cover 1k to 200k rows and
+ * 10 to 2k columns while keeping boxed copy of matrix in heap of forked JVM,
+ * other shapes can be given by -p shape=ROWSxCOLS.
+ */
+@State(Scope.Benchmark)
+public class SyntheticMatrixBenchmark extends MatrixHotPathsBenchmark {
+    @Param({"1000x10", "1000x2000", "20000x200", "200000x10", "200000x100"})
+    public String shape;
+
+    @Param({"0", "0.1", "0.3"})
+    public double missingFraction;
+
+    @Override
+    protected FloatMatrix2D loadMatrix() {
+        int[] rowsCols = BenchmarkMatrices.parseShape(shape);
+        return BenchmarkMatrices.generate(rowsCols[0], rowsCols[1], missingFraction, 1234);
+    }
+}
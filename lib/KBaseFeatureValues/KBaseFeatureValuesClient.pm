@@ -375,6 +375,7 @@ ClusterKMeansParams is a reference to a hash where the following keys are define
 	max_iter has a value which is an int
 	random_seed has a value which is an int
 	algorithm has a value which is a string
+	dimension has a value which is a string
 	out_workspace has a value which is a string
 	out_clusterset_id has a value which is a string
 ws_matrix_id is a string
@@ -394,6 +395,7 @@ ClusterKMeansParams is a reference to a hash where the following keys are define
 	max_iter has a value which is an int
 	random_seed has a value which is an int
 	algorithm has a value which is a string
+	dimension has a value which is a string
 	out_workspace has a value which is a string
 	out_clusterset_id has a value which is a string
 ws_matrix_id is a string
@@ -403,7 +405,9 @@ ws_matrix_id is a string
 
 =item Description
 
-Clusters features by K-means clustering.
+Clusters features by K-means clustering. If dimension is conditions
+(default is features) conditions are clustered instead and stored as
+condition_clusters.
 
 =back
 
@@ -478,6 +482,7 @@ ClusterHierarchicalParams is a reference to a hash where the following keys are
 	max_items has a value which is an int
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 	algorithm has a value which is a string
+	dimension has a value which is a string
 	out_workspace has a value which is a string
 	out_clusterset_id has a value which is a string
 ws_matrix_id is a string
@@ -498,6 +503,7 @@ ClusterHierarchicalParams is a reference to a hash where the following keys are
 	max_items has a value which is an int
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 	algorithm has a value which is a string
+	dimension has a value which is a string
 	out_workspace has a value which is a string
 	out_clusterset_id has a value which is a string
 ws_matrix_id is a string
@@ -507,7 +513,17 @@ ws_matrix_id is a string
 
 =item Description
 
-Clusters features by hierarchical clustering.
+Clusters features by hierarchical clustering. If dimension is conditions
+(default is features) conditions are clustered instead using
+condition_height_cutoff and stored as condition_clusters and
+condition_dendrogram.
+distance_metric is one of pearson (default), abs_pearson, spearman,
+cosine, euclidean or manhattan, linkage_criteria is complete (default),
+average or single. feature_height_cutoff (condition_height_cutoff for
+conditions) is height relative to the root at which dendrogram is cut
+into clusters (default is 1, one cluster). If max_items is set then only
+this number of rows with the highest variance is clustered. algorithm is
+hclust (default) or flashClust, both give the same tree.
 
 =back
 
@@ -560,6 +576,111 @@ Clusters features by hierarchical clustering.
 }
  
 
+=head2 cluster_two_way
+
+  $workspace_ref = $obj->cluster_two_way($params)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$params is a KBaseFeatureValues.ClusterTwoWayParams
+$workspace_ref is a string
+ClusterTwoWayParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	distance_metric has a value which is a string
+	linkage_criteria has a value which is a string
+	feature_height_cutoff has a value which is a float
+	condition_height_cutoff has a value which is a float
+	optimal_leaf_ordering has a value which is a KBaseFeatureValues.boolean
+	out_workspace has a value which is a string
+	out_clusterset_id has a value which is a string
+ws_matrix_id is a string
+boolean is an int
+
+</pre>
+
+=end html
+
+=begin text
+
+$params is a KBaseFeatureValues.ClusterTwoWayParams
+$workspace_ref is a string
+ClusterTwoWayParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	distance_metric has a value which is a string
+	linkage_criteria has a value which is a string
+	feature_height_cutoff has a value which is a float
+	condition_height_cutoff has a value which is a float
+	optimal_leaf_ordering has a value which is a KBaseFeatureValues.boolean
+	out_workspace has a value which is a string
+	out_clusterset_id has a value which is a string
+ws_matrix_id is a string
+boolean is an int
+
+
+=end text
+
+=item Description
+
+Clusters both features and conditions by hierarchical clustering. Matrix
+is loaded once and two clusterings are made concurrently, both
+dendrograms and their leaf orders are stored in FeatureClusters.
+
+=back
+
+=cut
+
+ sub cluster_two_way
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function cluster_two_way (received $n, expecting 1)");
+    }
+    {
+	my($params) = @args;
+
+	my @_bad_arguments;
+        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to cluster_two_way:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'cluster_two_way');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "KBaseFeatureValues.cluster_two_way",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'cluster_two_way',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method cluster_two_way",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'cluster_two_way',
+				       );
+    }
+}
+ 
+
 
 =head2 clusters_from_dendrogram
 
@@ -753,7 +874,7 @@ a specific hieght or by some other approach.
 
 =head2 validate_matrix
 
-  $obj->validate_matrix($params)
+  $report = $obj->validate_matrix($params)
 
 =over 4
 
@@ -763,10 +884,20 @@ a specific hieght or by some other approach.
 
 <pre>
 $params is a KBaseFeatureValues.ValidateMatrixParams
+$report is a KBaseFeatureValues.AnalysisReport
 ValidateMatrixParams is a reference to a hash where the following keys are defined:
 	method has a value which is a string
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 ws_matrix_id is a string
+AnalysisReport is a reference to a hash where the following keys are defined:
+	checkTypeDetected has a value which is a string
+	checkUsed has a value which is a string
+	checkDescriptions has a value which is a reference to a list where each element is a string
+	checkResults has a value which is a reference to a list where each element is a KBaseFeatureValues.boolean
+	messages has a value which is a reference to a list where each element is a string
+	warnings has a value which is a reference to a list where each element is a string
+	errors has a value which is a reference to a list where each element is a string
+boolean is an int
 
 </pre>
 
@@ -775,17 +906,29 @@ ws_matrix_id is a string
 =begin text
 
 $params is a KBaseFeatureValues.ValidateMatrixParams
+$report is a KBaseFeatureValues.AnalysisReport
 ValidateMatrixParams is a reference to a hash where the following keys are defined:
 	method has a value which is a string
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 ws_matrix_id is a string
+AnalysisReport is a reference to a hash where the following keys are defined:
+	checkTypeDetected has a value which is a string
+	checkUsed has a value which is a string
+	checkDescriptions has a value which is a reference to a list where each element is a string
+	checkResults has a value which is a reference to a list where each element is a KBaseFeatureValues.boolean
+	messages has a value which is a reference to a list where each element is a string
+	warnings has a value which is a reference to a list where each element is a string
+	errors has a value which is a reference to a list where each element is a string
+boolean is an int
 
 
 =end text
 
 =item Description
 
-
+Checks matrix in one pass over its values (ids, shape, missing and
+non-finite values, feature mapping and declared type/scale) and
+returns report describing found problems.
 
 =back
 
@@ -827,7 +970,7 @@ ws_matrix_id is a string
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
-	    return;
+	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
         Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method validate_matrix",
@@ -934,6 +1077,108 @@ ws_matrix_id is a string
 }
  
 
+=head2 filter_matrix
+
+  $workspace_ref = $obj->filter_matrix($params)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$params is a KBaseFeatureValues.FilterMatrixParams
+$workspace_ref is a string
+FilterMatrixParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	min_variance has a value which is a float
+	max_missing_fraction has a value which is a float
+	min_fold_change has a value which is a float
+	min_mean has a value which is a float
+	max_rows has a value which is an int
+	out_workspace has a value which is a string
+	out_matrix_id has a value which is a string
+ws_matrix_id is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+$params is a KBaseFeatureValues.FilterMatrixParams
+$workspace_ref is a string
+FilterMatrixParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	min_variance has a value which is a float
+	max_missing_fraction has a value which is a float
+	min_fold_change has a value which is a float
+	min_mean has a value which is a float
+	max_rows has a value which is an int
+	out_workspace has a value which is a string
+	out_matrix_id has a value which is a string
+ws_matrix_id is a string
+
+
+=end text
+
+=item Description
+
+Selects rows of matrix by variance, missing values, fold change and
+mean and saves them as new matrix object of the same type.
+
+=back
+
+=cut
+
+ sub filter_matrix
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function filter_matrix (received $n, expecting 1)");
+    }
+    {
+	my($params) = @args;
+
+	my @_bad_arguments;
+        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to filter_matrix:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'filter_matrix');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "KBaseFeatureValues.filter_matrix",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'filter_matrix',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method filter_matrix",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'filter_matrix',
+				       );
+    }
+}
+ 
+
 
 =head2 reconnect_matrix_to_genome
 
@@ -1262,7 +1507,10 @@ GetMatrixItemDescriptorsParams is a reference to a hash where the following keys
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 	item_indeces has a value which is a reference to a list where each element is an int
 	item_ids has a value which is a reference to a list where each element is a string
+	item_id_prefix has a value which is a string
 	requested_property_types has a value which is a reference to a list where each element is a string
+	offset has a value which is an int
+	limit has a value which is an int
 ws_matrix_id is a string
 ItemDescriptor is a reference to a hash where the following keys are defined:
 	index has a value which is an int
@@ -1283,7 +1531,10 @@ GetMatrixItemDescriptorsParams is a reference to a hash where the following keys
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 	item_indeces has a value which is a reference to a list where each element is an int
 	item_ids has a value which is a reference to a list where each element is a string
+	item_id_prefix has a value which is a string
 	requested_property_types has a value which is a reference to a list where each element is a string
+	offset has a value which is an int
+	limit has a value which is an int
 ws_matrix_id is a string
 ItemDescriptor is a reference to a hash where the following keys are defined:
 	index has a value which is an int
@@ -1368,7 +1619,10 @@ GetMatrixItemDescriptorsParams is a reference to a hash where the following keys
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 	item_indeces has a value which is a reference to a list where each element is an int
 	item_ids has a value which is a reference to a list where each element is a string
+	item_id_prefix has a value which is a string
 	requested_property_types has a value which is a reference to a list where each element is a string
+	offset has a value which is an int
+	limit has a value which is an int
 ws_matrix_id is a string
 ItemDescriptor is a reference to a hash where the following keys are defined:
 	index has a value which is an int
@@ -1389,7 +1643,10 @@ GetMatrixItemDescriptorsParams is a reference to a hash where the following keys
 	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 	item_indeces has a value which is a reference to a list where each element is an int
 	item_ids has a value which is a reference to a list where each element is a string
+	item_id_prefix has a value which is a string
 	requested_property_types has a value which is a reference to a list where each element is a string
+	offset has a value which is an int
+	limit has a value which is an int
 ws_matrix_id is a string
 ItemDescriptor is a reference to a hash where the following keys are defined:
 	index has a value which is an int
@@ -2240,7 +2497,237 @@ PairwiseComparison is a reference to a hash where the following keys are defined
 	avgs has a value which is a reference to a list where each element is a float
 	mins has a value which is a reference to a list where each element is a float
 	maxs has a value which is a reference to a list where each element is a float
-	stds has a value which is a reference to a list where each element is a float
+	stds has a value which is a reference to a list where each element is a float
+
+
+=end text
+
+=item Description
+
+
+
+=back
+
+=cut
+
+ sub get_submatrix_stat
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function get_submatrix_stat (received $n, expecting 1)");
+    }
+    {
+	my($GetSubmatrixStatParams) = @args;
+
+	my @_bad_arguments;
+        (ref($GetSubmatrixStatParams) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"GetSubmatrixStatParams\" (value was \"$GetSubmatrixStatParams\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to get_submatrix_stat:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'get_submatrix_stat');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "KBaseFeatureValues.get_submatrix_stat",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'get_submatrix_stat',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_submatrix_stat",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'get_submatrix_stat',
+				       );
+    }
+}
+ 
+
+=head2 get_matrix_values_window
+
+  $return = $obj->get_matrix_values_window($GetMatrixValuesWindowParams)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$GetMatrixValuesWindowParams is a KBaseFeatureValues.GetMatrixValuesWindowParams
+$return is a KBaseFeatureValues.MatrixValuesWindow
+GetMatrixValuesWindowParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	row_offset has a value which is an int
+	row_count has a value which is an int
+	col_offset has a value which is an int
+	col_count has a value which is an int
+	clusters_ref has a value which is a KBaseFeatureValues.ws_featureclusters_id
+	row_ordering has a value which is a string
+ws_matrix_id is a string
+ws_featureclusters_id is a string
+MatrixValuesWindow is a reference to a hash where the following keys are defined:
+	rows_count has a value which is an int
+	columns_count has a value which is an int
+	row_indeces has a value which is a reference to a list where each element is an int
+	column_indeces has a value which is a reference to a list where each element is an int
+	row_ids has a value which is a reference to a list where each element is a string
+	column_ids has a value which is a reference to a list where each element is a string
+	shape has a value which is a reference to a list where each element is an int
+	values has a value which is a reference to a list where each element is a float
+
+</pre>
+
+=end html
+
+=begin text
+
+$GetMatrixValuesWindowParams is a KBaseFeatureValues.GetMatrixValuesWindowParams
+$return is a KBaseFeatureValues.MatrixValuesWindow
+GetMatrixValuesWindowParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	row_offset has a value which is an int
+	row_count has a value which is an int
+	col_offset has a value which is an int
+	col_count has a value which is an int
+	clusters_ref has a value which is a KBaseFeatureValues.ws_featureclusters_id
+	row_ordering has a value which is a string
+ws_matrix_id is a string
+ws_featureclusters_id is a string
+MatrixValuesWindow is a reference to a hash where the following keys are defined:
+	rows_count has a value which is an int
+	columns_count has a value which is an int
+	row_indeces has a value which is a reference to a list where each element is an int
+	column_indeces has a value which is a reference to a list where each element is an int
+	row_ids has a value which is a reference to a list where each element is a string
+	column_ids has a value which is a reference to a list where each element is a string
+	shape has a value which is a reference to a list where each element is an int
+	values has a value which is a reference to a list where each element is a float
+
+
+=end text
+
+=item Description
+
+
+
+=back
+
+=cut
+
+ sub get_matrix_values_window
+{
+    my($self, @args) = @_;
+
+# Authentication: required
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function get_matrix_values_window (received $n, expecting 1)");
+    }
+    {
+	my($GetMatrixValuesWindowParams) = @args;
+
+	my @_bad_arguments;
+        (ref($GetMatrixValuesWindowParams) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"GetMatrixValuesWindowParams\" (value was \"$GetMatrixValuesWindowParams\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to get_matrix_values_window:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'get_matrix_values_window');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "KBaseFeatureValues.get_matrix_values_window",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'get_matrix_values_window',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_matrix_values_window",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'get_matrix_values_window',
+				       );
+    }
+}
+ 
+
+=head2 get_matrix_overview
+
+  $return = $obj->get_matrix_overview($GetMatrixOverviewParams)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$GetMatrixOverviewParams is a KBaseFeatureValues.GetMatrixOverviewParams
+$return is a KBaseFeatureValues.MatrixOverview
+GetMatrixOverviewParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	width has a value which is an int
+	height has a value which is an int
+ws_matrix_id is a string
+MatrixOverview is a reference to a hash where the following keys are defined:
+	rows_count has a value which is an int
+	columns_count has a value which is an int
+	row_level has a value which is an int
+	column_level has a value which is an int
+	shape has a value which is a reference to a list where each element is an int
+	means has a value which is a reference to a list where each element is a float
+	mins has a value which is a reference to a list where each element is a float
+	maxs has a value which is a reference to a list where each element is a float
+	missing_fractions has a value which is a reference to a list where each element is a float
+
+</pre>
+
+=end html
+
+=begin text
+
+$GetMatrixOverviewParams is a KBaseFeatureValues.GetMatrixOverviewParams
+$return is a KBaseFeatureValues.MatrixOverview
+GetMatrixOverviewParams is a reference to a hash where the following keys are defined:
+	input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+	width has a value which is an int
+	height has a value which is an int
+ws_matrix_id is a string
+MatrixOverview is a reference to a hash where the following keys are defined:
+	rows_count has a value which is an int
+	columns_count has a value which is an int
+	row_level has a value which is an int
+	column_level has a value which is an int
+	shape has a value which is a reference to a list where each element is an int
+	means has a value which is a reference to a list where each element is a float
+	mins has a value which is a reference to a list where each element is a float
+	maxs has a value which is a reference to a list where each element is a float
+	missing_fractions has a value which is a reference to a list where each element is a float
 
 
 =end text
@@ -2253,7 +2740,7 @@ PairwiseComparison is a reference to a hash where the following keys are defined
 
 =cut
 
- sub get_submatrix_stat
+ sub get_matrix_overview
 {
     my($self, @args) = @_;
 
@@ -2262,39 +2749,39 @@ PairwiseComparison is a reference to a hash where the following keys are defined
     if ((my $n = @args) != 1)
     {
 	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
-							       "Invalid argument count for function get_submatrix_stat (received $n, expecting 1)");
+							       "Invalid argument count for function get_matrix_overview (received $n, expecting 1)");
     }
     {
-	my($GetSubmatrixStatParams) = @args;
+	my($GetMatrixOverviewParams) = @args;
 
 	my @_bad_arguments;
-        (ref($GetSubmatrixStatParams) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"GetSubmatrixStatParams\" (value was \"$GetSubmatrixStatParams\")");
+        (ref($GetMatrixOverviewParams) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"GetMatrixOverviewParams\" (value was \"$GetMatrixOverviewParams\")");
         if (@_bad_arguments) {
-	    my $msg = "Invalid arguments passed to get_submatrix_stat:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    my $msg = "Invalid arguments passed to get_matrix_overview:\n" . join("", map { "\t$_\n" } @_bad_arguments);
 	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
-								   method_name => 'get_submatrix_stat');
+								   method_name => 'get_matrix_overview');
 	}
     }
 
     my $url = $self->{url};
     my $result = $self->{client}->call($url, $self->{headers}, {
-	    method => "KBaseFeatureValues.get_submatrix_stat",
+	    method => "KBaseFeatureValues.get_matrix_overview",
 	    params => \@args,
     });
     if ($result) {
 	if ($result->is_error) {
 	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
 					       code => $result->content->{error}->{code},
-					       method_name => 'get_submatrix_stat',
+					       method_name => 'get_matrix_overview',
 					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
 					      );
 	} else {
 	    return wantarray ? @{$result->result} : $result->result->[0];
 	}
     } else {
-        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_submatrix_stat",
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method get_matrix_overview",
 					    status_line => $self->{client}->status_line,
-					    method_name => 'get_submatrix_stat',
+					    method_name => 'get_matrix_overview',
 				       );
     }
 }
@@ -2428,6 +2915,7 @@ MatrixToTsvFileParams is a reference to a hash where the following keys are defi
 	input_ref has a value which is a KBaseFeatureValues.ws_matrix_id
 	to_shock has a value which is a KBaseFeatureValues.boolean
 	file_path has a value which is a string
+	format has a value which is a string
 ws_matrix_id is a string
 boolean is an int
 MatrixToTsvFileOutput is a reference to a hash where the following keys are defined:
@@ -2446,6 +2934,7 @@ MatrixToTsvFileParams is a reference to a hash where the following keys are defi
 	input_ref has a value which is a KBaseFeatureValues.ws_matrix_id
 	to_shock has a value which is a KBaseFeatureValues.boolean
 	file_path has a value which is a string
+	format has a value which is a string
 ws_matrix_id is a string
 boolean is an int
 MatrixToTsvFileOutput is a reference to a hash where the following keys are defined:
@@ -3566,6 +4055,10 @@ feature_clusters - list of labeled feature clusters
 condition_clusters - (optional) list of labeled condition clusters
 feature_dendrogram - (optional) maybe output from hierchical clustering approaches
 condition_dendogram - (optional) maybe output from hierchical clustering approaches
+feature_leaf_order - (optional) positions of features in order of leaves
+    of feature dendrogram
+condition_leaf_order - (optional) positions of conditions in order of
+    leaves of condition dendrogram
 original_data - pointer to the original data used to make this cluster set
 report - information collected during cluster construction.
 
@@ -3574,6 +4067,7 @@ report - information collected during cluster construction.
 @metadata ws length(condition_clusters) as n_condition_clusters
 @optional condition_clusters 
 @optional feature_dendrogram condition_dendrogram
+@optional feature_leaf_order condition_leaf_order
 @optional original_data report
 
 
@@ -3587,6 +4081,8 @@ feature_clusters has a value which is a reference to a list where each element i
 condition_clusters has a value which is a reference to a list where each element is a KBaseFeatureValues.labeled_cluster
 feature_dendrogram has a value which is a string
 condition_dendrogram has a value which is a string
+feature_leaf_order has a value which is a reference to a list where each element is an int
+condition_leaf_order has a value which is a reference to a list where each element is an int
 original_data has a value which is a KBaseFeatureValues.ws_matrix_id
 report has a value which is a KBaseFeatureValues.AnalysisReport
 
@@ -3601,6 +4097,8 @@ feature_clusters has a value which is a reference to a list where each element i
 condition_clusters has a value which is a reference to a list where each element is a KBaseFeatureValues.labeled_cluster
 feature_dendrogram has a value which is a string
 condition_dendrogram has a value which is a string
+feature_leaf_order has a value which is a reference to a list where each element is an int
+condition_leaf_order has a value which is a reference to a list where each element is an int
 original_data has a value which is a KBaseFeatureValues.ws_matrix_id
 report has a value which is a KBaseFeatureValues.AnalysisReport
 
@@ -3798,6 +4296,7 @@ n_start has a value which is an int
 max_iter has a value which is an int
 random_seed has a value which is an int
 algorithm has a value which is a string
+dimension has a value which is a string
 out_workspace has a value which is a string
 out_clusterset_id has a value which is a string
 
@@ -3814,6 +4313,7 @@ n_start has a value which is an int
 max_iter has a value which is an int
 random_seed has a value which is an int
 algorithm has a value which is a string
+dimension has a value which is a string
 out_workspace has a value which is a string
 out_clusterset_id has a value which is a string
 
@@ -3843,6 +4343,7 @@ condition_height_cutoff has a value which is a float
 max_items has a value which is an int
 input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 algorithm has a value which is a string
+dimension has a value which is a string
 out_workspace has a value which is a string
 out_clusterset_id has a value which is a string
 
@@ -3860,6 +4361,66 @@ condition_height_cutoff has a value which is a float
 max_items has a value which is an int
 input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 algorithm has a value which is a string
+dimension has a value which is a string
+out_workspace has a value which is a string
+out_clusterset_id has a value which is a string
+
+
+=end text
+
+=back
+
+
+
+=head2 ClusterTwoWayParams
+
+=over 4
+
+
+
+=item Description
+
+distance_metric - distance between features and between conditions:
+    pearson (1 - Pearson correlation, default), abs_pearson, spearman,
+    cosine, euclidean or manhattan
+linkage_criteria - complete (default), average or single
+feature_height_cutoff - height relative to the root at which feature
+    dendrogram is cut into clusters (default is 1, one cluster)
+condition_height_cutoff - the same for condition dendrogram
+optimal_leaf_ordering - if true then children of dendrogram nodes are
+    flipped so that sum of distances between neighbouring leaves is
+    minimal (supported for at most 3000 features or conditions),
+    default is false
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+distance_metric has a value which is a string
+linkage_criteria has a value which is a string
+feature_height_cutoff has a value which is a float
+condition_height_cutoff has a value which is a float
+optimal_leaf_ordering has a value which is a KBaseFeatureValues.boolean
+out_workspace has a value which is a string
+out_clusterset_id has a value which is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+distance_metric has a value which is a string
+linkage_criteria has a value which is a string
+feature_height_cutoff has a value which is a float
+condition_height_cutoff has a value which is a float
+optimal_leaf_ordering has a value which is a KBaseFeatureValues.boolean
 out_workspace has a value which is a string
 out_clusterset_id has a value which is a string
 
@@ -3989,9 +4550,15 @@ input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 =item Description
 
 transform_type - type of matrix change (one of: add, multiply,
-    normalize, missing, ?).
+    normalize, missing, missing_row_mean, missing_col_mean,
+    missing_knn, log2, log10, ln, row_mean_center,
+    row_median_center, row_zscore, col_mean_center,
+    col_median_center, col_zscore, quantile, ?), several types
+    can be chained in comma-separated list applied from left to
+    right (e.g. "log2,quantile,row_zscore").
 transform_value - optional field defining volume of change if
-    it's necessary for chosen transform_type.
+    it's necessary for chosen transform_type (number of neighbours
+    for missing_knn, default 10).
 
 
 =item Definition
@@ -4026,6 +4593,68 @@ out_matrix_id has a value which is a string
 
 
 
+=head2 FilterMatrixParams
+
+=over 4
+
+
+
+=item Description
+
+Thresholds are applied to statistics of present values of rows, rows
+should pass all defined thresholds.
+min_variance - minimal sample variance of row
+max_missing_fraction - maximal fraction of missing values in row
+min_fold_change - minimal ratio of maximum to minimum of row (it's
+    computed from difference of values for ln, log2 and log10 scales
+    and for log-ratio matrices of other scales which are treated as
+    log2, matrices of raw values which are not all positive are
+    rejected)
+min_mean - minimal mean of row
+max_rows - maximal number of rows with the highest variance kept
+    among rows passing thresholds
+out_matrix_id - optional target matrix object name (if not specified 
+    then target object overwrites input_data).
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+min_variance has a value which is a float
+max_missing_fraction has a value which is a float
+min_fold_change has a value which is a float
+min_mean has a value which is a float
+max_rows has a value which is an int
+out_workspace has a value which is a string
+out_matrix_id has a value which is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+min_variance has a value which is a float
+max_missing_fraction has a value which is a float
+min_fold_change has a value which is a float
+min_mean has a value which is a float
+max_rows has a value which is an int
+out_workspace has a value which is a string
+out_matrix_id has a value which is a string
+
+
+=end text
+
+=back
+
+
+
 =head2 ReconnectMatrixToGenomeParams
 
 =over 4
@@ -4599,7 +5228,10 @@ Parameters to get basic properties for items from the Float2D type of matrices.
 input_data - worskapce reference to the ExpressionMatrix object (later we should allow to work with other Float2DMatrix-like matrices, e.g. fitness)
 item_indeces - indeces of items for whch descriptors should be built. Either item_indeces or item_ids should be provided. If both are provided, item_indeces will be used.
 item_ids - ids of items for whch descriptors should be built. Either item_indeces or item_ids should be provided. If both are provided, item_indeces will be used.
-requested_property_types - list of property types to be populated for each item. Currently supported property types are: 'function'
+item_id_prefix - select items which ids start with this prefix (case-insensitive, items go in alphabetical order of ids), it is used only if neither item_indeces nor item_ids are provided
+requested_property_types - list of property types to be populated for each item of rows (ignored for columns). Currently supported property types are: 'function' (default), 'type' and 'aliases'
+offset - number of selected items to skip (optional, default 0)
+limit - maximum number of descriptors to return (optional, all selected items by default)
 
 
 =item Definition
@@ -4611,7 +5243,10 @@ a reference to a hash where the following keys are defined:
 input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 item_indeces has a value which is a reference to a list where each element is an int
 item_ids has a value which is a reference to a list where each element is a string
+item_id_prefix has a value which is a string
 requested_property_types has a value which is a reference to a list where each element is a string
+offset has a value which is an int
+limit has a value which is an int
 
 </pre>
 
@@ -4623,7 +5258,10 @@ a reference to a hash where the following keys are defined:
 input_data has a value which is a KBaseFeatureValues.ws_matrix_id
 item_indeces has a value which is a reference to a list where each element is an int
 item_ids has a value which is a reference to a list where each element is a string
+item_id_prefix has a value which is a string
 requested_property_types has a value which is a reference to a list where each element is a string
+offset has a value which is an int
+limit has a value which is an int
 
 
 =end text
@@ -4891,6 +5529,222 @@ fl_values has a value which is a KBaseFeatureValues.boolean
 
 
 
+=head2 GetMatrixValuesWindowParams
+
+=over 4
+
+
+
+=item Description
+
+Parameters to get a window of values of matrix (used by heatmap viewers).
+input_data - reference to the source matrix
+row_offset - position of the first row of window in row ordering (default value = 0)
+row_count - number of rows in window (default: all rows after row_offset)
+col_offset - position of the first column of window (default value = 0)
+col_count - number of columns in window (default: all columns after col_offset)
+clusters_ref - optional reference to FeatureClusters object built for the matrix, rows are ordered according to it
+row_ordering - 'dendrogram' (leaf order of feature_dendrogram) or 'clusters' (rows of the same cluster go together),
+    default is 'dendrogram' if FeatureClusters object has dendrogram and 'clusters' otherwise. Rows which are not
+    in clusters go at the end.
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+row_offset has a value which is an int
+row_count has a value which is an int
+col_offset has a value which is an int
+col_count has a value which is an int
+clusters_ref has a value which is a KBaseFeatureValues.ws_featureclusters_id
+row_ordering has a value which is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+row_offset has a value which is an int
+row_count has a value which is an int
+col_offset has a value which is an int
+col_count has a value which is an int
+clusters_ref has a value which is a KBaseFeatureValues.ws_featureclusters_id
+row_ordering has a value which is a string
+
+
+=end text
+
+=back
+
+
+
+=head2 MatrixValuesWindow
+
+=over 4
+
+
+
+=item Description
+
+Window of values of matrix.
+rows_count - number of rows in the whole matrix
+columns_count - number of columns in the whole matrix
+row_indeces - indeces of rows of window in matrix
+column_indeces - indeces of columns of window in matrix
+row_ids - ids of rows of window
+column_ids - ids of columns of window
+shape - number of rows and number of columns of window
+values - values of window in row-major order (value of row i and column j is at position i * shape[1] + j),
+    missing values are null
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+rows_count has a value which is an int
+columns_count has a value which is an int
+row_indeces has a value which is a reference to a list where each element is an int
+column_indeces has a value which is a reference to a list where each element is an int
+row_ids has a value which is a reference to a list where each element is a string
+column_ids has a value which is a reference to a list where each element is a string
+shape has a value which is a reference to a list where each element is an int
+values has a value which is a reference to a list where each element is a float
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+rows_count has a value which is an int
+columns_count has a value which is an int
+row_indeces has a value which is a reference to a list where each element is an int
+column_indeces has a value which is a reference to a list where each element is an int
+row_ids has a value which is a reference to a list where each element is a string
+column_ids has a value which is a reference to a list where each element is a string
+shape has a value which is a reference to a list where each element is an int
+values has a value which is a reference to a list where each element is a float
+
+
+=end text
+
+=back
+
+
+
+=head2 GetMatrixOverviewParams
+
+=over 4
+
+
+
+=item Description
+
+Parameters to get overview of matrix fitting into heatmap of limited size.
+input_data - reference to the source matrix
+width - maximum number of blocks of columns (pixels of heatmap in horizontal direction)
+height - maximum number of blocks of rows (pixels of heatmap in vertical direction)
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+width has a value which is an int
+height has a value which is an int
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+input_data has a value which is a KBaseFeatureValues.ws_matrix_id
+width has a value which is an int
+height has a value which is an int
+
+
+=end text
+
+=back
+
+
+
+=head2 MatrixOverview
+
+=over 4
+
+
+
+=item Description
+
+Overview of matrix made of blocks of rows and columns (one level of multi-resolution pyramid).
+rows_count - number of rows in the whole matrix
+columns_count - number of columns in the whole matrix
+row_level - each block is made of 2^row_level rows (last block can be smaller)
+column_level - each block is made of 2^column_level columns (last block can be smaller)
+shape - number of rows and number of columns of blocks
+means - means of present values of blocks in row-major order (null for blocks without values)
+mins - minimums of present values of blocks in row-major order (null for blocks without values)
+maxs - maximums of present values of blocks in row-major order (null for blocks without values)
+missing_fractions - fractions of missing values of blocks in row-major order
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+rows_count has a value which is an int
+columns_count has a value which is an int
+row_level has a value which is an int
+column_level has a value which is an int
+shape has a value which is a reference to a list where each element is an int
+means has a value which is a reference to a list where each element is a float
+mins has a value which is a reference to a list where each element is a float
+maxs has a value which is a reference to a list where each element is a float
+missing_fractions has a value which is a reference to a list where each element is a float
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+rows_count has a value which is an int
+columns_count has a value which is an int
+row_level has a value which is an int
+column_level has a value which is an int
+shape has a value which is a reference to a list where each element is an int
+means has a value which is a reference to a list where each element is a float
+mins has a value which is a reference to a list where each element is a float
+maxs has a value which is a reference to a list where each element is a float
+missing_fractions has a value which is a reference to a list where each element is a float
+
+
+=end text
+
+=back
+
+
+
 =head2 TsvFileToMatrixParams
 
 =over 4
@@ -4984,6 +5838,13 @@ output_matrix_ref has a value which is a KBaseFeatureValues.ws_matrix_id
 
 
 
+=item Description
+
+format - optional field, can be one of "TSV" or "BINARY" ("TSV" is default value).
+    "BINARY" is compact container with ids, float32/float64 values, missing-value
+    bitmap and per-row stats.
+
+
 =item Definition
 
 =begin html
@@ -4993,6 +5854,7 @@ a reference to a hash where the following keys are defined:
 input_ref has a value which is a KBaseFeatureValues.ws_matrix_id
 to_shock has a value which is a KBaseFeatureValues.boolean
 file_path has a value which is a string
+format has a value which is a string
 
 </pre>
 
@@ -5004,6 +5866,7 @@ a reference to a hash where the following keys are defined:
 input_ref has a value which is a KBaseFeatureValues.ws_matrix_id
 to_shock has a value which is a KBaseFeatureValues.boolean
 file_path has a value which is a string
+format has a value which is a string
 
 
 =end text
@@ -78,7 +78,9 @@ class KBaseFeatureValues(object):
 
     def cluster_k_means(self, params, context=None):
         """
-        Clusters features by K-means clustering.
+        Clusters features by K-means clustering. If dimension is conditions
+        (default is features) conditions are clustered instead and stored as
+        condition_clusters.
         :param params: instance of type "ClusterKMeansParams" -> structure:
            parameter "k" of Long, parameter "input_data" of type
            "ws_matrix_id" (A workspace ID that references a Float2DMatrix
@@ -86,7 +88,8 @@ class KBaseFeatureValues(object):
            KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
            "n_start" of Long, parameter "max_iter" of Long, parameter
            "random_seed" of Long, parameter "algorithm" of String, parameter
-           "out_workspace" of String, parameter "out_clusterset_id" of String
+           "dimension" of String, parameter "out_workspace" of String,
+           parameter "out_clusterset_id" of String
         :returns: instance of String
         """
         return self._client.call_method('KBaseFeatureValues.cluster_k_means',
@@ -94,7 +97,17 @@ class KBaseFeatureValues(object):
 
     def cluster_hierarchical(self, params, context=None):
         """
-        Clusters features by hierarchical clustering.
+        Clusters features by hierarchical clustering. If dimension is conditions
+        (default is features) conditions are clustered instead using
+        condition_height_cutoff and stored as condition_clusters and
+        condition_dendrogram.
+        distance_metric is one of pearson (default), abs_pearson, spearman,
+        cosine, euclidean or manhattan, linkage_criteria is complete (default),
+        average or single. feature_height_cutoff (condition_height_cutoff for
+        conditions) is height relative to the root at which dendrogram is cut
+        into clusters (default is 1, one cluster). If max_items is set then only
+        this number of rows with the highest variance is clustered. algorithm is
+        hclust (default) or flashClust, both give the same tree.
         :param params: instance of type "ClusterHierarchicalParams" ->
            structure: parameter "distance_metric" of String, parameter
            "linkage_criteria" of String, parameter "feature_height_cutoff" of
@@ -103,13 +116,45 @@ class KBaseFeatureValues(object):
            (A workspace ID that references a Float2DMatrix wrapper data
            object. @id ws KBaseFeatureValues.ExpressionMatrix
            KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
-           "algorithm" of String, parameter "out_workspace" of String,
-           parameter "out_clusterset_id" of String
+           "algorithm" of String, parameter "dimension" of String, parameter
+           "out_workspace" of String, parameter "out_clusterset_id" of String
         :returns: instance of String
         """
         return self._client.call_method('KBaseFeatureValues.cluster_hierarchical',
                                         [params], self._service_ver, context)
 
+    def cluster_two_way(self, params, context=None):
+        """
+        Clusters both features and conditions by hierarchical clustering. Matrix
+        is loaded once and two clusterings are made concurrently, both
+        dendrograms and their leaf orders are stored in FeatureClusters.
+        :param params: instance of type "ClusterTwoWayParams"
+           (distance_metric - distance between features and between
+           conditions: pearson (1 - Pearson correlation, default),
+           abs_pearson, spearman, cosine, euclidean or manhattan
+           linkage_criteria - complete (default), average or single
+           feature_height_cutoff - height relative to the root at which
+           feature dendrogram is cut into clusters (default is 1, one
+           cluster) condition_height_cutoff - the same for condition
+           dendrogram optimal_leaf_ordering - if true then children of
+           dendrogram nodes are flipped so that sum of distances between
+           neighbouring leaves is minimal (supported for at most 3000
+           features or conditions), default is false) -> structure: parameter
+           "input_data" of type "ws_matrix_id" (A workspace ID that
+           references a Float2DMatrix wrapper data object. @id ws
+           KBaseFeatureValues.ExpressionMatrix
+           KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
+           "distance_metric" of String, parameter "linkage_criteria" of
+           String, parameter "feature_height_cutoff" of Double, parameter
+           "condition_height_cutoff" of Double, parameter
+           "optimal_leaf_ordering" of type "boolean" (Indicates true or false
+           values, false = 0, true = 1 @range [0,1]), parameter
+           "out_workspace" of String, parameter "out_clusterset_id" of String
+        :returns: instance of String
+        """
+        return self._client.call_method('KBaseFeatureValues.cluster_two_way',
+                                        [params], self._service_ver, context)
+
     def clusters_from_dendrogram(self, params, context=None):
         """
         Given a FeatureClusters with a dendogram built from a hierarchical clustering
@@ -143,6 +188,9 @@ class KBaseFeatureValues(object):
 
     def validate_matrix(self, params, context=None):
         """
+        Checks matrix in one pass over its values (ids, shape, missing and
+        non-finite values, feature mapping and declared type/scale) and
+        returns report describing found problems.
         :param params: instance of type "ValidateMatrixParams" (method -
            optional field specifying special type of validation necessary for
            particular clustering method.) -> structure: parameter "method" of
@@ -150,6 +198,16 @@ class KBaseFeatureValues(object):
            ID that references a Float2DMatrix wrapper data object. @id ws
            KBaseFeatureValues.ExpressionMatrix
            KBaseFeatureValues.SingleKnockoutFitnessMatrix)
+        :returns: instance of type "AnalysisReport" (A basic report object
+           used for a variety of cases to mark informational messages,
+           warnings, and errors related to processing or quality control
+           checks of raw data.) -> structure: parameter "checkTypeDetected"
+           of String, parameter "checkUsed" of String, parameter
+           "checkDescriptions" of list of String, parameter "checkResults" of
+           list of type "boolean" (Indicates true or false values, false = 0,
+           true = 1 @range [0,1]), parameter "messages" of list of String,
+           parameter "warnings" of list of String, parameter "errors" of list
+           of String
         """
         return self._client.call_method('KBaseFeatureValues.validate_matrix',
                                         [params], self._service_ver, context)
@@ -158,8 +216,14 @@ class KBaseFeatureValues(object):
         """
         :param params: instance of type "CorrectMatrixParams" (transform_type
            - type of matrix change (one of: add, multiply, normalize,
-           missing, ?). transform_value - optional field defining volume of
-           change if it's necessary for chosen transform_type.) -> structure:
+           missing, missing_row_mean, missing_col_mean, missing_knn, log2,
+           log10, ln, row_mean_center, row_median_center, row_zscore,
+           col_mean_center, col_median_center, col_zscore, quantile, ?),
+           several types can be chained in comma-separated list applied from
+           left to right (e.g. "log2,quantile,row_zscore"). transform_value -
+           optional field defining volume of change if it's necessary for
+           chosen transform_type (number of neighbours for missing_knn,
+           default 10).) -> structure:
            parameter "transform_type" of String, parameter "transform_value"
            of Double, parameter "input_data" of type "ws_matrix_id" (A
            workspace ID that references a Float2DMatrix wrapper data object.
@@ -171,6 +235,33 @@ class KBaseFeatureValues(object):
         return self._client.call_method('KBaseFeatureValues.correct_matrix',
                                         [params], self._service_ver, context)
 
+    def filter_matrix(self, params, context=None):
+        """
+        :param params: instance of type "FilterMatrixParams" (Thresholds are
+           applied to statistics of present values of rows, rows should pass
+           all defined thresholds. min_variance - minimal sample variance of
+           row max_missing_fraction - maximal fraction of missing values in
+           row min_fold_change - minimal ratio of maximum to minimum of row
+           (it's computed from difference of values for ln, log2 and log10
+           scales and for log-ratio matrices of other scales which are
+           treated as log2, matrices of raw values which are not all positive
+           are rejected) min_mean - minimal mean of row max_rows - maximal
+           number of rows with the highest variance kept among rows passing
+           thresholds out_matrix_id - optional target matrix object name (if
+           not specified then target object overwrites input_data).) ->
+           structure: parameter "input_data" of type "ws_matrix_id" (A
+           workspace ID that references a Float2DMatrix wrapper data object.
+           @id ws KBaseFeatureValues.ExpressionMatrix
+           KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
+           "min_variance" of Double, parameter "max_missing_fraction" of
+           Double, parameter "min_fold_change" of Double, parameter
+           "min_mean" of Double, parameter "max_rows" of Long, parameter
+           "out_workspace" of String, parameter "out_matrix_id" of String
+        :returns: instance of String
+        """
+        return self._client.call_method('KBaseFeatureValues.filter_matrix',
+                                        [params], self._service_ver, context)
+
     def reconnect_matrix_to_genome(self, params, context=None):
         """
         :param params: instance of type "ReconnectMatrixToGenomeParams"
@@ -238,15 +329,23 @@ class KBaseFeatureValues(object):
            provided. If both are provided, item_indeces will be used.
            item_ids - ids of items for whch descriptors should be built.
            Either item_indeces or item_ids should be provided. If both are
-           provided, item_indeces will be used. requested_property_types -
-           list of property types to be populated for each item. Currently
-           supported property types are: 'function') -> structure: parameter
-           "input_data" of type "ws_matrix_id" (A workspace ID that
-           references a Float2DMatrix wrapper data object. @id ws
-           KBaseFeatureValues.ExpressionMatrix
+           provided, item_indeces will be used. item_id_prefix - select items
+           which ids start with this prefix (case-insensitive, items go in
+           alphabetical order of ids), it is used only if neither
+           item_indeces nor item_ids are provided requested_property_types -
+           list of property types to be populated for each item of rows
+           (ignored for columns). Currently supported property types are:
+           'function' (default), 'type' and 'aliases' offset - number of
+           selected items to skip (optional, default 0) limit - maximum
+           number of descriptors to return (optional, all selected items by
+           default)) -> structure: parameter "input_data" of type
+           "ws_matrix_id" (A workspace ID that references a Float2DMatrix
+           wrapper data object. @id ws KBaseFeatureValues.ExpressionMatrix
            KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
            "item_indeces" of list of Long, parameter "item_ids" of list of
-           String, parameter "requested_property_types" of list of String
+           String, parameter "item_id_prefix" of String, parameter
+           "requested_property_types" of list of String, parameter "offset"
+           of Long, parameter "limit" of Long
         :returns: instance of list of type "ItemDescriptor" (Basic
            information about a particular item in a collection. index - index
            of the item id - id of the item name - name of the item
@@ -273,15 +372,23 @@ class KBaseFeatureValues(object):
            provided. If both are provided, item_indeces will be used.
            item_ids - ids of items for whch descriptors should be built.
            Either item_indeces or item_ids should be provided. If both are
-           provided, item_indeces will be used. requested_property_types -
-           list of property types to be populated for each item. Currently
-           supported property types are: 'function') -> structure: parameter
-           "input_data" of type "ws_matrix_id" (A workspace ID that
-           references a Float2DMatrix wrapper data object. @id ws
-           KBaseFeatureValues.ExpressionMatrix
+           provided, item_indeces will be used. item_id_prefix - select items
+           which ids start with this prefix (case-insensitive, items go in
+           alphabetical order of ids), it is used only if neither
+           item_indeces nor item_ids are provided requested_property_types -
+           list of property types to be populated for each item of rows
+           (ignored for columns). Currently supported property types are:
+           'function' (default), 'type' and 'aliases' offset - number of
+           selected items to skip (optional, default 0) limit - maximum
+           number of descriptors to return (optional, all selected items by
+           default)) -> structure: parameter "input_data" of type
+           "ws_matrix_id" (A workspace ID that references a Float2DMatrix
+           wrapper data object. @id ws KBaseFeatureValues.ExpressionMatrix
            KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
            "item_indeces" of list of Long, parameter "item_ids" of list of
-           String, parameter "requested_property_types" of list of String
+           String, parameter "item_id_prefix" of String, parameter
+           "requested_property_types" of list of String, parameter "offset"
+           of Long, parameter "limit" of Long
         :returns: instance of list of type "ItemDescriptor" (Basic
            information about a particular item in a collection. index - index
            of the item id - id of the item name - name of the item
@@ -861,6 +968,87 @@ class KBaseFeatureValues(object):
         return self._client.call_method('KBaseFeatureValues.get_submatrix_stat',
                                         [GetSubmatrixStatParams], self._service_ver, context)
 
+    def get_matrix_values_window(self, GetMatrixValuesWindowParams, context=None):
+        """
+        :param GetMatrixValuesWindowParams: instance of type
+           "GetMatrixValuesWindowParams" (Parameters to get a window of
+           values of matrix (used by heatmap viewers). input_data - reference
+           to the source matrix row_offset - position of the first row of
+           window in row ordering (default value = 0) row_count - number of
+           rows in window (default: all rows after row_offset) col_offset -
+           position of the first column of window (default value = 0)
+           col_count - number of columns in window (default: all columns
+           after col_offset) clusters_ref - optional reference to
+           FeatureClusters object built for the matrix, rows are ordered
+           according to it row_ordering - 'dendrogram' (leaf order of
+           feature_dendrogram) or 'clusters' (rows of the same cluster go
+           together), default is 'dendrogram' if FeatureClusters object has
+           dendrogram and 'clusters' otherwise. Rows which are not in
+           clusters go at the end.) -> structure: parameter "input_data" of
+           type "ws_matrix_id" (A workspace ID that references a
+           Float2DMatrix wrapper data object. @id ws
+           KBaseFeatureValues.ExpressionMatrix
+           KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
+           "row_offset" of Long, parameter "row_count" of Long, parameter
+           "col_offset" of Long, parameter "col_count" of Long, parameter
+           "clusters_ref" of type "ws_featureclusters_id" (The workspace ID
+           of a FeatureClusters data object. @id ws
+           KBaseFeatureValues.FeatureClusters), parameter "row_ordering" of
+           String
+        :returns: instance of type "MatrixValuesWindow" (Window of values of
+           matrix. rows_count - number of rows in the whole matrix
+           columns_count - number of columns in the whole matrix row_indeces
+           - indeces of rows of window in matrix column_indeces - indeces of
+           columns of window in matrix row_ids - ids of rows of window
+           column_ids - ids of columns of window shape - number of rows and
+           number of columns of window values - values of window in row-major
+           order (value of row i and column j is at position i * shape[1] +
+           j), missing values are null) -> structure: parameter "rows_count"
+           of Long, parameter "columns_count" of Long, parameter
+           "row_indeces" of list of Long, parameter "column_indeces" of list
+           of Long, parameter "row_ids" of list of String, parameter
+           "column_ids" of list of String, parameter "shape" of list of Long,
+           parameter "values" of list of Double
+        """
+        return self._client.call_method('KBaseFeatureValues.get_matrix_values_window',
+                                        [GetMatrixValuesWindowParams], self._service_ver, context)
+
+    def get_matrix_overview(self, GetMatrixOverviewParams, context=None):
+        """
+        :param GetMatrixOverviewParams: instance of type
+           "GetMatrixOverviewParams" (Parameters to get overview of matrix
+           fitting into heatmap of limited size. input_data - reference to
+           the source matrix width - maximum number of blocks of columns
+           (pixels of heatmap in horizontal direction) height - maximum
+           number of blocks of rows (pixels of heatmap in vertical
+           direction)) -> structure: parameter "input_data" of type
+           "ws_matrix_id" (A workspace ID that references a Float2DMatrix
+           wrapper data object. @id ws KBaseFeatureValues.ExpressionMatrix
+           KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter "width"
+           of Long, parameter "height" of Long
+        :returns: instance of type "MatrixOverview" (Overview of matrix made
+           of blocks of rows and columns (one level of multi-resolution
+           pyramid). rows_count - number of rows in the whole matrix
+           columns_count - number of columns in the whole matrix row_level -
+           each block is made of 2^row_level rows (last block can be smaller)
+           column_level - each block is made of 2^column_level columns (last
+           block can be smaller) shape - number of rows and number of columns
+           of blocks means - means of present values of blocks in row-major
+           order (null for blocks without values) mins - minimums of present
+           values of blocks in row-major order (null for blocks without
+           values) maxs - maximums of present values of blocks in row-major
+           order (null for blocks without values) missing_fractions -
+           fractions of missing values of blocks in row-major order) ->
+           structure: parameter "rows_count" of Long, parameter
+           "columns_count" of Long, parameter "row_level" of Long, parameter
+           "column_level" of Long, parameter "shape" of list of Long,
+           parameter "means" of list of Double, parameter "mins" of list of
+           Double, parameter "maxs" of list of Double, parameter
+           "missing_fractions" of list of Double
+        """
+        return self._client.call_method('KBaseFeatureValues.get_matrix_overview',
+                                        [GetMatrixOverviewParams], self._service_ver, context)
+
     def tsv_file_to_matrix(self, params, context=None):
         """
         :param params: instance of type "TsvFileToMatrixParams"
@@ -891,13 +1079,17 @@ class KBaseFeatureValues(object):
 
     def matrix_to_tsv_file(self, params, context=None):
         """
-        :param params: instance of type "MatrixToTsvFileParams" -> structure:
+        :param params: instance of type "MatrixToTsvFileParams" (format -
+           optional field, can be one of "TSV" or "BINARY" ("TSV" is default
+           value). "BINARY" is compact container with ids, float32/float64
+           values, missing-value bitmap and per-row stats.) -> structure:
            parameter "input_ref" of type "ws_matrix_id" (A workspace ID that
            references a Float2DMatrix wrapper data object. @id ws
            KBaseFeatureValues.ExpressionMatrix
            KBaseFeatureValues.SingleKnockoutFitnessMatrix), parameter
            "to_shock" of type "boolean" (Indicates true or false values,
-           false = 0, true = 1 @range [0,1]), parameter "file_path" of String
+           false = 0, true = 1 @range [0,1]), parameter "file_path" of
+           String, parameter "format" of String
         :returns: instance of type "MatrixToTsvFileOutput" -> structure:
            parameter "file_path" of String, parameter "shock_id" of String
         """
@@ -71,6 +71,19 @@ function KBaseFeatureValues(url, auth, auth_cb, timeout, async_job_check_time_ms
             [params], 1, _callback, _errorCallback);
     };
  
+     this.cluster_two_way = function (params, _callback, _errorCallback) {
+        if (typeof params === 'function')
+            throw 'Argument params can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "KBaseFeatureValues.cluster_two_way",
+            [params], 1, _callback, _errorCallback);
+    };
+ 
      this.clusters_from_dendrogram = function (params, _callback, _errorCallback) {
         if (typeof params === 'function')
             throw 'Argument params can not be a function';
@@ -107,7 +120,7 @@ function KBaseFeatureValues(url, auth, auth_cb, timeout, async_job_check_time_ms
         if (typeof arguments === 'function' && arguments.length > 1+2)
             throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
         return json_call_ajax(_url, "KBaseFeatureValues.validate_matrix",
-            [params], 0, _callback, _errorCallback);
+            [params], 1, _callback, _errorCallback);
     };
  
      this.correct_matrix = function (params, _callback, _errorCallback) {
@@ -123,6 +136,19 @@ function KBaseFeatureValues(url, auth, auth_cb, timeout, async_job_check_time_ms
             [params], 1, _callback, _errorCallback);
     };
  
+     this.filter_matrix = function (params, _callback, _errorCallback) {
+        if (typeof params === 'function')
+            throw 'Argument params can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "KBaseFeatureValues.filter_matrix",
+            [params], 1, _callback, _errorCallback);
+    };
+ 
      this.reconnect_matrix_to_genome = function (params, _callback, _errorCallback) {
         if (typeof params === 'function')
             throw 'Argument params can not be a function';
@@ -266,6 +292,32 @@ function KBaseFeatureValues(url, auth, auth_cb, timeout, async_job_check_time_ms
             [GetSubmatrixStatParams], 1, _callback, _errorCallback);
     };
  
+     this.get_matrix_values_window = function (GetMatrixValuesWindowParams, _callback, _errorCallback) {
+        if (typeof GetMatrixValuesWindowParams === 'function')
+            throw 'Argument GetMatrixValuesWindowParams can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "KBaseFeatureValues.get_matrix_values_window",
+            [GetMatrixValuesWindowParams], 1, _callback, _errorCallback);
+    };
+ 
+     this.get_matrix_overview = function (GetMatrixOverviewParams, _callback, _errorCallback) {
+        if (typeof GetMatrixOverviewParams === 'function')
+            throw 'Argument GetMatrixOverviewParams can not be a function';
+        if (_callback && typeof _callback !== 'function')
+            throw 'Argument _callback must be a function if defined';
+        if (_errorCallback && typeof _errorCallback !== 'function')
+            throw 'Argument _errorCallback must be a function if defined';
+        if (typeof arguments === 'function' && arguments.length > 1+2)
+            throw 'Too many arguments ('+arguments.length+' instead of '+(1+2)+')';
+        return json_call_ajax(_url, "KBaseFeatureValues.get_matrix_overview",
+            [GetMatrixOverviewParams], 1, _callback, _errorCallback);
+    };
+ 
      this.tsv_file_to_matrix = function (params, _callback, _errorCallback) {
         if (typeof params === 'function')
             throw 'Argument params can not be a function';
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "max_items",
     "input_data",
     "algorithm",
+    "dimension",
     "out_workspace",
     "out_clusterset_id"
 })
@@ -45,6 +46,8 @@ public class ClusterHierarchicalParams {
     private String inputData;
     @JsonProperty("algorithm")
     private String algorithm;
+    @JsonProperty("dimension")
+    private String dimension;
     @JsonProperty("out_workspace")
     private String outWorkspace;
     @JsonProperty("out_clusterset_id")
@@ -156,6 +159,21 @@ public class ClusterHierarchicalParams {
         return this;
     }
 
+    @JsonProperty("dimension")
+    public String getDimension() {
+        return dimension;
+    }
+
+    @JsonProperty("dimension")
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+
+    public ClusterHierarchicalParams withDimension(String dimension) {
+        this.dimension = dimension;
+        return this;
+    }
+
     @JsonProperty("out_workspace")
     public String getOutWorkspace() {
         return outWorkspace;
@@ -198,7 +216,7 @@ public class ClusterHierarchicalParams {
 
     @Override
     public String toString() {
-        return ((((((((((((((((((((("ClusterHierarchicalParams"+" [distanceMetric=")+ distanceMetric)+", linkageCriteria=")+ linkageCriteria)+", featureHeightCutoff=")+ featureHeightCutoff)+", conditionHeightCutoff=")+ conditionHeightCutoff)+", maxItems=")+ maxItems)+", inputData=")+ inputData)+", algorithm=")+ algorithm)+", outWorkspace=")+ outWorkspace)+", outClustersetId=")+ outClustersetId)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((((((((("ClusterHierarchicalParams"+" [distanceMetric=")+ distanceMetric)+", linkageCriteria=")+ linkageCriteria)+", featureHeightCutoff=")+ featureHeightCutoff)+", conditionHeightCutoff=")+ conditionHeightCutoff)+", maxItems=")+ maxItems)+", inputData=")+ inputData)+", algorithm=")+ algorithm)+", dimension=")+ dimension)+", outWorkspace=")+ outWorkspace)+", outClustersetId=")+ outClustersetId)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
@@ -25,6 +25,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "max_iter",
     "random_seed",
     "algorithm",
+    "dimension",
     "out_workspace",
     "out_clusterset_id"
 })
@@ -42,6 +43,8 @@ public class ClusterKMeansParams {
     private Long randomSeed;
     @JsonProperty("algorithm")
     private String algorithm;
+    @JsonProperty("dimension")
+    private String dimension;
     @JsonProperty("out_workspace")
     private String outWorkspace;
     @JsonProperty("out_clusterset_id")
@@ -138,6 +141,21 @@ public class ClusterKMeansParams {
         return this;
     }
 
+    @JsonProperty("dimension")
+    public String getDimension() {
+        return dimension;
+    }
+
+    @JsonProperty("dimension")
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+
+    public ClusterKMeansParams withDimension(String dimension) {
+        this.dimension = dimension;
+        return this;
+    }
+
     @JsonProperty("out_workspace")
     public String getOutWorkspace() {
         return outWorkspace;
@@ -180,7 +198,7 @@ public class ClusterKMeansParams {
 
     @Override
     public String toString() {
-        return ((((((((((((((((((("ClusterKMeansParams"+" [k=")+ k)+", inputData=")+ inputData)+", nStart=")+ nStart)+", maxIter=")+ maxIter)+", randomSeed=")+ randomSeed)+", algorithm=")+ algorithm)+", outWorkspace=")+ outWorkspace)+", outClustersetId=")+ outClustersetId)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((((((("ClusterKMeansParams"+" [k=")+ k)+", inputData=")+ inputData)+", nStart=")+ nStart)+", maxIter=")+ maxIter)+", randomSeed=")+ randomSeed)+", algorithm=")+ algorithm)+", dimension=")+ dimension)+", outWorkspace=")+ outWorkspace)+", outClustersetId=")+ outClustersetId)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
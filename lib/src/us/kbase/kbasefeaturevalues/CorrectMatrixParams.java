@@ -15,9 +15,15 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  * <p>Original spec-file type: CorrectMatrixParams</p>
  * <pre>
  * transform_type - type of matrix change (one of: add, multiply,
- *     normalize, missing, ?).
+ *     normalize, missing, missing_row_mean, missing_col_mean,
+ *     missing_knn, log2, log10, ln, row_mean_center,
+ *     row_median_center, row_zscore, col_mean_center,
+ *     col_median_center, col_zscore, quantile, ?), several types
+ *     can be chained in comma-separated list applied from left to
+ *     right (e.g. "log2,quantile,row_zscore").
  * transform_value - optional field defining volume of change if
- *     it's necessary for chosen transform_type.
+ *     it's necessary for chosen transform_type (number of neighbours
+ *     for missing_knn, default 10).
  * </pre>
  * 
  */
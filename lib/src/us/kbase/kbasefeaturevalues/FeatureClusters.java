@@ -21,6 +21,10 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  * condition_clusters - (optional) list of labeled condition clusters
  * feature_dendrogram - (optional) maybe output from hierchical clustering approaches
  * condition_dendogram - (optional) maybe output from hierchical clustering approaches
+ * feature_leaf_order - (optional) positions of features in order of leaves
+ *     of feature dendrogram
+ * condition_leaf_order - (optional) positions of conditions in order of
+ *     leaves of condition dendrogram
  * original_data - pointer to the original data used to make this cluster set
  * report - information collected during cluster construction.
  * @metadata ws original_data as source_data_ref
@@ -28,6 +32,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  * @metadata ws length(condition_clusters) as n_condition_clusters
  * @optional condition_clusters 
  * @optional feature_dendrogram condition_dendrogram
+ * @optional feature_leaf_order condition_leaf_order
  * @optional original_data report
  * </pre>
  * 
@@ -39,6 +44,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "condition_clusters",
     "feature_dendrogram",
     "condition_dendrogram",
+    "feature_leaf_order",
+    "condition_leaf_order",
     "original_data",
     "report"
 })
@@ -52,6 +59,10 @@ public class FeatureClusters {
     private String featureDendrogram;
     @JsonProperty("condition_dendrogram")
     private String conditionDendrogram;
+    @JsonProperty("feature_leaf_order")
+    private List<Long> featureLeafOrder;
+    @JsonProperty("condition_leaf_order")
+    private List<Long> conditionLeafOrder;
     @JsonProperty("original_data")
     private String originalData;
     /**
@@ -127,6 +138,36 @@ public class FeatureClusters {
         return this;
     }
 
+    @JsonProperty("feature_leaf_order")
+    public List<Long> getFeatureLeafOrder() {
+        return featureLeafOrder;
+    }
+
+    @JsonProperty("feature_leaf_order")
+    public void setFeatureLeafOrder(List<Long> featureLeafOrder) {
+        this.featureLeafOrder = featureLeafOrder;
+    }
+
+    public FeatureClusters withFeatureLeafOrder(List<Long> featureLeafOrder) {
+        this.featureLeafOrder = featureLeafOrder;
+        return this;
+    }
+
+    @JsonProperty("condition_leaf_order")
+    public List<Long> getConditionLeafOrder() {
+        return conditionLeafOrder;
+    }
+
+    @JsonProperty("condition_leaf_order")
+    public void setConditionLeafOrder(List<Long> conditionLeafOrder) {
+        this.conditionLeafOrder = conditionLeafOrder;
+    }
+
+    public FeatureClusters withConditionLeafOrder(List<Long> conditionLeafOrder) {
+        this.conditionLeafOrder = conditionLeafOrder;
+        return this;
+    }
+
     @JsonProperty("original_data")
     public String getOriginalData() {
         return originalData;
@@ -187,7 +228,7 @@ public class FeatureClusters {
 
     @Override
     public String toString() {
-        return ((((((((((((((("FeatureClusters"+" [featureClusters=")+ featureClusters)+", conditionClusters=")+ conditionClusters)+", featureDendrogram=")+ featureDendrogram)+", conditionDendrogram=")+ conditionDendrogram)+", originalData=")+ originalData)+", report=")+ report)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((((("FeatureClusters"+" [featureClusters=")+ featureClusters)+", conditionClusters=")+ conditionClusters)+", featureDendrogram=")+ featureDendrogram)+", conditionDendrogram=")+ conditionDendrogram)+", featureLeafOrder=")+ featureLeafOrder)+", conditionLeafOrder=")+ conditionLeafOrder)+", originalData=")+ originalData)+", report=")+ report)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
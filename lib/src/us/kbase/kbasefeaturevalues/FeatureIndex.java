@@ -0,0 +1,142 @@
+package us.kbase.kbasefeaturevalues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import kbasegenomes.Feature;
+import kbasegenomes.Genome;
+
+/**
+ * Index of genome features by their ids and aliases used to map matrix rows
+ * to features. Feature ids have priority over aliases, alias shared by several
+ * features points to the first of them in genome order (the same rules as
+ * in original two-pass mapping). Index is immutable, so it's built once per
+ * genome and shared between requests (see MatrixUtil.getFeatureIndex).
+ */
+public class FeatureIndex {
+    private static final int MIN_ROWS_PER_THREAD = 16384;
+
+    private final Map<String, String> idOrAliasToFeatureId;
+    private final Map<String, List<String>> ambiguousAliases;
+
+    private FeatureIndex(Map<String, String> idOrAliasToFeatureId,
+            Map<String, List<String>> ambiguousAliases) {
+        this.idOrAliasToFeatureId = idOrAliasToFeatureId;
+        this.ambiguousAliases = ambiguousAliases;
+    }
+
+    public static FeatureIndex build(Genome genome) {
+        List<Feature> features = genome.getFeatures() == null ?
+                new ArrayList<Feature>() : genome.getFeatures();
+        Map<String, String> index = new HashMap<String, String>(features.size() * 4);
+        for (Feature feature : features)
+            if (feature.getId() != null)
+                index.put(feature.getId(), feature.getId());
+        Map<String, List<String>> ambiguous = new LinkedHashMap<String, List<String>>();
+        for (Feature feature : features) {
+            String id = feature.getId();
+            if (id == null || feature.getAliases() == null)
+                continue;
+            for (String alias : feature.getAliases()) {
+                String prevId = index.get(alias);
+                if (prevId == null) {
+                    index.put(alias, id);
+                } else if (!prevId.equals(id) && !prevId.equals(alias)) {
+                    List<String> ids = ambiguous.get(alias);
+                    if (ids == null) {
+                        ids = new ArrayList<String>(Arrays.asList(prevId));
+                        ambiguous.put(alias, ids);
+                    }
+                    if (!ids.contains(id))
+                        ids.add(id);
+                }
+            }
+        }
+        return new FeatureIndex(index, ambiguous);
+    }
+
+    /**
+     * Returns id of feature with given id or alias or null if there is no
+     * such feature.
+     */
+    public String getFeatureId(String idOrAlias) {
+        return idOrAliasToFeatureId.get(idOrAlias);
+    }
+
+    /**
+     * Returns ids of all features having given alias if there are more than
+     * one of them (null otherwise).
+     */
+    public List<String> getAmbiguousFeatureIds(String alias) {
+        return ambiguousAliases.get(alias);
+    }
+
+    /**
+     * Maps row ids to feature ids. Rows which are not found in genome are not
+     * included. Large lists of rows are resolved in parallel.
+     * @param warnings optional list where messages about rows mapped through
+     * ambiguous aliases are added
+     */
+    public Map<String, String> map(final List<String> rowIds, List<String> warnings)
+            throws Exception {
+        final String[] featureIds = new String[rowIds.size()];
+        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(),
+                rowIds.size() / MIN_ROWS_PER_THREAD);
+        if (threadCount <= 1) {
+            resolve(rowIds, featureIds, 0, featureIds.length);
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            try {
+                List<Future<Void>> results = new ArrayList<Future<Void>>();
+                for (int i = 0; i < threadCount; i++) {
+                    final int start = (int)((long)featureIds.length * i / threadCount);
+                    final int end = (int)((long)featureIds.length * (i + 1) / threadCount);
+                    results.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            resolve(rowIds, featureIds, start, end);
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<Void> result : results) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException ex) {
+                        throw ex.getCause() instanceof Exception ?
+                                (Exception)ex.getCause() : ex;
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        Map<String, String> ret = new LinkedHashMap<String, String>();
+        for (int i = 0; i < featureIds.length; i++) {
+            String rowId = rowIds.get(i);
+            if (featureIds[i] == null || ret.containsKey(rowId))
+                continue;
+            ret.put(rowId, featureIds[i]);
+            List<String> ambiguousIds = warnings == null || ambiguousAliases.isEmpty() ? null :
+                ambiguousAliases.get(rowId);
+            if (ambiguousIds != null)
+                warnings.add("Row " + rowId + " matches alias of several features " +
+                        ambiguousIds + ", it's mapped to " + featureIds[i]);
+        }
+        return ret;
+    }
+
+    private void resolve(List<String> rowIds, String[] featureIds, int start, int end) {
+        for (int i = start; i < end; i++)
+            featureIds[i] = idOrAliasToFeatureId.get(rowIds.get(i));
+    }
+}
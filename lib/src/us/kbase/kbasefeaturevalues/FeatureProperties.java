@@ -0,0 +1,124 @@
+package us.kbase.kbasefeaturevalues;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import kbasegenomes.Feature;
+import kbasegenomes.Genome;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Properties of genome features used in row descriptors (name made of
+ * aliases and values of supported property types). Properties are kept in
+ * arrays indexed by position of feature, so one genome costs one map from
+ * feature id and a few string arrays. Instances are immutable and cached by
+ * resolved genome reference (see KBaseFeatureValuesImpl.getFeatureProperties).
+ */
+public class FeatureProperties {
+    public static final String FUNCTION = "function";
+    public static final String TYPE = "type";
+    public static final String ALIASES = "aliases";
+    public static final List<String> SUPPORTED_TYPES = Arrays.asList(FUNCTION, TYPE, ALIASES);
+    public static final List<String> DEFAULT_TYPES = Arrays.asList(FUNCTION);
+    /** Feature fields which should be loaded from genome to build this index. */
+    public static final List<String> FEATURE_FIELDS = Arrays.asList("id", "type", "function",
+            "aliases");
+
+    private final String genomeId;
+    private final String genomeName;
+    private final Map<String, Integer> featurePos;
+    private final String[] functions;
+    private final String[] types;
+    private final String[] aliases;
+
+    private FeatureProperties(String genomeId, String genomeName,
+            Map<String, Integer> featurePos, String[] functions, String[] types,
+            String[] aliases) {
+        this.genomeId = genomeId;
+        this.genomeName = genomeName;
+        this.featurePos = featurePos;
+        this.functions = functions;
+        this.types = types;
+        this.aliases = aliases;
+    }
+
+    public static FeatureProperties build(Genome genome) {
+        List<Feature> features = genome.getFeatures();
+        int size = features == null ? 0 : features.size();
+        Map<String, Integer> pos = new HashMap<String, Integer>(size * 2);
+        String[] functions = new String[size];
+        String[] types = new String[size];
+        String[] aliases = new String[size];
+        for (int i = 0; i < size; i++) {
+            Feature feature = features.get(i);
+            if (feature.getId() == null || pos.containsKey(feature.getId()))
+                continue;
+            pos.put(feature.getId(), i);
+            functions[i] = feature.getFunction();
+            types[i] = feature.getType();
+            aliases[i] = feature.getAliases() == null ? "" :
+                StringUtils.join(feature.getAliases(), "; ");
+        }
+        return new FeatureProperties(genome.getId(), genome.getScientificName(), pos,
+                functions, types, aliases);
+    }
+
+    /**
+     * Checks that all requested property types are supported.
+     */
+    public static void checkPropertyTypes(List<String> propertyTypes) {
+        for (String propertyType : propertyTypes)
+            if (!SUPPORTED_TYPES.contains(propertyType))
+                throw new IllegalStateException("Unsupported property type: " + propertyType +
+                        " (supported types are: " + StringUtils.join(SUPPORTED_TYPES, ", ") +
+                        ")");
+    }
+
+    public String getGenomeId() {
+        return genomeId;
+    }
+
+    public String getGenomeName() {
+        return genomeName;
+    }
+
+    public boolean contains(String featureId) {
+        return featureId != null && featurePos.containsKey(featureId);
+    }
+
+    /**
+     * Returns aliases of feature joined by "; " (empty string for unknown
+     * feature).
+     */
+    public String getName(String featureId) {
+        Integer i = featureId == null ? null : featurePos.get(featureId);
+        return i == null ? "" : aliases[i];
+    }
+
+    /**
+     * Returns values of requested property types for feature (missing values
+     * are empty strings), unknown feature gives empty map.
+     */
+    public Map<String, String> getProperties(String featureId, List<String> propertyTypes) {
+        Map<String, String> ret = new LinkedHashMap<String, String>();
+        Integer i = featureId == null ? null : featurePos.get(featureId);
+        if (i == null)
+            return ret;
+        for (String propertyType : propertyTypes) {
+            String value = null;
+            if (FUNCTION.equals(propertyType)) {
+                value = functions[i];
+            } else if (TYPE.equals(propertyType)) {
+                value = types[i];
+            } else if (ALIASES.equals(propertyType)) {
+                value = aliases[i];
+            }
+            ret.put(propertyType, value == null ? "" : value);
+        }
+        return ret;
+    }
+}
@@ -1,14 +1,22 @@
 package us.kbase.kbasefeaturevalues;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.math.linear.RealMatrix;
+import org.apache.commons.math.stat.StatUtils;
 import org.apache.commons.math.stat.correlation.PearsonsCorrelation;
 
+import us.kbase.kbasefeaturevalues.matrix.DistanceKernel;
+import us.kbase.kbasefeaturevalues.matrix.MatrixView;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+
 
 public class FloatMatrix2DUtil {
+	private static final int CORRELATION_BLOCK_DOUBLES = 16384;
 	
 	public static PairwiseComparison geRowstPairwiseComparison(FloatMatrix2D matrix, int[] rowIndeces, int[] columnIndeces){
 		double[][] submatrix = new double[columnIndeces.length][rowIndeces.length];
@@ -20,19 +28,6 @@ public class FloatMatrix2DUtil {
 		PearsonsCorrelation pc = new PearsonsCorrelation();
 		RealMatrix corMatrix = pc.computeCorrelationMatrix(submatrix);
 		
-//		Double[] avgs = new Double[rowIndeces.length];
-//		Double[] mins = new Double[rowIndeces.length];
-//		Double[] maxs = new Double[rowIndeces.length];
-//		Double[] stds = new Double[rowIndeces.length];
-//		
-//		for(int i = 0 ; i < rowIndeces.length; i++){
-//			double[] row = corMatrix.getRow(i);
-//			avgs[i] = StatUtils.mean(row);
-//			mins[i] = StatUtils.min(row);
-//			maxs[i] = StatUtils.max(row);
-//			stds[i] = StatUtils.variance(row);
-//		}
-		
 		List<List<Double>> comparisonValues = new ArrayList<List<Double>>(rowIndeces.length);
 		for(int i = 0 ; i < rowIndeces.length; i++){
 			List<Double> rowComparisonValues = new ArrayList<Double>(rowIndeces.length);
@@ -42,10 +37,35 @@ public class FloatMatrix2DUtil {
 			comparisonValues.add(rowComparisonValues);
 		}
 		
+		// Summaries are calculated on comparisons with other elements
+		Double[] avgs = new Double[rowIndeces.length];
+		Double[] mins = new Double[rowIndeces.length];
+		Double[] maxs = new Double[rowIndeces.length];
+		Double[] stds = new Double[rowIndeces.length];
+		for(int i = 0 ; i < rowIndeces.length; i++){
+			List<Double> others = new ArrayList<Double>();
+			for(int j = 0; j < rowIndeces.length; j++){
+				double value = corMatrix.getEntry(i, j);
+				if(j != i && !Double.isNaN(value)){
+					others.add(value);
+				}
+			}
+			if(others.size() > 0){
+				double[] row = ArrayUtils.toPrimitive(others.toArray(new Double[others.size()]));
+				avgs[i] = StatUtils.mean(row);
+				mins[i] = StatUtils.min(row);
+				maxs[i] = StatUtils.max(row);
+				stds[i] = row.length > 1 ? Math.sqrt(StatUtils.variance(row)) : null;
+			}
+		}
+		
 		PairwiseComparison pwComparison = new PairwiseComparison()
-			.withComparisonValues(comparisonValues);
-//			.withAvgs(Arrays.asList(avgs))
-//			.withAvgs(Arrays.asList(avgs))
+			.withIndeces(toListLong(rowIndeces))
+			.withComparisonValues(comparisonValues)
+			.withAvgs(Arrays.asList(avgs))
+			.withMins(Arrays.asList(mins))
+			.withMaxs(Arrays.asList(maxs))
+			.withStds(Arrays.asList(stds));
 				
 		return pwComparison;		
 	}
@@ -77,6 +97,216 @@ public class FloatMatrix2DUtil {
 	}
 	
 	
+	public static List<ItemStat> getRowsStat(PrimitiveMatrix matrix, List<Long> indecesFor, List<Long> indecesOn, boolean populateIndecesOn ){
+		PrimitiveRowIterator itFor = new PrimitiveRowIterator(matrix, indecesFor); 
+		PrimitiveColumnIterator itOn = new PrimitiveColumnIterator(matrix, indecesOn); 		
+		return getItemsStat(itFor, itOn, populateIndecesOn);
+	}
+
+	public static List<ItemStat> getColumnsStat(PrimitiveMatrix matrix, List<Long> indecesFor, List<Long> indecesOn, boolean populateIndecesOn ){
+		PrimitiveColumnIterator itFor = new PrimitiveColumnIterator(matrix, indecesFor); 
+		PrimitiveRowIterator itOn = new PrimitiveRowIterator(matrix, indecesOn); 		
+		return getItemsStat(itFor, itOn, populateIndecesOn);
+	}	
+	
+	public static ItemSetStat getRowsSetStat(PrimitiveMatrix matrix,
+			GetMatrixSetStatParams params) {
+		PrimitiveRowIterator itFor = new PrimitiveRowIterator(matrix, params.getItemIndecesFor()); 
+		PrimitiveColumnIterator itOn = new PrimitiveColumnIterator(matrix, params.getItemIndecesOn()); 		
+		return getItemsSetStat(itFor, itOn, params);
+	}
+
+	public static ItemSetStat getColumnsSetStat(PrimitiveMatrix matrix,
+			GetMatrixSetStatParams params) {
+		PrimitiveColumnIterator itFor = new PrimitiveColumnIterator(matrix, params.getItemIndecesFor()); 
+		PrimitiveRowIterator itOn = new PrimitiveRowIterator(matrix, params.getItemIndecesOn()); 		
+		return getItemsSetStat(itFor, itOn, params);
+	}
+	
+	public static PairwiseComparison geRowstPairwiseComparison(PrimitiveMatrix matrix, int[] rowIndeces, int[] columnIndeces){
+		return getPairwiseComparison(normalizeRows(MatrixView.of(matrix, rowIndeces, columnIndeces)), rowIndeces);
+	}
+	
+	/**
+	 * Pairwise Pearson correlation between columns (defined by columnIndeces) 
+	 * calculated on rows (defined by rowIndeces).
+	 */
+	public static PairwiseComparison getColumnsPairwiseComparison(PrimitiveMatrix matrix, int[] rowIndeces, int[] columnIndeces){
+		return getPairwiseComparison(normalizeColumns(MatrixView.of(matrix, rowIndeces, columnIndeces)), columnIndeces);
+	}
+	
+	/**
+	 * Pearson correlation between rows (defined by rowIndeces) calculated on columns 
+	 * (defined by columnIndeces). Same as PearsonsCorrelation from commons-math, rows 
+	 * with missing values lead to NaN correlations and diagonal is always 1. Values 
+	 * are accumulated in double independently of storage mode of the matrix.
+	 */
+	public static double[][] getRowsCorrelation(PrimitiveMatrix matrix, int[] rowIndeces, int[] columnIndeces){
+		return getRowsCorrelation(MatrixView.of(matrix, rowIndeces, columnIndeces));
+	}
+	
+	/**
+	 * Pearson correlation between all rows of matrix (which is usually a view 
+	 * of submatrix).
+	 */
+	public static double[][] getRowsCorrelation(PrimitiveMatrix matrix){
+		return correlate(normalizeRows(matrix), null);
+	}
+	
+	private static PairwiseComparison getPairwiseComparison(double[][] normVectors, int[] indeces){
+		int size = normVectors.length;
+		CorrelationSummary summary = new CorrelationSummary(size);
+		double[][] corMatrix = correlate(normVectors, summary);
+		List<List<Double>> comparisonValues = new ArrayList<List<Double>>(size);
+		for(int i = 0 ; i < size; i++){
+			comparisonValues.add(Arrays.asList(ArrayUtils.toObject(corMatrix[i])));
+		}
+		return new PairwiseComparison()
+			.withIndeces(toListLong(indeces))
+			.withComparisonValues(comparisonValues)
+			.withAvgs(summary.getAvgs())
+			.withMins(summary.getMins())
+			.withMaxs(summary.getMaxs())
+			.withStds(summary.getStds());
+	}
+	
+	/**
+	 * Rows of matrix centered and scaled to unit norm, so correlation is just 
+	 * a dot product (preparation is shared with Pearson distance kernel).
+	 */
+	private static double[][] normalizeRows(PrimitiveMatrix matrix){
+		return normalize(DistanceKernel.getRows(matrix));
+	}
+	
+	/**
+	 * The same as normalizeRows for columns, values are gathered row by row.
+	 */
+	private static double[][] normalizeColumns(PrimitiveMatrix matrix){
+		return normalize(DistanceKernel.getColumns(matrix));
+	}
+	
+	/**
+	 * Vectors with missing values are kept as is, so their correlations are 
+	 * NaN.
+	 */
+	private static double[][] normalize(double[][] vectors){
+		for(double[] vector : vectors){
+			DistanceKernel.normalize(vector);
+		}
+		return vectors;
+	}
+	
+	/**
+	 * Correlation matrix of normalized vectors. Lower triangle is calculated 
+	 * by square blocks of vectors fitting in cache together, every value is 
+	 * mirrored to upper triangle and (if summary is given) added to summaries 
+	 * of both vectors at once, so result is never scanned again.
+	 */
+	private static double[][] correlate(double[][] normVectors, CorrelationSummary summary){
+		int size = normVectors.length;
+		int length = size > 0 ? normVectors[0].length : 0;
+		int blockSize = Math.max(4, Math.min(256, CORRELATION_BLOCK_DOUBLES / Math.max(1, length)));
+		double[][] corMatrix = new double[size][size];
+		for(int iStart = 0; iStart < size; iStart += blockSize){
+			int iEnd = Math.min(size, iStart + blockSize);
+			for(int kStart = 0; kStart <= iStart; kStart += blockSize){
+				int kEnd = Math.min(size, kStart + blockSize);
+				for(int i = iStart; i < iEnd; i++){
+					double[] row1 = normVectors[i];
+					int kLast = Math.min(kEnd, i);
+					for(int k = kStart; k < kLast; k++){
+						double dot = DistanceKernel.dot(row1, normVectors[k]);
+						corMatrix[i][k] = dot;
+						corMatrix[k][i] = dot;
+						if(summary != null){
+							summary.add(i, dot);
+							summary.add(k, dot);
+						}
+					}
+				}
+			}
+			for(int i = iStart; i < iEnd; i++){
+				corMatrix[i][i] = 1.0;
+			}
+		}
+		return corMatrix;
+	}
+	
+	/**
+	 * Mean, min, max and standard deviation of correlations of every element 
+	 * with other elements (diagonal and NaN values are skipped), accumulated 
+	 * with Welford updates as correlations are produced.
+	 */
+	private static class CorrelationSummary {
+		private final int[] counts;
+		private final double[] means;
+		private final double[] m2;
+		private final double[] mins;
+		private final double[] maxs;
+		
+		CorrelationSummary(int size){
+			counts = new int[size];
+			means = new double[size];
+			m2 = new double[size];
+			mins = new double[size];
+			maxs = new double[size];
+			Arrays.fill(mins, Double.POSITIVE_INFINITY);
+			Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+		}
+		
+		void add(int i, double value){
+			if(Double.isNaN(value)){
+				return;
+			}
+			int n = ++counts[i];
+			double delta = value - means[i];
+			means[i] += delta / n;
+			m2[i] += delta * (value - means[i]);
+			if(value < mins[i]){
+				mins[i] = value;
+			}
+			if(value > maxs[i]){
+				maxs[i] = value;
+			}
+		}
+		
+		List<Double> getAvgs(){
+			return toList(means, 1);
+		}
+		
+		List<Double> getMins(){
+			return toList(mins, 1);
+		}
+		
+		List<Double> getMaxs(){
+			return toList(maxs, 1);
+		}
+		
+		List<Double> getStds(){
+			double[] stds = new double[counts.length];
+			for(int i = 0; i < stds.length; i++){
+				stds[i] = counts[i] > 1 ? Math.sqrt(m2[i] / (counts[i] - 1)) : 0;
+			}
+			return toList(stds, 2);
+		}
+		
+		private List<Double> toList(double[] values, int minCount){
+			List<Double> ret = new ArrayList<Double>(values.length);
+			for(int i = 0; i < values.length; i++){
+				ret.add(counts[i] >= minCount ? values[i] : null);
+			}
+			return ret;
+		}
+	}
+	
+	private static List<Long> toListLong(int[] values){
+		List<Long> ll = new ArrayList<Long>(values.length);
+		for(int val: values){
+			ll.add((long) val);
+		}
+		return ll;
+	}
+	
 	private static List<ItemStat> getItemsStat(ItemIterator itFor, ItemIterator itOn, boolean populateIndecesOn ){
 		List<ItemStat> stats = new ArrayList<ItemStat>();
 		
@@ -205,17 +435,17 @@ public class FloatMatrix2DUtil {
 		int i;
 		int size;
 		List<Long> indeces;
-		FloatMatrix2D matrix;
-		public ItemIterator(FloatMatrix2D matrix, List<Long> indeces){
-			this.matrix = matrix;
+		public ItemIterator(List<Long> indeces, int itemCount){
 			this.indeces = indeces;
-			size = size();
+			size = indeces != null ? indeces.size() : itemCount;
 			init();
 		}
 		public List<Long> indeces() {
 			return indeces;
 		}
-		public abstract int size();
+		public int size(){
+			return size;
+		}
 		public abstract double value(int indexOn);
 		
 		public void init(){
@@ -233,40 +463,60 @@ public class FloatMatrix2DUtil {
 	}
 	
 	static class RowIterator extends ItemIterator{
+		FloatMatrix2D matrix;
 
 		public RowIterator(FloatMatrix2D matrix, List<Long> indeces) {
-			super(matrix, indeces);
-		}
-
-		@Override
-		public int size() {
-			return indeces != null ? indeces.size() : matrix.getRowIds().size();			
+			super(indeces, matrix.getRowIds().size());
+			this.matrix = matrix;
 		}
 
 		@Override
 		public double value(int indexOn) {
-			int indexFor = indeces != null ? indeces.get(i).intValue() : i;
-			Double value =  matrix.getValues().get(indexFor).get(indexOn);
+			Double value =  matrix.getValues().get(index()).get(indexOn);
 			return value == null ? Double.NaN : value.doubleValue();
 		}		
 	}
 	
 	static class ColumnIterator extends ItemIterator{
+		FloatMatrix2D matrix;
 
 		public ColumnIterator(FloatMatrix2D matrix, List<Long> indeces) {
-			super(matrix, indeces);
+			super(indeces, matrix.getColIds().size());
+			this.matrix = matrix;
 		}
 
 		@Override
-		public int size() {
-			return indeces != null ? indeces.size() : matrix.getColIds().size();			
+		public double value(int indexOn) {
+			Double value =  matrix.getValues().get(indexOn).get(index());
+			return value == null ? Double.NaN : value.doubleValue();
+		}		
+	}	
+	
+	static class PrimitiveRowIterator extends ItemIterator{
+		PrimitiveMatrix matrix;
+
+		public PrimitiveRowIterator(PrimitiveMatrix matrix, List<Long> indeces) {
+			super(indeces, matrix.getRowCount());
+			this.matrix = matrix;
 		}
 
 		@Override
 		public double value(int indexOn) {
-			int indexFor = indeces != null ? indeces.get(i).intValue() : i;
-			Double value =  matrix.getValues().get(indexOn).get(indexFor);
-			return value == null ? Double.NaN : value.doubleValue();
+			return matrix.get(index(), indexOn);
+		}		
+	}
+	
+	static class PrimitiveColumnIterator extends ItemIterator{
+		PrimitiveMatrix matrix;
+
+		public PrimitiveColumnIterator(PrimitiveMatrix matrix, List<Long> indeces) {
+			super(indeces, matrix.getColCount());
+			this.matrix = matrix;
+		}
+
+		@Override
+		public double value(int indexOn) {
+			return matrix.get(indexOn, index());
 		}		
 	}	
 	
@@ -274,6 +524,106 @@ public class FloatMatrix2DUtil {
 		return value != null && value == 1;
 	}
 
+	public static List<List<Double>> getSubmatrixValues(PrimitiveMatrix matrix, int[] rowIndeces, int[] colIndeces) {
+		PrimitiveMatrix view = MatrixView.of(matrix, rowIndeces, colIndeces);
+		int colCount = view.getColCount();
+		List<List<Double>> values = new ArrayList<List<Double>>(view.getRowCount());
+		double[] buffer = null;
+		for(int i = 0 ; i < view.getRowCount(); i++){
+			List<Double> rowValues = new ArrayList<Double>(colCount);
+			buffer = view.getRow(i, buffer);
+			for(int j = 0 ; j < colCount; j++){
+				double value = buffer[j];
+				rowValues.add( Double.isNaN(value) ? null : value );
+			}
+			values.add(rowValues);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns values of window in row-major order as flat list backed by
+	 * primitive array (values are boxed only while list is serialized, NaN is
+	 * returned as null). Window is read through view, so narrow windows of 
+	 * wide matrices are read cell by cell, others row by row.
+	 */
+	public static List<Double> getWindowValues(PrimitiveMatrix matrix, int[] rowIndeces, int[] colIndeces) {
+		PrimitiveMatrix view = MatrixView.of(matrix, rowIndeces, colIndeces);
+		int colCount = colIndeces.length;
+		double[] values = new double[rowIndeces.length * colCount];
+		double[] buffer = null;
+		for(int i = 0 ; i < rowIndeces.length; i++){
+			buffer = view.getRow(i, buffer);
+			System.arraycopy(buffer, 0, values, i * colCount, colCount);
+		}
+		return toDoubleList(values);
+	}
+
+	/**
+	 * Wraps primitive array into read-only list where NaN is shown as null.
+	 */
+	public static List<Double> toDoubleList(double[] values) {
+		return new DoubleArrayList(values);
+	}
+
+	/**
+	 * Read-only list view of primitive array where NaN is shown as null.
+	 */
+	private static class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+		private final double[] values;
+
+		DoubleArrayList(double[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Double get(int index) {
+			double value = values[index];
+			return Double.isNaN(value) ? null : value;
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+	}
+
+	/**
+	 * Returns matrix with given ids which values are read-only list views of 
+	 * rows of primitive matrix, so no boxed values are created until rows are 
+	 * read (e.g. during serialization).
+	 */
+	public static FloatMatrix2D asFloatMatrix2D(List<String> rowIds, List<String> colIds, 
+			PrimitiveMatrix values) {
+		return new FloatMatrix2D().withRowIds(rowIds).withColIds(colIds)
+				.withValues(new RowList(values));
+	}
+
+	/**
+	 * List of rows of primitive matrix, every row is copied from matrix when
+	 * it's requested.
+	 */
+	private static class RowList extends AbstractList<List<Double>> implements RandomAccess {
+		private final PrimitiveMatrix values;
+
+		RowList(PrimitiveMatrix values) {
+			this.values = values;
+		}
+
+		@Override
+		public List<Double> get(int index) {
+			if (index < 0 || index >= values.getRowCount())
+				throw new IndexOutOfBoundsException("Index: " + index + ", size: " + 
+						values.getRowCount());
+			return new DoubleArrayList(values.getRow(index, null));
+		}
+
+		@Override
+		public int size() {
+			return values.getRowCount();
+		}
+	}
+
 	public static List<List<Double>> getSubmatrixValues(FloatMatrix2D matrix, int[] rowIndeces, int[] colIndeces) {
 		List<List<Double>> values = new ArrayList<List<Double>>(rowIndeces.length);
 		List<List<Double>> mtxValues = matrix.getValues();
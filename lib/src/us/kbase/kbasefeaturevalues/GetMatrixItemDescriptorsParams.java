@@ -19,7 +19,10 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  * input_data - worskapce reference to the ExpressionMatrix object (later we should allow to work with other Float2DMatrix-like matrices, e.g. fitness)
  * item_indeces - indeces of items for whch descriptors should be built. Either item_indeces or item_ids should be provided. If both are provided, item_indeces will be used.
  * item_ids - ids of items for whch descriptors should be built. Either item_indeces or item_ids should be provided. If both are provided, item_indeces will be used.
- * requested_property_types - list of property types to be populated for each item. Currently supported property types are: 'function'
+ * item_id_prefix - select items which ids start with this prefix (case-insensitive, items go in alphabetical order of ids), it is used only if neither item_indeces nor item_ids are provided
+ * requested_property_types - list of property types to be populated for each item of rows (ignored for columns). Currently supported property types are: 'function' (default), 'type' and 'aliases'
+ * offset - number of selected items to skip (optional, default 0)
+ * limit - maximum number of descriptors to return (optional, all selected items by default)
  * </pre>
  * 
  */
@@ -29,7 +32,10 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "input_data",
     "item_indeces",
     "item_ids",
-    "requested_property_types"
+    "item_id_prefix",
+    "requested_property_types",
+    "offset",
+    "limit"
 })
 public class GetMatrixItemDescriptorsParams {
 
@@ -39,8 +45,14 @@ public class GetMatrixItemDescriptorsParams {
     private List<Long> itemIndeces;
     @JsonProperty("item_ids")
     private List<String> itemIds;
+    @JsonProperty("item_id_prefix")
+    private java.lang.String itemIdPrefix;
     @JsonProperty("requested_property_types")
     private List<String> requestedPropertyTypes;
+    @JsonProperty("offset")
+    private Long offset;
+    @JsonProperty("limit")
+    private Long limit;
     private Map<java.lang.String, Object> additionalProperties = new HashMap<java.lang.String, Object>();
 
     @JsonProperty("input_data")
@@ -88,6 +100,21 @@ public class GetMatrixItemDescriptorsParams {
         return this;
     }
 
+    @JsonProperty("item_id_prefix")
+    public java.lang.String getItemIdPrefix() {
+        return itemIdPrefix;
+    }
+
+    @JsonProperty("item_id_prefix")
+    public void setItemIdPrefix(java.lang.String itemIdPrefix) {
+        this.itemIdPrefix = itemIdPrefix;
+    }
+
+    public GetMatrixItemDescriptorsParams withItemIdPrefix(java.lang.String itemIdPrefix) {
+        this.itemIdPrefix = itemIdPrefix;
+        return this;
+    }
+
     @JsonProperty("requested_property_types")
     public List<String> getRequestedPropertyTypes() {
         return requestedPropertyTypes;
@@ -103,6 +130,36 @@ public class GetMatrixItemDescriptorsParams {
         return this;
     }
 
+    @JsonProperty("offset")
+    public Long getOffset() {
+        return offset;
+    }
+
+    @JsonProperty("offset")
+    public void setOffset(Long offset) {
+        this.offset = offset;
+    }
+
+    public GetMatrixItemDescriptorsParams withOffset(Long offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    @JsonProperty("limit")
+    public Long getLimit() {
+        return limit;
+    }
+
+    @JsonProperty("limit")
+    public void setLimit(Long limit) {
+        this.limit = limit;
+    }
+
+    public GetMatrixItemDescriptorsParams withLimit(Long limit) {
+        this.limit = limit;
+        return this;
+    }
+
     @JsonAnyGetter
     public Map<java.lang.String, Object> getAdditionalProperties() {
         return this.additionalProperties;
@@ -115,7 +172,7 @@ public class GetMatrixItemDescriptorsParams {
 
     @Override
     public java.lang.String toString() {
-        return ((((((((((("GetMatrixItemDescriptorsParams"+" [inputData=")+ inputData)+", itemIndeces=")+ itemIndeces)+", itemIds=")+ itemIds)+", requestedPropertyTypes=")+ requestedPropertyTypes)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((("GetMatrixItemDescriptorsParams"+" [inputData=")+ inputData)+", itemIndeces=")+ itemIndeces)+", itemIds=")+ itemIds)+", itemIdPrefix=")+ itemIdPrefix)+", requestedPropertyTypes=")+ requestedPropertyTypes)+", offset=")+ offset)+", limit=")+ limit)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
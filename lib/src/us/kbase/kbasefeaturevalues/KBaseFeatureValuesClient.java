@@ -211,7 +211,9 @@ public class KBaseFeatureValuesClient {
     /**
      * <p>Original spec-file function name: cluster_k_means</p>
      * <pre>
-     * Clusters features by K-means clustering.
+     * Clusters features by K-means clustering. If dimension is conditions
+     * (default is features) conditions are clustered instead and stored as
+     * condition_clusters.
      * </pre>
      * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ClusterKMeansParams ClusterKMeansParams}
      * @return   parameter "workspace_ref" of String
@@ -229,7 +231,17 @@ public class KBaseFeatureValuesClient {
     /**
      * <p>Original spec-file function name: cluster_hierarchical</p>
      * <pre>
-     * Clusters features by hierarchical clustering.
+     * Clusters features by hierarchical clustering. If dimension is conditions
+     * (default is features) conditions are clustered instead using
+     * condition_height_cutoff and stored as condition_clusters and
+     * condition_dendrogram.
+     * distance_metric is one of pearson (default), abs_pearson, spearman,
+     * cosine, euclidean or manhattan, linkage_criteria is complete (default),
+     * average or single. feature_height_cutoff (condition_height_cutoff for
+     * conditions) is height relative to the root at which dendrogram is cut
+     * into clusters (default is 1, one cluster). If max_items is set then only
+     * this number of rows with the highest variance is clustered. algorithm is
+     * hclust (default) or flashClust, both give the same tree.
      * </pre>
      * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ClusterHierarchicalParams ClusterHierarchicalParams}
      * @return   parameter "workspace_ref" of String
@@ -244,6 +256,26 @@ public class KBaseFeatureValuesClient {
         return res.get(0);
     }
 
+    /**
+     * <p>Original spec-file function name: cluster_two_way</p>
+     * <pre>
+     * Clusters both features and conditions by hierarchical clustering. Matrix
+     * is loaded once and two clusterings are made concurrently, both
+     * dendrograms and their leaf orders are stored in FeatureClusters.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ClusterTwoWayParams ClusterTwoWayParams}
+     * @return   parameter "workspace_ref" of String
+     * @throws IOException if an IO exception occurs
+     * @throws JsonClientException if a JSON RPC exception occurs
+     */
+    public String clusterTwoWay(ClusterTwoWayParams params, RpcContext... jsonRpcContext) throws IOException, JsonClientException {
+        List<Object> args = new ArrayList<Object>();
+        args.add(params);
+        TypeReference<List<String>> retType = new TypeReference<List<String>>() {};
+        List<String> res = caller.jsonrpcCall("KBaseFeatureValues.cluster_two_way", args, retType, true, true, jsonRpcContext, this.serviceVersion);
+        return res.get(0);
+    }
+
     /**
      * <p>Original spec-file function name: clusters_from_dendrogram</p>
      * <pre>
@@ -285,16 +317,21 @@ public class KBaseFeatureValuesClient {
     /**
      * <p>Original spec-file function name: validate_matrix</p>
      * <pre>
+     * Checks matrix in one pass over its values (ids, shape, missing and
+     * non-finite values, feature mapping and declared type/scale) and
+     * returns report describing found problems.
      * </pre>
      * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ValidateMatrixParams ValidateMatrixParams}
+     * @return   parameter "report" of type {@link us.kbase.kbasefeaturevalues.AnalysisReport AnalysisReport}
      * @throws IOException if an IO exception occurs
      * @throws JsonClientException if a JSON RPC exception occurs
      */
-    public void validateMatrix(ValidateMatrixParams params, RpcContext... jsonRpcContext) throws IOException, JsonClientException {
+    public AnalysisReport validateMatrix(ValidateMatrixParams params, RpcContext... jsonRpcContext) throws IOException, JsonClientException {
         List<Object> args = new ArrayList<Object>();
         args.add(params);
-        TypeReference<Object> retType = new TypeReference<Object>() {};
-        caller.jsonrpcCall("KBaseFeatureValues.validate_matrix", args, retType, false, false, jsonRpcContext, this.serviceVersion);
+        TypeReference<List<AnalysisReport>> retType = new TypeReference<List<AnalysisReport>>() {};
+        List<AnalysisReport> res = caller.jsonrpcCall("KBaseFeatureValues.validate_matrix", args, retType, true, false, jsonRpcContext, this.serviceVersion);
+        return res.get(0);
     }
 
     /**
@@ -314,6 +351,25 @@ public class KBaseFeatureValuesClient {
         return res.get(0);
     }
 
+    /**
+     * <p>Original spec-file function name: filter_matrix</p>
+     * <pre>
+     * Selects rows of matrix by variance, missing values, fold change and
+     * mean and saves them as new matrix object of the same type.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.FilterMatrixParams FilterMatrixParams}
+     * @return   parameter "workspace_ref" of String
+     * @throws IOException if an IO exception occurs
+     * @throws JsonClientException if a JSON RPC exception occurs
+     */
+    public String filterMatrix(FilterMatrixParams params, RpcContext... jsonRpcContext) throws IOException, JsonClientException {
+        List<Object> args = new ArrayList<Object>();
+        args.add(params);
+        TypeReference<List<String>> retType = new TypeReference<List<String>>() {};
+        List<String> res = caller.jsonrpcCall("KBaseFeatureValues.filter_matrix", args, retType, true, true, jsonRpcContext, this.serviceVersion);
+        return res.get(0);
+    }
+
     /**
      * <p>Original spec-file function name: reconnect_matrix_to_genome</p>
      * <pre>
@@ -501,6 +557,40 @@ public class KBaseFeatureValuesClient {
         return res.get(0);
     }
 
+    /**
+     * <p>Original spec-file function name: get_matrix_values_window</p>
+     * <pre>
+     * </pre>
+     * @param   arg1   instance of type {@link us.kbase.kbasefeaturevalues.GetMatrixValuesWindowParams GetMatrixValuesWindowParams}
+     * @return   instance of type {@link us.kbase.kbasefeaturevalues.MatrixValuesWindow MatrixValuesWindow}
+     * @throws IOException if an IO exception occurs
+     * @throws JsonClientException if a JSON RPC exception occurs
+     */
+    public MatrixValuesWindow getMatrixValuesWindow(GetMatrixValuesWindowParams arg1, RpcContext... jsonRpcContext) throws IOException, JsonClientException {
+        List<Object> args = new ArrayList<Object>();
+        args.add(arg1);
+        TypeReference<List<MatrixValuesWindow>> retType = new TypeReference<List<MatrixValuesWindow>>() {};
+        List<MatrixValuesWindow> res = caller.jsonrpcCall("KBaseFeatureValues.get_matrix_values_window", args, retType, true, true, jsonRpcContext, this.serviceVersion);
+        return res.get(0);
+    }
+
+    /**
+     * <p>Original spec-file function name: get_matrix_overview</p>
+     * <pre>
+     * </pre>
+     * @param   arg1   instance of type {@link us.kbase.kbasefeaturevalues.GetMatrixOverviewParams GetMatrixOverviewParams}
+     * @return   instance of type {@link us.kbase.kbasefeaturevalues.MatrixOverview MatrixOverview}
+     * @throws IOException if an IO exception occurs
+     * @throws JsonClientException if a JSON RPC exception occurs
+     */
+    public MatrixOverview getMatrixOverview(GetMatrixOverviewParams arg1, RpcContext... jsonRpcContext) throws IOException, JsonClientException {
+        List<Object> args = new ArrayList<Object>();
+        args.add(arg1);
+        TypeReference<List<MatrixOverview>> retType = new TypeReference<List<MatrixOverview>>() {};
+        List<MatrixOverview> res = caller.jsonrpcCall("KBaseFeatureValues.get_matrix_overview", args, retType, true, true, jsonRpcContext, this.serviceVersion);
+        return res.get(0);
+    }
+
     /**
      * <p>Original spec-file function name: tsv_file_to_matrix</p>
      * <pre>
@@ -6,17 +6,19 @@ import genomeannotationapi.GenomeSelectorV1;
 import genomeannotationapi.GetGenomeParamsV1;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +41,23 @@ import us.kbase.common.service.Tuple11;
 import us.kbase.common.service.UObject;
 import us.kbase.kbasefeaturevalues.transform.ExpressionDownloader;
 import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+import us.kbase.kbasefeaturevalues.matrix.Dendrogram;
+import us.kbase.kbasefeaturevalues.matrix.ClusterQualities;
+import us.kbase.kbasefeaturevalues.matrix.DistanceKernel;
+import us.kbase.kbasefeaturevalues.matrix.HierarchicalClustering;
+import us.kbase.kbasefeaturevalues.matrix.IdIndex;
+import us.kbase.kbasefeaturevalues.matrix.MatrixCache;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFactory;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFile;
+import us.kbase.kbasefeaturevalues.matrix.MatrixNormalizer;
+import us.kbase.kbasefeaturevalues.matrix.MatrixPyramid;
+import us.kbase.kbasefeaturevalues.matrix.MatrixStreamReader;
+import us.kbase.kbasefeaturevalues.matrix.MatrixSummary;
+import us.kbase.kbasefeaturevalues.matrix.MatrixView;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.RowFilter;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
 import us.kbase.kbasefeaturevalues.transform.FeatureClustersDownloader;
 import us.kbase.workspace.GetObjects2Params;
 import us.kbase.workspace.ObjectData;
@@ -67,6 +86,53 @@ public class KBaseFeatureValuesImpl {
     private WorkspaceClient wsClient = null;
     private String srvWizUrl = null;
     
+    private static final int FEATURE_PROPERTIES_CACHE_SIZE = 8;
+    private static final Map<String, FeatureProperties> featurePropertiesCache = 
+            new LinkedHashMap<String, FeatureProperties>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FeatureProperties> eldest) {
+            return size() > FEATURE_PROPERTIES_CACHE_SIZE;
+        }
+    };
+    
+    private static final int ROW_ORDERING_CACHE_SIZE = 16;
+    private static final Map<String, int[]> rowOrderingCache = 
+            new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            return size() > ROW_ORDERING_CACHE_SIZE;
+        }
+    };
+    
+    private static final int ID_INDEX_CACHE_SIZE = 16;
+    private static final Map<String, IdIndex> idIndexCache = 
+            new LinkedHashMap<String, IdIndex>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IdIndex> eldest) {
+            return size() > ID_INDEX_CACHE_SIZE;
+        }
+    };
+    
+    private static final Map<String, MatrixCache> matrixCaches = 
+            new HashMap<String, MatrixCache>();
+    
+    private static final int PYRAMID_CACHE_SIZE = 4;
+    private static final Map<String, MatrixPyramid> pyramidCache = 
+            new LinkedHashMap<String, MatrixPyramid>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MatrixPyramid> eldest) {
+            return size() > PYRAMID_CACHE_SIZE;
+        }
+    };
+    
     public KBaseFeatureValuesImpl(String jobId, AuthToken token, Map<String, String> config,
             File workDir) throws Exception {
         this.jobId = jobId;
@@ -103,6 +169,22 @@ public class KBaseFeatureValuesImpl {
         return mathClient;
     }
     
+    public StorageMode getStorageMode() {
+        return StorageMode.fromConfig(config.get(
+                KBaseFeatureValuesServer.CONFIG_PARAM_MATRIX_STORAGE));
+    }
+    
+    public MatrixFactory getMatrixFactory() {
+        return getMatrixFactory(getStorageMode());
+    }
+    
+    public MatrixFactory getMatrixFactory(StorageMode mode) {
+        String minSize = config.get(KBaseFeatureValuesServer.CONFIG_PARAM_MATRIX_OFFHEAP_MIN_SIZE);
+        if (minSize == null || minSize.trim().isEmpty())
+            return new MatrixFactory(mode);
+        return new MatrixFactory(mode, getScratchDir(), Long.parseLong(minSize.trim()));
+    }
+    
     public String getJobId() {
         return jobId;
     }
@@ -155,7 +237,16 @@ public class KBaseFeatureValuesImpl {
         ObjectData objData = getWsClient().getObjects2(new GetObjects2Params().withObjects(
                 Arrays.asList(new ObjectSpecification().withRef(params.getInputData()))))
                 .getData().get(0);
-        BioMatrix matrix = objData.getData().asClassInstance(BioMatrix.class);
+        // Values go straight into primitive matrix (transposed one for 
+        // conditions), math service gets rows boxed one by one as they are sent
+        StreamedMatrix<BioMatrix> streamed = MatrixStreamReader.read(
+                objData.getData().getPlacedStream(), BioMatrix.class, getMatrixFactory());
+        FloatMatrix2D ids = streamed.getObject().getData();
+        boolean conditions = isConditionDimension(params.getDimension());
+        FloatMatrix2D data = conditions ? FloatMatrix2DUtil.asFloatMatrix2D(ids.getColIds(),
+                ids.getRowIds(), streamed.getValues().transpose(getMatrixFactory())) :
+                    FloatMatrix2DUtil.asFloatMatrix2D(ids.getRowIds(), ids.getColIds(),
+                            streamed.getValues());
         ClusterServiceLocalClient mathClient = getMathClient();
         ClusterResults res = null;
         if (params.getAlgorithm() != null && params.getAlgorithm().equals("Python Scikit-learn")) {
@@ -163,18 +254,18 @@ public class KBaseFeatureValuesImpl {
             String binPath = config.get(KBaseFeatureValuesServer.CONFIG_PARAM_CLIENT_BIN_DIR);
             if (binPath != null)
                 pyClient.setBinDir(new File(binPath));
-            res = pyClient.clusterKMeans(matrix.getData(), params.getK(), null, null, null, null);
+            res = pyClient.clusterKMeans(data, params.getK(), null, null, null, null);
             List<Long> clusterLabels = res.getClusterLabels();
             for (int pos = 0; pos < clusterLabels.size(); pos++)
                 clusterLabels.set(pos, 1 + (long)clusterLabels.get(pos));
-            res = mathClient.calcClusterQualities(matrix.getData(), clusterLabels);
+            res = mathClient.calcClusterQualities(data, clusterLabels);
         } else {
-            res = mathClient.clusterKMeans(matrix.getData(), params.getK(), 
+            res = mathClient.clusterKMeans(data, params.getK(), 
                     params.getNStart(), params.getMaxIter(), params.getRandomSeed(),
                     params.getAlgorithm());
         }
         FeatureClusters toSave = new FeatureClusters().withOriginalData(params.getInputData());
-        toSave.withFeatureClusters(clustersFromLabels(matrix.getData(), res));
+        setClusters(toSave, data, res, conditions);
         provenance.get(0).withDescription("K-Means clustering method")
                 .withInputWsObjects(Arrays.asList(params.getInputData()));
 
@@ -187,6 +278,34 @@ public class KBaseFeatureValuesImpl {
         return toWsId(getInfo);
     }
 
+    /**
+     * Returns true if conditions (columns of matrix) are clustered rather than
+     * features (rows).
+     */
+    private static boolean isConditionDimension(String dimension) {
+        if (dimension == null || dimension.equals("features"))
+            return false;
+        if (dimension.equals("conditions"))
+            return true;
+        throw new IllegalStateException("Unsupported clustering dimension: " + dimension);
+    }
+
+    /**
+     * Stores clusters and dendrogram as feature or condition ones, data is
+     * the matrix which was clustered (transposed one for conditions).
+     */
+    private static void setClusters(FeatureClusters toSave, FloatMatrix2D data, 
+            ClusterResults res, boolean conditions) {
+        if (conditions) {
+            toSave.withFeatureClusters(new ArrayList<LabeledCluster>())
+                    .withConditionClusters(clustersFromLabels(data, res))
+                    .withConditionDendrogram(res.getDendrogram());
+        } else {
+            toSave.withFeatureClusters(clustersFromLabels(data, res))
+                    .withFeatureDendrogram(res.getDendrogram());
+        }
+    }
+
     public static List<LabeledCluster> clustersFromLabels(FloatMatrix2D matrixData, ClusterResults res) {
         Map<Long, LabeledCluster> labelToCluster = new LinkedHashMap<Long, LabeledCluster>();
         List<LabeledCluster> featureClusters = new ArrayList<LabeledCluster>();
@@ -219,22 +338,71 @@ public class KBaseFeatureValuesImpl {
         return featureClusters;
     }
 
+    /**
+     * Maps cluster labels and dendrogram leaves of clustering done for subset
+     * of rows back to positions of rows in the whole matrix (rows which were
+     * not clustered get label -1).
+     */
+    private static ClusterResults mapClusterRows(ClusterResults res, int[] rows, int rowCount) {
+        List<Long> labels = new ArrayList<Long>(Collections.nCopies(rowCount, -1L));
+        for (int i = 0; i < rows.length; i++)
+            labels.set(rows[i], res.getClusterLabels().get(i));
+        res.setClusterLabels(labels);
+        if (res.getDendrogram() != null)
+            res.setDendrogram(RowOrdering.mapLeafPositions(res.getDendrogram(), rows));
+        return res;
+    }
+
     private static Double noNaN(Double value) {
         return (value == null || Double.isNaN(value)) ? null : value;
     }
     
     public String clusterHierarchical(ClusterHierarchicalParams params,
             List<ProvenanceAction> provenance) throws Exception {
+        String algorithm = params.getAlgorithm();
+        if (algorithm != null && !algorithm.equals("hclust") && !algorithm.equals("flashClust"))
+            throw new IllegalStateException("Unsupported hierarchical clustering algorithm: " +
+                    algorithm);
+        DistanceKernel kernel = DistanceKernel.get(params.getDistanceMetric());
+        HierarchicalClustering clustering = new HierarchicalClustering()
+                .withLinkage(params.getLinkageCriteria());
         ObjectData objData = getWsClient().getObjects2(new GetObjects2Params().withObjects(
                 Arrays.asList(new ObjectSpecification().withRef(params.getInputData()))))
                 .getData().get(0);
-        BioMatrix matrix = objData.getData().asClassInstance(BioMatrix.class);
-        ClusterServiceLocalClient mathClient = getMathClient();
-        ClusterResults res = mathClient.clusterHierarchical(matrix.getData(), params.getDistanceMetric(), 
-                params.getLinkageCriteria(), params.getFeatureHeightCutoff(), params.getMaxItems(), params.getAlgorithm());
-        FeatureClusters toSave = new FeatureClusters().withOriginalData(params.getInputData())
-                .withFeatureClusters(clustersFromLabels(matrix.getData(), res))
-                .withFeatureDendrogram(res.getDendrogram());
+        // Values go straight into primitive matrix, boxed values are never built
+        StreamedMatrix<BioMatrix> streamed = MatrixStreamReader.read(
+                objData.getData().getPlacedStream(), BioMatrix.class, getMatrixFactory());
+        FloatMatrix2D data = streamed.getObject().getData();
+        PrimitiveMatrix values = streamed.getValues();
+        boolean conditions = isConditionDimension(params.getDimension());
+        if (conditions) {
+            data = new FloatMatrix2D().withRowIds(data.getColIds()).withColIds(data.getRowIds());
+            values = values.transpose(getMatrixFactory());
+        }
+        int rowCount = data.getRowIds().size();
+        int[] rows = null;
+        if (params.getMaxItems() != null && params.getMaxItems() < rowCount) {
+            // Only rows with the highest variance are clustered
+            rows = new RowFilter().withMaxRows((int)Math.max(0, params.getMaxItems()))
+                    .apply(values);
+            // View is read by distance kernel and by cluster qualities
+            values = MatrixView.prepare(MatrixView.of(values, rows, null), 2);
+        }
+        // Tree, cluster labels and cluster qualities are all calculated in Java
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        Dendrogram tree = clustering.cluster(kernel.getDistances(DistanceKernel.getRows(values),
+                threadCount), values.getRowCount());
+        Double heightCutoff = conditions ? params.getConditionHeightCutoff() :
+            params.getFeatureHeightCutoff();
+        long[] labels = tree.cut(heightCutoff == null ? 1.0 : heightCutoff);
+        ClusterQualities qualities = ClusterQualities.calculate(values, labels, threadCount);
+        ClusterResults res = new ClusterResults().withClusterLabels(toLongList(labels))
+                .withMeancor(qualities.getMeanCorrelations()).withMsecs(qualities.getMsecs())
+                .withDendrogram(tree.toNewick());
+        if (rows != null)
+            res = mapClusterRows(res, rows, rowCount);
+        FeatureClusters toSave = new FeatureClusters().withOriginalData(params.getInputData());
+        setClusters(toSave, data, res, conditions);
         provenance.get(0).withDescription("Hierarchical clustering method")
                 .withInputWsObjects(Arrays.asList(params.getInputData()));
 
@@ -247,6 +415,67 @@ public class KBaseFeatureValuesImpl {
 	return toWsId(getInfo);
     }
 
+    public String clusterTwoWay(ClusterTwoWayParams params,
+            List<ProvenanceAction> provenance) throws Exception {
+        HierarchicalClustering clustering = new HierarchicalClustering()
+                .withLinkage(params.getLinkageCriteria())
+                .withOptimalLeafOrdering(params.getOptimalLeafOrdering() != null &&
+                    params.getOptimalLeafOrdering() != 0L);
+        ObjectData objData = getWsClient().getObjects2(new GetObjects2Params().withObjects(
+                Arrays.asList(new ObjectSpecification().withRef(params.getInputData()))))
+                .getData().get(0);
+        // Matrix is loaded once, rows and columns are clustered at the same time
+        StreamedMatrix<BioMatrix> streamed = MatrixStreamReader.read(
+                objData.getData().getPlacedStream(), BioMatrix.class, getMatrixFactory());
+        FloatMatrix2D data = streamed.getObject().getData();
+        Dendrogram[] trees = clustering.clusterRowsAndColumns(streamed.getValues(),
+                params.getDistanceMetric(), Runtime.getRuntime().availableProcessors());
+        FeatureClusters toSave = new FeatureClusters().withOriginalData(params.getInputData())
+                .withFeatureClusters(clustersFromTree(trees[0], data.getRowIds(),
+                        params.getFeatureHeightCutoff()))
+                .withFeatureDendrogram(trees[0].toNewick())
+                .withFeatureLeafOrder(toLongList(trees[0].getLeafOrder()))
+                .withConditionClusters(clustersFromTree(trees[1], data.getColIds(),
+                        params.getConditionHeightCutoff()))
+                .withConditionDendrogram(trees[1].toNewick())
+                .withConditionLeafOrder(toLongList(trees[1].getLeafOrder()));
+        provenance.get(0).withDescription("Two-way hierarchical clustering")
+                .withInputWsObjects(Arrays.asList(params.getInputData()));
+
+	WorkspaceClient wsc = getWsClient();
+        List<Tuple11<Long,String,String,String,Long,String,Long,String,String,Long,Map<String,String>>> getInfo = wsc.saveObjects(new SaveObjectsParams().withWorkspace(params.getOutWorkspace())
+                .withObjects(Arrays.asList(new ObjectSaveData()
+                .withType("KBaseFeatureValues.FeatureClusters").withName(params.getOutClustersetId())
+                .withData(new UObject(toSave)).withProvenance(provenance))));
+
+	return toWsId(getInfo);
+    }
+
+    /**
+     * Cuts dendrogram at relative height (1 by default, so all items form one
+     * cluster) and labels clusters with ids of clustered items.
+     */
+    private static List<LabeledCluster> clustersFromTree(Dendrogram tree, List<String> ids,
+            Double heightCutoff) {
+        return clustersFromLabels(new FloatMatrix2D().withRowIds(ids),
+                new ClusterResults().withClusterLabels(toLongList(tree.cut(
+                        heightCutoff == null ? 1.0 : heightCutoff))));
+    }
+
+    private static List<Long> toLongList(int[] values) {
+        List<Long> ret = new ArrayList<Long>(values.length);
+        for (int value : values)
+            ret.add((long)value);
+        return ret;
+    }
+
+    private static List<Long> toLongList(long[] values) {
+        List<Long> ret = new ArrayList<Long>(values.length);
+        for (long value : values)
+            ret.add(value);
+        return ret;
+    }
+
     public String clustersFromDendrogram(ClustersFromDendrogramParams params,
             List<ProvenanceAction> provenance) throws Exception {
         ObjectData objData = getWsClient().getObjects2(new GetObjects2Params().withObjects(
@@ -282,9 +511,30 @@ public class KBaseFeatureValuesImpl {
         throw new IllegalStateException("Not yet implemented");
     }
 
-    public void validateMatrix(ValidateMatrixParams params, 
+    public AnalysisReport validateMatrix(ValidateMatrixParams params, 
             List<ProvenanceAction> provenance) throws Exception {
-        throw new IllegalStateException("Not yet implemented");
+        // Declared type, scale and genome are needed before values are checked
+        ObjectData header = getExpressionMatrixObject(params.getInputData(), 
+                Arrays.asList("type", "scale", "genome_ref"));
+        BioMatrix headerMatrix = header.getData().asClassInstance(BioMatrix.class);
+        List<String> genomeWarnings = new ArrayList<String>();
+        FeatureIndex featureIndex = null;
+        if (headerMatrix.getGenomeRef() != null) {
+            try {
+                featureIndex = MatrixUtil.getFeatureIndex(token, getWsClient(), headerMatrix.getGenomeRef());
+            } catch (Exception ex) {
+                genomeWarnings.add("Genome " + headerMatrix.getGenomeRef() + 
+                        " can't be loaded, feature ids are not checked: " + ex.getMessage());
+            }
+        }
+        MatrixValidator validator = new MatrixValidator(params.getMethod(),
+                (String)headerMatrix.getAdditionalProperties().get("type"),
+                (String)headerMatrix.getAdditionalProperties().get("scale"), featureIndex);
+        ObjectData objData = getExpressionMatrixObject(getResolvedRef(header));
+        AnalysisReport report = validator.validate(objData.getData().getPlacedStream());
+        report.setCheckTypeDetected(header.getInfo().getE3());
+        report.getWarnings().addAll(genomeWarnings);
+        return report;
     }
 
     public String correctMatrix(CorrectMatrixParams params, 
@@ -293,11 +543,22 @@ public class KBaseFeatureValuesImpl {
                 Arrays.asList(new ObjectSpecification().withRef(params.getInputData()))))
                 .getData().get(0);
         String inputType = objData.getInfo().getE3();
-        BioMatrix matrix = objData.getData().asClassInstance(BioMatrix.class);
-        String transType = params.getTransformType();
-        if (transType == null || !transType.equals("missing"))
-            throw new IllegalStateException("Unsupported transformation type: " + transType);
-        MatrixUtil.fillMissingValues(matrix.getData());
+        List<String> steps = MatrixNormalizer.parseSteps(params.getTransformType());
+        // Values are corrected in double precision regardless of storage mode
+        StreamedMatrix<BioMatrix> streamed = MatrixStreamReader.read(
+                objData.getData().getPlacedStream(), BioMatrix.class,
+                getMatrixFactory(StorageMode.float64));
+        BioMatrix matrix = streamed.getObject();
+        MatrixNormalizer.apply(streamed.getValues(), steps, params.getTransformValue());
+        String rowNormalization = MatrixNormalizer.getRowNormalization(steps);
+        if (rowNormalization != null)
+            matrix.setAdditionalProperties("row_normalization", rowNormalization);
+        String colNormalization = MatrixNormalizer.getColNormalization(steps);
+        if (colNormalization != null)
+            matrix.setAdditionalProperties("col_normalization", colNormalization);
+        String scale = MatrixNormalizer.getScale(steps);
+        if (scale != null)
+            matrix.setAdditionalProperties("scale", scale);
         String outMatrixId = params.getOutMatrixId();
         if (outMatrixId == null)
             outMatrixId = objData.getInfo().getE2();
@@ -308,9 +569,63 @@ public class KBaseFeatureValuesImpl {
         List<Tuple11<Long,String,String,String,Long,String,Long,String,String,Long,Map<String,String>>> getInfo = wsc.saveObjects(new SaveObjectsParams().withWorkspace(params.getOutWorkspace())
                 .withObjects(Arrays.asList(new ObjectSaveData()
                 .withType(inputType).withName(outMatrixId)
-                .withData(new UObject(matrix)).withProvenance(provenance))));
+                .withData(new UObject(streamed)).withProvenance(provenance))));
 
-	return toWsId(getInfo);
+	String outRef = toWsId(getInfo);
+	cacheSavedMatrix(outRef, matrix.getData(), streamed.getValues());
+	return outRef;
+    }
+
+    public String filterMatrix(FilterMatrixParams params, 
+            List<ProvenanceAction> provenance) throws Exception {
+        ObjectData objData = getWsClient().getObjects2(new GetObjects2Params().withObjects(
+                Arrays.asList(new ObjectSpecification().withRef(params.getInputData()))))
+                .getData().get(0);
+        String inputType = objData.getInfo().getE3();
+        // Kept rows are saved, so values are read without float32 rounding
+        StreamedMatrix<BioMatrix> streamed = MatrixStreamReader.read(
+                objData.getData().getPlacedStream(), BioMatrix.class,
+                getMatrixFactory(StorageMode.float64));
+        BioMatrix matrix = streamed.getObject();
+        RowFilter filter = new RowFilter().withMinVariance(params.getMinVariance())
+                .withMaxMissingFraction(params.getMaxMissingFraction())
+                .withMinFoldChange(params.getMinFoldChange()).withMinMean(params.getMinMean())
+                .withMaxRows(params.getMaxRows() == null ? null : 
+                    (int)Math.min(Integer.MAX_VALUE, params.getMaxRows()))
+                .withScale((String)matrix.getAdditionalProperties().get("scale"))
+                .withType((String)matrix.getAdditionalProperties().get("type"));
+        int[] rows = filter.apply(streamed.getValues());
+        List<String> rowIds = matrix.getData().getRowIds();
+        List<String> selectedIds = new ArrayList<String>(rows.length);
+        for (int row : rows)
+            selectedIds.add(rowIds.get(row));
+        matrix.getData().setRowIds(selectedIds);
+        if (matrix.getFeatureMapping() != null) {
+            Map<String, String> featureMapping = new LinkedHashMap<String, String>();
+            for (String rowId : selectedIds)
+                if (matrix.getFeatureMapping().containsKey(rowId))
+                    featureMapping.put(rowId, matrix.getFeatureMapping().get(rowId));
+            matrix.setFeatureMapping(featureMapping);
+        }
+        PrimitiveMatrix values = RowFilter.subset(streamed.getValues(), rows,
+                getMatrixFactory(StorageMode.float64));
+        String outMatrixId = params.getOutMatrixId();
+        if (outMatrixId == null)
+            outMatrixId = objData.getInfo().getE2();
+        provenance.get(0).withDescription("Filtering matrix rows (" + rows.length + " of " + 
+                rowIds.size() + " rows are kept)")
+                .withInputWsObjects(Arrays.asList(params.getInputData()));
+
+	WorkspaceClient wsc = getWsClient();
+        List<Tuple11<Long,String,String,String,Long,String,Long,String,String,Long,Map<String,String>>> getInfo = wsc.saveObjects(new SaveObjectsParams().withWorkspace(params.getOutWorkspace())
+                .withObjects(Arrays.asList(new ObjectSaveData()
+                .withType(inputType).withName(outMatrixId)
+                .withData(new UObject(new StreamedMatrix<BioMatrix>(matrix, values)))
+                .withProvenance(provenance))));
+
+	String outRef = toWsId(getInfo);
+	cacheSavedMatrix(outRef, matrix.getData(), values);
+	return outRef;
     }
 
     public String reconnectMatrixToGenome(ReconnectMatrixToGenomeParams params,
@@ -320,9 +635,13 @@ public class KBaseFeatureValuesImpl {
                 .getData().get(0);
         String inputType = objData.getInfo().getE3();
         BioMatrix matrix = objData.getData().asClassInstance(BioMatrix.class);
-        Genome genome = MatrixUtil.loadGenomeFeatures(token, null, params.getGenomeRef());
-        matrix.setFeatureMapping(MatrixUtil.constructFeatureMapping(matrix.getData(), genome));
+        FeatureIndex featureIndex = MatrixUtil.getFeatureIndex(token, getWsClient(), params.getGenomeRef());
+        List<String> warnings = new ArrayList<String>();
+        matrix.setFeatureMapping(featureIndex.map(matrix.getData().getRowIds(), warnings));
         matrix.setGenomeRef(params.getGenomeRef());
+        // Types keeping feature_mapping have optional report
+        if (!warnings.isEmpty() && matrix.getAdditionalProperties().get("report") == null)
+            matrix.setAdditionalProperties("report", new AnalysisReport().withWarnings(warnings));
         String outMatrixId = params.getOutMatrixId();
         if (outMatrixId == null)
             outMatrixId = objData.getInfo().getE2();
@@ -335,7 +654,9 @@ public class KBaseFeatureValuesImpl {
                 .withType(inputType).withName(outMatrixId)
                 .withData(new UObject(matrix)).withProvenance(provenance))));
 
-	return toWsId(getInfo);
+	String outRef = toWsId(getInfo);
+	cacheSavedMatrix(outRef, matrix.getData());
+	return outRef;
     }
 
     @SuppressWarnings("unchecked")
@@ -482,6 +803,69 @@ public class KBaseFeatureValuesImpl {
     }
     
     
+    public List<ItemDescriptor> getMatrixRowDescriptors(GetMatrixItemDescriptorsParams params) 
+            throws Exception {
+        List<String> propertyTypes = params.getRequestedPropertyTypes() == null ? 
+                FeatureProperties.DEFAULT_TYPES : params.getRequestedPropertyTypes();
+        FeatureProperties.checkPropertyTypes(propertyTypes);
+        // Only row ids and mapping are loaded, values are not needed here
+        ObjectData matrixData = getExpressionMatrixObject(params.getInputData(), Arrays.asList(
+                "genome_ref", "feature_mapping", "data/row_ids"));
+        BioMatrix matrix = matrixData.getData().asClassInstance(BioMatrix.class);
+        List<String> rowIds = matrix.getData().getRowIds();
+        int[] rowIndeces = getPage(selectItems(params, rowIds, matrixData, "row"), 
+                params.getOffset(), params.getLimit(), rowIds.size());
+        FeatureProperties featureProperties = matrix.getGenomeRef() == null ? null :
+            getFeatureProperties(params.getInputData(), matrix.getGenomeRef());
+        return buildRowDescriptors(rowIds, matrix.getFeatureMapping(), featureProperties, 
+                rowIndeces, propertyTypes);
+    }
+
+    public List<ItemDescriptor> getMatrixColumnDescriptors(GetMatrixItemDescriptorsParams params) 
+            throws Exception {
+        ObjectData matrixData = getExpressionMatrixObject(params.getInputData(), Arrays.asList(
+                "data/col_ids"));
+        BioMatrix matrix = matrixData.getData().asClassInstance(BioMatrix.class);
+        List<String> colIds = matrix.getData().getColIds();
+        int[] colIndeces = getPage(selectItems(params, colIds, matrixData, "column"), 
+                params.getOffset(), params.getLimit(), colIds.size());
+        return buildColumnDescriptors(colIds, colIndeces);
+    }
+
+    /**
+     * Items are selected by indeces, ids or prefix of ids (in this order of 
+     * priority), all items are selected if none of them is defined.
+     */
+    private int[] selectItems(GetMatrixItemDescriptorsParams params, List<String> mtxIds, 
+            ObjectData matrixData, String itemType) {
+        if ((params.getItemIndeces() == null || params.getItemIndeces().isEmpty()) &&
+                (params.getItemIds() == null || params.getItemIds().isEmpty()) &&
+                params.getItemIdPrefix() != null)
+            return getIdIndex(matrixData, itemType, mtxIds).findByPrefix(
+                    params.getItemIdPrefix(), -1);
+        return buildIndeces(params.getItemIndeces(), params.getItemIds(), mtxIds, matrixData,
+                itemType);
+    }
+
+    /**
+     * Returns page of selected indeces (offset and limit are optional) checking
+     * that all of them are inside the matrix.
+     */
+    private static int[] getPage(int[] indeces, Long offset, Long limit, int itemCount) {
+        if ((offset != null && offset < 0) || (limit != null && limit < 0))
+            throw new IllegalStateException("Offset and limit can't be negative: " + offset + 
+                    ", " + limit);
+        int start = offset == null ? 0 : (int)Math.min(offset, indeces.length);
+        int end = limit == null ? indeces.length : 
+            (int)Math.min((long)start + limit, indeces.length);
+        int[] ret = Arrays.copyOfRange(indeces, start, end);
+        for (int index : ret)
+            if (index < 0 || index >= itemCount)
+                throw new IllegalStateException("Index " + index + " is out of range [0, " + 
+                        itemCount + ")");
+        return ret;
+    }
+
     public GenomeDataV1 loadGenomeDynamic(AuthToken token, String matrixRef, 
             String genomeRef, List<String> includedFields, 
             List<String> includedFeatureFields) throws Exception {
@@ -504,37 +888,52 @@ public class KBaseFeatureValuesImpl {
 		
 		// Load matrix and genome data
 		MatrixGenomeLoader mgl = new MatrixGenomeLoader();
-		mgl.load(params.getInputData());
+		try {
+		    mgl.load(params.getInputData());
 
-		// Build matrix descriptor		
-        matrixStat.setMtxDescriptor(buildMatrixDescriptor(mgl));
-        
-		int[] rowIndeces = buildIndeces(null, null, mgl.matrix.getData().getRowIds());
-		int[] colIndeces = buildIndeces(null, null, mgl.matrix.getData().getColIds());
-        
-        // Build row and descriptors        
-        matrixStat.setRowDescriptors(buildRowDescriptors(mgl, rowIndeces ));
-        matrixStat.setColumnDescriptors(buildColumnDescriptors(mgl, colIndeces));        
-        
-        // Collect statistics
-        matrixStat.setRowStats(FloatMatrix2DUtil.getRowsStat(mgl.matrix.getData(), null, null, false));
-        matrixStat.setColumnStats(FloatMatrix2DUtil.getColumnsStat(mgl.matrix.getData(), null, null, false));
+		    // Build matrix descriptor		
+		    matrixStat.setMtxDescriptor(buildMatrixDescriptor(mgl));
+
+		    int[] rowIndeces = buildIndeces(null, null, mgl.matrix.getData().getRowIds());
+		    int[] colIndeces = buildIndeces(null, null, mgl.matrix.getData().getColIds());
+
+		    // Build row and descriptors        
+		    matrixStat.setRowDescriptors(buildRowDescriptors(mgl, rowIndeces ));
+		    matrixStat.setColumnDescriptors(buildColumnDescriptors(mgl, colIndeces));        
+
+		    // Collect statistics (taken from summary index built once per matrix version)
+		    MatrixSummary summary = mgl.getSummary();
+		    matrixStat.setRowStats(summary.getRowsStat(null));
+		    matrixStat.setColumnStats(summary.getColumnsStat(null));
+		} finally {
+		    mgl.close();
+		}
 
 		return matrixStat;
 	}    
     
 
 	public SubmatrixStat getSubmatrixStat(GetSubmatrixStatParams params) throws Exception {
-		SubmatrixStat submatrixStat = new SubmatrixStat();
-
 		// Load matrix and genome data
 		MatrixGenomeLoader mgl = new MatrixGenomeLoader();
-		mgl.load(params.getInputData());
+		try {
+		    mgl.load(params.getInputData());
+		    return getSubmatrixStat(params, mgl);
+		} finally {
+		    mgl.close();
+		}
+	}
+
+	private SubmatrixStat getSubmatrixStat(GetSubmatrixStatParams params, 
+	        MatrixGenomeLoader mgl) throws Exception {
+		SubmatrixStat submatrixStat = new SubmatrixStat();
 
 		// Build matrix descriptor		
 		submatrixStat.setMtxDescriptor(buildMatrixDescriptor(mgl));
-		int[] rowIndeces = buildIndeces(params.getRowIndeces(), params.getRowIds(), mgl.matrix.getData().getRowIds());
-		int[] colIndeces = buildIndeces(params.getColumnIndeces(), params.getColumnIds(), mgl.matrix.getData().getColIds());
+		int[] rowIndeces = buildIndeces(params.getRowIndeces(), params.getRowIds(), mgl.matrix.getData().getRowIds(), 
+				mgl.matrixData, "row");
+		int[] colIndeces = buildIndeces(params.getColumnIndeces(), params.getColumnIds(), mgl.matrix.getData().getColIds(), 
+				mgl.matrixData, "column");
 		
         // Build row and descriptors        
 		submatrixStat.setRowDescriptors(buildRowDescriptors(mgl, rowIndeces));
@@ -550,19 +949,19 @@ public class KBaseFeatureValuesImpl {
 			.withFlStds(1L)
 			.withFlMissingValues(1L);
 		
-        // row and column set stats		
-		if( toBoolean(params.getFlRowSetStats()) ) {
-			matrixSetStatParams
-				.withItemIndecesFor(toListLong(rowIndeces))
-				.withItemIndecesOn(toListLong(colIndeces));			
-			submatrixStat.setRowSetStats(FloatMatrix2DUtil.getRowsSetStat(mgl.matrix.getData(), matrixSetStatParams));	
-		}
-		
-		if( toBoolean(params.getFlColumnSetStat()) ) {
-			matrixSetStatParams
-				.withItemIndecesFor(toListLong(colIndeces))
-				.withItemIndecesOn(toListLong(rowIndeces));			
-			submatrixStat.setColumnSetStat(FloatMatrix2DUtil.getColumnsSetStat(mgl.matrix.getData(), matrixSetStatParams));
+        // row and column set stats are calculated on view of submatrix, every
+		// set stat scans items twice, so view is copied if it pays off
+		if( toBoolean(params.getFlRowSetStats()) || toBoolean(params.getFlColumnSetStat()) ) {
+			int passes = (toBoolean(params.getFlRowSetStats()) ? 2 : 0) + 
+					(toBoolean(params.getFlColumnSetStat()) ? 2 : 0);
+			PrimitiveMatrix submatrix = MatrixView.prepare(
+					MatrixView.of(mgl.values, rowIndeces, colIndeces), passes);
+			if( toBoolean(params.getFlRowSetStats()) ) {
+				submatrixStat.setRowSetStats(FloatMatrix2DUtil.getRowsSetStat(submatrix, matrixSetStatParams));	
+			}
+			if( toBoolean(params.getFlColumnSetStat()) ) {
+				submatrixStat.setColumnSetStat(FloatMatrix2DUtil.getColumnsSetStat(submatrix, matrixSetStatParams));
+			}
 		}
 		
         // mtx row and column set stats		
@@ -571,31 +970,177 @@ public class KBaseFeatureValuesImpl {
 			matrixSetStatParams
 				.withItemIndecesFor( toListLong(rowIndeces) )
 				.withItemIndecesOn( toListLong(mtxColIndeces));			
-			submatrixStat.setMtxRowSetStat(FloatMatrix2DUtil.getRowsSetStat(mgl.matrix.getData(), matrixSetStatParams));				
+			submatrixStat.setMtxRowSetStat(mgl.getSummary().getRowsSetStat(matrixSetStatParams));				
 		}
 		if( toBoolean(params.getFlMtxColumnSetStat()) ) {
 			int[] mtxRowIndeces = buildIndeces(null, null, mgl.matrix.getData().getRowIds());
 			matrixSetStatParams
 				.withItemIndecesFor( toListLong(colIndeces))
 				.withItemIndecesOn( toListLong(mtxRowIndeces));			
-			submatrixStat.setMtxColumnSetStat(FloatMatrix2DUtil.getColumnsSetStat(mgl.matrix.getData(), matrixSetStatParams));				
+			submatrixStat.setMtxColumnSetStat(mgl.getSummary().getColumnsSetStat(matrixSetStatParams));				
 		}
 				
 		// Pairwise comparison
 		if( toBoolean(params.getFlRowPairwiseCorrelation()) ){
 			int[] mtxColIndeces = buildIndeces(null, null, mgl.matrix.getData().getColIds());
-			submatrixStat.setRowPairwiseCorrelation(FloatMatrix2DUtil.geRowstPairwiseComparison(mgl.matrix.getData(), rowIndeces, mtxColIndeces));
+			submatrixStat.setRowPairwiseCorrelation(FloatMatrix2DUtil.geRowstPairwiseComparison(mgl.values, rowIndeces, mtxColIndeces));
+		}
+		if( toBoolean(params.getFlColumnPairwiseCorrelation()) ){
+			submatrixStat.setColumnPairwiseCorrelation(FloatMatrix2DUtil.getColumnsPairwiseComparison(mgl.values, rowIndeces, colIndeces));
 		}
 		
 		
         // values		
 		if( toBoolean(params.getFlValues()) ) {
-			submatrixStat.setValues(FloatMatrix2DUtil.getSubmatrixValues(mgl.matrix.getData(), rowIndeces, colIndeces ));
+			submatrixStat.setValues(FloatMatrix2DUtil.getSubmatrixValues(mgl.values, rowIndeces, colIndeces ));
 		}
 		
 		return submatrixStat;  	
 	}
 
+	/**
+	 * Returns window of values for heatmap viewers. Values come from local
+	 * matrix cache, so only requested cells are read and sent.
+	 */
+	public MatrixValuesWindow getMatrixValuesWindow(GetMatrixValuesWindowParams params) 
+	        throws Exception {
+	    MatrixGenomeLoader mgl = new MatrixGenomeLoader();
+	    try {
+	        mgl.loadMatrix(params.getInputData());
+	        return getMatrixValuesWindow(params, mgl);
+	    } finally {
+	        mgl.close();
+	    }
+	}
+
+	private MatrixValuesWindow getMatrixValuesWindow(GetMatrixValuesWindowParams params, 
+	        MatrixGenomeLoader mgl) throws Exception {
+	    List<String> rowIds = mgl.matrix.getData().getRowIds();
+	    List<String> colIds = mgl.matrix.getData().getColIds();
+	    int[] rowOrder = params.getClustersRef() == null ? buildIndeces(null, null, rowIds) :
+	        getRowOrdering(params.getClustersRef(), params.getRowOrdering(), rowIds);
+	    int[] rowIndeces = getPage(rowOrder, params.getRowOffset(), params.getRowCount(), 
+	            rowIds.size());
+	    int[] colIndeces = getPage(buildIndeces(null, null, colIds), params.getColOffset(), 
+	            params.getColCount(), colIds.size());
+	    List<String> windowRowIds = new ArrayList<String>(rowIndeces.length);
+	    for (int index : rowIndeces)
+	        windowRowIds.add(rowIds.get(index));
+	    List<String> windowColIds = new ArrayList<String>(colIndeces.length);
+	    for (int index : colIndeces)
+	        windowColIds.add(colIds.get(index));
+	    return new MatrixValuesWindow().withRowsCount((long)rowIds.size())
+	            .withColumnsCount((long)colIds.size())
+	            .withRowIndeces(toListLong(rowIndeces)).withColumnIndeces(toListLong(colIndeces))
+	            .withRowIds(windowRowIds).withColumnIds(windowColIds)
+	            .withShape(Arrays.asList((long)rowIndeces.length, (long)colIndeces.length))
+	            .withValues(FloatMatrix2DUtil.getWindowValues(mgl.values, rowIndeces, colIndeces));
+	}
+
+	/**
+	 * Returns overview of matrix fitting into given number of pixels. It's
+	 * taken from multi-resolution pyramid cached by resolved reference of
+	 * matrix, so only the first overview of matrix reads its values.
+	 */
+	public MatrixOverview getMatrixOverview(GetMatrixOverviewParams params) throws Exception {
+	    if (params.getWidth() == null || params.getHeight() == null)
+	        throw new IllegalStateException("Width and height should be defined");
+	    int width = (int)Math.min(Integer.MAX_VALUE, params.getWidth());
+	    int height = (int)Math.min(Integer.MAX_VALUE, params.getHeight());
+	    MatrixGenomeLoader mgl = new MatrixGenomeLoader();
+	    PrimitiveMatrix values;
+	    MatrixPyramid.Level level;
+	    try {
+	        mgl.loadMatrix(params.getInputData());
+	        values = mgl.values;
+	        String resolvedRef = getResolvedRef(mgl.matrixData);
+	        MatrixPyramid pyramid;
+	        synchronized (pyramidCache) {
+	            pyramid = pyramidCache.get(resolvedRef);
+	            if (pyramid == null) {
+	                pyramid = new MatrixPyramid(values.getRowCount(), values.getColCount(), 
+	                        Runtime.getRuntime().availableProcessors());
+	                pyramidCache.put(resolvedRef, pyramid);
+	            }
+	        }
+	        level = pyramid.getLevel(MatrixPyramid.getLevelFor(values.getRowCount(), height),
+	                MatrixPyramid.getLevelFor(values.getColCount(), width), values);
+	    } finally {
+	        mgl.close();
+	    }
+	    return new MatrixOverview().withRowsCount((long)values.getRowCount())
+	            .withColumnsCount((long)values.getColCount())
+	            .withRowLevel((long)level.getRowLevel()).withColumnLevel((long)level.getColLevel())
+	            .withShape(Arrays.asList((long)level.getRowBlocks(), (long)level.getColBlocks()))
+	            .withMeans(FloatMatrix2DUtil.toDoubleList(level.getMeans()))
+	            .withMins(FloatMatrix2DUtil.toDoubleList(level.getMins()))
+	            .withMaxs(FloatMatrix2DUtil.toDoubleList(level.getMaxs()))
+	            .withMissingFractions(FloatMatrix2DUtil.toDoubleList(level.getMissingFractions()));
+	}
+
+	/**
+	 * Returns ordering of rows defined by FeatureClusters object, orderings
+	 * are cached by resolved reference of FeatureClusters object.
+	 */
+	private int[] getRowOrdering(String clustersRef, String ordering, List<String> rowIds) 
+	        throws Exception {
+	    if (ordering != null && !RowOrdering.isSupported(ordering))
+	        throw new IllegalStateException("Unsupported row ordering: " + ordering);
+	    String suffix = ":" + (ordering == null ? "default" : ordering) + ":" + rowIds.size();
+	    if (MatrixCache.isResolvedRef(clustersRef)) {
+	        synchronized (rowOrderingCache) {
+	            int[] ret = rowOrderingCache.get(clustersRef + suffix);
+	            if (ret != null)
+	                return ret;
+	        }
+	    }
+	    ObjectData objData = getWsClient().getObjects2(new GetObjects2Params().withObjects(
+	            Arrays.asList(new ObjectSpecification().withRef(clustersRef).withIncluded(
+	                    Arrays.asList("feature_clusters", "feature_dendrogram", 
+	                            "feature_leaf_order"))))).getData().get(0);
+	    FeatureClusters clusters = objData.getData().asClassInstance(FeatureClusters.class);
+	    if (ordering == null)
+	        ordering = clusters.getFeatureDendrogram() != null ? RowOrdering.DENDROGRAM : 
+	            RowOrdering.CLUSTERS;
+	    int[] ret;
+	    if (RowOrdering.DENDROGRAM.equals(ordering)) {
+	        if (clusters.getFeatureDendrogram() == null)
+	            throw new IllegalStateException("FeatureClusters object " + clustersRef + 
+	                    " doesn't have feature dendrogram");
+	        // Stored leaf order saves parsing of dendrogram
+	        ret = clusters.getFeatureLeafOrder() != null ? 
+	                RowOrdering.fromLeafOrder(clusters.getFeatureLeafOrder(), rowIds.size()) :
+	                RowOrdering.fromDendrogram(clusters.getFeatureDendrogram(), rowIds);
+	    } else {
+	        ret = RowOrdering.fromClusters(clusters.getFeatureClusters(), rowIds.size());
+	    }
+	    synchronized (rowOrderingCache) {
+	        rowOrderingCache.put(getResolvedRef(objData) + suffix, ret);
+	    }
+	    return ret;
+	}
+
+	/**
+	 * Returns index of row or column ids of matrix. Indeces are cached by 
+	 * resolved reference of matrix, so they are built once per matrix version.
+	 */
+	private static IdIndex getIdIndex(ObjectData matrixData, String itemType, List<String> ids) {
+	    String resolvedRef = matrixData == null ? null : getResolvedRef(matrixData);
+	    if (!MatrixCache.isResolvedRef(resolvedRef))
+	        return IdIndex.build(itemType, ids);
+	    String key = resolvedRef + ":" + itemType;
+	    synchronized (idIndexCache) {
+	        IdIndex ret = idIndexCache.get(key);
+	        if (ret != null && ret.size() == ids.size())
+	            return ret;
+	    }
+	    IdIndex ret = IdIndex.build(itemType, ids);
+	    synchronized (idIndexCache) {
+	        idIndexCache.put(key, ret);
+	    }
+	    return ret;
+	}
+
 	private boolean toBoolean(Long value) {
 		return value != null && value == 1;
 	}
@@ -617,20 +1162,40 @@ public class KBaseFeatureValuesImpl {
         	.withType(mgl.matrix.getType());    
 	}
 	
-    private Hashtable<String, Feature> buildFeatureId2FeatureHash(
-			List<Feature> features) {
-    	Hashtable<String, Feature> featureId2Feature = new Hashtable<String, Feature>();
-    	for(Feature f: features){
-    		featureId2Feature.put(f.getId(), f);    		
-    	}    	
-		return featureId2Feature;
-	}
+    /**
+     * Returns properties of genome features, they are cached by resolved
+     * reference of genome, so features are loaded once per genome version.
+     */
+    public FeatureProperties getFeatureProperties(String matrixRef, String genomeRef) 
+            throws Exception {
+        if (MatrixCache.isResolvedRef(genomeRef)) {
+            synchronized (featurePropertiesCache) {
+                FeatureProperties ret = featurePropertiesCache.get(genomeRef);
+                if (ret != null)
+                    return ret;
+            }
+        }
+        GenomeDataV1 genomeRet = loadGenomeDynamic(token, matrixRef, genomeRef, 
+                Arrays.asList("id", "scientific_name"), FeatureProperties.FEATURE_FIELDS);
+        FeatureProperties ret = FeatureProperties.build(genomeRet.getData());
+        Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, 
+                Map<String, String>> info = genomeRet.getInfo();
+        if (info != null) {
+            synchronized (featurePropertiesCache) {
+                featurePropertiesCache.put(info.getE7() + "/" + info.getE1() + "/" + 
+                        info.getE5(), ret);
+            }
+        }
+        return ret;
+    }
 
 	private List<ItemDescriptor> buildColumnDescriptors(MatrixGenomeLoader mgl, int[] colIndeces) {
+		return buildColumnDescriptors(mgl.matrix.getData().getColIds(), colIndeces);
+	}
+
+	private List<ItemDescriptor> buildColumnDescriptors(List<String> mtxColIds, int[] colIndeces) {
     	List<ItemDescriptor> descriptors = new ArrayList<ItemDescriptor>();
     	
-		List<String> mtxColIds = mgl.matrix.getData().getColIds();
-    	
     	
     	// We do not have condition mapping now, so we will use just colIds...
 
@@ -650,31 +1215,31 @@ public class KBaseFeatureValuesImpl {
 	}
 
 	private List<ItemDescriptor> buildRowDescriptors(MatrixGenomeLoader mgl, int[] rowIndeces) {
+		return buildRowDescriptors(mgl.matrix.getData().getRowIds(), 
+		        mgl.matrix.getFeatureMapping(), mgl.featureProperties, rowIndeces, 
+		        FeatureProperties.DEFAULT_TYPES);
+	}
+
+	private List<ItemDescriptor> buildRowDescriptors(List<String> mtxRowIds, 
+	        Map<String, String> featureMapping, FeatureProperties featureProperties, 
+	        int[] rowIndeces, List<String> propertyTypes) {
     	List<ItemDescriptor> descriptors = new ArrayList<ItemDescriptor>();
 		
-		List<String> mtxRowIds = mgl.matrix.getData().getRowIds();    	
     	for(int ri = 0 ; ri < rowIndeces.length; ri++){
     		int rIndex = rowIndeces[ri];
     		String rId = mtxRowIds.get(rIndex);
     		
-    		String function = "";
     		String name = "";
-            Hashtable<String,String> props = new Hashtable<String,String>();
+            Map<String,String> props = new LinkedHashMap<String,String>();
     		
-    		//TODO implement general approach to extract required properties. For now just function
-    		if (mgl.featureId2Feature != null) {
+    		if (featureProperties != null) {
     		    String featureId = null;
-    		    if (mgl.matrix.getFeatureMapping() != null) 
-    		        featureId = mgl.matrix.getFeatureMapping().get(rId);
+    		    if (featureMapping != null) 
+    		        featureId = featureMapping.get(rId);
     		    if (featureId == null)
     		        featureId = rId;
-    		    Feature feature = mgl.featureId2Feature.get(featureId);
-
-    		    if(feature != null){
-    		        function = feature.getFunction();
-    		        props.put("function", function != null ? function : "");
-    		        name = feature.getAliases() != null? StringUtils.join(feature.getAliases(), "; ") : "";
-    		    }
+    		    name = featureProperties.getName(featureId);
+    		    props = featureProperties.getProperties(featureId, propertyTypes);
     		}    		
     		
     		ItemDescriptor desc = new ItemDescriptor()
@@ -696,7 +1261,16 @@ public class KBaseFeatureValuesImpl {
 		return ll;
 	}
 	
-	private int[] buildIndeces(List<Long> rowIndeces, List<String> rowIds, List<String> mtxRowIds) {		
+	private int[] buildIndeces(List<Long> rowIndeces, List<String> rowIds, List<String> mtxRowIds) {
+		return buildIndeces(rowIndeces, rowIds, mtxRowIds, null, "item");
+	}
+
+	/**
+	 * Ids are looked up in index cached by resolved reference of matrix (if 
+	 * matrixData is defined), unknown ids are reported by UnknownIdsException.
+	 */
+	private int[] buildIndeces(List<Long> rowIndeces, List<String> rowIds, List<String> mtxRowIds,
+			ObjectData matrixData, String itemType) {		
 		int[] indeces = null;
 		if(rowIndeces != null && rowIndeces.size() > 0){
 			indeces = new int[rowIndeces.size()];
@@ -704,14 +1278,7 @@ public class KBaseFeatureValuesImpl {
 				indeces[i] = rowIndeces.get(i).intValue();
 			}
 		} else if(rowIds != null && rowIds.size() > 0){
-			Hashtable<String,Integer> id2index = new Hashtable<String,Integer>();
-			for(int i = 0 ; i < mtxRowIds.size(); i++){
-				id2index.put(mtxRowIds.get(i), i);
-			}
-			indeces = new int[rowIds.size()];
-			for(int i = 0; i < rowIds.size(); i++){
-				indeces[i] = id2index.get(rowIds.get(i)).intValue();
-			}
+			indeces = getIdIndex(matrixData, itemType, mtxRowIds).indecesOf(rowIds);
 		} else{
 			indeces = new int[mtxRowIds.size()];
 			for(int i = 0 ; i < indeces.length; i++){
@@ -726,30 +1293,57 @@ public class KBaseFeatureValuesImpl {
 	public  List<ItemStat> getMatrixRowsStat(GetMatrixItemsStatParams params) throws Exception {
         //TODO can be further optimized by getting subobjects
 		System.out.println("params: " + params);
-        ExpressionMatrix matrix = getExpressionMatrix(params.getInputData());
-		return FloatMatrix2DUtil.getRowsStat(matrix.getData(), params.getItemIndecesFor() , params.getItemIndecesOn(), params.getFlIndecesOn() == 1);
+		MatrixGenomeLoader mgl = new MatrixGenomeLoader();
+		try {
+		    mgl.loadMatrix(params.getInputData());
+		    if (MatrixSummary.isFullRange(params.getItemIndecesOn(), mgl.values.getColCount()))
+		        return getItemsStat(mgl.getSummary().getRowsStat(params.getItemIndecesFor()), params);
+		    return FloatMatrix2DUtil.getRowsStat(mgl.values, params.getItemIndecesFor() , params.getItemIndecesOn(), params.getFlIndecesOn() == 1);
+		} finally {
+		    mgl.close();
+		}
 	}	
 	
 	public  List<ItemStat> getMatrixColumnsStat(GetMatrixItemsStatParams params) throws Exception {
         //TODO can be further optimized by getting subobjects
 		
 		System.out.println("params: " + params);
-        ExpressionMatrix matrix = getExpressionMatrix(params.getInputData());
-		return FloatMatrix2DUtil.getColumnsStat(matrix.getData(), params.getItemIndecesFor() , params.getItemIndecesOn(), params.getFlIndecesOn() == 1);
+		MatrixGenomeLoader mgl = new MatrixGenomeLoader();
+		try {
+		    mgl.loadMatrix(params.getInputData());
+		    if (MatrixSummary.isFullRange(params.getItemIndecesOn(), mgl.values.getRowCount()))
+		        return getItemsStat(mgl.getSummary().getColumnsStat(params.getItemIndecesFor()), params);
+		    return FloatMatrix2DUtil.getColumnsStat(mgl.values, params.getItemIndecesFor() , params.getItemIndecesOn(), params.getFlIndecesOn() == 1);
+		} finally {
+		    mgl.close();
+		}
 	}	
 	
+	private static List<ItemStat> getItemsStat(List<ItemStat> summaryStats, 
+	        GetMatrixItemsStatParams params) {
+	    if (params.getFlIndecesOn() != null && params.getFlIndecesOn() == 1)
+	        for (ItemStat stat : summaryStats)
+	            stat.setIndecesOn(params.getItemIndecesOn());
+	    return summaryStats;
+	}
+	
 	public List<ItemSetStat> getMatrixRowSetsStat(GetMatrixSetsStatParams params) throws Exception {
 		List<ItemSetStat> setStats = new ArrayList<ItemSetStat>();
 		
-		ExpressionMatrix matrix;
 		String matrixRef = "";
 		for(GetMatrixSetStatParams setStatParam: params.getParams()){
 			if(!matrixRef.equals(setStatParam.getInputData())){
 				matrixRef = setStatParam.getInputData();
-				matrix = getExpressionMatrix(matrixRef);
-				
-				ItemSetStat setStat = FloatMatrix2DUtil.getRowsSetStat(matrix.getData(), setStatParam);
-				setStats.add(setStat);
+				MatrixGenomeLoader mgl = new MatrixGenomeLoader();
+				try {
+				    mgl.loadMatrix(matrixRef);
+				    ItemSetStat setStat = MatrixSummary.isFullRange(setStatParam.getItemIndecesOn(), 
+				            mgl.values.getColCount()) ? mgl.getSummary().getRowsSetStat(setStatParam) : 
+				                FloatMatrix2DUtil.getRowsSetStat(mgl.values, setStatParam);
+				    setStats.add(setStat);
+				} finally {
+				    mgl.close();
+				}
 			}
 		}		
 		return setStats;
@@ -758,35 +1352,90 @@ public class KBaseFeatureValuesImpl {
 	public List<ItemSetStat> getMatrixColumnSetsStat(GetMatrixSetsStatParams params) throws Exception {
 		List<ItemSetStat> setStats = new ArrayList<ItemSetStat>();
 		
-		ExpressionMatrix matrix;
 		String matrixRef = "";
 		for(GetMatrixSetStatParams setStatParam: params.getParams()){
 			if(!matrixRef.equals(setStatParam.getInputData())){
 				matrixRef = setStatParam.getInputData();
-				matrix = getExpressionMatrix(matrixRef);
-				
-				ItemSetStat setStat = FloatMatrix2DUtil.getColumnsSetStat(matrix.getData(), setStatParam);
-				setStats.add(setStat);
+				MatrixGenomeLoader mgl = new MatrixGenomeLoader();
+				try {
+				    mgl.loadMatrix(matrixRef);
+				    ItemSetStat setStat = MatrixSummary.isFullRange(setStatParam.getItemIndecesOn(), 
+				            mgl.values.getRowCount()) ? mgl.getSummary().getColumnsSetStat(setStatParam) : 
+				                FloatMatrix2DUtil.getColumnsSetStat(mgl.values, setStatParam);
+				    setStats.add(setStat);
+				} finally {
+				    mgl.close();
+				}
 			}
 		}		
 		return setStats;
 	}
 
-	private ExpressionMatrix getExpressionMatrix(String mtxRef) throws Exception{
-		ObjectData matrixData = getExpressionMatrixObject(mtxRef);
-        	
-		ExpressionMatrix matrix = (ExpressionMatrix)  matrixData
-			.getData()
-			.asClassInstance(ExpressionMatrix.class);
-		return matrix;
+	/**
+	 * Streams matrix object into primitive storage (off-heap for large matrices).
+	 */
+	private <T> StreamedMatrix<T> readMatrix(ObjectData matrixData, Class<T> type) throws Exception{
+		return MatrixStreamReader.read(matrixData.getData().getPlacedStream(), type, 
+		        getMatrixFactory());
 	}
 	
 	private ObjectData getExpressionMatrixObject(String mtxRef) throws Exception{
+		return getExpressionMatrixObject(mtxRef, null);
+	}	
+	
+	private ObjectData getExpressionMatrixObject(String mtxRef, List<String> included) throws Exception{
         WorkspaceClient wsClient = getWsClient();
 		return wsClient.getObjects2(new GetObjects2Params().withObjects(
-                Arrays.asList(new ObjectSpecification().withRef(mtxRef)))).getData().get(0);
+                Arrays.asList(new ObjectSpecification().withRef(mtxRef).withIncluded(included))))
+                .getData().get(0);
 	}	
 	
+	private static String getResolvedRef(ObjectData objData) {
+	    return objData.getInfo().getE7() + "/" + objData.getInfo().getE1() + "/" + 
+	            objData.getInfo().getE5();
+	}
+	
+	/**
+	 * Returns local matrix cache shared by all requests using the same scratch
+	 * folder (so that its size limit applies to all of them).
+	 */
+	public MatrixCache getMatrixCache() {
+	    File scratchDir = getScratchDir();
+	    synchronized (matrixCaches) {
+	        MatrixCache ret = matrixCaches.get(scratchDir.getAbsolutePath());
+	        if (ret == null) {
+	            String maxSize = config.get(
+	                    KBaseFeatureValuesServer.CONFIG_PARAM_MATRIX_CACHE_MAX_SIZE);
+	            ret = maxSize == null || maxSize.trim().isEmpty() ? 
+	                    new MatrixCache(scratchDir) : 
+	                        new MatrixCache(scratchDir, Long.parseLong(maxSize.trim()));
+	            matrixCaches.put(scratchDir.getAbsolutePath(), ret);
+	        }
+	        return ret;
+	    }
+	}
+	
+	/**
+	 * Stores values and summary index of just saved matrix in local cache, so
+	 * that following queries don't need to load and scan it again.
+	 */
+	private void cacheSavedMatrix(String resolvedRef, FloatMatrix2D data) throws Exception {
+	    cacheSavedMatrix(resolvedRef, data, null);
+	}
+
+	/**
+	 * Stores saved matrix in local cache, values are taken from data if they
+	 * are not given in primitive form.
+	 */
+	private void cacheSavedMatrix(String resolvedRef, FloatMatrix2D data, 
+	        PrimitiveMatrix values) throws Exception {
+	    if (values == null)
+	        values = PrimitiveMatrix.fromFloatMatrix2D(data, getStorageMode());
+	    MatrixCache cache = getMatrixCache();
+	    cache.put(resolvedRef, data.getRowIds(), data.getColIds(), values);
+	    cache.putSummary(resolvedRef, MatrixSummary.build(values));
+	}
+	
 	private File getScratchDir() {
 	    File scratchDir = new File(config.get(KBaseFeatureValuesServer.CONFIG_PARAM_SCRATCH));
 	    if (!scratchDir.exists())
@@ -820,11 +1469,10 @@ public class KBaseFeatureValuesImpl {
 	        String dataScale = params.getDataScale();
 	        if (dataScale == null)
 	            dataScale = "1.0";
-	        ExpressionMatrix matrix = ExpressionUploader.parse(params.getGenomeRef(), inputFile,
-	                ExpressionUploader.FORMAT_TYPE_SIMPLE, fillMissingValues, dataType, 
-	                dataScale, token);
-	        File outputFile = File.createTempFile("matrix_", ".json", tmpDir);
-	        UObject.getMapper().writeValue(outputFile, matrix);
+	        // Values stay primitive, they're serialized straight into save request
+	        StreamedMatrix<ExpressionMatrix> matrix = ExpressionUploader.parseStreamed(
+	                params.getGenomeRef(), inputFile, ExpressionUploader.FORMAT_TYPE_SIMPLE,
+	                fillMissingValues, dataType, dataScale, token, getWsClient());
 	        Long wsId = dataFileUtil.wsNameToId(params.getOutputWsName());
 	        Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, 
 	                Map<String,String>> info = dataFileUtil.saveObjects(
@@ -833,39 +1481,50 @@ public class KBaseFeatureValuesImpl {
 	                        .withType("KBaseFeatureValues.ExpressionMatrix")
 	                        .withName(params.getOutputObjName())
 	                        .withData(new UObject(matrix))))).get(0);
-	        return new TsvFileToMatrixOutput().withOutputMatrixRef(
-	                info.getE7() + "/" + info.getE1() + "/" + info.getE5());
+	        String outRef = info.getE7() + "/" + info.getE1() + "/" + info.getE5();
+	        cacheSavedMatrix(outRef, matrix.getObject().getData(), matrix.getValues());
+	        return new TsvFileToMatrixOutput().withOutputMatrixRef(outRef);
 	    } finally {
 	        FileUtils.deleteQuietly(tmpDir);
 	    }
 	}
 	
     public MatrixToTsvFileOutput matrixToTsvFile(MatrixToTsvFileParams params) throws Exception {
-        File tmpDir = Files.createTempDirectory(getScratchDir().toPath(), "FromShock").toFile();
+        String format = params.getFormat() == null ? "TSV" : params.getFormat().toUpperCase();
+        String fileName;
+        if (format.equals("TSV")) {
+            fileName = "matrix.tsv";
+        } else if (format.equals("BINARY")) {
+            fileName = "matrix." + MatrixFile.EXTENSION;
+        } else {
+            throw new IllegalStateException("Unsupported format: " + params.getFormat());
+        }
+        ExportDestination dest = new ExportDestination(params.getToShock(), 
+                params.getFilePath(), fileName);
         try {
-            MatrixToTsvFileOutput ret = new MatrixToTsvFileOutput();
-            File matrixFile = new File(tmpDir, "matrix.tsv");
-            try (PrintWriter pw = new PrintWriter(matrixFile)) {
-                ExpressionDownloader.generate(getWsUrl(), params.getInputRef(), token, pw);
+            MatrixGenomeLoader loader = new MatrixGenomeLoader();
+            try {
+                loader.loadMatrix(params.getInputRef());
+                if (format.equals("TSV")) {
+                    ExpressionDownloader.generate(loader.matrix.getData(), 
+                            loader.matrix.getFeatureMapping(), loader.values, dest.file);
+                } else {
+                    MatrixFile.write(dest.file, loader.matrix.getData().getRowIds(), 
+                            loader.matrix.getData().getColIds(), loader.values, null, true);
+                }
+            } finally {
+                loader.close();
             }
-            if (params.getToShock() != null && params.getToShock() == 1L) {
-                URL callbackUrl = new URL(System.getenv("SDK_CALLBACK_URL"));
-                DataFileUtilClient dataFileUtil = new DataFileUtilClient(callbackUrl, token);
-                dataFileUtil.setIsInsecureHttpConnectionAllowed(true);
-                String shockId = dataFileUtil.packageForDownload(
-                        new PackageForDownloadParams().withFilePath(matrixFile.getCanonicalPath())
-                        .withWsRefs(Arrays.asList(params.getInputRef()))).getShockId();
-                ret.withShockId(shockId);
+            String result = dest.finish(params.getInputRef());
+            MatrixToTsvFileOutput ret = new MatrixToTsvFileOutput();
+            if (dest.isToShock()) {
+                ret.withShockId(result);
             } else {
-                File target = new File(params.getFilePath());
-                if (target.exists() && target.isDirectory())
-                    target = new File(target, matrixFile.getName());
-                FileUtils.copyFile(matrixFile, target);
-                ret.withFilePath(target.getCanonicalPath());
+                ret.withFilePath(result);
             }
             return ret;
         } finally {
-            FileUtils.deleteQuietly(tmpDir);
+            dest.close();
         }
     }
     
@@ -877,33 +1536,24 @@ public class KBaseFeatureValuesImpl {
 
     public ClustersToFileOutput clustersToFile(ClustersToFileParams params) 
             throws Exception {
-        File tmpDir = Files.createTempDirectory(getScratchDir().toPath(), "FromShock").toFile();
+        String ext = params.getFormat() == null ? "tsv" : params.getFormat().toLowerCase();
+        ExportDestination dest = new ExportDestination(params.getToShock(), 
+                params.getFilePath(), "clusters." + ext);
         try {
-            ClustersToFileOutput ret = new ClustersToFileOutput();
-            String ext = params.getFormat() == null ? "tsv" : params.getFormat().toLowerCase();
-            File clustFile = new File(tmpDir, "clusters." + ext);
-            try (PrintWriter pw = new PrintWriter(clustFile)) {
+            try (PrintWriter pw = new PrintWriter(dest.file)) {
                 FeatureClustersDownloader.generate(getWsUrl(), params.getInputRef(), 
                         params.getFormat(), token, pw);
             }
-            if (params.getToShock() != null && params.getToShock() == 1L) {
-                URL callbackUrl = new URL(System.getenv("SDK_CALLBACK_URL"));
-                DataFileUtilClient dataFileUtil = new DataFileUtilClient(callbackUrl, token);
-                dataFileUtil.setIsInsecureHttpConnectionAllowed(true);
-                String shockId = dataFileUtil.packageForDownload(
-                        new PackageForDownloadParams().withFilePath(clustFile.getCanonicalPath())
-                        .withWsRefs(Arrays.asList(params.getInputRef()))).getShockId();
-                ret.withShockId(shockId);
+            String result = dest.finish(params.getInputRef());
+            ClustersToFileOutput ret = new ClustersToFileOutput();
+            if (dest.isToShock()) {
+                ret.withShockId(result);
             } else {
-                File target = new File(params.getFilePath());
-                if (target.exists() && target.isDirectory())
-                    target = new File(target, clustFile.getName());
-                FileUtils.copyFile(clustFile, target);
-                ret.withFilePath(target.getCanonicalPath());
+                ret.withFilePath(result);
             }
             return ret;
         } finally {
-            FileUtils.deleteQuietly(tmpDir);
+            dest.close();
         }
     }
     
@@ -925,12 +1575,84 @@ public class KBaseFeatureValuesImpl {
 	return outref;
     }
 
-    class MatrixGenomeLoader{
+    private static final List<String> EXPRESSION_MATRIX_FIELDS = Arrays.asList("type", 
+            "scale", "description", "row_normalization", "col_normalization", "genome_ref", 
+            "feature_mapping", "conditionset_ref", "condition_mapping", "diff_expr_matrix_ref", 
+            "report");
+
+    /**
+     * Destination of exported file. Local exports are written into temporary
+     * file next to the target which is atomically renamed at the end, so data
+     * is written only once and partial file is never visible under target
+     * name. Exports to Shock are written into scratch folder and packaged
+     * from there.
+     */
+    class ExportDestination {
+        final File file;
+        private final File tmpDir;
+        private final File target;
+
+        ExportDestination(Long toShock, String filePath, String fileName) throws IOException {
+            if (toShock != null && toShock == 1L) {
+                tmpDir = Files.createTempDirectory(getScratchDir().toPath(), "ToShock").toFile();
+                target = null;
+                file = new File(tmpDir, fileName);
+            } else {
+                tmpDir = null;
+                File t = new File(filePath);
+                if (t.exists() && t.isDirectory())
+                    t = new File(t, fileName);
+                target = t.getAbsoluteFile();
+                File dir = target.getParentFile();
+                if (!dir.exists())
+                    dir.mkdirs();
+                file = File.createTempFile("." + target.getName() + ".", ".tmp", dir);
+            }
+        }
+
+        boolean isToShock() {
+            return target == null;
+        }
+
+        /**
+         * Returns Shock ID of packaged file or path of local file.
+         */
+        String finish(String inputRef) throws Exception {
+            if (target == null) {
+                URL callbackUrl = new URL(System.getenv("SDK_CALLBACK_URL"));
+                DataFileUtilClient dataFileUtil = new DataFileUtilClient(callbackUrl, token);
+                dataFileUtil.setIsInsecureHttpConnectionAllowed(true);
+                return dataFileUtil.packageForDownload(
+                        new PackageForDownloadParams().withFilePath(file.getCanonicalPath())
+                        .withWsRefs(Arrays.asList(inputRef))).getShockId();
+            }
+            Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return target.getCanonicalPath();
+        }
+
+        void close() {
+            if (tmpDir != null) {
+                FileUtils.deleteQuietly(tmpDir);
+            } else {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Loads matrix (and optionally genome properties), values may be mapped
+     * from local cache, so loader should be closed when values aren't needed.
+     */
+    class MatrixGenomeLoader implements Closeable {
         ObjectData matrixData;
         ExpressionMatrix matrix;
+        PrimitiveMatrix values;
+        MatrixFile cached = null;
+        MatrixSummary summary = null;
         String genomeId = null;
         String genomeName = null;
-        Hashtable<String,Feature> featureId2Feature = null;
+        FeatureProperties featureProperties = null;
         
         
         public void load(String mtxRef) throws Exception{
@@ -938,25 +1660,59 @@ public class KBaseFeatureValuesImpl {
             // We should go through dynamic service.
 
             // Get expression matrix
-            matrixData = getExpressionMatrixObject(mtxRef);
-            matrix = (ExpressionMatrix)  matrixData
-                .getData()
-                .asClassInstance(ExpressionMatrix.class);
+            loadMatrix(mtxRef);
                                         
             if (matrix.getGenomeRef() != null) {
-                GenomeDataV1 genomeRet = loadGenomeDynamic(token, mtxRef, matrix.getGenomeRef(), 
-                        Arrays.asList("id", "scientific_name"), Arrays.asList("id", "function", 
-                                "aliases"));
-                Genome genome = genomeRet.getData();
-                genomeId = genome.getId();
-                genomeName = genome.getScientificName();  
-                List<Feature> features = genome.getFeatures(); 
-//                  Gives: java.lang.TypeNotPresentException: Type us.kbase.common.service.Tuple3 not present            
-//                List<Feature> features = new ArrayList<Feature>();  
-                featureId2Feature = buildFeatureId2FeatureHash(features);            
+                featureProperties = getFeatureProperties(mtxRef, matrix.getGenomeRef());
+                genomeId = featureProperties.getGenomeId();
+                genomeName = featureProperties.getGenomeName();  
             }           
         }
 
+        public void loadMatrix(String mtxRef) throws Exception{
+            MatrixCache cache = getMatrixCache();
+            // Subset without ids and values is cheap and gives resolved reference
+            ObjectData header = getExpressionMatrixObject(mtxRef, EXPRESSION_MATRIX_FIELDS);
+            String resolvedRef = getResolvedRef(header);
+            cached = cache.get(resolvedRef);
+            if (cached != null) {
+                // Ids and values come from local cache
+                matrixData = header;
+                matrix = matrixData.getData().asClassInstance(ExpressionMatrix.class);
+                matrix.setData(new FloatMatrix2D().withRowIds(cached.getRowIds())
+                        .withColIds(cached.getColIds()));
+                values = cached.getValues();
+            } else {
+                matrixData = getExpressionMatrixObject(resolvedRef);
+                StreamedMatrix<ExpressionMatrix> loaded = readMatrix(matrixData, 
+                        ExpressionMatrix.class);
+                matrix = loaded.getObject();
+                values = loaded.getValues();
+                cache.put(resolvedRef, matrix.getData().getRowIds(), 
+                        matrix.getData().getColIds(), values);
+            }
+        }
+        
+        public MatrixSummary getSummary() throws Exception{
+            if (summary == null) {
+                MatrixCache cache = getMatrixCache();
+                String resolvedRef = getResolvedRef(matrixData);
+                summary = cache.getSummary(resolvedRef);
+                if (summary == null) {
+                    summary = MatrixSummary.build(values);
+                    cache.putSummary(resolvedRef, summary);
+                }
+            }
+            return summary;
+        }
+
+        @Override
+        public void close() {
+            if (cached != null)
+                cached.close();
+            cached = null;
+            values = null;
+        }
     }
 
 	@JsonInclude(JsonInclude.Include.NON_NULL)
@@ -39,6 +39,9 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
     public static final String CONFIG_PARAM_CLIENT_BIN_DIR = "client.bin.dir";
     public static final String CONFIG_PARAM_SCRATCH = "scratch";
     public static final String CONFIG_PARAM_SRV_WIZ_URL = "service.wizard.url";
+    public static final String CONFIG_PARAM_MATRIX_STORAGE = "matrix.storage";
+    public static final String CONFIG_PARAM_MATRIX_OFFHEAP_MIN_SIZE = "matrix.offheap.min.size";
+    public static final String CONFIG_PARAM_MATRIX_CACHE_MAX_SIZE = "matrix.cache.max.size";
     
     private KBaseFeatureValuesImpl impl(AuthToken authPart) throws Exception {
         return new KBaseFeatureValuesImpl(null, authPart, config, null);
@@ -95,7 +98,9 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
     /**
      * <p>Original spec-file function name: cluster_k_means</p>
      * <pre>
-     * Clusters features by K-means clustering.
+     * Clusters features by K-means clustering. If dimension is conditions
+     * (default is features) conditions are clustered instead and stored as
+     * condition_clusters.
      * </pre>
      * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ClusterKMeansParams ClusterKMeansParams}
      * @return   parameter "workspace_ref" of String
@@ -112,7 +117,17 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
     /**
      * <p>Original spec-file function name: cluster_hierarchical</p>
      * <pre>
-     * Clusters features by hierarchical clustering.
+     * Clusters features by hierarchical clustering. If dimension is conditions
+     * (default is features) conditions are clustered instead using
+     * condition_height_cutoff and stored as condition_clusters and
+     * condition_dendrogram.
+     * distance_metric is one of pearson (default), abs_pearson, spearman,
+     * cosine, euclidean or manhattan, linkage_criteria is complete (default),
+     * average or single. feature_height_cutoff (condition_height_cutoff for
+     * conditions) is height relative to the root at which dendrogram is cut
+     * into clusters (default is 1, one cluster). If max_items is set then only
+     * this number of rows with the highest variance is clustered. algorithm is
+     * hclust (default) or flashClust, both give the same tree.
      * </pre>
      * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ClusterHierarchicalParams ClusterHierarchicalParams}
      * @return   parameter "workspace_ref" of String
@@ -126,6 +141,25 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
         return returnVal;
     }
 
+    /**
+     * <p>Original spec-file function name: cluster_two_way</p>
+     * <pre>
+     * Clusters both features and conditions by hierarchical clustering. Matrix
+     * is loaded once and two clusterings are made concurrently, both
+     * dendrograms and their leaf orders are stored in FeatureClusters.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ClusterTwoWayParams ClusterTwoWayParams}
+     * @return   parameter "workspace_ref" of String
+     */
+    @JsonServerMethod(rpc = "KBaseFeatureValues.cluster_two_way", async=true)
+    public String clusterTwoWay(ClusterTwoWayParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        String returnVal = null;
+        //BEGIN cluster_two_way
+        returnVal = impl(authPart).clusterTwoWay(params, prov(jsonRpcContext));
+        //END cluster_two_way
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: clusters_from_dendrogram</p>
      * <pre>
@@ -164,14 +198,20 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
     /**
      * <p>Original spec-file function name: validate_matrix</p>
      * <pre>
+     * Checks matrix in one pass over its values (ids, shape, missing and
+     * non-finite values, feature mapping and declared type/scale) and
+     * returns report describing found problems.
      * </pre>
      * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.ValidateMatrixParams ValidateMatrixParams}
+     * @return   parameter "report" of type {@link us.kbase.kbasefeaturevalues.AnalysisReport AnalysisReport}
      */
     @JsonServerMethod(rpc = "KBaseFeatureValues.validate_matrix", authOptional=true, async=true)
-    public void validateMatrix(ValidateMatrixParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+    public AnalysisReport validateMatrix(ValidateMatrixParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        AnalysisReport returnVal = null;
         //BEGIN validate_matrix
-        impl(authPart).validateMatrix(params, prov(jsonRpcContext));
+        returnVal = impl(authPart).validateMatrix(params, prov(jsonRpcContext));
         //END validate_matrix
+        return returnVal;
     }
 
     /**
@@ -190,6 +230,24 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
         return returnVal;
     }
 
+    /**
+     * <p>Original spec-file function name: filter_matrix</p>
+     * <pre>
+     * Selects rows of matrix by variance, missing values, fold change and
+     * mean and saves them as new matrix object of the same type.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.kbasefeaturevalues.FilterMatrixParams FilterMatrixParams}
+     * @return   parameter "workspace_ref" of String
+     */
+    @JsonServerMethod(rpc = "KBaseFeatureValues.filter_matrix", async=true)
+    public String filterMatrix(FilterMatrixParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        String returnVal = null;
+        //BEGIN filter_matrix
+        returnVal = impl(authPart).filterMatrix(params, prov(jsonRpcContext));
+        //END filter_matrix
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: reconnect_matrix_to_genome</p>
      * <pre>
@@ -249,6 +307,7 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
     public List<ItemDescriptor> getMatrixRowDescriptors(GetMatrixItemDescriptorsParams arg1, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         List<ItemDescriptor> returnVal = null;
         //BEGIN get_matrix_row_descriptors
+        returnVal = impl(authPart).getMatrixRowDescriptors(arg1);
         //END get_matrix_row_descriptors
         return returnVal;
     }
@@ -264,6 +323,7 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
     public List<ItemDescriptor> getMatrixColumnDescriptors(GetMatrixItemDescriptorsParams arg1, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
         List<ItemDescriptor> returnVal = null;
         //BEGIN get_matrix_column_descriptors
+        returnVal = impl(authPart).getMatrixColumnDescriptors(arg1);
         //END get_matrix_column_descriptors
         return returnVal;
     }
@@ -364,6 +424,38 @@ public class KBaseFeatureValuesServer extends JsonServerServlet {
         return returnVal;
     }
 
+    /**
+     * <p>Original spec-file function name: get_matrix_values_window</p>
+     * <pre>
+     * </pre>
+     * @param   arg1   instance of type {@link us.kbase.kbasefeaturevalues.GetMatrixValuesWindowParams GetMatrixValuesWindowParams}
+     * @return   instance of type {@link us.kbase.kbasefeaturevalues.MatrixValuesWindow MatrixValuesWindow}
+     */
+    @JsonServerMethod(rpc = "KBaseFeatureValues.get_matrix_values_window", async=true)
+    public MatrixValuesWindow getMatrixValuesWindow(GetMatrixValuesWindowParams arg1, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        MatrixValuesWindow returnVal = null;
+        //BEGIN get_matrix_values_window
+        returnVal = impl(authPart).getMatrixValuesWindow(arg1);
+        //END get_matrix_values_window
+        return returnVal;
+    }
+
+    /**
+     * <p>Original spec-file function name: get_matrix_overview</p>
+     * <pre>
+     * </pre>
+     * @param   arg1   instance of type {@link us.kbase.kbasefeaturevalues.GetMatrixOverviewParams GetMatrixOverviewParams}
+     * @return   instance of type {@link us.kbase.kbasefeaturevalues.MatrixOverview MatrixOverview}
+     */
+    @JsonServerMethod(rpc = "KBaseFeatureValues.get_matrix_overview", async=true)
+    public MatrixOverview getMatrixOverview(GetMatrixOverviewParams arg1, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        MatrixOverview returnVal = null;
+        //BEGIN get_matrix_overview
+        returnVal = impl(authPart).getMatrixOverview(arg1);
+        //END get_matrix_overview
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: tsv_file_to_matrix</p>
      * <pre>
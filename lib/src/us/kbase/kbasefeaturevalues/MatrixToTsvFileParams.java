@@ -13,7 +13,11 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 /**
  * <p>Original spec-file type: MatrixToTsvFileParams</p>
- * 
+ * <pre>
+ * format - optional field, can be one of "TSV" or "BINARY" ("TSV" is default value).
+ *     "BINARY" is compact container with ids, float32/float64 values, missing-value
+ *     bitmap and per-row stats.
+ * </pre>
  * 
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -21,7 +25,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 @JsonPropertyOrder({
     "input_ref",
     "to_shock",
-    "file_path"
+    "file_path",
+    "format"
 })
 public class MatrixToTsvFileParams {
 
@@ -31,6 +36,8 @@ public class MatrixToTsvFileParams {
     private Long toShock;
     @JsonProperty("file_path")
     private String filePath;
+    @JsonProperty("format")
+    private String format;
     private Map<String, Object> additionalProperties = new HashMap<String, Object>();
 
     @JsonProperty("input_ref")
@@ -78,6 +85,21 @@ public class MatrixToTsvFileParams {
         return this;
     }
 
+    @JsonProperty("format")
+    public String getFormat() {
+        return format;
+    }
+
+    @JsonProperty("format")
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public MatrixToTsvFileParams withFormat(String format) {
+        this.format = format;
+        return this;
+    }
+
     @JsonAnyGetter
     public Map<String, Object> getAdditionalProperties() {
         return this.additionalProperties;
@@ -90,7 +112,7 @@ public class MatrixToTsvFileParams {
 
     @Override
     public String toString() {
-        return ((((((((("MatrixToTsvFileParams"+" [inputRef=")+ inputRef)+", toShock=")+ toShock)+", filePath=")+ filePath)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((("MatrixToTsvFileParams"+" [inputRef=")+ inputRef)+", toShock=")+ toShock)+", filePath=")+ filePath)+", format=")+ format)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
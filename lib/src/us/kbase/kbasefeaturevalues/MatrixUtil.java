@@ -8,18 +8,34 @@ import genomeannotationapi.GetGenomeParamsV1;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import us.kbase.auth.AuthToken;
+import us.kbase.common.service.Tuple11;
+import us.kbase.kbasefeaturevalues.matrix.MatrixCache;
+import us.kbase.kbasefeaturevalues.matrix.MissingBitmap;
+import us.kbase.kbasefeaturevalues.matrix.MissingValueImputer;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.workspace.GetObjectInfoNewParams;
+import us.kbase.workspace.ObjectSpecification;
+import us.kbase.workspace.WorkspaceClient;
 
-import kbasegenomes.Feature;
 import kbasegenomes.Genome;
 
 public class MatrixUtil {
+    private static final int FEATURE_INDEX_CACHE_SIZE = 8;
+    
+    private static final Map<String, FeatureIndex> featureIndexCache = 
+            new LinkedHashMap<String, FeatureIndex>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FeatureIndex> eldest) {
+            return size() > FEATURE_INDEX_CACHE_SIZE;
+        }
+    };
 
     public static Genome loadGenomeFeatures(AuthToken token, String matrixRef, 
             String genomeRef) throws Exception {
@@ -40,33 +56,71 @@ public class MatrixUtil {
                 .withIncludedFields(includedFields)).getGenomes().get(0);
     }
     
-    public static Map<String, String> constructFeatureMapping(FloatMatrix2D matrix, 
-            Genome genome) {
-        List<String> rowIds = matrix.getRowIds();
-        Map<String, String> featureMapping = null; // maps row ID to genome feature ID
-        Set<String> rowIdSet = new HashSet<String>(rowIds);
-        featureMapping = new LinkedHashMap<String, String>();
-        for (Feature feature : genome.getFeatures()) {
-            String id = feature.getId();
-            if (rowIdSet.contains(id)) {
-                featureMapping.put(id, id);
-                rowIdSet.remove(id);
+    /**
+     * Returns index of features of genome, indeces are cached by resolved
+     * reference of genome, so features are loaded and indexed once.
+     */
+    public static FeatureIndex getFeatureIndex(AuthToken token, String genomeRef) 
+            throws Exception {
+        return getFeatureIndex(token, null, genomeRef);
+    }
+
+    /**
+     * The same as getFeatureIndex(AuthToken, String), but if workspace client
+     * is given then reference of genome is resolved through object info
+     * first, so cached index is returned without loading of genome.
+     */
+    public static FeatureIndex getFeatureIndex(AuthToken token, WorkspaceClient wsClient,
+            String genomeRef) throws Exception {
+        String resolvedRef = MatrixCache.isResolvedRef(genomeRef) ? genomeRef :
+            (wsClient == null ? null : resolveRef(wsClient, genomeRef));
+        if (resolvedRef != null) {
+            synchronized (featureIndexCache) {
+                FeatureIndex ret = featureIndexCache.get(resolvedRef);
+                if (ret != null)
+                    return ret;
             }
         }
-        if (rowIdSet.size() > 0) {
-            for (Feature feature: genome.getFeatures()) {
-                String id = feature.getId();
-                if (feature.getAliases() != null) {
-                    for (String alias : feature.getAliases()) {
-                        if (rowIdSet.contains(alias)) {
-                            featureMapping.put(alias, id);
-                            rowIdSet.remove(alias);
-                        }
-                    }
+        // Resolved reference guarantees that indexed version is the checked one
+        GenomeDataV1 genome = loadGenome(token, null, resolvedRef == null ? genomeRef : 
+            resolvedRef, Collections.<String>emptyList(), Arrays.asList("id", "aliases"));
+        if (resolvedRef == null) {
+            Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, 
+                    Map<String, String>> info = genome.getInfo();
+            resolvedRef = info == null ? null : 
+                (info.getE7() + "/" + info.getE1() + "/" + info.getE5());
+            if (resolvedRef != null) {
+                synchronized (featureIndexCache) {
+                    FeatureIndex ret = featureIndexCache.get(resolvedRef);
+                    if (ret != null)
+                        return ret;
                 }
             }
         }
-        return featureMapping;
+        FeatureIndex ret = FeatureIndex.build(genome.getData());
+        if (resolvedRef != null) {
+            synchronized (featureIndexCache) {
+                featureIndexCache.put(resolvedRef, ret);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Resolves reference of object into wsid/objid/ver form through object
+     * info (object itself isn't loaded).
+     */
+    public static String resolveRef(WorkspaceClient wsClient, String ref) throws Exception {
+        Tuple11<Long, String, String, String, Long, String, Long, String, String, Long, 
+                Map<String, String>> info = wsClient.getObjectInfoNew(new GetObjectInfoNewParams()
+                        .withObjects(Arrays.asList(new ObjectSpecification().withRef(ref)))
+                        .withIncludeMetadata(0L)).get(0);
+        return info.getE7() + "/" + info.getE1() + "/" + info.getE5();
+    }
+
+    public static Map<String, String> constructFeatureMapping(FloatMatrix2D matrix, 
+            Genome genome) throws Exception {
+        return FeatureIndex.build(genome).map(matrix.getRowIds(), null);
     }
     
     public static void fillMissingValues(FloatMatrix2D matrix) {
@@ -96,4 +150,10 @@ public class MatrixUtil {
         }
     }
 
+    /**
+     * The same as fillMissingValues(FloatMatrix2D) for primitive matrix.
+     */
+    public static void fillMissingValues(PrimitiveMatrix values) {
+        MissingValueImputer.fillGlobalMean(values, MissingBitmap.build(values));
+    }
 }
@@ -0,0 +1,354 @@
+package us.kbase.kbasefeaturevalues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import us.kbase.kbasefeaturevalues.matrix.LongHashSet;
+
+/**
+ * Validator of matrix object (any type keeping FloatMatrix2D in "data" field)
+ * reading JSON token stream once. Neither values nor ids are kept: ids are
+ * checked for uniqueness through sets of their 64-bit fingerprints and values
+ * are checked as they come, so memory doesn't depend on matrix size except
+ * 8-16 bytes per id. Validation stops as soon as too many errors are found.
+ */
+public class MatrixValidator {
+    public static final int MAX_EXAMPLES = 10;
+    public static final int MAX_ERRORS = 1000;
+    public static final double MAX_MISSING_FRACTION = 0.5;
+    private static final double MAX_LOG_VALUE = 100;
+    private static final List<String> RAW_SCALES = Arrays.asList("raw", "1", "1.0",
+            "linear", "none");
+    private static final List<String> NON_NEGATIVE_TYPES = Arrays.asList("level", "ratio",
+            "count");
+
+    private final String method;
+    private final String type;
+    private final String scale;
+    private final FeatureIndex featureIndex;
+    private final boolean nonNegative;
+    private final boolean logScale;
+
+    private final Check idCheck = new Check("Row and column ids are present and unique", true);
+    private final Check shapeCheck = new Check("Number of values in every row is equal " +
+            "to number of columns and number of rows is equal to number of row ids", true);
+    private final Check numberCheck = new Check("Values are finite numbers or nulls", true);
+    private final Check missingCheck;
+    private final Check mappingCheck = new Check("Feature mapping refers to matrix rows " +
+            "and genome features", true);
+    private final Check scaleCheck;
+    private int errorCount = 0;
+
+    private final LongHashSet rowIds = new LongHashSet(1024);
+    private final LongHashSet colIds = new LongHashSet(64);
+    private int rowIdCount = -1;
+    private int colIdCount = -1;
+    private int rowCount = -1;
+    private int rowWidth = -1;
+    private long valueCount = 0;
+    private long missingCount = 0;
+    private int emptyRows = 0;
+    private int constantRows = 0;
+    private int mappedRows = -1;
+    private List<String[]> pendingMapping = null;
+
+    /**
+     * @param method optional clustering method matrix is validated for, it
+     * requires matrix without missing values
+     * @param type optional declared type of values (level, ratio, log-ratio)
+     * @param scale optional declared scale of values (raw, ln, log2, log10)
+     * @param featureIndex optional index of genome features
+     */
+    public MatrixValidator(String method, String type, String scale,
+            FeatureIndex featureIndex) {
+        this.method = method;
+        this.type = type == null ? null : type.trim().toLowerCase();
+        this.scale = scale == null ? null : scale.trim().toLowerCase();
+        this.featureIndex = featureIndex;
+        this.logScale = this.scale != null && (this.scale.startsWith("log") ||
+                this.scale.equals("ln"));
+        this.nonNegative = this.type != null && this.scale != null &&
+                NON_NEGATIVE_TYPES.contains(this.type) && RAW_SCALES.contains(this.scale);
+        if (method == null) {
+            missingCheck = new Check("Fraction of missing values is not greater than " +
+                    (int)(MAX_MISSING_FRACTION * 100) + "%", false);
+        } else {
+            missingCheck = new Check("There are no missing values (required for " + method +
+                    ")", true);
+        }
+        scaleCheck = new Check("Values agree with type " + type + " and scale " + scale,
+                nonNegative);
+    }
+
+    private static class Check {
+        private final String description;
+        private final boolean fatal;
+        private long count = 0;
+        private final List<String> examples = new ArrayList<String>();
+
+        Check(String description, boolean fatal) {
+            this.description = description;
+            this.fatal = fatal;
+        }
+    }
+
+    private static class TooManyErrorsException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private void fail(Check check, String example) {
+        check.count++;
+        if (check.examples.size() < MAX_EXAMPLES)
+            check.examples.add(example);
+        if (check.fatal && ++errorCount >= MAX_ERRORS)
+            throw new TooManyErrorsException();
+    }
+
+    /**
+     * Reads matrix object and returns report where every check is listed in
+     * checkDescriptions/checkResults, failed checks are described in errors
+     * (or warnings for checks which don't make matrix unusable).
+     */
+    public AnalysisReport validate(JsonParser jp) throws IOException {
+        boolean stopped = false;
+        try {
+            JsonToken t = jp.getCurrentToken();
+            if (t == null)
+                t = jp.nextToken();
+            if (t != JsonToken.START_OBJECT)
+                throw new IllegalStateException("Matrix object is expected to be JSON object");
+            boolean dataFound = false;
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                String name = jp.getCurrentName();
+                jp.nextToken();
+                if (name.equals("data") && jp.getCurrentToken() == JsonToken.START_OBJECT) {
+                    readData(jp);
+                    dataFound = true;
+                    if (pendingMapping != null)
+                        for (String[] entry : pendingMapping)
+                            checkMapping(entry[0], entry[1]);
+                } else if ((name.equals("feature_mapping") || name.equals("feature_ko_mapping"))
+                        && jp.getCurrentToken() == JsonToken.START_OBJECT) {
+                    readMapping(jp, dataFound);
+                } else {
+                    jp.skipChildren();
+                }
+            }
+            if (!dataFound)
+                fail(shapeCheck, "there is no data field");
+            finishData();
+        } catch (TooManyErrorsException ex) {
+            stopped = true;
+        }
+        return buildReport(stopped);
+    }
+
+    private void readData(JsonParser jp) throws IOException {
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String name = jp.getCurrentName();
+            JsonToken t = jp.nextToken();
+            if ((name.equals("row_ids") || name.equals("col_ids")) && t == JsonToken.START_ARRAY) {
+                boolean rows = name.equals("row_ids");
+                LongHashSet ids = rows ? rowIds : colIds;
+                int count = 0;
+                while ((t = jp.nextToken()) != JsonToken.END_ARRAY) {
+                    count++;
+                    String id = t == JsonToken.VALUE_STRING ? jp.getText() : null;
+                    if (t == JsonToken.START_ARRAY || t == JsonToken.START_OBJECT)
+                        jp.skipChildren();
+                    if (id == null || id.trim().isEmpty()) {
+                        fail(idCheck, (rows ? "row" : "column") + " id at position " + count +
+                                " is empty");
+                    } else if (!ids.add(LongHashSet.fingerprint(id))) {
+                        fail(idCheck, (rows ? "row" : "column") + " id " + id +
+                                " is duplicated");
+                    }
+                }
+                if (rows) {
+                    rowIdCount = count;
+                } else {
+                    colIdCount = count;
+                }
+            } else if (name.equals("values") && t == JsonToken.START_ARRAY) {
+                readValues(jp);
+            } else {
+                jp.skipChildren();
+            }
+        }
+    }
+
+    private void readValues(JsonParser jp) throws IOException {
+        int row = 0;
+        JsonToken t;
+        while ((t = jp.nextToken()) != JsonToken.END_ARRAY) {
+            row++;
+            if (t != JsonToken.START_ARRAY) {
+                jp.skipChildren();
+                fail(shapeCheck, "row " + row + " is not an array");
+                continue;
+            }
+            int col = 0;
+            int rowMissing = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            while ((t = jp.nextToken()) != JsonToken.END_ARRAY) {
+                col++;
+                if (t == JsonToken.VALUE_NULL) {
+                    rowMissing++;
+                    continue;
+                }
+                if (t != JsonToken.VALUE_NUMBER_FLOAT && t != JsonToken.VALUE_NUMBER_INT) {
+                    jp.skipChildren();
+                    fail(numberCheck, "value at row " + row + ", column " + col +
+                            " is not a number");
+                    continue;
+                }
+                double v = jp.getDoubleValue();
+                if (Double.isNaN(v) || Double.isInfinite(v)) {
+                    fail(numberCheck, "value at row " + row + ", column " + col + " is " +
+                            (Double.isNaN(v) ? "NaN" : "infinite"));
+                    continue;
+                }
+                if (v < min)
+                    min = v;
+                if (v > max)
+                    max = v;
+                if (nonNegative && v < 0) {
+                    fail(scaleCheck, "value " + v + " at row " + row + ", column " + col +
+                            " is negative");
+                } else if (logScale && Math.abs(v) > MAX_LOG_VALUE) {
+                    fail(scaleCheck, "value " + v + " at row " + row + ", column " + col +
+                            " is too large for " + scale + " scale");
+                }
+            }
+            int expectedWidth = colIdCount >= 0 ? colIdCount : rowWidth;
+            if (expectedWidth < 0) {
+                rowWidth = col;
+            } else if (col != expectedWidth) {
+                fail(shapeCheck, "row " + row + " contains " + col + " values instead of " +
+                        expectedWidth);
+            }
+            valueCount += col;
+            missingCount += rowMissing;
+            if (rowMissing > 0 && method != null)
+                fail(missingCheck, "row " + row + " contains " + rowMissing +
+                        " missing values");
+            if (col > 0 && rowMissing == col) {
+                emptyRows++;
+            } else if (col > 1 && min == max) {
+                constantRows++;
+            }
+        }
+        rowCount = row;
+    }
+
+    private void readMapping(JsonParser jp, boolean dataFound) throws IOException {
+        if (!dataFound)
+            pendingMapping = new ArrayList<String[]>();
+        mappedRows = 0;
+        JsonToken t;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String rowId = jp.getCurrentName();
+            t = jp.nextToken();
+            String featureId = t == JsonToken.VALUE_STRING ? jp.getText() : null;
+            jp.skipChildren();
+            if (dataFound) {
+                checkMapping(rowId, featureId);
+            } else {
+                pendingMapping.add(new String[] {rowId, featureId});
+            }
+        }
+    }
+
+    private void checkMapping(String rowId, String featureId) {
+        if (!rowIds.contains(LongHashSet.fingerprint(rowId))) {
+            fail(mappingCheck, "mapped row " + rowId + " is not found in matrix");
+            return;
+        }
+        if (featureId == null || featureId.trim().isEmpty()) {
+            fail(mappingCheck, "row " + rowId + " is mapped to empty feature id");
+            return;
+        }
+        if (featureIndex != null && featureIndex.getFeatureId(featureId) == null) {
+            fail(mappingCheck, "row " + rowId + " is mapped to feature " + featureId +
+                    " which is not found in genome");
+            return;
+        }
+        mappedRows++;
+    }
+
+    private void finishData() {
+        if (rowIdCount < 0 || colIdCount < 0)
+            fail(idCheck, "matrix data doesn't contain " + (rowIdCount < 0 ? "row" : "column") +
+                    " ids");
+        if (rowCount < 0) {
+            if (rowIdCount > 0 && colIdCount > 0)
+                fail(shapeCheck, "matrix data doesn't contain values");
+            return;
+        }
+        if (rowIdCount >= 0 && rowCount != rowIdCount)
+            fail(shapeCheck, "matrix contains " + rowCount + " rows of values instead of " +
+                    rowIdCount);
+        if (colIdCount >= 0 && rowWidth >= 0 && rowWidth != colIdCount)
+            fail(shapeCheck, "rows contain " + rowWidth + " values instead of " + colIdCount);
+        if (method == null && valueCount > 0 &&
+                missingCount > MAX_MISSING_FRACTION * valueCount)
+            fail(missingCheck, missingCount + " of " + valueCount + " values are missing");
+    }
+
+    private AnalysisReport buildReport(boolean stopped) {
+        List<String> descriptions = new ArrayList<String>();
+        List<Long> results = new ArrayList<Long>();
+        List<String> messages = new ArrayList<String>();
+        List<String> warnings = new ArrayList<String>();
+        List<String> errors = new ArrayList<String>();
+        List<Check> checks = new ArrayList<Check>(Arrays.asList(idCheck, shapeCheck,
+                numberCheck, missingCheck));
+        if (mappedRows >= 0)
+            checks.add(mappingCheck);
+        if (nonNegative || logScale)
+            checks.add(scaleCheck);
+        for (Check check : checks) {
+            descriptions.add(check.description);
+            results.add(check.count == 0 ? 1L : 0L);
+            if (check.count == 0)
+                continue;
+            StringBuilder message = new StringBuilder(check.description).append(": ")
+                    .append(check.count).append(check.count == 1 ? " problem" : " problems")
+                    .append(", ");
+            for (int i = 0; i < check.examples.size(); i++)
+                message.append(i > 0 ? "; " : "").append(check.examples.get(i));
+            if (check.count > check.examples.size())
+                message.append("; ...");
+            (check.fatal ? errors : warnings).add(message.toString());
+        }
+        if (stopped)
+            errors.add("Validation was stopped after " + errorCount + " errors");
+        if (rowCount >= 0)
+            messages.add("Matrix contains " + rowCount + " rows and " +
+                    Math.max(colIdCount, rowWidth) + " columns");
+        if (valueCount > 0)
+            messages.add("Missing values: " + missingCount + " of " + valueCount + " (" +
+                    String.format("%.2f", 100.0 * missingCount / valueCount) + "%)");
+        if (emptyRows > 0)
+            warnings.add(emptyRows + " rows don't contain any values");
+        if (constantRows > 0) {
+            String message = constantRows + " rows contain constant values";
+            if (method != null) {
+                warnings.add(message + ", correlation with them is undefined");
+            } else {
+                messages.add(message);
+            }
+        }
+        if (mappedRows >= 0 && rowIdCount >= 0)
+            messages.add("Rows mapped to features: " + mappedRows + " of " + rowIdCount);
+        return new AnalysisReport().withCheckUsed(method == null ? "default" : method)
+                .withCheckDescriptions(descriptions).withCheckResults(results)
+                .withMessages(messages).withWarnings(warnings).withErrors(errors);
+    }
+}
@@ -0,0 +1,181 @@
+package us.kbase.kbasefeaturevalues;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orderings of matrix rows defined by FeatureClusters object. Ordering is
+ * array of row positions, rows not mentioned in clusters (or dendrogram) are
+ * added at the end in their original order, so ordering is always a
+ * permutation of all rows of matrix.
+ */
+public class RowOrdering {
+    public static final String CLUSTERS = "clusters";
+    public static final String DENDROGRAM = "dendrogram";
+
+    public static boolean isSupported(String ordering) {
+        return CLUSTERS.equals(ordering) || DENDROGRAM.equals(ordering);
+    }
+
+    /**
+     * Rows of each cluster go together (in order of their positions), clusters
+     * go in the same order as in the list.
+     */
+    public static int[] fromClusters(List<LabeledCluster> clusters, int rowCount) {
+        List<Integer> positions = new ArrayList<Integer>();
+        for (LabeledCluster cluster : clusters == null ? Collections.<LabeledCluster>emptyList() : clusters) {
+            List<Integer> clusterPositions = new ArrayList<Integer>();
+            for (Long pos : cluster.getIdToPos().values())
+                clusterPositions.add(pos.intValue());
+            Collections.sort(clusterPositions);
+            positions.addAll(clusterPositions);
+        }
+        return complete(positions, rowCount);
+    }
+
+    /**
+     * Rows go in leaf order of dendrogram in Newick format. Leaf names are
+     * positions of rows (as produced by clustering methods) or row ids.
+     */
+    public static int[] fromDendrogram(String dendrogram, List<String> rowIds) {
+        Map<String, Integer> idToPos = null;
+        List<Integer> positions = new ArrayList<Integer>();
+        for (String label : getLeafLabels(dendrogram)) {
+            Integer pos = null;
+            if (isNumber(label)) {
+                pos = Integer.parseInt(label);
+            } else {
+                if (idToPos == null) {
+                    idToPos = new HashMap<String, Integer>(rowIds.size() * 2);
+                    for (int i = 0; i < rowIds.size(); i++)
+                        if (!idToPos.containsKey(rowIds.get(i)))
+                            idToPos.put(rowIds.get(i), i);
+                }
+                pos = idToPos.get(label);
+                if (pos == null)
+                    throw new IllegalStateException("Dendrogram leaf " + label +
+                            " is not found among row ids");
+            }
+            positions.add(pos);
+        }
+        return complete(positions, rowIds.size());
+    }
+
+    /**
+     * Rows go in given leaf order of dendrogram (positions of rows).
+     */
+    public static int[] fromLeafOrder(List<Long> leafOrder, int rowCount) {
+        List<Integer> positions = new ArrayList<Integer>(leafOrder.size());
+        for (Long pos : leafOrder)
+            positions.add(pos.intValue());
+        return complete(positions, rowCount);
+    }
+
+    /**
+     * Returns names of leaves of tree in Newick format in the order they
+     * appear in text (names of internal nodes and branch lengths are skipped).
+     */
+    public static List<String> getLeafLabels(String newick) {
+        List<String> ret = new ArrayList<String>();
+        scanLeaves(newick, ret, null);
+        return ret;
+    }
+
+    /**
+     * Replaces numeric leaf names of tree in Newick format (positions of rows
+     * of matrix subset) by positions of these rows in the whole matrix.
+     */
+    public static String mapLeafPositions(String newick, int[] positions) {
+        List<String> labels = new ArrayList<String>();
+        List<int[]> spans = new ArrayList<int[]>();
+        scanLeaves(newick, labels, spans);
+        StringBuilder ret = new StringBuilder();
+        int done = 0;
+        for (int i = 0; i < labels.size(); i++) {
+            String label = labels.get(i);
+            if (!isNumber(label))
+                continue;
+            int pos = Integer.parseInt(label);
+            if (pos >= positions.length)
+                throw new IllegalStateException("Dendrogram leaf " + label +
+                        " is out of range [0, " + positions.length + ")");
+            int[] span = spans.get(i);
+            ret.append(newick, done, span[0]).append(positions[pos]);
+            done = span[1];
+        }
+        return ret.append(newick, done, newick.length()).toString();
+    }
+
+    private static void scanLeaves(String newick, List<String> labels, List<int[]> spans) {
+        int len = newick.length();
+        // Leaf name can only start right after '(' or ','
+        boolean leafExpected = true;
+        for (int i = 0; i < len; i++) {
+            char c = newick.charAt(i);
+            if (c == '(' || c == ',') {
+                leafExpected = true;
+            } else if (c == ')' || c == ':' || c == ';') {
+                leafExpected = false;
+            } else if (leafExpected && !Character.isWhitespace(c)) {
+                int start = i;
+                StringBuilder label = new StringBuilder();
+                if (c == '\'') {
+                    for (i++; i < len; i++) {
+                        c = newick.charAt(i);
+                        if (c == '\'') {
+                            if (i + 1 < len && newick.charAt(i + 1) == '\'') {
+                                i++;
+                            } else {
+                                break;
+                            }
+                        }
+                        label.append(c);
+                    }
+                } else {
+                    for (; i < len; i++) {
+                        c = newick.charAt(i);
+                        if (c == ':' || c == ',' || c == ')' || c == ';' || c == '(')
+                            break;
+                        label.append(c);
+                    }
+                    i--;
+                }
+                labels.add(label.toString().trim());
+                if (spans != null)
+                    spans.add(new int[] {start, Math.min(len, i + 1)});
+                leafExpected = false;
+            }
+        }
+    }
+
+    private static boolean isNumber(String label) {
+        if (label.isEmpty() || label.length() > 9)
+            return false;
+        for (int i = 0; i < label.length(); i++)
+            if (!Character.isDigit(label.charAt(i)))
+                return false;
+        return true;
+    }
+
+    private static int[] complete(List<Integer> positions, int rowCount) {
+        int[] ret = new int[rowCount];
+        boolean[] used = new boolean[rowCount];
+        int size = 0;
+        for (int pos : positions) {
+            if (pos < 0 || pos >= rowCount)
+                throw new IllegalStateException("Row position " + pos +
+                        " is out of range [0, " + rowCount + ")");
+            if (used[pos])
+                continue;
+            used[pos] = true;
+            ret[size++] = pos;
+        }
+        for (int pos = 0; pos < rowCount; pos++)
+            if (!used[pos])
+                ret[size++] = pos;
+        return ret;
+    }
+}
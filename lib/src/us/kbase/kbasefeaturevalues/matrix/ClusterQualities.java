@@ -0,0 +1,160 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import us.kbase.kbasefeaturevalues.matrix.ParallelTasks.RangeTask;
+
+/**
+ * Quality of clusters of matrix rows, the same measures as calc_cluster_qualities
+ * of math service computes: mean pairwise Pearson correlation of rows of
+ * cluster (over values present in both rows, undefined correlation counts as
+ * zero) and MSEC, mean squared deviation of values from means of their columns
+ * in cluster relative to mean squared deviation from mean of all values of
+ * cluster. Both are NaN for clusters of single row.
+ */
+public class ClusterQualities {
+    private static final int MIN_CELLS_PER_THREAD = 1 << 16;
+
+    private final double[] meanCorrelations;
+    private final double[] msecs;
+
+    private ClusterQualities(int clusterCount) {
+        meanCorrelations = new double[clusterCount];
+        msecs = new double[clusterCount];
+    }
+
+    /**
+     * Calculates qualities of clusters labeled from 1 (rows with labels less
+     * than 1 don't belong to any cluster).
+     */
+    public static ClusterQualities calculate(PrimitiveMatrix values, long[] labels,
+            int threadCount) throws Exception {
+        if (labels.length != values.getRowCount())
+            throw new IllegalStateException("Number of cluster labels (" + labels.length +
+                    ") differs from number of rows (" + values.getRowCount() + ")");
+        int clusterCount = 0;
+        for (long label : labels)
+            clusterCount = (int)Math.max(clusterCount, label);
+        List<List<Integer>> clusters = new ArrayList<List<Integer>>(clusterCount);
+        for (int c = 0; c < clusterCount; c++)
+            clusters.add(new ArrayList<Integer>());
+        for (int i = 0; i < labels.length; i++)
+            if (labels[i] > 0)
+                clusters.get((int)labels[i] - 1).add(i);
+        ClusterQualities ret = new ClusterQualities(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            List<Integer> rows = clusters.get(c);
+            if (rows.size() < 2) {
+                ret.meanCorrelations[c] = Double.NaN;
+                ret.msecs[c] = Double.NaN;
+                continue;
+            }
+            double[][] vectors = new double[rows.size()][];
+            for (int k = 0; k < vectors.length; k++)
+                vectors[k] = values.getRow(rows.get(k), new double[values.getColCount()]);
+            // Vectors are changed by distance kernel, so MSEC goes first
+            ret.msecs[c] = getMsec(vectors);
+            ret.meanCorrelations[c] = getMeanCorrelation(vectors, threadCount);
+        }
+        return ret;
+    }
+
+    public int getClusterCount() {
+        return msecs.length;
+    }
+
+    public List<Double> getMeanCorrelations() {
+        return toList(meanCorrelations);
+    }
+
+    public List<Double> getMsecs() {
+        return toList(msecs);
+    }
+
+    private static List<Double> toList(double[] values) {
+        List<Double> ret = new ArrayList<Double>(values.length);
+        for (double value : values)
+            ret.add(value);
+        return ret;
+    }
+
+    private static double getMsec(double[][] vectors) {
+        int length = vectors[0].length;
+        double[] colSums = new double[length];
+        int[] colCounts = new int[length];
+        double sum = 0;
+        long count = 0;
+        for (double[] vector : vectors) {
+            for (int j = 0; j < length; j++) {
+                double value = vector[j];
+                if (Double.isNaN(value))
+                    continue;
+                colSums[j] += value;
+                colCounts[j]++;
+                sum += value;
+                count++;
+            }
+        }
+        if (count == 0)
+            return Double.NaN;
+        double mean = sum / count;
+        double totalError = 0;
+        double colError = 0;
+        for (double[] vector : vectors) {
+            for (int j = 0; j < length; j++) {
+                double value = vector[j];
+                if (Double.isNaN(value))
+                    continue;
+                totalError += (value - mean) * (value - mean);
+                double colDelta = value - colSums[j] / colCounts[j];
+                colError += colDelta * colDelta;
+            }
+        }
+        // Both errors are means over the same present values
+        return totalError == 0 ? Double.NaN : colError / totalError;
+    }
+
+    /**
+     * Mean of Pearson correlations of all pairs of vectors (vectors are
+     * prepared by distance kernel in place), short rows of triangle are
+     * paired with long ones to balance threads.
+     */
+    private static double getMeanCorrelation(final double[][] vectors, int threadCount)
+            throws Exception {
+        final DistanceKernel kernel = DistanceKernel.get(DistanceKernel.PEARSON);
+        final int n = vectors.length;
+        final boolean[] missing = new boolean[n];
+        for (int i = 0; i < n; i++)
+            missing[i] = !kernel.prepare(vectors[i]);
+        long cellsPerPair = Math.max(1, (long)n * vectors[0].length);
+        List<Double> sums = ParallelTasks.run((n + 1) / 2,
+                (int)Math.max(1, MIN_CELLS_PER_THREAD / cellsPerPair), threadCount,
+                new RangeTask<Double>() {
+            @Override
+            public Double run(int start, int end) {
+                double sum = 0;
+                for (int p = start; p < end; p++) {
+                    sum += getDistanceSum(kernel, vectors, missing, p);
+                    if (n - 1 - p != p)
+                        sum += getDistanceSum(kernel, vectors, missing, n - 1 - p);
+                }
+                return sum;
+            }
+        });
+        double distanceSum = 0;
+        for (double sum : sums)
+            distanceSum += sum;
+        return 1 - distanceSum / ((double)n * (n - 1) / 2);
+    }
+
+    private static double getDistanceSum(DistanceKernel kernel, double[][] vectors,
+            boolean[] missing, int i) {
+        double ret = 0;
+        for (int j = i + 1; j < vectors.length; j++)
+            ret += missing[i] || missing[j] ?
+                    kernel.getPairwiseDistance(vectors[i], vectors[j]) :
+                        kernel.getDistance(vectors[i], vectors[j]);
+        return ret;
+    }
+}
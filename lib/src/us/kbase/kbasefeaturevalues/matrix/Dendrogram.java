@@ -0,0 +1,182 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+/**
+ * Binary tree produced by hierarchical clustering of n items. Leaves are
+ * nodes 0..n-1 (positions of items), internal node n + t is made by merge t,
+ * merges go in order of non-decreasing height, so the root is node 2n - 2.
+ * Tree is traversed without recursion, so degenerate (chain-like) trees of
+ * single linkage are supported.
+ */
+public class Dendrogram {
+    private final int leafCount;
+    private final int[] left;
+    private final int[] right;
+    private final double[] heights;
+
+    /**
+     * @param left first child of every merge
+     * @param right second child of every merge
+     * @param heights heights of merges (non-decreasing)
+     */
+    public Dendrogram(int leafCount, int[] left, int[] right, double[] heights) {
+        if (leafCount < 1 || left.length != leafCount - 1 || right.length != leafCount - 1 ||
+                heights.length != leafCount - 1)
+            throw new IllegalStateException("Wrong number of merges for " + leafCount +
+                    " leaves: " + left.length);
+        this.leafCount = leafCount;
+        this.left = left;
+        this.right = right;
+        this.heights = heights;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    public int getRoot() {
+        return 2 * leafCount - 2;
+    }
+
+    public boolean isLeaf(int node) {
+        return node < leafCount;
+    }
+
+    public int getLeft(int node) {
+        return left[node - leafCount];
+    }
+
+    public int getRight(int node) {
+        return right[node - leafCount];
+    }
+
+    /**
+     * Height of node (0 for leaves).
+     */
+    public double getHeight(int node) {
+        return isLeaf(node) ? 0 : heights[node - leafCount];
+    }
+
+    /**
+     * Swaps children of internal node (this changes leaf order only).
+     */
+    void swapChildren(int node) {
+        int tmp = left[node - leafCount];
+        left[node - leafCount] = right[node - leafCount];
+        right[node - leafCount] = tmp;
+    }
+
+    /**
+     * Returns leaves in order of left to right traversal.
+     */
+    public int[] getLeafOrder() {
+        int[] ret = new int[leafCount];
+        int size = 0;
+        int[] stack = new int[leafCount];
+        int top = 0;
+        stack[top++] = getRoot();
+        while (top > 0) {
+            int node = stack[--top];
+            if (isLeaf(node)) {
+                ret[size++] = node;
+            } else {
+                stack[top++] = getRight(node);
+                stack[top++] = getLeft(node);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns tree in Newick format, leaves are named by positions of items
+     * and branch lengths are differences of heights divided by height of the
+     * root (the same as produced by clustering in R).
+     */
+    public String toNewick() {
+        if (leafCount == 1)
+            return "0;";
+        double scale = getHeight(getRoot()) > 0 ? 1.0 / getHeight(getRoot()) : 0;
+        int[] parents = new int[2 * leafCount - 1];
+        for (int t = 0; t < leafCount - 1; t++) {
+            parents[left[t]] = leafCount + t;
+            parents[right[t]] = leafCount + t;
+        }
+        int separator = 2 * leafCount;
+        StringBuilder ret = new StringBuilder();
+        // Internal nodes are pushed twice (to open and to close them) and
+        // negative entries are closing nodes and separators of children
+        int[] stack = new int[4 * leafCount];
+        int top = 0;
+        stack[top++] = getRoot();
+        while (top > 0) {
+            int entry = stack[--top];
+            int node = entry >= 0 ? entry : -entry - 1;
+            if (entry >= 0 && !isLeaf(node)) {
+                ret.append('(');
+                stack[top++] = -node - 1;
+                stack[top++] = getRight(node);
+                stack[top++] = -separator - 1;
+                stack[top++] = getLeft(node);
+                continue;
+            }
+            if (node == separator) {
+                ret.append(',');
+                continue;
+            }
+            if (isLeaf(node))
+                ret.append(node);
+            else
+                ret.append(')');
+            if (node != getRoot())
+                ret.append(':').append(formatLength(
+                        (getHeight(parents[node]) - getHeight(node)) * scale));
+        }
+        return ret.append(';').toString();
+    }
+
+    private static String formatLength(double length) {
+        String ret = String.valueOf((float)Math.max(0, length));
+        return ret.endsWith(".0") ? ret.substring(0, ret.length() - 2) : ret;
+    }
+
+    /**
+     * Cuts tree at given height relative to height of the root and returns
+     * labels of clusters of items (1-based, numbered in order of the first
+     * item of every cluster like cutree in R).
+     */
+    public long[] cut(double relativeHeight) {
+        double maxHeight = getHeight(getRoot()) * relativeHeight;
+        int[] roots = new int[2 * leafCount - 1];
+        for (int node = 0; node < roots.length; node++)
+            roots[node] = node;
+        // Merges not higher than cutoff join their children
+        for (int t = 0; t < leafCount - 1; t++) {
+            if (heights[t] <= maxHeight) {
+                roots[left[t]] = leafCount + t;
+                roots[right[t]] = leafCount + t;
+            }
+        }
+        long[] ret = new long[leafCount];
+        long[] labels = new long[roots.length];
+        long nextLabel = 1;
+        for (int i = 0; i < leafCount; i++) {
+            int root = findRoot(roots, i);
+            if (labels[root] == 0)
+                labels[root] = nextLabel++;
+            ret[i] = labels[root];
+        }
+        return ret;
+    }
+
+    private static int findRoot(int[] roots, int node) {
+        int root = node;
+        while (roots[root] != root)
+            root = roots[root];
+        // Path compression
+        while (roots[node] != root) {
+            int next = roots[node];
+            roots[node] = root;
+            node = next;
+        }
+        return root;
+    }
+}
@@ -0,0 +1,480 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import us.kbase.kbasefeaturevalues.matrix.ParallelTasks.RangeTask;
+
+/**
+ * Distances between rows (or columns) of matrix kept as condensed upper
+ * triangle of floats (see index()). Every metric is a kernel registered by
+ * name. Kernel prepares every vector without missing values once (centers,
+ * ranks or scales it), so distance between two such vectors is a tight loop
+ * over primitive arrays (dot product or sum of differences) which JIT can
+ * unroll and vectorize. Pairs with missing values are compared over
+ * positions present in both vectors. Rows of triangle are computed in
+ * parallel, short rows are paired with long ones to balance threads.
+ */
+public abstract class DistanceKernel {
+    /** 1 - Pearson correlation (default metric). */
+    public static final String PEARSON = "pearson";
+    /** 1 - absolute value of Pearson correlation. */
+    public static final String ABS_PEARSON = "abs_pearson";
+    /** 1 - Spearman rank correlation. */
+    public static final String SPEARMAN = "spearman";
+    /** 1 - cosine similarity (uncentered correlation). */
+    public static final String COSINE = "cosine";
+    public static final String EUCLIDEAN = "euclidean";
+    public static final String MANHATTAN = "manhattan";
+
+    private static final int MIN_CELLS_PER_THREAD = 1 << 16;
+    private static final Map<String, DistanceKernel> kernels =
+            new LinkedHashMap<String, DistanceKernel>();
+
+    static {
+        register(PEARSON, new CorrelationKernel(false, false));
+        register(ABS_PEARSON, new CorrelationKernel(false, true));
+        register(SPEARMAN, new CorrelationKernel(true, false));
+        register(COSINE, new CosineKernel());
+        register(EUCLIDEAN, new MinkowskiKernel(true));
+        register(MANHATTAN, new MinkowskiKernel(false));
+    }
+
+    /**
+     * Registers kernel for metric (kernel registered before under the same
+     * name is replaced).
+     */
+    public static void register(String metric, DistanceKernel kernel) {
+        synchronized (kernels) {
+            kernels.put(metric, kernel);
+        }
+    }
+
+    public static boolean isSupported(String metric) {
+        synchronized (kernels) {
+            return metric == null || kernels.containsKey(metric);
+        }
+    }
+
+    /**
+     * Returns kernel of metric (null means Pearson).
+     */
+    public static DistanceKernel get(String metric) {
+        DistanceKernel ret;
+        synchronized (kernels) {
+            ret = kernels.get(metric == null ? PEARSON : metric);
+        }
+        if (ret == null)
+            throw new IllegalStateException("Unsupported distance metric: " + metric);
+        return ret;
+    }
+
+    /**
+     * Prepares vector for distances before all pairs are compared (vector
+     * can be changed in place). Returns false if vector has missing values,
+     * in this case it's compared by getPairwiseDistance() which shouldn't
+     * depend on changes made here.
+     */
+    protected abstract boolean prepare(double[] vector);
+
+    /**
+     * Distance between two prepared vectors without missing values.
+     */
+    protected abstract double getDistance(double[] v1, double[] v2);
+
+    /**
+     * Distance over positions present in both vectors (NaN if it's
+     * undefined).
+     */
+    protected abstract double getPairwiseDistance(double[] v1, double[] v2);
+
+    /**
+     * Distances between rows of matrix.
+     * @param metric name of metric (null for Pearson)
+     */
+    public static float[] getRowDistances(PrimitiveMatrix values, String metric,
+            int threadCount) throws Exception {
+        return get(metric).getDistances(getRows(values), threadCount);
+    }
+
+    /**
+     * Distances between columns of matrix, columns are gathered row by row.
+     */
+    public static float[] getColumnDistances(PrimitiveMatrix values, String metric,
+            int threadCount) throws Exception {
+        return get(metric).getDistances(getColumns(values), threadCount);
+    }
+
+    /**
+     * Rows of matrix copied into separate arrays. Extraction is a single
+     * pass, so views are read directly (callers reading the same view
+     * several times should use MatrixView.prepare()).
+     */
+    public static double[][] getRows(PrimitiveMatrix values) {
+        double[][] ret = new double[values.getRowCount()][];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = values.getRow(i, new double[values.getColCount()]);
+        return ret;
+    }
+
+    /**
+     * Columns of matrix copied into separate arrays (values are read row by
+     * row).
+     */
+    public static double[][] getColumns(PrimitiveMatrix values) {
+        int rowCount = values.getRowCount();
+        double[][] ret = new double[values.getColCount()][rowCount];
+        double[] row = null;
+        for (int i = 0; i < rowCount; i++) {
+            row = values.getRow(i, row);
+            for (int j = 0; j < ret.length; j++)
+                ret[j][i] = row[j];
+        }
+        return ret;
+    }
+
+    /**
+     * Position of distance between items i and j (i != j) in condensed
+     * triangle for n items.
+     */
+    public static int index(int n, int i, int j) {
+        if (i > j) {
+            int tmp = i;
+            i = j;
+            j = tmp;
+        }
+        return (int)((long)n * i - (long)i * (i + 1) / 2 + j - i - 1);
+    }
+
+    /**
+     * Distances between vectors, vectors are modified (prepared). Undefined
+     * distances (no common present positions) are replaced by the largest
+     * defined one.
+     */
+    public float[] getDistances(final double[][] vectors, int threadCount) throws Exception {
+        final int n = vectors.length;
+        long size = (long)n * (n - 1) / 2;
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Too many items for distance matrix: " + n);
+        final float[] ret = new float[(int)size];
+        final int length = n == 0 ? 0 : vectors[0].length;
+        final boolean[] missing = new boolean[n];
+        for (int i = 0; i < n; i++)
+            missing[i] = !prepare(vectors[i]);
+        long cellsPerPair = Math.max(1, (long)n * length);
+        ParallelTasks.run((n + 1) / 2, (int)Math.max(1, MIN_CELLS_PER_THREAD / cellsPerPair),
+                threadCount, new RangeTask<Void>() {
+            @Override
+            public Void run(int start, int end) {
+                for (int p = start; p < end; p++) {
+                    fillRow(vectors, missing, p, ret);
+                    if (n - 1 - p != p)
+                        fillRow(vectors, missing, n - 1 - p, ret);
+                }
+                return null;
+            }
+        });
+        float max = 0;
+        boolean undefined = false;
+        for (float value : ret) {
+            if (Float.isNaN(value))
+                undefined = true;
+            else if (value > max)
+                max = value;
+        }
+        if (undefined)
+            for (int pos = 0; pos < ret.length; pos++)
+                if (Float.isNaN(ret[pos]))
+                    ret[pos] = max;
+        return ret;
+    }
+
+    private void fillRow(double[][] vectors, boolean[] missing, int i, float[] ret) {
+        int n = vectors.length;
+        int pos = index(n, i, i + 1);
+        for (int j = i + 1; j < n; j++, pos++)
+            ret[pos] = (float)(missing[i] || missing[j] ?
+                    getPairwiseDistance(vectors[i], vectors[j]) :
+                        getDistance(vectors[i], vectors[j]));
+    }
+
+    /**
+     * Centers vector and scales it to unit norm if it has no missing values,
+     * so Pearson correlation of such vectors is their dot product. Returns
+     * false if vector has missing values (keeping vector as is) or is
+     * constant (filling it with NaN).
+     */
+    public static boolean normalize(double[] vector) {
+        double sum = 0;
+        for (double value : vector)
+            sum += value;
+        if (Double.isNaN(sum))
+            return false;
+        double avg = sum / vector.length;
+        for (int j = 0; j < vector.length; j++)
+            vector[j] -= avg;
+        return scale(vector);
+    }
+
+    /**
+     * Scales vector to unit norm, fills it with NaN if norm is 0.
+     */
+    private static boolean scale(double[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        for (int j = 0; j < vector.length; j++)
+            vector[j] = norm > 0 ? vector[j] / norm : Double.NaN;
+        return norm > 0;
+    }
+
+    /**
+     * Dot product with four independent sums, so additions don't wait for
+     * each other.
+     */
+    public static double dot(double[] v1, double[] v2) {
+        int length = v1.length;
+        int tail = length & ~3;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int j = 0; j < tail; j += 4) {
+            s0 += v1[j] * v2[j];
+            s1 += v1[j + 1] * v2[j + 1];
+            s2 += v1[j + 2] * v2[j + 2];
+            s3 += v1[j + 3] * v2[j + 3];
+        }
+        for (int j = tail; j < length; j++)
+            s0 += v1[j] * v2[j];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Replaces values by their ranks (1-based, ties get average rank).
+     * Vector shouldn't have missing values.
+     */
+    static void rank(double[] vector, int length) {
+        double[] sorted = Arrays.copyOf(vector, length);
+        Arrays.sort(sorted);
+        for (int j = 0; j < length; j++) {
+            int first = lowerBound(sorted, vector[j]);
+            int last = first;
+            while (last + 1 < length && sorted[last + 1] == vector[j])
+                last++;
+            vector[j] = (first + last) / 2.0 + 1;
+        }
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Copies values present in both vectors into two arrays, returns number
+     * of such positions.
+     */
+    private static int getCommon(double[] v1, double[] v2, double[] target1,
+            double[] target2) {
+        int count = 0;
+        for (int j = 0; j < v1.length; j++) {
+            if (Double.isNaN(v1[j]) || Double.isNaN(v2[j]))
+                continue;
+            target1[count] = v1[j];
+            target2[count] = v2[j];
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Pearson (or Spearman) correlation distance, undefined correlation
+     * (constant vector or less than 2 common values) gives distance 1.
+     */
+    private static class CorrelationKernel extends DistanceKernel {
+        private final boolean ranks;
+        private final boolean absolute;
+        private final ThreadLocal<double[][]> buffers = new ThreadLocal<double[][]>();
+
+        CorrelationKernel(boolean ranks, boolean absolute) {
+            this.ranks = ranks;
+            this.absolute = absolute;
+        }
+
+        @Override
+        protected boolean prepare(double[] vector) {
+            for (double value : vector)
+                if (Double.isNaN(value))
+                    return false;
+            if (ranks)
+                rank(vector, vector.length);
+            return normalize(vector);
+        }
+
+        @Override
+        protected double getDistance(double[] v1, double[] v2) {
+            return toDistance(dot(v1, v2));
+        }
+
+        @Override
+        protected double getPairwiseDistance(double[] v1, double[] v2) {
+            double[][] common = buffers.get();
+            if (common == null || common[0].length < v1.length) {
+                common = new double[][] {new double[v1.length], new double[v1.length]};
+                buffers.set(common);
+            }
+            int count = getCommon(v1, v2, common[0], common[1]);
+            if (count < 2)
+                return 1;
+            if (ranks) {
+                rank(common[0], count);
+                rank(common[1], count);
+            }
+            return toDistance(correlate(common[0], common[1], count));
+        }
+
+        private double toDistance(double cor) {
+            if (Double.isNaN(cor))
+                return 1;
+            cor = Math.max(-1, Math.min(1, cor));
+            return 1 - (absolute ? Math.abs(cor) : cor);
+        }
+
+        private static double correlate(double[] v1, double[] v2, int count) {
+            double sum1 = 0;
+            double sum2 = 0;
+            for (int j = 0; j < count; j++) {
+                sum1 += v1[j];
+                sum2 += v2[j];
+            }
+            double avg1 = sum1 / count;
+            double avg2 = sum2 / count;
+            double cov = 0;
+            double var1 = 0;
+            double var2 = 0;
+            for (int j = 0; j < count; j++) {
+                double d1 = v1[j] - avg1;
+                double d2 = v2[j] - avg2;
+                cov += d1 * d2;
+                var1 += d1 * d1;
+                var2 += d2 * d2;
+            }
+            return cov / Math.sqrt(var1 * var2);
+        }
+    }
+
+    /**
+     * Cosine distance, zero vector gives distance 1.
+     */
+    private static class CosineKernel extends DistanceKernel {
+        @Override
+        protected boolean prepare(double[] vector) {
+            for (double value : vector)
+                if (Double.isNaN(value))
+                    return false;
+            return scale(vector);
+        }
+
+        @Override
+        protected double getDistance(double[] v1, double[] v2) {
+            return 1 - Math.max(-1, Math.min(1, dot(v1, v2)));
+        }
+
+        @Override
+        protected double getPairwiseDistance(double[] v1, double[] v2) {
+            double dot = 0;
+            double norm1 = 0;
+            double norm2 = 0;
+            for (int j = 0; j < v1.length; j++) {
+                if (Double.isNaN(v1[j]) || Double.isNaN(v2[j]))
+                    continue;
+                dot += v1[j] * v2[j];
+                norm1 += v1[j] * v1[j];
+                norm2 += v2[j] * v2[j];
+            }
+            if (norm1 == 0 || norm2 == 0)
+                return 1;
+            return 1 - Math.max(-1, Math.min(1, dot / Math.sqrt(norm1 * norm2)));
+        }
+    }
+
+    /**
+     * Euclidean or Manhattan distance. For pairs with missing values sum is
+     * scaled up proportionally to number of skipped positions (like dist()
+     * in R does).
+     */
+    private static class MinkowskiKernel extends DistanceKernel {
+        private final boolean euclidean;
+
+        MinkowskiKernel(boolean euclidean) {
+            this.euclidean = euclidean;
+        }
+
+        @Override
+        protected boolean prepare(double[] vector) {
+            for (double value : vector)
+                if (Double.isNaN(value))
+                    return false;
+            return true;
+        }
+
+        @Override
+        protected double getDistance(double[] v1, double[] v2) {
+            int length = v1.length;
+            int tail = length & ~3;
+            double s0 = 0;
+            double s1 = 0;
+            double s2 = 0;
+            double s3 = 0;
+            if (euclidean) {
+                for (int j = 0; j < tail; j += 4) {
+                    double d0 = v1[j] - v2[j];
+                    double d1 = v1[j + 1] - v2[j + 1];
+                    double d2 = v1[j + 2] - v2[j + 2];
+                    double d3 = v1[j + 3] - v2[j + 3];
+                    s0 += d0 * d0;
+                    s1 += d1 * d1;
+                    s2 += d2 * d2;
+                    s3 += d3 * d3;
+                }
+                for (int j = tail; j < length; j++)
+                    s0 += (v1[j] - v2[j]) * (v1[j] - v2[j]);
+                return Math.sqrt((s0 + s1) + (s2 + s3));
+            }
+            for (int j = 0; j < tail; j += 4) {
+                s0 += Math.abs(v1[j] - v2[j]);
+                s1 += Math.abs(v1[j + 1] - v2[j + 1]);
+                s2 += Math.abs(v1[j + 2] - v2[j + 2]);
+                s3 += Math.abs(v1[j + 3] - v2[j + 3]);
+            }
+            for (int j = tail; j < length; j++)
+                s0 += Math.abs(v1[j] - v2[j]);
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        @Override
+        protected double getPairwiseDistance(double[] v1, double[] v2) {
+            double sum = 0;
+            int count = 0;
+            for (int j = 0; j < v1.length; j++) {
+                if (Double.isNaN(v1[j]) || Double.isNaN(v2[j]))
+                    continue;
+                double diff = v1[j] - v2[j];
+                sum += euclidean ? diff * diff : Math.abs(diff);
+                count++;
+            }
+            if (count == 0)
+                return Double.NaN;
+            sum *= (double)v1.length / count;
+            return euclidean ? Math.sqrt(sum) : sum;
+        }
+    }
+}
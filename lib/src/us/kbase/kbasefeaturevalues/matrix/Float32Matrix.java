@@ -0,0 +1,63 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Primitive matrix storing values as row-major array of floats. It takes half
+ * of memory of Float64Matrix which is enough for expression values having 4-5
+ * significant digits. Values are widened to double on read.
+ */
+public class Float32Matrix extends PrimitiveMatrix {
+    private final int rowCount;
+    private final int colCount;
+    private final float[] values;
+
+    public Float32Matrix(int rowCount, int colCount) {
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.values = new float[checkedSize(rowCount, colCount)];
+        Arrays.fill(values, Float.NaN);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColCount() {
+        return colCount;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        return values[row * colCount + col];
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+        values[row * colCount + col] = (float)value;
+    }
+
+    @Override
+    public StorageMode getStorageMode() {
+        return StorageMode.float32;
+    }
+
+    @Override
+    public double[] getRow(int row, double[] target) {
+        if (target == null || target.length < colCount)
+            target = new double[colCount];
+        int offset = row * colCount;
+        for (int col = 0; col < colCount; col++)
+            target[col] = values[offset + col];
+        return target;
+    }
+
+    @Override
+    public void setRow(int row, double[] source) {
+        int offset = row * colCount;
+        for (int col = 0; col < colCount; col++)
+            values[offset + col] = (float)source[col];
+    }
+}
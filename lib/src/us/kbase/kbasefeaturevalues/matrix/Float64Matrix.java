@@ -0,0 +1,71 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Primitive matrix storing values as row-major array of doubles.
+ */
+public class Float64Matrix extends PrimitiveMatrix {
+    private final int rowCount;
+    private final int colCount;
+    private final double[] values;
+
+    public Float64Matrix(int rowCount, int colCount) {
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.values = new double[checkedSize(rowCount, colCount)];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * Wraps existing row-major array without copying. Array may be longer than
+     * rowCount * colCount (tail is ignored), which lets parsers hand over their
+     * growable buffers as is.
+     */
+    public Float64Matrix(int rowCount, int colCount, double[] values) {
+        if (values.length < checkedSize(rowCount, colCount))
+            throw new IllegalStateException("Array of " + values.length + " values is too " +
+                    "short for matrix " + rowCount + " x " + colCount);
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.values = values;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColCount() {
+        return colCount;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        return values[row * colCount + col];
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+        values[row * colCount + col] = value;
+    }
+
+    @Override
+    public StorageMode getStorageMode() {
+        return StorageMode.float64;
+    }
+
+    @Override
+    public double[] getRow(int row, double[] target) {
+        if (target == null || target.length < colCount)
+            target = new double[colCount];
+        System.arraycopy(values, row * colCount, target, 0, colCount);
+        return target;
+    }
+
+    @Override
+    public void setRow(int row, double[] source) {
+        System.arraycopy(source, 0, values, row * colCount, colCount);
+    }
+}
@@ -0,0 +1,328 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import us.kbase.kbasefeaturevalues.matrix.ParallelTasks.RangeTask;
+
+/**
+ * Agglomerative hierarchical clustering over condensed triangle of distances
+ * (see DistanceKernel). Clusters are merged by nearest-neighbor chain
+ * algorithm which takes O(n^2) time and no memory besides the triangle
+ * (distances to merged clusters are updated in place by Lance-Williams
+ * formulas), for single, complete and average linkage it gives the same tree
+ * as merging of the closest pair at every step. Optionally children of nodes
+ * are flipped to get optimal leaf ordering (Bar-Joseph et al., 2001): sum of
+ * distances between neighbouring leaves is minimal among orderings allowed by
+ * the tree. It takes O(n^3) time and O(n^2) memory, so number of items is
+ * limited for it.
+ */
+public class HierarchicalClustering {
+    public static final String COMPLETE = "complete";
+    public static final String AVERAGE = "average";
+    public static final String SINGLE = "single";
+    public static final int MAX_OPTIMAL_ORDERING_ITEMS = 3000;
+
+    private String linkage = COMPLETE;
+    private boolean optimalLeafOrdering = false;
+
+    public static boolean isSupported(String linkage) {
+        return linkage == null || COMPLETE.equals(linkage) || AVERAGE.equals(linkage) ||
+                SINGLE.equals(linkage);
+    }
+
+    /**
+     * Linkage criteria (complete by default).
+     */
+    public HierarchicalClustering withLinkage(String linkage) {
+        if (!isSupported(linkage))
+            throw new IllegalStateException("Unsupported linkage criteria: " + linkage);
+        this.linkage = linkage == null ? COMPLETE : linkage;
+        return this;
+    }
+
+    public HierarchicalClustering withOptimalLeafOrdering(boolean optimalLeafOrdering) {
+        this.optimalLeafOrdering = optimalLeafOrdering;
+        return this;
+    }
+
+    /**
+     * Builds dendrogram of items. Distances are used as working memory, so
+     * their content is destroyed.
+     */
+    public Dendrogram cluster(float[] distances, int n) {
+        if (n < 1)
+            throw new IllegalStateException("There are no items to cluster");
+        if ((long)n * (n - 1) / 2 != distances.length)
+            throw new IllegalStateException("Wrong number of distances for " + n + " items: " +
+                    distances.length);
+        if (optimalLeafOrdering && n > MAX_OPTIMAL_ORDERING_ITEMS)
+            throw new IllegalStateException("Optimal leaf ordering is supported for at most " +
+                    MAX_OPTIMAL_ORDERING_ITEMS + " items: " + n);
+        float[] original = optimalLeafOrdering ? distances.clone() : null;
+        Dendrogram ret = merge(distances, n);
+        if (original != null)
+            orderLeaves(ret, original);
+        return ret;
+    }
+
+    /**
+     * Clusters rows and columns of matrix concurrently (threads are shared
+     * between two distance computations), returns dendrograms of rows and
+     * columns. View of submatrix is read twice (rows and columns are
+     * extracted separately), so it's copied first if it pays off.
+     */
+    public Dendrogram[] clusterRowsAndColumns(PrimitiveMatrix matrix, final String metric,
+            int threadCount) throws Exception {
+        if (!DistanceKernel.isSupported(metric))
+            throw new IllegalStateException("Unsupported distance metric: " + metric);
+        final PrimitiveMatrix values = MatrixView.prepare(matrix, 2);
+        final int kernelThreads = Math.max(1, threadCount / 2);
+        List<Dendrogram> ret = ParallelTasks.run(2, 1, 2, new RangeTask<Dendrogram>() {
+            @Override
+            public Dendrogram run(int start, int end) throws Exception {
+                if (start == 0)
+                    return cluster(DistanceKernel.getRowDistances(values, metric,
+                            kernelThreads), values.getRowCount());
+                return cluster(DistanceKernel.getColumnDistances(values, metric,
+                        kernelThreads), values.getColCount());
+            }
+        });
+        return ret.toArray(new Dendrogram[ret.size()]);
+    }
+
+    private Dendrogram merge(float[] work, int n) {
+        int mergeCount = Math.max(0, n - 1);
+        boolean[] merged = new boolean[n];
+        int[] sizes = new int[n];
+        Arrays.fill(sizes, 1);
+        int[] chain = new int[n];
+        int chainSize = 0;
+        final int[] mergeA = new int[mergeCount];
+        final int[] mergeB = new int[mergeCount];
+        final double[] mergeHeights = new double[mergeCount];
+        int firstActive = 0;
+        for (int t = 0; t < mergeCount; t++) {
+            if (chainSize == 0) {
+                while (merged[firstActive])
+                    firstActive++;
+                chain[chainSize++] = firstActive;
+            }
+            int a;
+            int b;
+            double height;
+            while (true) {
+                a = chain[chainSize - 1];
+                int prev = chainSize > 1 ? chain[chainSize - 2] : -1;
+                // Previous element of chain wins ties, otherwise chain could loop
+                int best = prev;
+                double bestDist = prev >= 0 ? work[DistanceKernel.index(n, a, prev)] :
+                    Double.POSITIVE_INFINITY;
+                for (int x = 0; x < n; x++) {
+                    if (merged[x] || x == a)
+                        continue;
+                    double dist = work[DistanceKernel.index(n, a, x)];
+                    if (dist < bestDist || best < 0) {
+                        bestDist = dist;
+                        best = x;
+                    }
+                }
+                if (best == prev) {
+                    b = prev;
+                    height = bestDist;
+                    break;
+                }
+                chain[chainSize++] = best;
+            }
+            chainSize -= 2;
+            // Cluster a is merged into b
+            for (int k = 0; k < n; k++) {
+                if (merged[k] || k == a || k == b)
+                    continue;
+                int posA = DistanceKernel.index(n, a, k);
+                int posB = DistanceKernel.index(n, b, k);
+                work[posB] = (float)update(work[posA], work[posB], sizes[a], sizes[b]);
+            }
+            merged[a] = true;
+            sizes[b] += sizes[a];
+            mergeA[t] = a;
+            mergeB[t] = b;
+            mergeHeights[t] = height;
+        }
+        // Merges are sorted by height and clusters are relabeled to tree nodes
+        Integer[] order = new Integer[mergeCount];
+        for (int t = 0; t < mergeCount; t++)
+            order[t] = t;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int ret = Double.compare(mergeHeights[o1], mergeHeights[o2]);
+                return ret != 0 ? ret : Integer.compare(o1, o2);
+            }
+        });
+        int[] roots = new int[n];
+        int[] nodes = new int[n];
+        for (int i = 0; i < n; i++)
+            roots[i] = nodes[i] = i;
+        int[] left = new int[mergeCount];
+        int[] right = new int[mergeCount];
+        double[] heights = new double[mergeCount];
+        for (int t = 0; t < mergeCount; t++) {
+            int m = order[t];
+            int rootA = findRoot(roots, mergeA[m]);
+            int rootB = findRoot(roots, mergeB[m]);
+            left[t] = Math.min(nodes[rootA], nodes[rootB]);
+            right[t] = Math.max(nodes[rootA], nodes[rootB]);
+            heights[t] = mergeHeights[m];
+            roots[rootA] = rootB;
+            nodes[rootB] = n + t;
+        }
+        return new Dendrogram(n, left, right, heights);
+    }
+
+    private double update(double distA, double distB, int sizeA, int sizeB) {
+        if (linkage.equals(SINGLE))
+            return Math.min(distA, distB);
+        if (linkage.equals(AVERAGE))
+            return (distA * sizeA + distB * sizeB) / (sizeA + sizeB);
+        return Math.max(distA, distB);
+    }
+
+    private static int findRoot(int[] roots, int node) {
+        int root = node;
+        while (roots[root] != root)
+            root = roots[root];
+        while (roots[node] != root) {
+            int next = roots[node];
+            roots[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * Flips children of nodes of tree to get optimal leaf ordering. For every
+     * pair of leaves (i, j) from different subtrees of their lowest common
+     * node cost[i, j] is minimal sum of distances along ordering of leaves of
+     * this node starting with i and ending with j, partner[i, j] is the leaf
+     * next to the junction of two subtrees on the side of j.
+     */
+    private static void orderLeaves(Dendrogram tree, float[] distances) {
+        int n = tree.getLeafCount();
+        if (n < 3)
+            return;
+        // Leaves of every node form contiguous range in initial leaf order
+        int[] order = tree.getLeafOrder();
+        int[] start = new int[2 * n - 1];
+        int[] end = new int[2 * n - 1];
+        for (int pos = 0; pos < n; pos++) {
+            start[order[pos]] = pos;
+            end[order[pos]] = pos + 1;
+        }
+        for (int node = n; node < 2 * n - 1; node++) {
+            start[node] = Math.min(start[tree.getLeft(node)], start[tree.getRight(node)]);
+            end[node] = Math.max(end[tree.getLeft(node)], end[tree.getRight(node)]);
+        }
+        double[] cost = new double[n * n];
+        int[] partner = new int[n * n];
+        double[] toJunction = new double[n];
+        int[] junction = new int[n];
+        for (int node = n; node < 2 * n - 1; node++) {
+            int l = tree.getLeft(node);
+            int r = tree.getRight(node);
+            for (int pi = start[l]; pi < end[l]; pi++) {
+                int i = order[pi];
+                int other = getOtherSide(tree, l, pi, start, end);
+                // Cheapest path from i to every leaf m of right subtree
+                for (int pm = start[r]; pm < end[r]; pm++) {
+                    int m = order[pm];
+                    double best = Double.POSITIVE_INFINITY;
+                    int bestK = -1;
+                    for (int pk = start[other]; pk < end[other]; pk++) {
+                        int k = order[pk];
+                        double value = cost[i * n + k] + distances[DistanceKernel.index(n, k, m)];
+                        if (value < best) {
+                            best = value;
+                            bestK = k;
+                        }
+                    }
+                    toJunction[m] = best;
+                    junction[m] = bestK;
+                }
+                for (int pj = start[r]; pj < end[r]; pj++) {
+                    int j = order[pj];
+                    int otherR = getOtherSide(tree, r, pj, start, end);
+                    double best = Double.POSITIVE_INFINITY;
+                    int bestM = -1;
+                    for (int pm = start[otherR]; pm < end[otherR]; pm++) {
+                        int m = order[pm];
+                        double value = toJunction[m] + cost[m * n + j];
+                        if (value < best) {
+                            best = value;
+                            bestM = m;
+                        }
+                    }
+                    cost[i * n + j] = cost[j * n + i] = best;
+                    partner[i * n + j] = bestM;
+                    partner[j * n + i] = junction[bestM];
+                }
+            }
+        }
+        int root = tree.getRoot();
+        int bestFirst = -1;
+        int bestLast = -1;
+        double best = Double.POSITIVE_INFINITY;
+        int l = tree.getLeft(root);
+        int r = tree.getRight(root);
+        for (int pi = start[l]; pi < end[l]; pi++) {
+            for (int pj = start[r]; pj < end[r]; pj++) {
+                double value = cost[order[pi] * n + order[pj]];
+                if (bestFirst < 0 || value < best) {
+                    best = value;
+                    bestFirst = order[pi];
+                    bestLast = order[pj];
+                }
+            }
+        }
+        // Nodes are oriented top-down, stack keeps triples (node, first, last)
+        int[] stack = new int[3 * n];
+        int top = 0;
+        stack[top++] = root;
+        stack[top++] = bestFirst;
+        stack[top++] = bestLast;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int node = stack[--top];
+            if (tree.isLeaf(node))
+                continue;
+            if (isInside(tree.getRight(node), first, start, end)) {
+                tree.swapChildren(node);
+            }
+            stack[top++] = tree.getLeft(node);
+            stack[top++] = first;
+            stack[top++] = partner[last * n + first];
+            stack[top++] = tree.getRight(node);
+            stack[top++] = partner[first * n + last];
+            stack[top++] = last;
+        }
+    }
+
+    /**
+     * Returns child of node on the other side from leaf at given position of
+     * initial order (node itself if it's a leaf).
+     */
+    private static int getOtherSide(Dendrogram tree, int node, int leafPos, int[] start,
+            int[] end) {
+        if (tree.isLeaf(node))
+            return node;
+        int left = tree.getLeft(node);
+        return leafPos >= start[left] && leafPos < end[left] ? tree.getRight(node) : left;
+    }
+
+    private static boolean isInside(int node, int leaf, int[] start, int[] end) {
+        // Leaf ranges are taken from initial order, so position of leaf is start[leaf]
+        return start[leaf] >= start[node] && start[leaf] < end[node];
+    }
+}
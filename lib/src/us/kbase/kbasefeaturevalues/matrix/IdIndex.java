@@ -0,0 +1,189 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index of row (or column) ids of matrix giving position of id. It's a hash
+ * table with open addressing (linear probing over single int[] table of
+ * positions, no per-entry objects), ids are compared through the array they
+ * were taken from. If id is duplicated its first position is used. Index is
+ * immutable (except lazily built order for prefix search) so it's built once
+ * per matrix version and shared by requests (see
+ * KBaseFeatureValuesImpl.getIdIndex).
+ */
+public class IdIndex {
+    private static final int EMPTY = -1;
+    /** Maximum number of unknown ids listed in error message. */
+    public static final int MAX_REPORTED_IDS = 20;
+
+    private final String itemType;
+    private final String[] ids;
+    private final int[] table;
+    private volatile int[] sortedPositions = null;
+
+    private IdIndex(String itemType, String[] ids, int[] table) {
+        this.itemType = itemType;
+        this.ids = ids;
+        this.table = table;
+    }
+
+    /**
+     * @param itemType name of items used in error messages ("row" or "column")
+     */
+    public static IdIndex build(String itemType, List<String> ids) {
+        String[] array = ids.toArray(new String[ids.size()]);
+        // Load factor is kept below 1/2
+        int length = Integer.highestOneBit(Math.max(4, array.length) * 2 - 1) << 1;
+        int[] table = new int[length];
+        Arrays.fill(table, EMPTY);
+        int mask = length - 1;
+        for (int i = 0; i < array.length; i++) {
+            String id = array[i];
+            if (id == null)
+                continue;
+            int pos = mix(id.hashCode()) & mask;
+            while (table[pos] != EMPTY && !id.equals(array[table[pos]]))
+                pos = (pos + 1) & mask;
+            if (table[pos] == EMPTY)
+                table[pos] = i;
+        }
+        return new IdIndex(itemType, array, table);
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Returns position of id or -1 if there is no such id.
+     */
+    public int indexOf(String id) {
+        if (id == null)
+            return -1;
+        int mask = table.length - 1;
+        int pos = mix(id.hashCode()) & mask;
+        while (table[pos] != EMPTY) {
+            if (id.equals(ids[table[pos]]))
+                return table[pos];
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns positions of all ids, throws UnknownIdsException listing ids
+     * which are not found.
+     */
+    public int[] indecesOf(List<String> ids) {
+        int[] ret = new int[ids.size()];
+        List<String> unknown = null;
+        for (int i = 0; i < ret.length; i++) {
+            String id = ids.get(i);
+            ret[i] = indexOf(id);
+            if (ret[i] < 0) {
+                if (unknown == null)
+                    unknown = new ArrayList<String>();
+                unknown.add(id);
+            }
+        }
+        if (unknown != null)
+            throw new UnknownIdsException(itemType, unknown, ids.size());
+        return ret;
+    }
+
+    /**
+     * Returns positions of ids starting with given prefix (case-insensitive)
+     * in alphabetical order of ids. Negative limit means no limit.
+     */
+    public int[] findByPrefix(String prefix, int limit) {
+        int[] sorted = getSortedPositions();
+        int start = 0;
+        int end = sorted.length;
+        // The first id which is not less than prefix
+        while (start < end) {
+            int mid = (start + end) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(ids[sorted[mid]], prefix) < 0) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        int max = limit < 0 ? sorted.length : limit;
+        int count = 0;
+        while (count < max && start + count < sorted.length &&
+                ids[sorted[start + count]].regionMatches(true, 0, prefix, 0, prefix.length()))
+            count++;
+        return Arrays.copyOfRange(sorted, start, start + count);
+    }
+
+    private int[] getSortedPositions() {
+        int[] ret = sortedPositions;
+        if (ret == null) {
+            List<Integer> positions = new ArrayList<Integer>(ids.length);
+            for (int i = 0; i < ids.length; i++)
+                if (ids[i] != null)
+                    positions.add(i);
+            Collections.sort(positions, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    int ret = String.CASE_INSENSITIVE_ORDER.compare(ids[o1], ids[o2]);
+                    return ret != 0 ? ret : Integer.compare(o1, o2);
+                }
+            });
+            ret = new int[positions.size()];
+            for (int i = 0; i < ret.length; i++)
+                ret[i] = positions.get(i);
+            sortedPositions = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Error listing ids which are not found in matrix.
+     */
+    public static class UnknownIdsException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final String itemType;
+        private final List<String> unknownIds;
+
+        public UnknownIdsException(String itemType, List<String> unknownIds, int requestedCount) {
+            super(getMessage(itemType, unknownIds, requestedCount));
+            this.itemType = itemType;
+            this.unknownIds = unknownIds;
+        }
+
+        private static String getMessage(String itemType, List<String> unknownIds,
+                int requestedCount) {
+            StringBuilder ret = new StringBuilder("Unknown ").append(itemType).append(" ids (")
+                    .append(unknownIds.size()).append(" of ").append(requestedCount)
+                    .append("): ");
+            for (int i = 0; i < Math.min(MAX_REPORTED_IDS, unknownIds.size()); i++)
+                ret.append(i > 0 ? ", " : "").append(unknownIds.get(i));
+            if (unknownIds.size() > MAX_REPORTED_IDS)
+                ret.append(", ...");
+            return ret.toString();
+        }
+
+        public String getItemType() {
+            return itemType;
+        }
+
+        public List<String> getUnknownIds() {
+            return unknownIds;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+/**
+ * Compact set of long keys with open addressing (linear probing over single
+ * long[] table, no per-entry objects). It's used for 64-bit fingerprints of
+ * ids, so memory doesn't depend on length of ids.
+ */
+public class LongHashSet {
+    private static final long EMPTY = 0;
+
+    private long[] table;
+    private int size = 0;
+    private boolean hasEmptyKey = false;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        table = new long[tableSize(expectedSize)];
+    }
+
+    private static int tableSize(int expectedSize) {
+        // Load factor is kept below 2/3
+        long required = Math.max(4L, (long)expectedSize * 3 / 2 + 1);
+        int ret = Integer.highestOneBit((int)Math.min(required, 1 << 30));
+        return ret < required ? ret << 1 : ret;
+    }
+
+    /**
+     * Adds key and returns true if it wasn't in the set before.
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (hasEmptyKey)
+                return false;
+            hasEmptyKey = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int pos = mix(key) & mask;
+        while (table[pos] != EMPTY) {
+            if (table[pos] == key)
+                return false;
+            pos = (pos + 1) & mask;
+        }
+        table[pos] = key;
+        size++;
+        if ((long)size * 3 > (long)table.length * 2)
+            rehash(table.length * 2);
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY)
+            return hasEmptyKey;
+        int mask = table.length - 1;
+        int pos = mix(key) & mask;
+        while (table[pos] != EMPTY) {
+            if (table[pos] == key)
+                return true;
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int newLength) {
+        long[] old = table;
+        table = new long[newLength];
+        int mask = newLength - 1;
+        for (long key : old) {
+            if (key == EMPTY)
+                continue;
+            int pos = mix(key) & mask;
+            while (table[pos] != EMPTY)
+                pos = (pos + 1) & mask;
+            table[pos] = key;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    /**
+     * 64-bit fingerprint of string (FNV-1a over chars with final avalanche
+     * mixing). Chance of collision among a million ids is below 1e-7.
+     */
+    public static long fingerprint(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,165 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Off-heap primitive matrix backed by memory-mapped file. Values are stored
+ * row-major in segments of whole rows (each segment is limited by 1 GB since
+ * single mapping can't exceed 2 GB). Backing file is removed right after it's
+ * mapped, so disk space is released as soon as mapping is garbage collected.
+ * Unlike heap matrices content of new mapped matrix is zero-filled rather than
+ * missing, so callers are expected to set every cell. Mapped matrix is also
+ * used for read-only access to value block of MatrixFile.
+ */
+public class MappedMatrix extends PrimitiveMatrix implements Closeable {
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final int rowCount;
+    private final int colCount;
+    private final StorageMode mode;
+    private final int rowsPerSegment;
+    private FloatBuffer[] floatSegments;
+    private DoubleBuffer[] doubleSegments;
+
+    MappedMatrix(int rowCount, int colCount, StorageMode mode, FileChannel channel,
+            long offset, FileChannel.MapMode mapMode, ByteOrder order) throws IOException {
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.mode = mode;
+        long rowBytes = Math.max(1L, getRowBytes(colCount, mode));
+        if (rowBytes > MAX_SEGMENT_BYTES)
+            throw new IllegalStateException("Too many columns for mapped matrix: " + colCount);
+        this.rowsPerSegment = (int)Math.max(1L, Math.min(rowCount, MAX_SEGMENT_BYTES / rowBytes));
+        int segmentCount = rowCount == 0 || colCount == 0 ? 0 :
+            ((rowCount - 1) / rowsPerSegment + 1);
+        if (mode == StorageMode.float32) {
+            floatSegments = new FloatBuffer[segmentCount];
+        } else {
+            doubleSegments = new DoubleBuffer[segmentCount];
+        }
+        for (int seg = 0; seg < segmentCount; seg++) {
+            int segRows = Math.min(rowsPerSegment, rowCount - seg * rowsPerSegment);
+            MappedByteBuffer buf = channel.map(mapMode, offset + rowBytes * rowsPerSegment * seg,
+                    rowBytes * segRows);
+            buf.order(order);
+            if (mode == StorageMode.float32) {
+                floatSegments[seg] = buf.asFloatBuffer();
+            } else {
+                doubleSegments[seg] = buf.asDoubleBuffer();
+            }
+        }
+    }
+
+    static long getRowBytes(int colCount, StorageMode mode) {
+        return (long)colCount * (mode == StorageMode.float32 ? 4 : 8);
+    }
+
+    /**
+     * Creates mapped matrix in temporary file placed in given directory
+     * (normally service scratch folder).
+     */
+    public static MappedMatrix create(File dir, int rowCount, int colCount,
+            StorageMode mode) throws IOException {
+        // Total size isn't limited by array length here, only by size of one row
+        if (rowCount < 0 || colCount < 0)
+            throw new IllegalStateException("Unsupported matrix dimensions: " + rowCount +
+                    " x " + colCount);
+        File file = File.createTempFile("matrix_", ".bin", dir);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(getRowBytes(colCount, mode) * rowCount);
+            return new MappedMatrix(rowCount, colCount, mode, raf.getChannel(), 0,
+                    FileChannel.MapMode.READ_WRITE, ByteOrder.nativeOrder());
+        } finally {
+            // Mappings stay valid after channel is closed and file is unlinked
+            raf.close();
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColCount() {
+        return colCount;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        int seg = row / rowsPerSegment;
+        int pos = (row - seg * rowsPerSegment) * colCount + col;
+        if (floatSegments != null)
+            return floatSegments[seg].get(pos);
+        return doubleSegments[seg].get(pos);
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+        int seg = row / rowsPerSegment;
+        int pos = (row - seg * rowsPerSegment) * colCount + col;
+        if (floatSegments != null) {
+            floatSegments[seg].put(pos, (float)value);
+        } else {
+            doubleSegments[seg].put(pos, value);
+        }
+    }
+
+    @Override
+    public StorageMode getStorageMode() {
+        return mode;
+    }
+
+    @Override
+    public double[] getRow(int row, double[] target) {
+        if (target == null || target.length < colCount)
+            target = new double[colCount];
+        int seg = row / rowsPerSegment;
+        int offset = (row - seg * rowsPerSegment) * colCount;
+        if (floatSegments != null) {
+            FloatBuffer buf = floatSegments[seg];
+            for (int col = 0; col < colCount; col++)
+                target[col] = buf.get(offset + col);
+        } else {
+            DoubleBuffer buf = doubleSegments[seg].duplicate();
+            buf.position(offset);
+            buf.get(target, 0, colCount);
+        }
+        return target;
+    }
+
+    @Override
+    public void setRow(int row, double[] source) {
+        int seg = row / rowsPerSegment;
+        int offset = (row - seg * rowsPerSegment) * colCount;
+        if (floatSegments != null) {
+            FloatBuffer buf = floatSegments[seg];
+            for (int col = 0; col < colCount; col++)
+                buf.put(offset + col, (float)source[col]);
+        } else {
+            DoubleBuffer buf = doubleSegments[seg].duplicate();
+            buf.position(offset);
+            buf.put(source, 0, colCount);
+        }
+    }
+
+    /**
+     * Drops references to mapped segments so that they can be unmapped by GC.
+     */
+    @Override
+    public void close() {
+        floatSegments = null;
+        doubleSegments = null;
+    }
+}
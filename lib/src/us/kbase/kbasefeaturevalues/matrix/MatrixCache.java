@@ -0,0 +1,202 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Local cache of matrices stored as MatrixFile containers in scratch folder.
+ * Workspace objects are immutable per version, so entries are keyed by
+ * resolved reference (wsid/objid/ver) and never need invalidation. Files are
+ * shared by all requests served by the process. Besides values every matrix
+ * may have summary index (see MatrixSummary) stored in separate file. Total
+ * size of files is limited, least recently used matrices are removed first
+ * (files left by previous runs are ordered by modification time).
+ */
+public class MatrixCache {
+    public static final long DEFAULT_MAX_SIZE = 4L << 30;
+
+    private static final Pattern RESOLVED_REF = Pattern.compile("\\d+/\\d+/\\d+");
+    private static final String SUMMARY_EXTENSION = "summary";
+
+    private final File cacheDir;
+    private final long maxSize;
+    private final Map<String, Long> entrySizes =
+            new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long totalSize = 0;
+
+    public MatrixCache(File scratchDir) {
+        this(scratchDir, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximal total size of cached files in bytes
+     */
+    public MatrixCache(File scratchDir, long maxSize) {
+        this.cacheDir = new File(scratchDir, "matrix_cache");
+        this.maxSize = maxSize;
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File o1, File o2) {
+                    return Long.compare(o1.lastModified(), o2.lastModified());
+                }
+            });
+            for (File file : files) {
+                String ref = getRef(file);
+                if (ref == null)
+                    continue;
+                Long size = entrySizes.get(ref);
+                entrySizes.put(ref, (size == null ? 0 : size) + file.length());
+                totalSize += file.length();
+            }
+            evict();
+        }
+    }
+
+    public static boolean isResolvedRef(String ref) {
+        return ref != null && RESOLVED_REF.matcher(ref).matches();
+    }
+
+    public File getFile(String resolvedRef) {
+        return new File(cacheDir, resolvedRef.replace('/', '_') + "." + MatrixFile.EXTENSION);
+    }
+
+    public File getSummaryFile(String resolvedRef) {
+        return new File(cacheDir, resolvedRef.replace('/', '_') + "." + SUMMARY_EXTENSION);
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Returns cached matrix or null if reference isn't resolved or matrix
+     * wasn't cached yet. Returned container should be closed by caller.
+     */
+    public MatrixFile get(String ref) throws IOException {
+        if (!isResolvedRef(ref))
+            return null;
+        File file = getFile(ref);
+        if (!touch(ref, file))
+            return null;
+        try {
+            return MatrixFile.open(file);
+        } catch (IOException ex) {
+            // Broken or outdated container, it will be rewritten
+            remove(ref);
+            return null;
+        } catch (RuntimeException ex) {
+            remove(ref);
+            return null;
+        }
+    }
+
+    /**
+     * Returns summary index of matrix or null if it wasn't built yet.
+     */
+    public MatrixSummary getSummary(String ref) throws IOException {
+        if (!isResolvedRef(ref))
+            return null;
+        File file = getSummaryFile(ref);
+        if (!touch(ref, file))
+            return null;
+        try {
+            return MatrixSummary.read(file);
+        } catch (IOException ex) {
+            remove(ref);
+            return null;
+        } catch (RuntimeException ex) {
+            remove(ref);
+            return null;
+        }
+    }
+
+    public void putSummary(String resolvedRef, MatrixSummary summary) throws IOException {
+        checkResolved(resolvedRef);
+        summary.write(getSummaryFile(resolvedRef));
+        updateSize(resolvedRef);
+    }
+
+    public void put(String resolvedRef, List<String> rowIds, List<String> colIds,
+            PrimitiveMatrix values) throws IOException {
+        checkResolved(resolvedRef);
+        // Statistics are served from summary index, so row stats aren't stored
+        MatrixFile.write(getFile(resolvedRef), rowIds, colIds, values, null, false);
+        updateSize(resolvedRef);
+    }
+
+    /**
+     * Removes matrix and its summary index from cache.
+     */
+    public synchronized void remove(String resolvedRef) {
+        Long size = entrySizes.remove(resolvedRef);
+        if (size != null)
+            totalSize -= size;
+        getFile(resolvedRef).delete();
+        getSummaryFile(resolvedRef).delete();
+    }
+
+    private void checkResolved(String resolvedRef) {
+        if (!isResolvedRef(resolvedRef))
+            throw new IllegalStateException("Reference is not resolved: " + resolvedRef);
+        if (!cacheDir.exists())
+            cacheDir.mkdirs();
+    }
+
+    /**
+     * Marks entry as recently used, returns false if file doesn't exist.
+     */
+    private synchronized boolean touch(String resolvedRef, File file) {
+        if (!file.exists())
+            return false;
+        if (entrySizes.get(resolvedRef) == null)
+            updateSize(resolvedRef);
+        return file.exists();
+    }
+
+    private synchronized void updateSize(String resolvedRef) {
+        long size = getFile(resolvedRef).length() + getSummaryFile(resolvedRef).length();
+        Long prevSize = entrySizes.put(resolvedRef, size);
+        totalSize += size - (prevSize == null ? 0 : prevSize);
+        evict();
+    }
+
+    /**
+     * Removes least recently used matrices until total size fits into limit.
+     * Files which are still mapped by readers stay valid after removal.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entrySizes.entrySet().iterator();
+        while (totalSize > maxSize && it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            it.remove();
+            totalSize -= entry.getValue();
+            getFile(entry.getKey()).delete();
+            getSummaryFile(entry.getKey()).delete();
+        }
+    }
+
+    private static String getRef(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0)
+            return null;
+        String ext = name.substring(dot + 1);
+        if (!ext.equals(MatrixFile.EXTENSION) && !ext.equals(SUMMARY_EXTENSION))
+            return null;
+        String ref = name.substring(0, dot).replace('_', '/');
+        return isResolvedRef(ref) ? ref : null;
+    }
+}
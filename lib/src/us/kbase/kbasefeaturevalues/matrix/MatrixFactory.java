@@ -0,0 +1,44 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Allocates primitive matrices for values loaded from the workspace. Matrices
+ * having at least offHeapMinSize cells are placed into memory-mapped files in
+ * scratch folder instead of java heap (negative threshold turns it off).
+ */
+public class MatrixFactory {
+    private final StorageMode mode;
+    private final File scratchDir;
+    private final long offHeapMinSize;
+
+    public MatrixFactory(StorageMode mode) {
+        this(mode, null, -1);
+    }
+
+    public MatrixFactory(StorageMode mode, File scratchDir, long offHeapMinSize) {
+        this.mode = mode;
+        this.scratchDir = scratchDir;
+        this.offHeapMinSize = offHeapMinSize;
+    }
+
+    public StorageMode getStorageMode() {
+        return mode;
+    }
+
+    public boolean isOffHeap(int rowCount, int colCount) {
+        return scratchDir != null && offHeapMinSize >= 0 &&
+                (long)rowCount * colCount >= offHeapMinSize;
+    }
+
+    /**
+     * Creates matrix with all values marked as missing for heap storage. Content
+     * of off-heap matrix is zero-filled, so every cell is expected to be set.
+     */
+    public PrimitiveMatrix create(int rowCount, int colCount) throws IOException {
+        if (isOffHeap(rowCount, colCount))
+            return MappedMatrix.create(scratchDir, rowCount, colCount, mode);
+        return PrimitiveMatrix.create(rowCount, colCount, mode);
+    }
+}
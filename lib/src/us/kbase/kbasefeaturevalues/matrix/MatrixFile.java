@@ -0,0 +1,350 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.ItemStat;
+
+/**
+ * Compact binary container for matrix ids and values. It's used as local cache
+ * format and as binary export format of matrix_to_tsv_file. All numbers are
+ * little-endian, file consists of following sections:
+ * <pre>
+ * header (64 bytes): magic "KBFVMTX\0", int version, int flags, int row count,
+ *     int column count, int bytes per value (0 if there is no value block),
+ *     long offsets of string table, value block, missing-value bitmap and row
+ *     stats (0 for absent sections);
+ * string table: row ids followed by column ids, each stored as int length and
+ *     UTF-8 bytes;
+ * value block (8-byte aligned): row-major float32 or float64 values, NaN for
+ *     missing cells;
+ * missing-value bitmap: bit number (row * columnCount + col) is set for
+ *     missing cell, lowest bit of each byte goes first;
+ * row stats: double min, max, avg, std (NaN when undefined) and long number
+ *     of missing values for every row.
+ * </pre>
+ * Sections are mapped on open, so values are read without copying.
+ */
+public class MatrixFile implements Closeable {
+    public static final String EXTENSION = "kbfm";
+    public static final int VERSION = 1;
+    public static final int FLAG_VALUES = 1;
+    public static final int FLAG_MISSING_BITMAP = 2;
+    public static final int FLAG_ROW_STATS = 4;
+
+    private static final byte[] MAGIC = {'K', 'B', 'F', 'V', 'M', 'T', 'X', 0};
+    private static final int HEADER_SIZE = 64;
+    private static final int ROW_STAT_SIZE = 40;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final List<String> rowIds;
+    private final List<String> colIds;
+    private MappedMatrix values;
+    private MappedByteBuffer missingBitmap;
+    private MappedByteBuffer rowStats;
+
+    private MatrixFile(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_SIZE)
+                throw new IllegalStateException("File is too short for matrix container: " + file);
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IllegalStateException("File is not matrix container: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IllegalStateException("Unsupported matrix container version: " + version);
+            int flags = header.getInt();
+            int rowCount = header.getInt();
+            int colCount = header.getInt();
+            int bytesPerValue = header.getInt();
+            long stringsOffset = header.getLong();
+            long valuesOffset = header.getLong();
+            long bitmapOffset = header.getLong();
+            long statsOffset = header.getLong();
+            if (rowCount < 0 || colCount < 0)
+                throw new IllegalStateException("Wrong matrix dimensions " + rowCount + " x " +
+                        colCount + " in container: " + file);
+            long fileSize = channel.size();
+            long stringsSize = (valuesOffset > 0 ? valuesOffset : bitmapOffset > 0 ?
+                    bitmapOffset : statsOffset > 0 ? statsOffset : fileSize) - stringsOffset;
+            checkSection(file, fileSize, stringsOffset, stringsSize);
+            if ((flags & FLAG_VALUES) != 0)
+                checkSection(file, fileSize, valuesOffset,
+                        (long)rowCount * colCount * bytesPerValue);
+            if ((flags & FLAG_MISSING_BITMAP) != 0)
+                checkSection(file, fileSize, bitmapOffset, getBitmapSize(rowCount, colCount));
+            if ((flags & FLAG_ROW_STATS) != 0)
+                checkSection(file, fileSize, statsOffset, (long)rowCount * ROW_STAT_SIZE);
+            ByteBuffer strings = map(channel, stringsOffset, stringsSize);
+            rowIds = readStrings(strings, rowCount);
+            colIds = readStrings(strings, colCount);
+            if ((flags & FLAG_VALUES) != 0) {
+                StorageMode mode = bytesPerValue == 4 ? StorageMode.float32 : StorageMode.float64;
+                values = new MappedMatrix(rowCount, colCount, mode, channel, valuesOffset,
+                        FileChannel.MapMode.READ_ONLY, ByteOrder.LITTLE_ENDIAN);
+            }
+            if ((flags & FLAG_MISSING_BITMAP) != 0)
+                missingBitmap = map(channel, bitmapOffset, getBitmapSize(rowCount, colCount));
+            if ((flags & FLAG_ROW_STATS) != 0)
+                rowStats = map(channel, statsOffset, (long)rowCount * ROW_STAT_SIZE);
+        } finally {
+            raf.close();
+        }
+    }
+
+    public static MatrixFile open(File file) throws IOException {
+        return new MatrixFile(file);
+    }
+
+    /**
+     * Checks that section declared in header lies within file (truncated
+     * containers would otherwise fail on mapping or reading).
+     */
+    private static void checkSection(File file, long fileSize, long offset, long size) {
+        if (offset < HEADER_SIZE || size < 0 || offset + size > fileSize)
+            throw new IllegalStateException("Matrix container is truncated or broken: " + file);
+    }
+
+    public List<String> getRowIds() {
+        return rowIds;
+    }
+
+    public List<String> getColIds() {
+        return colIds;
+    }
+
+    public boolean hasValues() {
+        return values != null;
+    }
+
+    /**
+     * Returns read-only matrix backed by mapped value block (or null if file
+     * was written without values).
+     */
+    public PrimitiveMatrix getValues() {
+        return values;
+    }
+
+    public boolean isMissing(int row, int col) {
+        if (missingBitmap == null)
+            return values == null || values.isMissing(row, col);
+        long bit = (long)row * colIds.size() + col;
+        return (missingBitmap.get((int)(bit >>> 3)) & (1 << (bit & 7))) != 0;
+    }
+
+    /**
+     * Returns stats of all rows stored in file (or null if they weren't saved).
+     */
+    public List<ItemStat> getRowStats() {
+        if (rowStats == null)
+            return null;
+        List<ItemStat> ret = new ArrayList<ItemStat>(rowIds.size());
+        for (int row = 0; row < rowIds.size(); row++) {
+            int pos = row * ROW_STAT_SIZE;
+            long missing = rowStats.getLong(pos + 32);
+            ret.add(new ItemStat().withIndexFor((long)row)
+                    .withMin(toObject(rowStats.getDouble(pos)))
+                    .withMax(toObject(rowStats.getDouble(pos + 8)))
+                    .withAvg(toObject(rowStats.getDouble(pos + 16)))
+                    .withStd(toObject(rowStats.getDouble(pos + 24)))
+                    .withSize((long)colIds.size()).withMissingValues(missing));
+        }
+        return ret;
+    }
+
+    @Override
+    public void close() {
+        if (values != null)
+            values.close();
+        values = null;
+        missingBitmap = null;
+        rowStats = null;
+    }
+
+    /**
+     * Writes container into target file. Data goes to temporary file in the same
+     * folder first which is renamed at the end, so concurrent readers never see
+     * partially written container.
+     * @param values matrix values or null if only ids should be stored
+     * @param mode storage of value block, null means storage mode of values
+     */
+    public static void write(File target, List<String> rowIds, List<String> colIds,
+            PrimitiveMatrix values, StorageMode mode, boolean withRowStats) throws IOException {
+        int rowCount = rowIds.size();
+        int colCount = colIds.size();
+        if (values != null && (values.getRowCount() != rowCount ||
+                values.getColCount() != colCount))
+            throw new IllegalStateException("Matrix dimensions " + values.getRowCount() + " x " +
+                    values.getColCount() + " don't match ids " + rowCount + " x " + colCount);
+        if (values == null)
+            withRowStats = false;
+        if (mode == null && values != null)
+            mode = values.getStorageMode();
+        int bytesPerValue = values == null ? 0 : (mode == StorageMode.float32 ? 4 : 8);
+        File parent = target.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(target.getName(), ".tmp", parent);
+        try {
+            RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+            try {
+                FileChannel channel = raf.getChannel();
+                ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                long stringsOffset = HEADER_SIZE;
+                channel.position(stringsOffset);
+                writeStrings(channel, buf, rowIds);
+                writeStrings(channel, buf, colIds);
+                long pos = align(flush(channel, buf));
+                long valuesOffset = 0;
+                long bitmapOffset = 0;
+                long statsOffset = 0;
+                if (values != null) {
+                    valuesOffset = pos;
+                    channel.position(valuesOffset);
+                    double[] row = null;
+                    for (int i = 0; i < rowCount; i++) {
+                        row = values.getRow(i, row);
+                        for (int j = 0; j < colCount; j++) {
+                            ensureRemaining(channel, buf, 8);
+                            if (bytesPerValue == 4) {
+                                buf.putFloat((float)row[j]);
+                            } else {
+                                buf.putDouble(row[j]);
+                            }
+                        }
+                    }
+                    bitmapOffset = align(flush(channel, buf));
+                    channel.position(bitmapOffset);
+                    int bits = 0;
+                    int bitCount = 0;
+                    for (int i = 0; i < rowCount; i++) {
+                        row = values.getRow(i, row);
+                        for (int j = 0; j < colCount; j++) {
+                            if (Double.isNaN(row[j]))
+                                bits |= 1 << bitCount;
+                            if (++bitCount == 8) {
+                                ensureRemaining(channel, buf, 1);
+                                buf.put((byte)bits);
+                                bits = 0;
+                                bitCount = 0;
+                            }
+                        }
+                    }
+                    if (bitCount > 0) {
+                        ensureRemaining(channel, buf, 1);
+                        buf.put((byte)bits);
+                    }
+                    pos = align(flush(channel, buf));
+                }
+                if (withRowStats) {
+                    statsOffset = pos;
+                    channel.position(statsOffset);
+                    for (ItemStat stat : FloatMatrix2DUtil.getRowsStat(values, null, null, false)) {
+                        ensureRemaining(channel, buf, ROW_STAT_SIZE);
+                        buf.putDouble(toPrimitive(stat.getMin()));
+                        buf.putDouble(toPrimitive(stat.getMax()));
+                        buf.putDouble(toPrimitive(stat.getAvg()));
+                        buf.putDouble(toPrimitive(stat.getStd()));
+                        buf.putLong(stat.getMissingValues());
+                    }
+                    flush(channel, buf);
+                }
+                int flags = (values != null ? FLAG_VALUES | FLAG_MISSING_BITMAP : 0) |
+                        (withRowStats ? FLAG_ROW_STATS : 0);
+                buf.put(MAGIC).putInt(VERSION).putInt(flags).putInt(rowCount).putInt(colCount)
+                        .putInt(bytesPerValue).putLong(stringsOffset).putLong(valuesOffset)
+                        .putLong(bitmapOffset).putLong(statsOffset);
+                channel.position(0);
+                flush(channel, buf);
+            } finally {
+                raf.close();
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (temp.exists())
+                temp.delete();
+        }
+    }
+
+    private static void writeStrings(FileChannel channel, ByteBuffer buf, List<String> items)
+            throws IOException {
+        for (String item : items) {
+            byte[] bytes = item.getBytes(UTF8);
+            ensureRemaining(channel, buf, 4);
+            buf.putInt(bytes.length);
+            for (int off = 0; off < bytes.length; ) {
+                ensureRemaining(channel, buf, 1);
+                int len = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, len);
+                off += len;
+            }
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer buf, int count) {
+        List<String> ret = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buf.getInt()];
+            buf.get(bytes);
+            ret.add(new String(bytes, UTF8));
+        }
+        return ret;
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buf, int size)
+            throws IOException {
+        if (buf.remaining() < size)
+            flush(channel, buf);
+    }
+
+    /**
+     * Writes buffer content into channel and returns resulting channel position.
+     */
+    private static long flush(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
+        return channel.position();
+    }
+
+    private static long align(long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    private static long getBitmapSize(int rowCount, int colCount) {
+        return ((long)rowCount * colCount + 7) / 8;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long size)
+            throws IOException {
+        MappedByteBuffer ret = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        ret.order(ByteOrder.LITTLE_ENDIAN);
+        return ret;
+    }
+
+    private static double toPrimitive(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static Double toObject(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,531 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import us.kbase.kbasefeaturevalues.matrix.ParallelTasks.RangeTask;
+
+/**
+ * Chain of value transformations of correct_matrix applied to primitive
+ * matrix in place. Chain is defined by comma-separated list of steps applied
+ * from left to right:
+ * <ul>
+ * <li>log2, log10, ln - logarithm of values (all present values should be
+ * positive),</li>
+ * <li>row_mean_center, row_median_center, row_zscore - centering (and scaling
+ * to unit standard deviation) of every row,</li>
+ * <li>col_mean_center, col_median_center, col_zscore - the same for every
+ * column,</li>
+ * <li>quantile - quantile normalization of columns (every column gets the
+ * same distribution of values, missing values are allowed),</li>
+ * <li>imputation methods of MissingValueImputer.</li>
+ * </ul>
+ * Steps working inside rows are fused into one sweep over rows together with
+ * shifting and scaling of columns left from previous step, and statistics
+ * needed by next column mean or z-score step are accumulated in the same
+ * sweep, so for example "log2,col_zscore,row_median_center" reads and writes
+ * every value only twice. Sweeps and column steps run in parallel.
+ * Missing values stay missing (except imputation steps). Rows and columns
+ * with zero deviation are centered only. Matrix can be a MatrixView, then
+ * submatrix is normalized in parent.
+ */
+public class MatrixNormalizer {
+    public static final String LOG2 = "log2";
+    public static final String LOG10 = "log10";
+    public static final String LN = "ln";
+    public static final String ROW_MEAN_CENTER = "row_mean_center";
+    public static final String ROW_MEDIAN_CENTER = "row_median_center";
+    public static final String ROW_ZSCORE = "row_zscore";
+    public static final String COL_MEAN_CENTER = "col_mean_center";
+    public static final String COL_MEDIAN_CENTER = "col_median_center";
+    public static final String COL_ZSCORE = "col_zscore";
+    public static final String QUANTILE = "quantile";
+    private static final List<String> ROW_STEPS = Arrays.asList(LOG2, LOG10, LN,
+            ROW_MEAN_CENTER, ROW_MEDIAN_CENTER, ROW_ZSCORE);
+    private static final List<String> COLUMN_STEPS = Arrays.asList(COL_MEAN_CENTER,
+            COL_MEDIAN_CENTER, COL_ZSCORE, QUANTILE);
+    private static final int MIN_ROWS_PER_THREAD = 1024;
+    private static final int MIN_COLS_PER_THREAD = 4;
+    private static final double LOG2_FACTOR = 1.0 / Math.log(2);
+
+    private final PrimitiveMatrix values;
+    private final int threadCount;
+    // Column shift and factor which are not applied yet (null if there are none)
+    private double[] colShift = null;
+    private double[] colFactor = null;
+    private final List<String> rowSteps = new ArrayList<String>();
+
+    private MatrixNormalizer(PrimitiveMatrix values, int threadCount) {
+        this.values = values;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Splits transform_type into steps and checks that all of them are
+     * supported.
+     */
+    public static List<String> parseSteps(String transformType) {
+        List<String> ret = new ArrayList<String>();
+        if (transformType != null)
+            for (String step : transformType.split(","))
+                if (!step.trim().isEmpty())
+                    ret.add(step.trim());
+        if (ret.isEmpty())
+            throw new IllegalStateException("Unsupported transformation type: " + transformType);
+        for (String step : ret)
+            if (!ROW_STEPS.contains(step) && !COLUMN_STEPS.contains(step) &&
+                    !MissingValueImputer.isSupported(step))
+                throw new IllegalStateException("Unsupported transformation type: " + step);
+        return ret;
+    }
+
+    /**
+     * Applies steps to matrix.
+     * @param param parameter of imputation steps (see MissingValueImputer)
+     */
+    public static void apply(PrimitiveMatrix values, List<String> steps, Double param)
+            throws Exception {
+        apply(values, steps, param, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static void apply(PrimitiveMatrix values, List<String> steps, Double param,
+            int threadCount) throws Exception {
+        // Every column step adds a sweep and a pass over columns, view of
+        // submatrix is normalized in contiguous copy if it pays off (copy is
+        // written back at the end which costs one more pass)
+        int passes = 1;
+        for (String step : steps)
+            if (!ROW_STEPS.contains(step))
+                passes += 2;
+        PrimitiveMatrix target = MatrixView.prepare(values, passes - 1);
+        normalize(target, steps, param, threadCount);
+        if (target != values)
+            ((MatrixView)values).update(target);
+    }
+
+    private static void normalize(PrimitiveMatrix values, List<String> steps, Double param,
+            int threadCount) throws Exception {
+        MatrixNormalizer normalizer = new MatrixNormalizer(values, threadCount);
+        for (String step : steps) {
+            if (ROW_STEPS.contains(step)) {
+                normalizer.rowSteps.add(step);
+            } else if (step.equals(COL_MEAN_CENTER) || step.equals(COL_ZSCORE)) {
+                double[][] moments = normalizer.sweep(true);
+                normalizer.colShift = moments[0];
+                if (step.equals(COL_ZSCORE))
+                    normalizer.colFactor = toFactors(moments[1]);
+            } else {
+                normalizer.sweep(false);
+                if (step.equals(COL_MEDIAN_CENTER)) {
+                    normalizer.colShift = normalizer.getColumnMedians();
+                } else if (step.equals(QUANTILE)) {
+                    normalizer.quantileNormalize();
+                } else {
+                    MissingValueImputer.impute(values, step, param);
+                }
+            }
+        }
+        normalizer.sweep(false);
+    }
+
+    /**
+     * Returns value of row_normalization for matrix after given steps (null
+     * if rows are not normalized).
+     */
+    public static String getRowNormalization(List<String> steps) {
+        String ret = null;
+        for (String step : steps)
+            if (step.startsWith("row_"))
+                ret = step.substring(4);
+        return ret;
+    }
+
+    /**
+     * Returns value of col_normalization for matrix after given steps (null
+     * if columns are not normalized).
+     */
+    public static String getColNormalization(List<String> steps) {
+        String ret = null;
+        for (String step : steps)
+            if (COLUMN_STEPS.contains(step))
+                ret = step.startsWith("col_") ? step.substring(4) : step;
+        return ret;
+    }
+
+    /**
+     * Returns scale of values after given steps (null if scale isn't changed).
+     */
+    public static String getScale(List<String> steps) {
+        String ret = null;
+        for (String step : steps)
+            if (step.equals(LOG2) || step.equals(LOG10) || step.equals(LN))
+                ret = step;
+        return ret;
+    }
+
+    private <T> List<T> runInParallel(int size, int minSizePerThread, RangeTask<T> task)
+            throws Exception {
+        return ParallelTasks.run(size, minSizePerThread, threadCount, task);
+    }
+
+    /**
+     * Applies pending column shift/factor and row steps in one pass over rows.
+     * If withMoments is set then column means and standard deviations of
+     * resulting values are returned.
+     */
+    private double[][] sweep(final boolean withMoments) throws Exception {
+        final int colCount = values.getColCount();
+        if (colShift == null && rowSteps.isEmpty() && !withMoments)
+            return null;
+        final double[] shift = colShift;
+        final double[] factor = colFactor;
+        final String[] steps = rowSteps.toArray(new String[rowSteps.size()]);
+        colShift = null;
+        colFactor = null;
+        rowSteps.clear();
+        List<ColumnMoments> parts = runInParallel(values.getRowCount(), MIN_ROWS_PER_THREAD,
+                new RangeTask<ColumnMoments>() {
+            @Override
+            public ColumnMoments run(int start, int end) {
+                ColumnMoments moments = withMoments ? new ColumnMoments(colCount) : null;
+                double[] row = new double[colCount];
+                double[] scratch = new double[colCount];
+                for (int i = start; i < end; i++) {
+                    row = values.getRow(i, row);
+                    if (shift != null) {
+                        if (factor != null) {
+                            for (int j = 0; j < colCount; j++)
+                                row[j] = (row[j] - shift[j]) * factor[j];
+                        } else {
+                            for (int j = 0; j < colCount; j++)
+                                row[j] -= shift[j];
+                        }
+                    }
+                    for (String step : steps)
+                        applyRowStep(step, row, colCount, scratch, i);
+                    if (moments != null)
+                        moments.add(row);
+                    if (shift != null || steps.length > 0)
+                        values.setRow(i, row);
+                }
+                return moments;
+            }
+        });
+        if (!withMoments)
+            return null;
+        ColumnMoments total = parts.get(0);
+        for (int k = 1; k < parts.size(); k++)
+            total.merge(parts.get(k));
+        return total.getMeansAndDeviations();
+    }
+
+    private static void applyRowStep(String step, double[] row, int colCount,
+            double[] scratch, int rowPos) {
+        if (step.equals(LOG2) || step.equals(LOG10) || step.equals(LN)) {
+            for (int j = 0; j < colCount; j++) {
+                double v = row[j];
+                if (!(v > 0)) {
+                    if (Double.isNaN(v))
+                        continue;
+                    throw new IllegalStateException("Logarithm can't be applied to value " +
+                            v + " at row " + (rowPos + 1) + ", column " + (j + 1));
+                }
+                row[j] = step.equals(LOG10) ? Math.log10(v) :
+                    (step.equals(LN) ? Math.log(v) : Math.log(v) * LOG2_FACTOR);
+            }
+        } else if (step.equals(ROW_MEDIAN_CENTER)) {
+            int count = 0;
+            for (int j = 0; j < colCount; j++)
+                if (!Double.isNaN(row[j]))
+                    scratch[count++] = row[j];
+            if (count == 0)
+                return;
+            double median = median(scratch, count);
+            for (int j = 0; j < colCount; j++)
+                row[j] -= median;
+        } else {
+            double sum = 0;
+            int count = 0;
+            for (int j = 0; j < colCount; j++) {
+                if (!Double.isNaN(row[j])) {
+                    sum += row[j];
+                    count++;
+                }
+            }
+            if (count == 0)
+                return;
+            double mean = sum / count;
+            double factor = 1;
+            if (step.equals(ROW_ZSCORE)) {
+                double sq = 0;
+                for (int j = 0; j < colCount; j++) {
+                    if (!Double.isNaN(row[j])) {
+                        double d = row[j] - mean;
+                        sq += d * d;
+                    }
+                }
+                factor = count > 1 && sq > 0 ? 1.0 / Math.sqrt(sq / (count - 1)) : 1;
+            }
+            for (int j = 0; j < colCount; j++)
+                row[j] = (row[j] - mean) * factor;
+        }
+    }
+
+    private static double[] toFactors(double[] deviations) {
+        double[] ret = new double[deviations.length];
+        for (int j = 0; j < ret.length; j++)
+            ret[j] = deviations[j] > 0 ? 1.0 / deviations[j] : 1;
+        return ret;
+    }
+
+    private double[] getColumnMedians() throws Exception {
+        final int colCount = values.getColCount();
+        final double[] ret = new double[colCount];
+        runInParallel(colCount, MIN_COLS_PER_THREAD, new RangeTask<Void>() {
+            @Override
+            public Void run(int start, int end) {
+                double[] col = null;
+                for (int j = start; j < end; j++) {
+                    col = values.getColumn(j, col);
+                    int count = compact(col, values.getRowCount());
+                    ret[j] = count == 0 ? 0 : median(col, count);
+                }
+                return null;
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Quantile normalization. Reference distribution is mean of column
+     * quantiles at rowCount evenly spaced positions (columns with missing
+     * values are linearly interpolated), every value is replaced by reference
+     * quantile of its rank, tied values get mean of reference over their ranks.
+     */
+    private void quantileNormalize() throws Exception {
+        final int rowCount = values.getRowCount();
+        int colCount = values.getColCount();
+        if (rowCount == 0)
+            return;
+        List<double[]> parts = runInParallel(colCount, MIN_COLS_PER_THREAD,
+                new RangeTask<double[]>() {
+            @Override
+            public double[] run(int start, int end) {
+                // Sums of column quantiles followed by number of columns
+                double[] sums = new double[rowCount + 1];
+                double[] col = null;
+                for (int j = start; j < end; j++) {
+                    col = values.getColumn(j, col);
+                    int count = compact(col, rowCount);
+                    if (count == 0)
+                        continue;
+                    Arrays.sort(col, 0, count);
+                    for (int k = 0; k < rowCount; k++)
+                        sums[k] += interpolate(col, count, k, rowCount);
+                    sums[rowCount]++;
+                }
+                return sums;
+            }
+        });
+        final double[] reference = new double[rowCount];
+        double columns = 0;
+        for (double[] sums : parts) {
+            for (int k = 0; k < rowCount; k++)
+                reference[k] += sums[k];
+            columns += sums[rowCount];
+        }
+        if (columns == 0)
+            return;
+        for (int k = 0; k < rowCount; k++)
+            reference[k] /= columns;
+        runInParallel(colCount, MIN_COLS_PER_THREAD, new RangeTask<Void>() {
+            @Override
+            public Void run(int start, int end) {
+                double[] col = null;
+                double[] sorted = new double[rowCount];
+                double[] mapped = new double[rowCount];
+                for (int j = start; j < end; j++) {
+                    col = values.getColumn(j, col);
+                    System.arraycopy(col, 0, sorted, 0, rowCount);
+                    int count = compact(sorted, rowCount);
+                    if (count == 0)
+                        continue;
+                    Arrays.sort(sorted, 0, count);
+                    // Value of every group of ties is stored at group start
+                    for (int groupStart = 0; groupStart < count; ) {
+                        int groupEnd = groupStart + 1;
+                        while (groupEnd < count && sorted[groupEnd] == sorted[groupStart])
+                            groupEnd++;
+                        double sum = 0;
+                        for (int r = groupStart; r < groupEnd; r++)
+                            sum += interpolate(reference, rowCount, r, count);
+                        mapped[groupStart] = sum / (groupEnd - groupStart);
+                        groupStart = groupEnd;
+                    }
+                    for (int i = 0; i < rowCount; i++) {
+                        if (Double.isNaN(col[i]))
+                            continue;
+                        values.set(i, j, mapped[firstIndexOf(sorted, count, col[i])]);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Value of sorted array of given size at quantile pos / (positions - 1)
+     * (median for single position).
+     */
+    private static double interpolate(double[] sorted, int size, int pos, int positions) {
+        if (size == positions)
+            return sorted[pos];
+        double x = positions == 1 ? (size - 1) / 2.0 :
+            (double)pos * (size - 1) / (positions - 1);
+        int left = (int)x;
+        if (left >= size - 1)
+            return sorted[size - 1];
+        double frac = x - left;
+        return sorted[left] + (sorted[left + 1] - sorted[left]) * frac;
+    }
+
+    private static int firstIndexOf(double[] sorted, int size, double value) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Moves present values to the beginning of array and returns their count.
+     */
+    private static int compact(double[] data, int size) {
+        int count = 0;
+        for (int i = 0; i < size; i++)
+            if (!Double.isNaN(data[i]))
+                data[count++] = data[i];
+        return count;
+    }
+
+    /**
+     * Median of first size elements of array found by quickselect in expected
+     * linear time. Order of these elements is changed.
+     */
+    public static double median(double[] data, int size) {
+        int k = size / 2;
+        double upper = select(data, size, k);
+        if (size % 2 == 1)
+            return upper;
+        // Elements before k are not greater than upper after selection
+        double lower = data[0];
+        for (int i = 1; i < k; i++)
+            if (data[i] > lower)
+                lower = data[i];
+        return (lower + upper) / 2;
+    }
+
+    private static double select(double[] data, int size, int k) {
+        int left = 0;
+        int right = size - 1;
+        while (right > left) {
+            // Median of three as pivot protects from sorted input
+            int mid = (left + right) >>> 1;
+            if (data[mid] < data[left])
+                swap(data, mid, left);
+            if (data[right] < data[left])
+                swap(data, right, left);
+            if (data[right] < data[mid])
+                swap(data, right, mid);
+            double pivot = data[mid];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (data[i] < pivot)
+                    i++;
+                while (data[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    swap(data, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return data[k];
+    }
+
+    private static void swap(double[] data, int i, int j) {
+        double tmp = data[i];
+        data[i] = data[j];
+        data[j] = tmp;
+    }
+
+    /**
+     * Column counts, means and sums of squared deviations accumulated with
+     * Welford updates, parts from different threads are merged with Chan's
+     * formula.
+     */
+    private static class ColumnMoments {
+        private final long[] counts;
+        private final double[] means;
+        private final double[] m2;
+
+        ColumnMoments(int colCount) {
+            counts = new long[colCount];
+            means = new double[colCount];
+            m2 = new double[colCount];
+        }
+
+        void add(double[] row) {
+            for (int j = 0; j < counts.length; j++) {
+                double v = row[j];
+                if (Double.isNaN(v))
+                    continue;
+                long n = ++counts[j];
+                double delta = v - means[j];
+                means[j] += delta / n;
+                m2[j] += delta * (v - means[j]);
+            }
+        }
+
+        void merge(ColumnMoments other) {
+            for (int j = 0; j < counts.length; j++) {
+                long n1 = counts[j];
+                long n2 = other.counts[j];
+                if (n2 == 0)
+                    continue;
+                long n = n1 + n2;
+                double delta = other.means[j] - means[j];
+                means[j] += delta * n2 / n;
+                m2[j] += other.m2[j] + delta * delta * n1 * n2 / n;
+                counts[j] = n;
+            }
+        }
+
+        /**
+         * Returns means and sample standard deviations (0 for less than two
+         * values).
+         */
+        double[][] getMeansAndDeviations() {
+            double[] deviations = new double[counts.length];
+            for (int j = 0; j < counts.length; j++)
+                deviations[j] = counts[j] > 1 ? Math.sqrt(m2[j] / (counts[j] - 1)) : 0;
+            return new double[][] {means, deviations};
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import us.kbase.kbasefeaturevalues.matrix.ParallelTasks.RangeTask;
+
+/**
+ * Multi-resolution pyramid of matrix used for overview heatmaps. Level
+ * (rowLevel, colLevel) splits matrix into blocks of 2^rowLevel rows and
+ * 2^colLevel columns (last blocks can be smaller) and keeps mean, min, max
+ * and number of present values of each block. Levels are built on demand and
+ * kept in pyramid, new level is aggregated from the coarsest already built
+ * level which is not coarser in any dimension, so only the first level is
+ * built from matrix itself. Statistics are kept as floats which is enough
+ * for drawing.
+ */
+public class MatrixPyramid {
+    public static final int MAX_BLOCKS = 1 << 22;
+    private static final int MAX_LEVELS = 16;
+    private static final int MIN_CELLS_PER_THREAD = 1 << 16;
+
+    private final int rowCount;
+    private final int colCount;
+    private final int threadCount;
+    private final List<Level> levels = new ArrayList<Level>();
+
+    public MatrixPyramid(int rowCount, int colCount, int threadCount) {
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColCount() {
+        return colCount;
+    }
+
+    /**
+     * Returns the finest level at which given number of items fits into
+     * given number of pixels.
+     */
+    public static int getLevelFor(int itemCount, int pixels) {
+        if (pixels <= 0)
+            throw new IllegalStateException("Number of pixels should be positive: " + pixels);
+        int level = 0;
+        while (getBlockCount(itemCount, level) > pixels)
+            level++;
+        return level;
+    }
+
+    private static int getBlockCount(int itemCount, int level) {
+        return (int)(((long)itemCount + (1L << level) - 1) >> level);
+    }
+
+    /**
+     * Returns level of pyramid building it if necessary.
+     * @param source matrix this pyramid is built for (it's read only if
+     * there is no finer level built before)
+     */
+    public synchronized Level getLevel(int rowLevel, int colLevel, PrimitiveMatrix source)
+            throws Exception {
+        if (rowLevel < 0 || colLevel < 0 || rowLevel > 30 || colLevel > 30)
+            throw new IllegalStateException("Wrong pyramid level: " + rowLevel + ", " + colLevel);
+        Level base = null;
+        for (Level level : levels) {
+            if (level.rowLevel == rowLevel && level.colLevel == colLevel)
+                return level;
+            if (level.rowLevel <= rowLevel && level.colLevel <= colLevel &&
+                    (base == null || level.getBlockCount() < base.getBlockCount()))
+                base = level;
+        }
+        int rowBlocks = getBlockCount(rowCount, rowLevel);
+        int colBlocks = getBlockCount(colCount, colLevel);
+        if ((long)rowBlocks * colBlocks > MAX_BLOCKS)
+            throw new IllegalStateException("Pyramid level " + rowLevel + ", " + colLevel +
+                    " is too large: " + rowBlocks + " x " + colBlocks + " blocks");
+        Level ret = new Level(rowLevel, colLevel, rowCount, colCount);
+        if (base == null) {
+            if (source.getRowCount() != rowCount || source.getColCount() != colCount)
+                throw new IllegalStateException("Matrix doesn't match pyramid");
+            aggregate(source, ret);
+        } else {
+            aggregate(base, ret);
+        }
+        if (levels.size() >= MAX_LEVELS) {
+            // The largest level is the most expensive to keep
+            Level largest = levels.get(0);
+            for (Level level : levels)
+                if (level.getBlockCount() > largest.getBlockCount())
+                    largest = level;
+            levels.remove(largest);
+        }
+        levels.add(ret);
+        return ret;
+    }
+
+    private void aggregate(final PrimitiveMatrix source, final Level target) throws Exception {
+        int minBlockRowsPerThread = (int)Math.max(1, MIN_CELLS_PER_THREAD /
+                Math.max(1L, (long)colCount << target.rowLevel));
+        ParallelTasks.run(target.rowBlocks, minBlockRowsPerThread, threadCount,
+                new RangeTask<Void>() {
+            @Override
+            public Void run(int start, int end) {
+                int colBlocks = target.colBlocks;
+                double[] sums = new double[colBlocks];
+                double[] row = null;
+                for (int bi = start; bi < end; bi++) {
+                    int offset = bi * colBlocks;
+                    target.startBlockRow(offset, sums);
+                    int rowEnd = Math.min(rowCount, (bi + 1) << target.rowLevel);
+                    for (int i = bi << target.rowLevel; i < rowEnd; i++) {
+                        row = source.getRow(i, row);
+                        for (int j = 0; j < colCount; j++) {
+                            double value = row[j];
+                            if (Double.isNaN(value))
+                                continue;
+                            int b = j >> target.colLevel;
+                            sums[b] += value;
+                            target.add(offset + b, value, value, 1);
+                        }
+                    }
+                    target.finishBlockRow(offset, sums);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void aggregate(final Level base, final Level target) throws Exception {
+        final int dr = target.rowLevel - base.rowLevel;
+        final int dc = target.colLevel - base.colLevel;
+        int minBlockRowsPerThread = (int)Math.max(1, MIN_CELLS_PER_THREAD /
+                Math.max(1L, (long)base.colBlocks << dr));
+        ParallelTasks.run(target.rowBlocks, minBlockRowsPerThread, threadCount,
+                new RangeTask<Void>() {
+            @Override
+            public Void run(int start, int end) {
+                int colBlocks = target.colBlocks;
+                double[] sums = new double[colBlocks];
+                for (int bi = start; bi < end; bi++) {
+                    int offset = bi * colBlocks;
+                    target.startBlockRow(offset, sums);
+                    int baseRowEnd = Math.min(base.rowBlocks, (bi + 1) << dr);
+                    for (int i = bi << dr; i < baseRowEnd; i++) {
+                        int baseOffset = i * base.colBlocks;
+                        for (int j = 0; j < base.colBlocks; j++) {
+                            int count = base.presentCounts[baseOffset + j];
+                            if (count == 0)
+                                continue;
+                            int b = j >> dc;
+                            sums[b] += (double)base.means[baseOffset + j] * count;
+                            target.add(offset + b, base.mins[baseOffset + j],
+                                    base.maxs[baseOffset + j], count);
+                        }
+                    }
+                    target.finishBlockRow(offset, sums);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * One level of pyramid, blocks are stored in row-major order.
+     */
+    public static class Level {
+        private final int rowLevel;
+        private final int colLevel;
+        private final int rowCount;
+        private final int colCount;
+        private final int rowBlocks;
+        private final int colBlocks;
+        private final float[] means;
+        private final float[] mins;
+        private final float[] maxs;
+        private final int[] presentCounts;
+
+        private Level(int rowLevel, int colLevel, int rowCount, int colCount) {
+            this.rowLevel = rowLevel;
+            this.colLevel = colLevel;
+            this.rowCount = rowCount;
+            this.colCount = colCount;
+            this.rowBlocks = MatrixPyramid.getBlockCount(rowCount, rowLevel);
+            this.colBlocks = MatrixPyramid.getBlockCount(colCount, colLevel);
+            int size = rowBlocks * colBlocks;
+            means = new float[size];
+            mins = new float[size];
+            maxs = new float[size];
+            presentCounts = new int[size];
+        }
+
+        private void startBlockRow(int offset, double[] sums) {
+            for (int b = 0; b < colBlocks; b++) {
+                sums[b] = 0;
+                mins[offset + b] = Float.POSITIVE_INFINITY;
+                maxs[offset + b] = Float.NEGATIVE_INFINITY;
+            }
+        }
+
+        private void add(int pos, double min, double max, int count) {
+            if (min < mins[pos])
+                mins[pos] = (float)min;
+            if (max > maxs[pos])
+                maxs[pos] = (float)max;
+            presentCounts[pos] += count;
+        }
+
+        private void finishBlockRow(int offset, double[] sums) {
+            for (int b = 0; b < colBlocks; b++) {
+                int count = presentCounts[offset + b];
+                means[offset + b] = count == 0 ? Float.NaN : (float)(sums[b] / count);
+                if (count == 0)
+                    mins[offset + b] = maxs[offset + b] = Float.NaN;
+            }
+        }
+
+        public int getRowLevel() {
+            return rowLevel;
+        }
+
+        public int getColLevel() {
+            return colLevel;
+        }
+
+        public int getRowBlocks() {
+            return rowBlocks;
+        }
+
+        public int getColBlocks() {
+            return colBlocks;
+        }
+
+        public long getBlockCount() {
+            return (long)rowBlocks * colBlocks;
+        }
+
+        /**
+         * Number of cells of matrix in block.
+         */
+        public int getCellCount(int blockRow, int blockCol) {
+            int rows = Math.min(rowCount, (blockRow + 1) << rowLevel) - (blockRow << rowLevel);
+            int cols = Math.min(colCount, (blockCol + 1) << colLevel) - (blockCol << colLevel);
+            return rows * cols;
+        }
+
+        /** Means of blocks in row-major order, NaN for blocks without values. */
+        public double[] getMeans() {
+            return toDoubles(means);
+        }
+
+        /** Minimums of blocks in row-major order, NaN for blocks without values. */
+        public double[] getMins() {
+            return toDoubles(mins);
+        }
+
+        /** Maximums of blocks in row-major order, NaN for blocks without values. */
+        public double[] getMaxs() {
+            return toDoubles(maxs);
+        }
+
+        /** Fractions of missing values in blocks in row-major order. */
+        public double[] getMissingFractions() {
+            double[] ret = new double[presentCounts.length];
+            for (int bi = 0, pos = 0; bi < rowBlocks; bi++)
+                for (int bj = 0; bj < colBlocks; bj++, pos++)
+                    ret[pos] = 1.0 - (double)presentCounts[pos] / getCellCount(bi, bj);
+            return ret;
+        }
+
+        private static double[] toDoubles(float[] values) {
+            double[] ret = new double[values.length];
+            for (int i = 0; i < values.length; i++)
+                ret[i] = values[i];
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import us.kbase.common.service.UObject;
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+
+/**
+ * Reads matrix object (any type keeping FloatMatrix2D in "data" field) from
+ * JSON token stream. Values are written directly into primitive matrix while
+ * tokens are consumed, so boxed List&lt;List&lt;Double&gt;&gt; is never built.
+ */
+public class MatrixStreamReader {
+    private static final String DATA_FIELD = "data";
+    private static final String ROW_IDS_FIELD = "row_ids";
+    private static final String COL_IDS_FIELD = "col_ids";
+    private static final String VALUES_FIELD = "values";
+
+    public static <T> StreamedMatrix<T> read(JsonParser jp, Class<T> type,
+            MatrixFactory factory) throws IOException {
+        ObjectMapper mapper = UObject.getMapper();
+        JsonToken t = jp.getCurrentToken();
+        if (t == null)
+            t = jp.nextToken();
+        if (t != JsonToken.START_OBJECT)
+            throw new IllegalStateException("Matrix object is expected to be JSON object");
+        Map<String, Object> fields = new LinkedHashMap<String, Object>();
+        PrimitiveMatrix values = null;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String name = jp.getCurrentName();
+            jp.nextToken();
+            if (name.equals(DATA_FIELD) && jp.getCurrentToken() == JsonToken.START_OBJECT) {
+                FloatMatrix2D data = new FloatMatrix2D();
+                values = readData(jp, mapper, data, factory);
+                fields.put(name, data);
+            } else {
+                fields.put(name, mapper.readValue(jp, Object.class));
+            }
+        }
+        return new StreamedMatrix<T>(mapper.convertValue(fields, type), values);
+    }
+
+    private static PrimitiveMatrix readData(JsonParser jp, ObjectMapper mapper,
+            FloatMatrix2D data, MatrixFactory factory) throws IOException {
+        PrimitiveMatrix values = null;
+        List<double[]> pendingRows = null;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String name = jp.getCurrentName();
+            jp.nextToken();
+            if (name.equals(ROW_IDS_FIELD)) {
+                data.setRowIds(mapper.<List<String>>readValue(jp,
+                        new TypeReference<List<String>>() {}));
+            } else if (name.equals(COL_IDS_FIELD)) {
+                data.setColIds(mapper.<List<String>>readValue(jp,
+                        new TypeReference<List<String>>() {}));
+            } else if (name.equals(VALUES_FIELD) && jp.getCurrentToken() == JsonToken.START_ARRAY) {
+                if (data.getRowIds() != null && data.getColIds() != null) {
+                    values = factory.create(data.getRowIds().size(), data.getColIds().size());
+                    readValues(jp, values);
+                } else {
+                    // Dimensions are not known yet, rows are kept until ids are read
+                    pendingRows = readRows(jp);
+                }
+            } else {
+                data.setAdditionalProperties(name, mapper.readValue(jp, Object.class));
+            }
+        }
+        if (data.getRowIds() == null || data.getColIds() == null)
+            throw new IllegalStateException("Matrix data doesn't contain row or column ids");
+        int rowCount = data.getRowIds().size();
+        int colCount = data.getColIds().size();
+        if (pendingRows != null) {
+            if (pendingRows.size() != rowCount)
+                throw new IllegalStateException("Matrix contains " + pendingRows.size() +
+                        " rows of values != " + rowCount + " row ids");
+            values = factory.create(rowCount, colCount);
+            for (int row = 0; row < rowCount; row++) {
+                double[] rowValues = pendingRows.get(row);
+                if (rowValues.length != colCount)
+                    throw new IllegalStateException("Row " + row + " contains " +
+                            rowValues.length + " != " + colCount + " values");
+                for (int col = 0; col < colCount; col++)
+                    values.set(row, col, rowValues[col]);
+            }
+        } else if (values == null) {
+            values = factory.create(rowCount, colCount);
+            if (rowCount > 0 && colCount > 0)
+                throw new IllegalStateException("Matrix data doesn't contain values");
+        }
+        return values;
+    }
+
+    private static void readValues(JsonParser jp, PrimitiveMatrix values) throws IOException {
+        int rowCount = values.getRowCount();
+        int colCount = values.getColCount();
+        int row = 0;
+        while (jp.nextToken() != JsonToken.END_ARRAY) {
+            if (row >= rowCount)
+                throw new IllegalStateException("Matrix contains more rows of values than " +
+                        rowCount + " row ids");
+            if (jp.getCurrentToken() != JsonToken.START_ARRAY)
+                throw new IllegalStateException("Row " + row + " of values is not an array");
+            int col = 0;
+            while (jp.nextToken() != JsonToken.END_ARRAY) {
+                if (col >= colCount)
+                    throw new IllegalStateException("Row " + row + " contains more than " +
+                            colCount + " values");
+                values.set(row, col, readValue(jp));
+                col++;
+            }
+            if (col != colCount)
+                throw new IllegalStateException("Row " + row + " contains " + col + " != " +
+                        colCount + " values");
+            row++;
+        }
+        if (row != rowCount)
+            throw new IllegalStateException("Matrix contains " + row + " rows of values != " +
+                    rowCount + " row ids");
+    }
+
+    private static List<double[]> readRows(JsonParser jp) throws IOException {
+        List<double[]> ret = new ArrayList<double[]>();
+        double[] buffer = new double[16];
+        while (jp.nextToken() != JsonToken.END_ARRAY) {
+            if (jp.getCurrentToken() != JsonToken.START_ARRAY)
+                throw new IllegalStateException("Row " + ret.size() + " of values is not an array");
+            int col = 0;
+            while (jp.nextToken() != JsonToken.END_ARRAY) {
+                if (col == buffer.length) {
+                    double[] temp = new double[buffer.length * 2];
+                    System.arraycopy(buffer, 0, temp, 0, col);
+                    buffer = temp;
+                }
+                buffer[col++] = readValue(jp);
+            }
+            double[] rowValues = new double[col];
+            System.arraycopy(buffer, 0, rowValues, 0, col);
+            ret.add(rowValues);
+        }
+        return ret;
+    }
+
+    private static double readValue(JsonParser jp) throws IOException {
+        JsonToken t = jp.getCurrentToken();
+        if (t == JsonToken.VALUE_NULL)
+            return Double.NaN;
+        if (t == JsonToken.VALUE_NUMBER_FLOAT || t == JsonToken.VALUE_NUMBER_INT)
+            return jp.getDoubleValue();
+        throw new IllegalStateException("Unexpected token in matrix values: " + t);
+    }
+}
@@ -0,0 +1,89 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import us.kbase.common.service.UObject;
+
+/**
+ * Writes matrix object (any type keeping FloatMatrix2D in "data" field) as
+ * JSON. It's counterpart of MatrixStreamReader: values are emitted row by row
+ * from primitive matrix straight into generator (file or request stream), so
+ * boxed List&lt;List&lt;Double&gt;&gt; is never built. Output is the same as
+ * serialization of boxed object (missing values are written as nulls).
+ */
+public class MatrixStreamWriter {
+    private static final String DATA_FIELD = "data";
+    private static final String ROW_IDS_FIELD = "row_ids";
+    private static final String COL_IDS_FIELD = "col_ids";
+    private static final String VALUES_FIELD = "values";
+
+    public static void write(JsonGenerator jgen, Object object,
+            PrimitiveMatrix values) throws IOException {
+        ObjectMapper mapper = UObject.getMapper();
+        // Everything except values is small, it's serialized in usual way
+        JsonNode tree = mapper.valueToTree(object);
+        jgen.writeStartObject();
+        for (Iterator<Map.Entry<String, JsonNode>> it = tree.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            jgen.writeFieldName(field.getKey());
+            if (field.getKey().equals(DATA_FIELD) && field.getValue().isObject()) {
+                writeData(jgen, mapper, field.getValue(), values);
+            } else {
+                mapper.writeTree(jgen, field.getValue());
+            }
+        }
+        jgen.writeEndObject();
+    }
+
+    private static void writeData(JsonGenerator jgen, ObjectMapper mapper, JsonNode data,
+            PrimitiveMatrix values) throws IOException {
+        jgen.writeStartObject();
+        for (String name : new String[] {ROW_IDS_FIELD, COL_IDS_FIELD}) {
+            if (data.has(name)) {
+                jgen.writeFieldName(name);
+                mapper.writeTree(jgen, data.get(name));
+            }
+        }
+        if (values != null) {
+            jgen.writeFieldName(VALUES_FIELD);
+            writeValues(jgen, values);
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = data.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            String name = field.getKey();
+            if (name.equals(ROW_IDS_FIELD) || name.equals(COL_IDS_FIELD) ||
+                    (values != null && name.equals(VALUES_FIELD)))
+                continue;
+            jgen.writeFieldName(name);
+            mapper.writeTree(jgen, field.getValue());
+        }
+        jgen.writeEndObject();
+    }
+
+    private static void writeValues(JsonGenerator jgen, PrimitiveMatrix values)
+            throws IOException {
+        int rowCount = values.getRowCount();
+        int colCount = values.getColCount();
+        double[] row = null;
+        jgen.writeStartArray();
+        for (int i = 0; i < rowCount; i++) {
+            row = values.getRow(i, row);
+            jgen.writeStartArray();
+            for (int j = 0; j < colCount; j++) {
+                if (Double.isNaN(row[j])) {
+                    jgen.writeNull();
+                } else {
+                    jgen.writeNumber(row[j]);
+                }
+            }
+            jgen.writeEndArray();
+        }
+        jgen.writeEndArray();
+    }
+}
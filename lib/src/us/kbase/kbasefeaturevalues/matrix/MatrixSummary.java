@@ -0,0 +1,292 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import us.kbase.kbasefeaturevalues.GetMatrixSetStatParams;
+import us.kbase.kbasefeaturevalues.ItemSetStat;
+import us.kbase.kbasefeaturevalues.ItemStat;
+
+/**
+ * Summary index of matrix keeping moments (number of present and missing
+ * values, mean, sum of squared deviations, min and max) of every row and every
+ * column. It's built in one pass over values and stored next to cached matrix,
+ * so stats of whole rows/columns are answered by lookups.
+ */
+public class MatrixSummary {
+    private static final byte[] MAGIC = {'K', 'B', 'F', 'V', 'S', 'U', 'M', 0};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int ITEM_SIZE = 48;
+
+    private final Moments rows;
+    private final Moments cols;
+
+    private MatrixSummary(Moments rows, Moments cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    public static MatrixSummary build(PrimitiveMatrix values) {
+        int rowCount = values.getRowCount();
+        int colCount = values.getColCount();
+        Moments rows = new Moments(rowCount);
+        Moments cols = new Moments(colCount);
+        double[] row = null;
+        for (int i = 0; i < rowCount; i++) {
+            row = values.getRow(i, row);
+            // Row moments are calculated in two passes as in FloatMatrix2DUtil
+            long count = 0;
+            double sum = 0;
+            for (int j = 0; j < colCount; j++) {
+                double value = row[j];
+                if (Double.isNaN(value)) {
+                    rows.missing[i]++;
+                    cols.missing[j]++;
+                    continue;
+                }
+                count++;
+                sum += value;
+                if (Double.isNaN(rows.min[i]) || value < rows.min[i])
+                    rows.min[i] = value;
+                if (Double.isNaN(rows.max[i]) || value > rows.max[i])
+                    rows.max[i] = value;
+                // Column moments are updated incrementally (Welford's algorithm)
+                long colCountJ = ++cols.count[j];
+                double delta = value - cols.mean[j];
+                cols.mean[j] += delta / colCountJ;
+                cols.m2[j] += delta * (value - cols.mean[j]);
+                if (Double.isNaN(cols.min[j]) || value < cols.min[j])
+                    cols.min[j] = value;
+                if (Double.isNaN(cols.max[j]) || value > cols.max[j])
+                    cols.max[j] = value;
+            }
+            rows.count[i] = count;
+            if (count > 0) {
+                double mean = sum / count;
+                double m2 = 0;
+                for (int j = 0; j < colCount; j++)
+                    if (!Double.isNaN(row[j]))
+                        m2 += (mean - row[j]) * (mean - row[j]);
+                rows.mean[i] = mean;
+                rows.m2[i] = m2;
+            }
+        }
+        return new MatrixSummary(rows, cols);
+    }
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    public int getColCount() {
+        return cols.size();
+    }
+
+    /**
+     * Returns stats of rows with given indeces (all rows for null) computed
+     * over all columns.
+     */
+    public List<ItemStat> getRowsStat(List<Long> indecesFor) {
+        return rows.getItemsStat(indecesFor);
+    }
+
+    /**
+     * Returns stats of columns with given indeces (all columns for null)
+     * computed over all rows.
+     */
+    public List<ItemStat> getColumnsStat(List<Long> indecesFor) {
+        return cols.getItemsStat(indecesFor);
+    }
+
+    /**
+     * Set stat of rows listed in params, params.item_indeces_on is expected to
+     * cover all columns.
+     */
+    public ItemSetStat getRowsSetStat(GetMatrixSetStatParams params) {
+        return rows.getItemsSetStat(params);
+    }
+
+    /**
+     * Set stat of columns listed in params, params.item_indeces_on is expected
+     * to cover all rows.
+     */
+    public ItemSetStat getColumnsSetStat(GetMatrixSetStatParams params) {
+        return cols.getItemsSetStat(params);
+    }
+
+    /**
+     * Checks whether indeces are null or cover all items in natural order, in
+     * which case stats of items can be taken from summary.
+     */
+    public static boolean isFullRange(List<Long> indeces, int itemCount) {
+        if (indeces == null)
+            return true;
+        if (indeces.size() != itemCount)
+            return false;
+        for (int i = 0; i < itemCount; i++)
+            if (indeces.get(i) != i)
+                return false;
+        return true;
+    }
+
+    public void write(File target) throws IOException {
+        File temp = File.createTempFile(target.getName(), ".tmp",
+                target.getAbsoluteFile().getParentFile());
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + ITEM_SIZE * (rows.size() +
+                    cols.size())).order(ByteOrder.LITTLE_ENDIAN);
+            buf.put(MAGIC).putInt(VERSION).putInt(rows.size()).putInt(cols.size()).putInt(0);
+            rows.write(buf);
+            cols.write(buf);
+            buf.flip();
+            RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+            try {
+                FileChannel channel = raf.getChannel();
+                while (buf.hasRemaining())
+                    channel.write(buf);
+            } finally {
+                raf.close();
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (temp.exists())
+                temp.delete();
+        }
+    }
+
+    public static MatrixSummary read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_SIZE)
+                throw new IllegalStateException("File is too short for matrix summary: " + file);
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            byte[] magic = new byte[MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IllegalStateException("File is not matrix summary: " + file);
+            int version = buf.getInt();
+            if (version != VERSION)
+                throw new IllegalStateException("Unsupported matrix summary version: " + version);
+            int rowCount = buf.getInt();
+            int colCount = buf.getInt();
+            buf.getInt();
+            if (channel.size() != HEADER_SIZE + (long)ITEM_SIZE * (rowCount + colCount))
+                throw new IllegalStateException("Matrix summary is truncated: " + file);
+            Moments rows = Moments.read(buf, rowCount);
+            Moments cols = Moments.read(buf, colCount);
+            return new MatrixSummary(rows, cols);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static class Moments {
+        final long[] count;
+        final long[] missing;
+        final double[] mean;
+        final double[] m2;
+        final double[] min;
+        final double[] max;
+
+        Moments(int size) {
+            count = new long[size];
+            missing = new long[size];
+            mean = new double[size];
+            m2 = new double[size];
+            min = new double[size];
+            max = new double[size];
+            Arrays.fill(min, Double.NaN);
+            Arrays.fill(max, Double.NaN);
+        }
+
+        int size() {
+            return count.length;
+        }
+
+        List<ItemStat> getItemsStat(List<Long> indecesFor) {
+            int size = indecesFor == null ? size() : indecesFor.size();
+            List<ItemStat> ret = new ArrayList<ItemStat>(size);
+            for (int i = 0; i < size; i++) {
+                int index = indecesFor == null ? i : (int)(long)indecesFor.get(i);
+                long n = count[index];
+                ret.add(new ItemStat()
+                    .withIndexFor((long)index)
+                    .withAvg(n > 0 ? mean[index] : null)
+                    .withMin(n > 0 ? min[index] : null)
+                    .withMax(n > 0 ? max[index] : null)
+                    .withStd(n > 1 ? std(index) : null)
+                    .withSize(n + missing[index])
+                    .withMissingValues(missing[index]));
+            }
+            return ret;
+        }
+
+        ItemSetStat getItemsSetStat(GetMatrixSetStatParams params) {
+            List<Long> indecesFor = params.getItemIndecesFor();
+            int size = indecesFor == null ? size() : indecesFor.size();
+            List<Double> avgs = new ArrayList<Double>(size);
+            List<Double> mins = new ArrayList<Double>(size);
+            List<Double> maxs = new ArrayList<Double>(size);
+            List<Double> stds = new ArrayList<Double>(size);
+            List<Long> missingValues = new ArrayList<Long>(size);
+            for (int i = 0; i < size; i++) {
+                int index = indecesFor == null ? i : (int)(long)indecesFor.get(i);
+                // Same conventions as FloatMatrix2DUtil: zeros and NaNs for empty items
+                avgs.add(count[index] > 0 ? mean[index] : 0.0);
+                mins.add(min[index]);
+                maxs.add(max[index]);
+                stds.add(count[index] > 1 ? std(index) : 0.0);
+                missingValues.add(missing[index]);
+            }
+            return new ItemSetStat()
+                .withAvgs(isSet(params.getFlAvgs()) ? avgs : null)
+                .withIndecesFor(isSet(params.getFlIndecesFor()) ? indecesFor : null)
+                .withIndecesOn(isSet(params.getFlIndecesOn()) ? params.getItemIndecesOn() : null)
+                .withMaxs(isSet(params.getFlMaxs()) ? maxs : null)
+                .withMins(isSet(params.getFlMins()) ? mins : null)
+                .withMissingValues(isSet(params.getFlMissingValues()) ? missingValues : null)
+                .withSize((long)size)
+                .withStds(isSet(params.getFlStds()) ? stds : null);
+        }
+
+        double std(int index) {
+            return Math.sqrt(m2[index] / (count[index] - 1));
+        }
+
+        void write(ByteBuffer buf) {
+            for (int i = 0; i < size(); i++)
+                buf.putLong(count[i]).putLong(missing[i]).putDouble(mean[i]).putDouble(m2[i])
+                    .putDouble(min[i]).putDouble(max[i]);
+        }
+
+        static Moments read(ByteBuffer buf, int size) {
+            Moments ret = new Moments(size);
+            for (int i = 0; i < size; i++) {
+                ret.count[i] = buf.getLong();
+                ret.missing[i] = buf.getLong();
+                ret.mean[i] = buf.getDouble();
+                ret.m2[i] = buf.getDouble();
+                ret.min[i] = buf.getDouble();
+                ret.max[i] = buf.getDouble();
+            }
+            return ret;
+        }
+
+        private static boolean isSet(Long flag) {
+            return flag != null && flag == 1;
+        }
+    }
+}
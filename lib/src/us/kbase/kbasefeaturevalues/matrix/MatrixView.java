@@ -0,0 +1,220 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+/**
+ * Submatrix of parent matrix defined by positions of rows and columns without
+ * copying of values. Cells are read from (and written to) parent matrix, so
+ * every kernel working with PrimitiveMatrix works with view as well. Kernels
+ * making many passes over values ask for contiguous copy through
+ * prepare() which decides whether copying pays off.
+ */
+public class MatrixView extends PrimitiveMatrix {
+    /**
+     * Relative cost of reading one cell through get() comparing to sequential
+     * reading of the row.
+     */
+    private static final int RANDOM_ACCESS_COST = 4;
+
+    private final PrimitiveMatrix parent;
+    private final int[] rows;
+    private final int[] cols;
+    private final boolean gatherFromRow;
+    private final ThreadLocal<double[]> buffer = new ThreadLocal<double[]>();
+
+    private MatrixView(PrimitiveMatrix parent, int[] rows, int[] cols) {
+        this.parent = parent;
+        this.rows = rows;
+        this.cols = cols;
+        this.gatherFromRow = cols != null &&
+                (long)cols.length * RANDOM_ACCESS_COST >= parent.getColCount();
+    }
+
+    /**
+     * Creates view of parent matrix, null rows or cols means all rows or
+     * columns in original order. View of view refers to the original parent.
+     */
+    public static MatrixView of(PrimitiveMatrix parent, int[] rows, int[] cols) {
+        if (parent instanceof MatrixView) {
+            MatrixView view = (MatrixView)parent;
+            return new MatrixView(view.parent, compose(view.rows, rows),
+                    compose(view.cols, cols));
+        }
+        check(rows, parent.getRowCount(), "Row");
+        check(cols, parent.getColCount(), "Column");
+        return new MatrixView(parent, rows, cols);
+    }
+
+    private static void check(int[] positions, int count, String itemType) {
+        if (positions == null)
+            return;
+        for (int pos : positions)
+            if (pos < 0 || pos >= count)
+                throw new IllegalStateException(itemType + " position is out of matrix: " + pos);
+    }
+
+    private static int[] compose(int[] outer, int[] inner) {
+        if (outer == null || inner == null)
+            return outer == null ? inner : outer;
+        int[] ret = new int[inner.length];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = outer[inner[i]];
+        return ret;
+    }
+
+    public PrimitiveMatrix getParent() {
+        return parent;
+    }
+
+    /** Positions of rows in parent matrix (null for all rows). */
+    public int[] getRowIndeces() {
+        return rows;
+    }
+
+    /** Positions of columns in parent matrix (null for all columns). */
+    public int[] getColIndeces() {
+        return cols;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows == null ? parent.getRowCount() : rows.length;
+    }
+
+    @Override
+    public int getColCount() {
+        return cols == null ? parent.getColCount() : cols.length;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        return parent.get(rows == null ? row : rows[row], cols == null ? col : cols[col]);
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+        parent.set(rows == null ? row : rows[row], cols == null ? col : cols[col], value);
+    }
+
+    @Override
+    public boolean isMissing(int row, int col) {
+        return parent.isMissing(rows == null ? row : rows[row], cols == null ? col : cols[col]);
+    }
+
+    @Override
+    public StorageMode getStorageMode() {
+        return parent.getStorageMode();
+    }
+
+    @Override
+    public double[] getRow(int row, double[] target) {
+        int parentRow = rows == null ? row : rows[row];
+        if (cols == null)
+            return parent.getRow(parentRow, target);
+        if (target == null || target.length < cols.length)
+            target = new double[cols.length];
+        if (gatherFromRow) {
+            // Columns are dense enough to read the whole row of parent
+            double[] parentValues = parent.getRow(parentRow, buffer.get());
+            buffer.set(parentValues);
+            for (int j = 0; j < cols.length; j++)
+                target[j] = parentValues[cols[j]];
+        } else {
+            for (int j = 0; j < cols.length; j++)
+                target[j] = parent.get(parentRow, cols[j]);
+        }
+        return target;
+    }
+
+    @Override
+    public void setRow(int row, double[] source) {
+        int parentRow = rows == null ? row : rows[row];
+        if (cols == null) {
+            parent.setRow(parentRow, source);
+        } else {
+            for (int j = 0; j < cols.length; j++)
+                parent.set(parentRow, cols[j], source[j]);
+        }
+    }
+
+    @Override
+    public double[] getColumn(int col, double[] target) {
+        int parentCol = cols == null ? col : cols[col];
+        int rowCount = getRowCount();
+        if (target == null || target.length < rowCount)
+            target = new double[rowCount];
+        for (int i = 0; i < rowCount; i++)
+            target[i] = parent.get(rows == null ? i : rows[i], parentCol);
+        return target;
+    }
+
+    /**
+     * Cost of one pass over view row by row in units of sequential reading of
+     * one cell.
+     */
+    long getPassCost() {
+        long rowCost = cols == null ? getColCount() : gatherFromRow ? parent.getColCount() :
+            (long)cols.length * RANDOM_ACCESS_COST;
+        if (parent instanceof MappedMatrix)
+            rowCost *= 2;
+        return rowCost * getRowCount();
+    }
+
+    /**
+     * Returns true if copying view to contiguous matrix and making given
+     * number of passes over the copy is cheaper than the same passes over
+     * view.
+     */
+    public boolean isCopyWorthIt(int passes) {
+        long cells = (long)getRowCount() * getColCount();
+        long viewCost = getPassCost();
+        // Copy costs one pass over view plus writing of cells
+        return (long)passes * viewCost > viewCost + cells + (long)passes * cells;
+    }
+
+    /**
+     * Returns this view or its contiguous copy depending on number of passes
+     * kernel is going to make (see isCopyWorthIt). Copy is detached from
+     * parent, so it should only be used for reading.
+     */
+    public PrimitiveMatrix prepare(int passes, MatrixFactory factory) throws Exception {
+        return isCopyWorthIt(passes) ? materialize(factory) : this;
+    }
+
+    /**
+     * Returns heap copy of matrix if it's a view which is worth copying for
+     * given number of passes (see isCopyWorthIt), otherwise matrix itself.
+     */
+    public static PrimitiveMatrix prepare(PrimitiveMatrix values, int passes) throws Exception {
+        if (!(values instanceof MatrixView))
+            return values;
+        return ((MatrixView)values).prepare(passes, new MatrixFactory(values.getStorageMode()));
+    }
+
+    /**
+     * Writes values of copy made by prepare() or materialize() back through
+     * view into parent matrix.
+     */
+    public void update(PrimitiveMatrix copy) {
+        if (copy == this)
+            return;
+        int rowCount = getRowCount();
+        double[] row = null;
+        for (int i = 0; i < rowCount; i++) {
+            row = copy.getRow(i, row);
+            setRow(i, row);
+        }
+    }
+
+    /**
+     * Copies values of view into new matrix created by factory.
+     */
+    public PrimitiveMatrix materialize(MatrixFactory factory) throws Exception {
+        int rowCount = getRowCount();
+        PrimitiveMatrix ret = factory.create(rowCount, getColCount());
+        double[] row = null;
+        for (int i = 0; i < rowCount; i++) {
+            row = getRow(i, row);
+            ret.setRow(i, row);
+        }
+        return ret;
+    }
+}
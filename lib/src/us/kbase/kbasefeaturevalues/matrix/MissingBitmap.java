@@ -0,0 +1,87 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+/**
+ * Bitmap of missing (NaN) cells of primitive matrix with per-row counts. It's
+ * built in one pass over values, after that holes can be visited without
+ * scanning present values.
+ */
+public class MissingBitmap {
+    private final int rowCount;
+    private final int colCount;
+    private final long[] bits;
+    private final int[] rowMissing;
+    private long missingCount = 0;
+
+    private MissingBitmap(int rowCount, int colCount) {
+        this.rowCount = rowCount;
+        this.colCount = colCount;
+        long cellCount = (long)rowCount * colCount;
+        if ((cellCount + 63) / 64 > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Matrix is too large for missing bitmap: " +
+                    rowCount + " x " + colCount);
+        this.bits = new long[(int)((cellCount + 63) / 64)];
+        this.rowMissing = new int[rowCount];
+    }
+
+    public static MissingBitmap build(PrimitiveMatrix values) {
+        MissingBitmap ret = new MissingBitmap(values.getRowCount(), values.getColCount());
+        double[] row = null;
+        for (int i = 0; i < ret.rowCount; i++) {
+            row = values.getRow(i, row);
+            long offset = (long)i * ret.colCount;
+            for (int j = 0; j < ret.colCount; j++) {
+                if (Double.isNaN(row[j])) {
+                    long cell = offset + j;
+                    ret.bits[(int)(cell >>> 6)] |= 1L << cell;
+                    ret.rowMissing[i]++;
+                }
+            }
+            ret.missingCount += ret.rowMissing[i];
+        }
+        return ret;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColCount() {
+        return colCount;
+    }
+
+    public boolean isMissing(int row, int col) {
+        long cell = (long)row * colCount + col;
+        return (bits[(int)(cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    public long getMissingCount() {
+        return missingCount;
+    }
+
+    public int getMissingCount(int row) {
+        return rowMissing[row];
+    }
+
+    /**
+     * Returns column of the first missing cell of row starting from given
+     * column or -1 if there are no more missing cells in this row.
+     */
+    public int nextMissing(int row, int fromCol) {
+        if (fromCol >= colCount || rowMissing[row] == 0)
+            return -1;
+        long rowEnd = (long)(row + 1) * colCount;
+        long cell = (long)row * colCount + fromCol;
+        int word = (int)(cell >>> 6);
+        long w = bits[word] & (-1L << cell);
+        while (true) {
+            if (w != 0) {
+                long found = ((long)word << 6) + Long.numberOfTrailingZeros(w);
+                return found < rowEnd ? (int)(found - (long)row * colCount) : -1;
+            }
+            word++;
+            if (((long)word << 6) >= rowEnd)
+                return -1;
+            w = bits[word];
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imputation of missing values of primitive matrix in place. Holes are found
+ * through missing bitmap, so present values are only read (to calculate means
+ * or distances) and only missing cells are written. Supported methods are
+ * values of transform_type of correct_matrix:
+ * <ul>
+ * <li>missing - mean of all present values of matrix,</li>
+ * <li>missing_row_mean - mean of present values of the same row,</li>
+ * <li>missing_col_mean - mean of present values of the same column,</li>
+ * <li>missing_knn - mean of values of the same column in K nearest rows
+ * (transform_value, default 10) among rows without missing values, distance
+ * is Euclidean over columns present in imputed row.</li>
+ * </ul>
+ * Row or column without present values falls back to mean of all values.
+ * Matrix can be a MatrixView, then holes of submatrix are filled in parent.
+ */
+public class MissingValueImputer {
+    public static final String GLOBAL_MEAN = "missing";
+    public static final String ROW_MEAN = "missing_row_mean";
+    public static final String COLUMN_MEAN = "missing_col_mean";
+    public static final String KNN = "missing_knn";
+    public static final int DEFAULT_NEIGHBOURS = 10;
+    private static final int TARGET_BLOCK_ROWS = 32;
+    private static final int CANDIDATE_BLOCK_BYTES = 256 << 10;
+
+    public static boolean isSupported(String method) {
+        return GLOBAL_MEAN.equals(method) || ROW_MEAN.equals(method) ||
+                COLUMN_MEAN.equals(method) || KNN.equals(method);
+    }
+
+    /**
+     * Fills missing values using given method.
+     * @param param number of neighbours for KNN (null for default), ignored by
+     * other methods
+     */
+    public static void impute(PrimitiveMatrix values, String method, Double param)
+            throws Exception {
+        MissingBitmap missing = MissingBitmap.build(values);
+        if (missing.getMissingCount() == 0)
+            return;
+        if (GLOBAL_MEAN.equals(method)) {
+            fillGlobalMean(values, missing);
+        } else if (ROW_MEAN.equals(method)) {
+            fillRowMean(values, missing);
+        } else if (COLUMN_MEAN.equals(method)) {
+            fillColumnMean(values, missing);
+        } else if (KNN.equals(method)) {
+            int k = param == null ? DEFAULT_NEIGHBOURS : (int)Math.round(param);
+            if (k < 1)
+                throw new IllegalStateException("Number of neighbours should be positive: " +
+                        param);
+            fillKnn(values, missing, k, Runtime.getRuntime().availableProcessors());
+        } else {
+            throw new IllegalStateException("Unsupported imputation method: " + method);
+        }
+    }
+
+    public static void fillGlobalMean(PrimitiveMatrix values, MissingBitmap missing) {
+        double avg = getGlobalMean(values);
+        for (int i = 0; i < values.getRowCount(); i++)
+            for (int j = missing.nextMissing(i, 0); j >= 0; j = missing.nextMissing(i, j + 1))
+                values.set(i, j, avg);
+    }
+
+    public static void fillRowMean(PrimitiveMatrix values, MissingBitmap missing) {
+        int colCount = values.getColCount();
+        Double globalMean = null;
+        double[] row = null;
+        for (int i = 0; i < values.getRowCount(); i++) {
+            int rowMissing = missing.getMissingCount(i);
+            if (rowMissing == 0)
+                continue;
+            double avg;
+            if (rowMissing == colCount) {
+                if (globalMean == null)
+                    globalMean = getGlobalMean(values);
+                avg = globalMean;
+            } else {
+                row = values.getRow(i, row);
+                double sum = 0;
+                for (int j = 0; j < colCount; j++)
+                    if (!Double.isNaN(row[j]))
+                        sum += row[j];
+                avg = sum / (colCount - rowMissing);
+            }
+            for (int j = missing.nextMissing(i, 0); j >= 0; j = missing.nextMissing(i, j + 1))
+                values.set(i, j, avg);
+        }
+    }
+
+    public static void fillColumnMean(PrimitiveMatrix values, MissingBitmap missing) {
+        double[] means = getColumnMeans(values);
+        for (int i = 0; i < values.getRowCount(); i++)
+            for (int j = missing.nextMissing(i, 0); j >= 0; j = missing.nextMissing(i, j + 1))
+                values.set(i, j, means[j]);
+    }
+
+    /**
+     * KNN imputation. Rows without missing values (candidates) are copied into
+     * dense array, distances from rows with missing values (targets) are
+     * computed by blocks of targets against blocks of candidates fitting in
+     * cache, blocks of targets are processed in parallel. Missing cells are
+     * masked out by zero weights, so inner loop has no branches.
+     */
+    public static void fillKnn(PrimitiveMatrix values, MissingBitmap missing, int k,
+            int threadCount) throws Exception {
+        final int colCount = values.getColCount();
+        int rowCount = values.getRowCount();
+        List<Integer> targetList = new ArrayList<Integer>();
+        List<Integer> emptyRows = new ArrayList<Integer>();
+        int candidateCount = 0;
+        for (int i = 0; i < rowCount; i++) {
+            int rowMissing = missing.getMissingCount(i);
+            if (rowMissing == 0) {
+                candidateCount++;
+            } else if (rowMissing == colCount) {
+                emptyRows.add(i);
+            } else {
+                targetList.add(i);
+            }
+        }
+        if (candidateCount == 0) {
+            // There are no complete rows to take neighbours from
+            fillColumnMean(values, missing);
+            return;
+        }
+        // Present values are read from candidates, targets and maybe column
+        // means passes, view of submatrix is read from copy if it pays off
+        // (missing cells are still written into view)
+        final PrimitiveMatrix source = MatrixView.prepare(values, emptyRows.isEmpty() ? 2 : 3);
+        double[] means = emptyRows.isEmpty() ? null : getColumnMeans(source);
+        if ((long)candidateCount * colCount > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Too many complete rows for KNN imputation: " +
+                    candidateCount + " x " + colCount);
+        final double[] candidates = new double[candidateCount * colCount];
+        double[] row = null;
+        for (int i = 0, c = 0; i < rowCount; i++) {
+            if (missing.getMissingCount(i) == 0) {
+                row = source.getRow(i, row);
+                System.arraycopy(row, 0, candidates, c * colCount, colCount);
+                c++;
+            }
+        }
+        final int[] targets = new int[targetList.size()];
+        for (int t = 0; t < targets.length; t++)
+            targets[t] = targetList.get(t);
+        final int neighbourCount = Math.min(k, candidateCount);
+        final int[][] neighbours = new int[targets.length][];
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int start = 0; start < targets.length; start += TARGET_BLOCK_ROWS) {
+                final int blockStart = start;
+                final int blockEnd = Math.min(targets.length, start + TARGET_BLOCK_ROWS);
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        findNeighbours(source, targets, blockStart, blockEnd, candidates,
+                                colCount, neighbourCount, neighbours);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException ex) {
+                    throw ex.getCause() instanceof Exception ? (Exception)ex.getCause() : ex;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int t = 0; t < targets.length; t++) {
+            int i = targets[t];
+            for (int j = missing.nextMissing(i, 0); j >= 0; j = missing.nextMissing(i, j + 1)) {
+                double sum = 0;
+                for (int n : neighbours[t])
+                    sum += candidates[n * colCount + j];
+                values.set(i, j, sum / neighbourCount);
+            }
+        }
+        for (int i : emptyRows)
+            for (int j = 0; j < colCount; j++)
+                values.set(i, j, means[j]);
+    }
+
+    private static void findNeighbours(PrimitiveMatrix values, int[] targets, int blockStart,
+            int blockEnd, double[] candidates, int colCount, int k, int[][] neighbours) {
+        int blockSize = blockEnd - blockStart;
+        int candidateCount = candidates.length / Math.max(1, colCount);
+        // Target values with zeros in missing cells and weights masking them
+        double[] targetValues = new double[blockSize * colCount];
+        double[] weights = new double[blockSize * colCount];
+        double[] row = null;
+        for (int t = 0; t < blockSize; t++) {
+            row = values.getRow(targets[blockStart + t], row);
+            for (int j = 0; j < colCount; j++) {
+                boolean present = !Double.isNaN(row[j]);
+                targetValues[t * colCount + j] = present ? row[j] : 0;
+                weights[t * colCount + j] = present ? 1 : 0;
+            }
+        }
+        // Per-target max-heaps of the best distances found so far
+        double[][] heapDist = new double[blockSize][k];
+        int[][] heapIndex = new int[blockSize][k];
+        int[] heapSize = new int[blockSize];
+        int candidateBlock = Math.max(1, CANDIDATE_BLOCK_BYTES / Math.max(1, colCount * 8));
+        for (int cStart = 0; cStart < candidateCount; cStart += candidateBlock) {
+            int cEnd = Math.min(candidateCount, cStart + candidateBlock);
+            for (int t = 0; t < blockSize; t++) {
+                int tOffset = t * colCount;
+                double[] dist = heapDist[t];
+                int[] index = heapIndex[t];
+                for (int c = cStart; c < cEnd; c++) {
+                    int cOffset = c * colCount;
+                    double d = 0;
+                    for (int j = 0; j < colCount; j++) {
+                        double diff = targetValues[tOffset + j] - candidates[cOffset + j];
+                        d += weights[tOffset + j] * diff * diff;
+                    }
+                    if (heapSize[t] < k) {
+                        heapPush(dist, index, heapSize[t]++, d, c);
+                    } else if (d < dist[0]) {
+                        heapReplaceTop(dist, index, k, d, c);
+                    }
+                }
+            }
+        }
+        for (int t = 0; t < blockSize; t++)
+            neighbours[blockStart + t] = Arrays.copyOf(heapIndex[t], heapSize[t]);
+    }
+
+    private static void heapPush(double[] dist, int[] index, int size, double d, int c) {
+        int pos = size;
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (dist[parent] >= d)
+                break;
+            dist[pos] = dist[parent];
+            index[pos] = index[parent];
+            pos = parent;
+        }
+        dist[pos] = d;
+        index[pos] = c;
+    }
+
+    private static void heapReplaceTop(double[] dist, int[] index, int size, double d, int c) {
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && dist[child + 1] > dist[child])
+                child++;
+            if (dist[child] <= d)
+                break;
+            dist[pos] = dist[child];
+            index[pos] = index[child];
+            pos = child;
+        }
+        dist[pos] = d;
+        index[pos] = c;
+    }
+
+    /**
+     * Mean of all present values (0 if there are none), it's calculated in the
+     * same order as in MatrixUtil.fillMissingValues.
+     */
+    private static double getGlobalMean(PrimitiveMatrix values) {
+        int colCount = values.getColCount();
+        double sum = 0;
+        long count = 0;
+        double[] row = null;
+        for (int i = 0; i < values.getRowCount(); i++) {
+            row = values.getRow(i, row);
+            for (int j = 0; j < colCount; j++) {
+                if (!Double.isNaN(row[j])) {
+                    sum += row[j];
+                    count++;
+                }
+            }
+        }
+        return count > 0 ? sum / count : 0;
+    }
+
+    private static double[] getColumnMeans(PrimitiveMatrix values) {
+        int colCount = values.getColCount();
+        double[] sums = new double[colCount];
+        long[] counts = new long[colCount];
+        double[] row = null;
+        for (int i = 0; i < values.getRowCount(); i++) {
+            row = values.getRow(i, row);
+            for (int j = 0; j < colCount; j++) {
+                if (!Double.isNaN(row[j])) {
+                    sums[j] += row[j];
+                    counts[j]++;
+                }
+            }
+        }
+        Double globalMean = null;
+        for (int j = 0; j < colCount; j++) {
+            if (counts[j] > 0) {
+                sums[j] /= counts[j];
+            } else {
+                if (globalMean == null)
+                    globalMean = getGlobalMean(values);
+                sums[j] = globalMean;
+            }
+        }
+        return sums;
+    }
+}
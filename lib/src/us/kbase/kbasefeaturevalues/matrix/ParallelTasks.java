@@ -0,0 +1,58 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits range [0, size) into contiguous parts processed in parallel. Small
+ * ranges are processed in calling thread.
+ */
+public class ParallelTasks {
+
+    public interface RangeTask<T> {
+        T run(int start, int end) throws Exception;
+    }
+
+    /**
+     * Runs task on parts of range and returns results in order of parts.
+     * @param minSizePerThread minimal size of part worth separate thread
+     */
+    public static <T> List<T> run(int size, int minSizePerThread, int threadCount,
+            final RangeTask<T> task) throws Exception {
+        int parts = Math.max(1, Math.min(threadCount, size / Math.max(1, minSizePerThread)));
+        List<T> ret = new ArrayList<T>();
+        if (parts == 1) {
+            ret.add(task.run(0, size));
+            return ret;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parts);
+        try {
+            List<Future<T>> results = new ArrayList<Future<T>>();
+            for (int i = 0; i < parts; i++) {
+                final int start = (int)((long)size * i / parts);
+                final int end = (int)((long)size * (i + 1) / parts);
+                results.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        return task.run(start, end);
+                    }
+                }));
+            }
+            for (Future<T> result : results) {
+                try {
+                    ret.add(result.get());
+                } catch (ExecutionException ex) {
+                    throw ex.getCause() instanceof Exception ? (Exception)ex.getCause() : ex;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,125 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+
+/**
+ * Dense matrix of primitive values indexed as [row][col]. Missing values are
+ * represented by NaN (they correspond to nulls in FloatMatrix2D.values).
+ */
+public abstract class PrimitiveMatrix {
+
+    public abstract int getRowCount();
+
+    public abstract int getColCount();
+
+    public abstract double get(int row, int col);
+
+    public abstract void set(int row, int col, double value);
+
+    public abstract StorageMode getStorageMode();
+
+    public boolean isMissing(int row, int col) {
+        return Double.isNaN(get(row, col));
+    }
+
+    public double[] getRow(int row, double[] target) {
+        int colCount = getColCount();
+        if (target == null || target.length < colCount)
+            target = new double[colCount];
+        for (int col = 0; col < colCount; col++)
+            target[col] = get(row, col);
+        return target;
+    }
+
+    /**
+     * Stores first colCount elements of source as values of row.
+     */
+    public void setRow(int row, double[] source) {
+        int colCount = getColCount();
+        for (int col = 0; col < colCount; col++)
+            set(row, col, source[col]);
+    }
+
+    public double[] getColumn(int col, double[] target) {
+        int rowCount = getRowCount();
+        if (target == null || target.length < rowCount)
+            target = new double[rowCount];
+        for (int row = 0; row < rowCount; row++)
+            target[row] = get(row, col);
+        return target;
+    }
+
+    /**
+     * Copies values into new matrix with rows and columns swapped (rows of
+     * this matrix are read one by one).
+     */
+    public PrimitiveMatrix transpose(MatrixFactory factory) throws IOException {
+        int rowCount = getRowCount();
+        int colCount = getColCount();
+        PrimitiveMatrix ret = factory.create(colCount, rowCount);
+        double[] row = null;
+        for (int i = 0; i < rowCount; i++) {
+            row = getRow(i, row);
+            for (int j = 0; j < colCount; j++)
+                ret.set(j, i, row[j]);
+        }
+        return ret;
+    }
+
+    public List<List<Double>> toValues() {
+        int rowCount = getRowCount();
+        int colCount = getColCount();
+        List<List<Double>> values = new ArrayList<List<Double>>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            List<Double> rowValues = new ArrayList<Double>(colCount);
+            for (int col = 0; col < colCount; col++) {
+                double value = get(row, col);
+                rowValues.add(Double.isNaN(value) ? null : value);
+            }
+            values.add(rowValues);
+        }
+        return values;
+    }
+
+    /**
+     * Creates matrix with all values marked as missing.
+     */
+    public static PrimitiveMatrix create(int rowCount, int colCount, StorageMode mode) {
+        if (mode == StorageMode.float32)
+            return new Float32Matrix(rowCount, colCount);
+        return new Float64Matrix(rowCount, colCount);
+    }
+
+    public static PrimitiveMatrix fromValues(List<List<Double>> values, int colCount,
+            StorageMode mode) {
+        PrimitiveMatrix ret = create(values.size(), colCount, mode);
+        for (int row = 0; row < values.size(); row++) {
+            List<Double> rowValues = values.get(row);
+            if (rowValues.size() != colCount)
+                throw new IllegalStateException("Row " + row + " contains " + rowValues.size() +
+                        " != " + colCount + " values");
+            for (int col = 0; col < colCount; col++) {
+                Double value = rowValues.get(col);
+                if (value != null)
+                    ret.set(row, col, value);
+            }
+        }
+        return ret;
+    }
+
+    public static PrimitiveMatrix fromFloatMatrix2D(FloatMatrix2D data, StorageMode mode) {
+        return fromValues(data.getValues(), data.getColIds().size(), mode);
+    }
+
+    static int checkedSize(int rowCount, int colCount) {
+        long size = (long)rowCount * colCount;
+        if (rowCount < 0 || colCount < 0 || size > Integer.MAX_VALUE)
+            throw new IllegalStateException("Unsupported matrix dimensions: " + rowCount +
+                    " x " + colCount);
+        return (int)size;
+    }
+}
@@ -0,0 +1,313 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.util.Arrays;
+
+import us.kbase.kbasefeaturevalues.matrix.ParallelTasks.RangeTask;
+
+/**
+ * Selection of matrix rows by thresholds on row statistics (variance, missing
+ * fraction, fold change and mean of present values) and by top variance.
+ * Statistics are collected in one parallel pass over rows, top rows are found
+ * by selection (expected linear time) rather than by sorting. Result is array
+ * of positions of selected rows in increasing order which can be used for
+ * MatrixView of matrix or materialized with subset().
+ */
+public class RowFilter {
+    private static final int MIN_CELLS_PER_THREAD = 1 << 16;
+
+    private Double minVariance = null;
+    private Double maxMissingFraction = null;
+    private Double minFoldChange = null;
+    private Double minMean = null;
+    private Integer maxRows = null;
+    private String scale = null;
+    private String type = null;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    public RowFilter withMinVariance(Double minVariance) {
+        this.minVariance = minVariance;
+        return this;
+    }
+
+    public RowFilter withMaxMissingFraction(Double maxMissingFraction) {
+        this.maxMissingFraction = maxMissingFraction;
+        return this;
+    }
+
+    /**
+     * Fold change of row is ratio of its maximum to minimum (see scale).
+     */
+    public RowFilter withMinFoldChange(Double minFoldChange) {
+        this.minFoldChange = minFoldChange;
+        return this;
+    }
+
+    public RowFilter withMinMean(Double minMean) {
+        this.minMean = minMean;
+        return this;
+    }
+
+    /**
+     * Only given number of rows with the highest variance are kept among rows
+     * passing thresholds.
+     */
+    public RowFilter withMaxRows(Integer maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * Scale of values (ln, log2 or log10, other scales like raw or numeric
+     * "1.0" of uploaded matrices mean that base of logarithm isn't known). For
+     * log scales fold change is computed from difference of values.
+     */
+    public RowFilter withScale(String scale) {
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * Type of matrix (level, ratio or log-ratio). Values of log-ratio matrix
+     * of unknown scale are treated as log2 ratios, values of other types are
+     * treated as raw and fold change is rejected for matrix with values which
+     * are not positive.
+     */
+    public RowFilter withType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public RowFilter withThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        return this;
+    }
+
+    /**
+     * Returns positions of selected rows in increasing order.
+     */
+    public int[] apply(PrimitiveMatrix values) throws Exception {
+        if (maxRows != null && maxRows < 0)
+            throw new IllegalStateException("Maximum number of rows can't be negative: " +
+                    maxRows);
+        if (maxMissingFraction != null && (maxMissingFraction < 0 || maxMissingFraction > 1))
+            throw new IllegalStateException("Maximum missing fraction should be in [0, 1]: " +
+                    maxMissingFraction);
+        double logBase = minFoldChange == null ? Double.NaN : getLogBase(scale, type);
+        int rowCount = values.getRowCount();
+        int colCount = values.getColCount();
+        Stats stats = getStats(values, threadCount);
+        if (minFoldChange != null && Double.isNaN(logBase))
+            for (int i = 0; i < rowCount; i++)
+                if (stats.mins[i] <= 0)
+                    throw new IllegalStateException("Fold change is not defined for raw " +
+                            "values which are not positive (row " + i + " has value " +
+                            stats.mins[i] + "), scale of log values should be ln, log2 or " +
+                            "log10");
+        int[] candidates = new int[rowCount];
+        int size = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (minVariance != null && !(stats.variances[i] >= minVariance))
+                continue;
+            if (maxMissingFraction != null && colCount > 0 &&
+                    (double)(colCount - stats.presentCounts[i]) / colCount > maxMissingFraction)
+                continue;
+            if (minMean != null && !(stats.means[i] >= minMean))
+                continue;
+            if (minFoldChange != null && !(getFoldChange(stats.mins[i], stats.maxs[i],
+                    logBase) >= minFoldChange))
+                continue;
+            candidates[size++] = i;
+        }
+        if (maxRows == null || size <= maxRows)
+            return Arrays.copyOf(candidates, size);
+        return selectTop(candidates, size, stats.variances, maxRows);
+    }
+
+    /**
+     * Returns base of logarithm of values or NaN for raw values.
+     */
+    public static double getLogBase(String scale, String type) {
+        String lcScale = scale == null ? "" : scale.trim().toLowerCase();
+        if (lcScale.equals("ln"))
+            return Math.E;
+        if (lcScale.equals("log2"))
+            return 2;
+        if (lcScale.equals("log10"))
+            return 10;
+        if (type != null && type.trim().equalsIgnoreCase("log-ratio"))
+            return 2;
+        return Double.NaN;
+    }
+
+    private static double getFoldChange(double min, double max, double logBase) {
+        if (Double.isNaN(min))
+            return Double.NaN;
+        if (!Double.isNaN(logBase))
+            return Math.pow(logBase, max - min);
+        return max / min;
+    }
+
+    /**
+     * Returns positions of k candidates with the highest variance in
+     * increasing order (rows with undefined variance go last, ties are broken
+     * in favor of lower positions).
+     */
+    private static int[] selectTop(int[] candidates, int size, double[] variances, int k) {
+        if (k == 0)
+            return new int[0];
+        double[] keys = new double[size];
+        for (int i = 0; i < size; i++) {
+            double variance = variances[candidates[i]];
+            keys[i] = Double.isNaN(variance) ? Double.NEGATIVE_INFINITY : variance;
+        }
+        double threshold = kthLargest(Arrays.copyOf(keys, size), k);
+        int above = 0;
+        for (int i = 0; i < size; i++)
+            if (keys[i] > threshold)
+                above++;
+        int ties = k - above;
+        int[] ret = new int[k];
+        int pos = 0;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] > threshold) {
+                ret[pos++] = candidates[i];
+            } else if (keys[i] == threshold && ties > 0) {
+                ret[pos++] = candidates[i];
+                ties--;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Quickselect (Hoare partition with median of three pivot), array is
+     * reordered.
+     */
+    private static double kthLargest(double[] keys, int k) {
+        int target = keys.length - k;
+        int left = 0;
+        int right = keys.length - 1;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            double pivot = median(keys[left], keys[mid], keys[right]);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    double tmp = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (target <= j) {
+                right = j;
+            } else if (target >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return keys[target];
+    }
+
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /**
+     * Collects statistics of present values of every row (variance is sample
+     * variance, NaN for rows with less than 2 values).
+     */
+    public static Stats getStats(final PrimitiveMatrix values, int threadCount)
+            throws Exception {
+        int rowCount = values.getRowCount();
+        final int colCount = values.getColCount();
+        final Stats ret = new Stats(rowCount);
+        ParallelTasks.run(rowCount, Math.max(1, MIN_CELLS_PER_THREAD / Math.max(1, colCount)),
+                threadCount, new RangeTask<Void>() {
+            @Override
+            public Void run(int start, int end) {
+                double[] row = null;
+                for (int i = start; i < end; i++) {
+                    row = values.getRow(i, row);
+                    int count = 0;
+                    double mean = 0;
+                    double m2 = 0;
+                    double min = Double.NaN;
+                    double max = Double.NaN;
+                    for (int j = 0; j < colCount; j++) {
+                        double value = row[j];
+                        if (Double.isNaN(value))
+                            continue;
+                        count++;
+                        double delta = value - mean;
+                        mean += delta / count;
+                        m2 += delta * (value - mean);
+                        if (count == 1 || value < min)
+                            min = value;
+                        if (count == 1 || value > max)
+                            max = value;
+                    }
+                    ret.presentCounts[i] = count;
+                    ret.means[i] = count == 0 ? Double.NaN : mean;
+                    ret.variances[i] = count < 2 ? Double.NaN : m2 / (count - 1);
+                    ret.mins[i] = min;
+                    ret.maxs[i] = max;
+                }
+                return null;
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Copies selected rows into new matrix (use MatrixView.of for view without
+     * copying).
+     */
+    public static PrimitiveMatrix subset(PrimitiveMatrix values, int[] rows,
+            MatrixFactory factory) throws Exception {
+        return MatrixView.of(values, rows, null).materialize(factory);
+    }
+
+    public static class Stats {
+        private final int[] presentCounts;
+        private final double[] means;
+        private final double[] variances;
+        private final double[] mins;
+        private final double[] maxs;
+
+        private Stats(int rowCount) {
+            presentCounts = new int[rowCount];
+            means = new double[rowCount];
+            variances = new double[rowCount];
+            mins = new double[rowCount];
+            maxs = new double[rowCount];
+        }
+
+        public int getPresentCount(int row) {
+            return presentCounts[row];
+        }
+
+        public double getMean(int row) {
+            return means[row];
+        }
+
+        public double getVariance(int row) {
+            return variances[row];
+        }
+
+        public double getMin(int row) {
+            return mins[row];
+        }
+
+        public double getMax(int row) {
+            return maxs[row];
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+/**
+ * Precision used for storing values of primitive matrix. Independently of
+ * storage mode all reductions (sums, dot products, etc.) are accumulated in
+ * double.
+ */
+public enum StorageMode {
+    float32, float64;
+
+    public static final StorageMode DEFAULT = float64;
+
+    public static StorageMode fromConfig(String value) {
+        if (value == null || value.trim().isEmpty())
+            return DEFAULT;
+        for (StorageMode mode : values())
+            if (mode.name().equalsIgnoreCase(value.trim()))
+                return mode;
+        throw new IllegalStateException("Unsupported matrix storage mode: " + value);
+    }
+}
@@ -0,0 +1,44 @@
+package us.kbase.kbasefeaturevalues.matrix;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Matrix object loaded with values kept in primitive storage. Boxed values of
+ * object's data are left empty. It's serialized by MatrixStreamWriter as
+ * complete matrix object, so it can be passed to workspace wrapped in UObject.
+ */
+public class StreamedMatrix<T> implements JsonSerializable {
+    private final T object;
+    private final PrimitiveMatrix values;
+
+    public StreamedMatrix(T object, PrimitiveMatrix values) {
+        this.object = object;
+        this.values = values;
+    }
+
+    public T getObject() {
+        return object;
+    }
+
+    public PrimitiveMatrix getValues() {
+        return values;
+    }
+
+    @Override
+    public void serialize(JsonGenerator jgen, SerializerProvider provider)
+            throws IOException, JsonProcessingException {
+        MatrixStreamWriter.write(jgen, object, values);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator jgen, SerializerProvider provider,
+            TypeSerializer typeSer) throws IOException, JsonProcessingException {
+        serialize(jgen, provider);
+    }
+}
@@ -0,0 +1,160 @@
+package us.kbase.kbasefeaturevalues.transform;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Input stream of decompressed content of gzip file. Decompression is done in
+ * background thread which fills bounded queue of blocks, so it runs in
+ * parallel with parsing and memory is limited by a few blocks regardless of
+ * file size. Nothing is written to disk.
+ */
+public class DecompressingInputStream extends InputStream {
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final int QUEUE_SIZE = 8;
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<byte[]>(QUEUE_SIZE);
+    private final Thread worker;
+    private volatile Throwable error = null;
+    private volatile boolean closed = false;
+    private byte[] block = null;
+    private int blockPos = 0;
+    private int blockLen = 0;
+
+    public DecompressingInputStream(File gzipFile) throws IOException {
+        final InputStream is = new GZIPInputStream(new FileInputStream(gzipFile), 1 << 16);
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    try {
+                        while (!closed) {
+                            byte[] data = new byte[BLOCK_SIZE];
+                            int len = 0;
+                            while (len < data.length) {
+                                int n = is.read(data, len, data.length - len);
+                                if (n < 0)
+                                    break;
+                                len += n;
+                            }
+                            if (len == 0)
+                                break;
+                            queue.put(len < data.length ? trim(data, len) : data);
+                            if (len < data.length)
+                                break;
+                        }
+                    } finally {
+                        is.close();
+                    }
+                } catch (InterruptedException ex) {
+                    // Stream was closed
+                } catch (Throwable ex) {
+                    error = ex;
+                } finally {
+                    try {
+                        if (!closed)
+                            queue.put(END);
+                    } catch (InterruptedException ignore) {}
+                }
+            }
+        }, "gzip-" + gzipFile.getName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static byte[] trim(byte[] data, int len) {
+        byte[] ret = new byte[len];
+        System.arraycopy(data, 0, ret, 0, len);
+        return ret;
+    }
+
+    /**
+     * Checks gzip magic bytes in the beginning of file.
+     */
+    public static boolean isGzip(File file) throws IOException {
+        InputStream is = new FileInputStream(file);
+        try {
+            return is.read() == 0x1f && is.read() == 0x8b;
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Returns size of decompressed data stored in gzip trailer. It's exact
+     * only for single-member files smaller than 4 GB, so it should be used as
+     * a hint only.
+     */
+    public static long getSizeHint(File gzipFile) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(gzipFile, "r");
+        try {
+            if (raf.length() < 18)
+                return -1;
+            raf.seek(raf.length() - 4);
+            long ret = 0;
+            for (int i = 0; i < 4; i++)
+                ret |= (long)raf.read() << (8 * i);
+            // Size is stored modulo 2^32, so it's obviously wrapped if it's less
+            // than compressed size
+            return ret < raf.length() ? -1 : ret;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (block == END)
+            return false;
+        try {
+            block = queue.take();
+        } catch (InterruptedException ex) {
+            throw new IOException("Reading of decompressed data was interrupted", ex);
+        }
+        blockPos = 0;
+        blockLen = block.length;
+        if (block == END) {
+            if (error != null)
+                throw error instanceof IOException ? (IOException)error :
+                    new IOException("Error decompressing data: " + error.getMessage(), error);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (block == null || blockPos == blockLen)
+            if (!nextBlock())
+                return -1;
+        return block[blockPos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        while (block == null || blockPos == blockLen)
+            if (!nextBlock())
+                return -1;
+        int n = Math.min(len, blockLen - blockPos);
+        System.arraycopy(block, blockPos, b, off, n);
+        blockPos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        worker.interrupt();
+        queue.clear();
+    }
+}
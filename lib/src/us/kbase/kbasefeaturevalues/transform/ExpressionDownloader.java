@@ -20,6 +20,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import us.kbase.auth.AuthService;
 import us.kbase.auth.AuthToken;
 import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFactory;
+import us.kbase.kbasefeaturevalues.matrix.MatrixStreamReader;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
 import us.kbase.workspace.ObjectIdentity;
 import us.kbase.workspace.WorkspaceClient;
 
@@ -51,8 +56,9 @@ public class ExpressionDownloader {
         if (outputFileName == null)
             outputFileName = "matrix.tsv";
         File outputFile = new File(parsedArgs.workDir, outputFileName);
-        generate(parsedArgs.wsUrl, parsedArgs.wsName, parsedArgs.objName, parsedArgs.version, 
-                token, new PrintWriter(outputFile));
+        String ref = parsedArgs.wsName + "/" + parsedArgs.objName + 
+                (parsedArgs.version == null ? "" : ("/" + parsedArgs.version));
+        generate(parsedArgs.wsUrl, ref, token, outputFile);
     }
 
     public static void generate(String wsUrl, String wsName, String objName, Integer version,
@@ -74,6 +80,30 @@ public class ExpressionDownloader {
         }
     }
 
+    /**
+     * Streams matrix values from workspace into primitive storage and writes
+     * them into file with fast TSV writer.
+     */
+    public static void generate(String wsUrl, String ref, AuthToken token, 
+            File outputFile) throws Exception {
+        WorkspaceClient client = getWsClient(wsUrl, token);
+        StreamedMatrix<BioMatrix> matrix = MatrixStreamReader.read(client.getObjects(
+                Arrays.asList(new ObjectIdentity().withRef(ref))).get(0).getData()
+                .getPlacedStream(), BioMatrix.class, new MatrixFactory(StorageMode.float64));
+        generate(matrix.getObject().getData(), matrix.getObject().getFeatureMapping(), 
+                matrix.getValues(), outputFile);
+    }
+
+    /**
+     * The same as generate with PrintWriter but for primitive values (data
+     * keeps only row and column ids).
+     */
+    public static void generate(FloatMatrix2D data, Map<String, String> featureMapping, 
+            PrimitiveMatrix values, File outputFile) throws Exception {
+        TsvMatrixWriter.write(data.getRowIds(), data.getColIds(), featureMapping, values,
+                outputFile);
+    }
+
     public static void generate(FloatMatrix2D data, Map<String, String> featureMapping, PrintWriter pw) throws Exception {
         try {
             pw.print("feature_ids");
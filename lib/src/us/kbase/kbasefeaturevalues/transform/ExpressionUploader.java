@@ -2,18 +2,12 @@ package us.kbase.kbasefeaturevalues.transform;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Pattern;
-
-import javax.management.ObjectName;
-
-import kbasegenomes.Genome;
 
+import org.apache.commons.io.input.ReaderInputStream;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
@@ -21,12 +15,15 @@ import org.kohsuke.args4j.Option;
 import us.kbase.auth.AuthService;
 import us.kbase.auth.AuthToken;
 import us.kbase.common.service.UObject;
+import us.kbase.kbasefeaturevalues.AnalysisReport;
 import us.kbase.kbasefeaturevalues.ExpressionMatrix;
+import us.kbase.kbasefeaturevalues.FeatureIndex;
 import us.kbase.kbasefeaturevalues.FloatMatrix2D;
 import us.kbase.kbasefeaturevalues.MatrixUtil;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
+import us.kbase.workspace.WorkspaceClient;
 
 public class ExpressionUploader {
-    private static Pattern tabDiv = Pattern.compile(Pattern.quote("\t"));
     public static final String FORMAT_TYPE_MO = "MO";
     public static final String FORMAT_TYPE_SIMPLE = "Simple";
     
@@ -78,6 +75,9 @@ public class ExpressionUploader {
             if (!f.isFile())
                 continue;
             String fileName = f.getName().toLowerCase();
+            // Compressed files are decompressed on the fly by parser
+            if (fileName.endsWith(".gz"))
+                fileName = fileName.substring(0, fileName.length() - 3);
             if (fileName.endsWith(".txt") || fileName.endsWith(".tsv") || 
                     fileName.endsWith(".csv") || fileName.endsWith(".tab")) {
                 inputFile = f;
@@ -88,8 +88,8 @@ public class ExpressionUploader {
             fileList.append(f.getName());
         }
         if (inputFile == null)
-            throw new IllegalStateException("Input file with extention .txt or .tsv was not " +
-            		"found among: " + fileList);
+            throw new IllegalStateException("Input file with extention .txt or .tsv (optionally " +
+            		"gzipped) was not found among: " + fileList);
         return inputFile;
     }
     
@@ -104,32 +104,62 @@ public class ExpressionUploader {
     public static ExpressionMatrix parse(String genomeRef, File inputFile, 
             String fmtType, boolean fillMissingValues, String dataType, 
             String dataScale, AuthToken token) throws Exception {
-        Genome genome = null;
+        StreamedMatrix<ExpressionMatrix> parsed = parseStreamed(genomeRef, inputFile, fmtType,
+                fillMissingValues, dataType, dataScale, token);
+        ExpressionMatrix matrix = parsed.getObject();
+        matrix.getData().withValues(parsed.getValues().toValues());
+        return matrix;
+    }
+
+    /**
+     * The same as parse but values are kept in primitive matrix (data of
+     * returned object has only row and column ids).
+     */
+    public static StreamedMatrix<ExpressionMatrix> parseStreamed(String genomeRef,
+            File inputFile, String fmtType, boolean fillMissingValues, String dataType, 
+            String dataScale, AuthToken token) throws Exception {
+        return parseStreamed(genomeRef, inputFile, fmtType, fillMissingValues, dataType,
+                dataScale, token, null);
+    }
+
+    /**
+     * The same as parseStreamed, workspace client (if given) resolves
+     * reference of genome, so cached index of its features is used without
+     * loading of genome (see MatrixUtil.getFeatureIndex).
+     */
+    public static StreamedMatrix<ExpressionMatrix> parseStreamed(String genomeRef,
+            File inputFile, String fmtType, boolean fillMissingValues, String dataType, 
+            String dataScale, AuthToken token, WorkspaceClient wsClient) throws Exception {
+        FeatureIndex featureIndex = null;
         if (genomeRef != null) {
-            genome = MatrixUtil.loadGenomeFeatures(token, null, genomeRef);
+            featureIndex = MatrixUtil.getFeatureIndex(token, wsClient, genomeRef);
         }
         String formatType = fmtType;
         if (formatType == null || formatType.trim().isEmpty())
             formatType = FORMAT_TYPE_SIMPLE;
-        ExpressionMatrix matrix = null;
+        StreamedMatrix<ExpressionMatrix> parsed = null;
         if (formatType.equalsIgnoreCase(FORMAT_TYPE_MO)) {
-            matrix = parseMicrobsOnlineFormat(new BufferedReader(new FileReader(inputFile)));
+            parsed = parseFile(inputFile, true);
         } else if (formatType.equalsIgnoreCase(FORMAT_TYPE_SIMPLE)) {
-            matrix = parseSimpleFormat(new BufferedReader(new FileReader(inputFile)));
+            parsed = parseFile(inputFile, false);
         } else {
             throw new IllegalStateException("Unsupported format type: " + formatType);
         }
+        ExpressionMatrix matrix = parsed.getObject();
         if (dataType != null && !dataType.isEmpty())
             matrix.withType(dataType);
         if (dataScale != null && !dataScale.isEmpty())
             matrix.withScale(dataScale);
-        if (genome != null) {
-            matrix.withFeatureMapping(MatrixUtil.constructFeatureMapping(matrix.getData(), genome));
+        if (featureIndex != null) {
+            List<String> warnings = new ArrayList<String>();
+            matrix.withFeatureMapping(featureIndex.map(matrix.getData().getRowIds(), warnings));
             matrix.withGenomeRef(genomeRef);
+            if (!warnings.isEmpty())
+                matrix.withReport(new AnalysisReport().withWarnings(warnings));
         }
         if (fillMissingValues)
-            MatrixUtil.fillMissingValues(matrix.getData());
-        return matrix;
+            MatrixUtil.fillMissingValues(parsed.getValues());
+        return parsed;
     }
     
     private static void showUsage(CmdLineParser parser, String message) {
@@ -146,152 +176,44 @@ public class ExpressionUploader {
     }
 
     public static ExpressionMatrix parseMicrobsOnlineFormat(BufferedReader br) throws Exception {
-        MOState state = MOState.init;
-        Map<String, String> colNameToId = new LinkedHashMap<String, String>();
-        List<String> colIds = new ArrayList<String>();
-        List<String> rowIds = new ArrayList<String>();
-        List<List<Double>> values = new ArrayList<List<Double>>();
-        for (int pos = 0; ; pos++) {
-            String line = br.readLine();
-            if (line == null)
-                break;
-            switch (state) {
-            case init:
-                if (line.startsWith("^") && line.endsWith("Experiment MetaData")) {
-                    state = MOState.condHeader;
-                } else {
-                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
-                }
-                break;
-            case condHeader:
-                if (line.startsWith("!Log Level")) {
-                    state = MOState.condBlock;
-                } else {
-                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
-                }
-                break;
-            case condBlock:
-                if (line.startsWith("^") && line.endsWith("Data Section")) {
-                    state = MOState.featHeader;
-                } else if (line.startsWith("!")) {
-                    String[] parts = tabDiv.split(line.substring(1));
-                    String colName = parts[0] + " (" + parts[1] + ")";
-                    String colId = parts[2];
-                    if (!colId.contains(parts[1]))
-                        colId += " (" + parts[1] + ")";
-                    colNameToId.put(colName, colId);
-                } else {
-                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
-                }
-                break;
-            case featHeader:
-                if (line.startsWith("!Locus Id\tSystematic_Name\t")) {
-                    String[] parts = tabDiv.split(line);
-                    for (int i = 2; i < parts.length; i++) {
-                        String colName = parts[i];
-                        String colId = colNameToId.get(colName);
-                        if (colId == null)
-                            throw new IllegalStateException("Id wasn't found for column with name: " + colName);
-                        colIds.add(colId);
-                    }
-                    state = MOState.featBlock;
-                } else {
-                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
-                }
-                break;
-            case featBlock:
-                String[] parts = tabDiv.split(line, -1);
-                int partCount = parts.length;
-                if (partCount > colIds.size() + 2 && parts[partCount - 1].isEmpty())
-                    partCount--;
-                if (partCount != colIds.size() + 2)
-                    throw new IllegalStateException("Feature row contain " + parts.length + " != " +  
-                            (colIds.size() + 2) + " cells at line " + (pos + 1) + ": " + line);
-                String rowId = parts[1];
-                int rowPos = rowIds.size();
-                rowIds.add(rowId);
-                if (values.size() != rowPos)
-                    throw new IllegalStateException("Internal inconsistency: " + rowPos + " != " + values.size());
-                List<Double> row = new ArrayList<Double>();
-                values.add(row);
-                for (int i = 0; i < colIds.size(); i++) {
-                    String exprValueText = parts[2 + i];
-                    Double exprVallue = exprValueText.isEmpty() ? null : Double.parseDouble(exprValueText);
-                    row.add(exprVallue);
-                }                    
-                break;
-            default:
-                throw new IllegalStateException("Unsupported state: " + state);
-            }
-        }
-        br.close();
-        FloatMatrix2D matrix = new FloatMatrix2D().withValues(values).withColIds(colIds)
-                .withRowIds(rowIds);
-        ExpressionMatrix ret = new ExpressionMatrix().withType("log-ratio").withScale("1.0")
-                .withData(matrix);
-        return ret;
+        return toExpressionMatrix(new TsvMatrixParser(new ReaderInputStream(br, "UTF-8"), -1,
+                true).parse());
     }
 
     public static ExpressionMatrix parseSimpleFormat(BufferedReader br) throws Exception {
-        List<String> colIds = new ArrayList<String>();
-        String line = br.readLine();
-        if (line == null)
-            throw new IllegalStateException("No header line found");
-        String[] parts = tabDiv.split(line);
-        for (int i = 1; i < parts.length; i++)
-            colIds.add(unquote(parts[i]));
-        List<String> rowIds = new ArrayList<String>();
-        List<List<Double>> values = new ArrayList<List<Double>>();
-        for (int pos = 0; ; pos++) {
-            line = br.readLine();
-            if (line == null)
-                break;
-            parts = tabDiv.split(line, -1);
-            int partCount = parts.length;
-            if (partCount > colIds.size() + 1 && parts[partCount - 1].isEmpty())
-                partCount--;
-            if (partCount != colIds.size() + 1)
-                throw new IllegalStateException("Feature row contain " + parts.length + " != " +  
-                        (colIds.size() + 1) + " cells at line " + (pos + 1) + ": " + line);
-            String rowId = parts[0];
-            int rowPos = rowIds.size();
-            rowIds.add(unquote(rowId));
-            if (values.size() != rowPos)
-                throw new IllegalStateException("Internal inconsistency: " + rowPos + " != " + values.size());
-            List<Double> row = new ArrayList<Double>();
-            values.add(row);
-            for (int i = 0; i < colIds.size(); i++) {
-                String exprValueText = parts[1 + i];
-                Double exprVallue = isMissingValue(exprValueText) ? null : Double.parseDouble(exprValueText);
-                row.add(exprVallue);
-            }
-        }
-        br.close();
-        FloatMatrix2D matrix = new FloatMatrix2D().withValues(values).withColIds(colIds)
-                .withRowIds(rowIds);
-        ExpressionMatrix ret = new ExpressionMatrix().withType("log-ratio").withScale("1.0")
-                .withData(matrix);
-        return ret;
+        return parseSimpleFormat(new ReaderInputStream(br, "UTF-8"), -1);
     }
 
-    private static boolean isMissingValue(String value) {
-        value = unquote(value);
-        return value.isEmpty() || value.equalsIgnoreCase("NA") || value.equalsIgnoreCase("NULL") ||
-                value.equals("-");
+    /**
+     * Parses simple format with byte-level tokenizer, input stream is closed
+     * at the end.
+     * @param sizeHint size of input in bytes if it's known (or -1)
+     */
+    public static ExpressionMatrix parseSimpleFormat(InputStream is, long sizeHint)
+            throws Exception {
+        return toExpressionMatrix(new TsvMatrixParser(is, sizeHint).parse());
     }
 
-    private static String unquote(String value) {
-        if (value.length() >= 2 && value.charAt(0) == '\"' && 
-                value.charAt(value.length() - 1) == '\"') {
-            try {
-                value = ObjectName.unquote(value);
-            } catch (Exception ex) {
-                value = value.substring(1, value.length() - 1);
-            }
-        }
-        return value;
+    /**
+     * Parses local file in simple or MicrobesOnline format, large files are
+     * split into chunks parsed in parallel using all available processors.
+     */
+    public static StreamedMatrix<ExpressionMatrix> parseFile(File inputFile,
+            boolean microbesOnline) throws Exception {
+        StreamedMatrix<FloatMatrix2D> parsed = TsvMatrixParser.parse(inputFile, microbesOnline,
+                Runtime.getRuntime().availableProcessors());
+        ExpressionMatrix ret = new ExpressionMatrix().withType("log-ratio").withScale("1.0")
+                .withData(parsed.getObject());
+        return new StreamedMatrix<ExpressionMatrix>(ret, parsed.getValues());
     }
-    
+
+    private static ExpressionMatrix toExpressionMatrix(StreamedMatrix<FloatMatrix2D> parsed) {
+        FloatMatrix2D matrix = parsed.getObject().withValues(parsed.getValues().toValues());
+        ExpressionMatrix ret = new ExpressionMatrix().withType("log-ratio").withScale("1.0")
+                .withData(matrix);
+        return ret;
+    }
+
     public static class Args {
         @Option(name="-wn", aliases={"--workspace_name"}, usage="Workspace name", metaVar="<ws-name>")
         String wsName;
@@ -0,0 +1,655 @@
+package us.kbase.kbasefeaturevalues.transform;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import javax.management.ObjectName;
+
+import org.apache.commons.io.input.BoundedInputStream;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.matrix.Float64Matrix;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader.MOState;
+
+/**
+ * Byte-level parser of matrix in simple tab-separated format (header line with
+ * column ids after the first cell, then rows with row id followed by values)
+ * or in MicrobesOnline format (condition sections followed by rows with locus
+ * id, row id and values). Lines are tokenized in place in read buffer without
+ * regular expressions and intermediate strings, numbers are parsed directly
+ * from bytes and stored in row-major array of doubles (missing values are NaN).
+ * Large local files are split at line boundaries into chunks which are parsed
+ * concurrently, each chunk writes its rows directly into its slice of shared
+ * arrays so that rows end up in original order without extra copying.
+ */
+public class TsvMatrixParser {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int INITIAL_ROW_CAPACITY = 1024;
+    private static final long MIN_CHUNK_SIZE = 4L << 20;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Pattern TAB_DIV = Pattern.compile(Pattern.quote("\t"));
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream is;
+    private final long sizeHint;
+    private final boolean microbesOnline;
+    private byte[] buf = new byte[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private long consumed = 0;
+    private boolean eof = false;
+    private boolean skipLf = false;
+    private int lineStart;
+    private int lineEnd;
+    private int[] cellEnds = new int[16];
+    // State of row parsing
+    private List<String> colIds;
+    private int colCount;
+    private long headerLineCount;
+    private boolean growable = true;
+    private String[] rowIds;
+    private double[] values;
+    private int rowCount;
+    private int rowLimit;
+
+    /**
+     * @param sizeHint size of input in bytes if it's known (or -1), it's used
+     * to allocate value buffer of proper size instead of growing it many times
+     */
+    public TsvMatrixParser(InputStream is, long sizeHint) {
+        this(is, sizeHint, false);
+    }
+
+    /**
+     * @param microbesOnline true for MicrobesOnline format, false for simple
+     * format
+     */
+    public TsvMatrixParser(InputStream is, long sizeHint, boolean microbesOnline) {
+        this.is = is;
+        this.sizeHint = sizeHint;
+        this.microbesOnline = microbesOnline;
+    }
+
+    /**
+     * Parses whole input and closes it. Returned data object has row and column
+     * ids, values are kept in primitive matrix.
+     */
+    public StreamedMatrix<FloatMatrix2D> parse() throws IOException {
+        try {
+            readHeader();
+            rowIds = new String[INITIAL_ROW_CAPACITY];
+            values = new double[colCount * INITIAL_ROW_CAPACITY];
+            rowLimit = INITIAL_ROW_CAPACITY;
+            parseRows(headerLineCount);
+            return toMatrix(colIds, rowIds, rowCount, values);
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Parses local file using given number of threads. Header is processed
+     * sequentially, the rest of file is split at line boundaries into chunks.
+     * Lines of all chunks are counted in parallel first, then every chunk is
+     * parsed in parallel into its own range of rows. Files which are too small
+     * to benefit from splitting are parsed in one thread. Gzip files (detected
+     * by magic bytes) are decompressed on the fly in background thread.
+     */
+    public static StreamedMatrix<FloatMatrix2D> parse(File file, boolean microbesOnline,
+            int threadCount) throws IOException {
+        if (DecompressingInputStream.isGzip(file))
+            return new TsvMatrixParser(new DecompressingInputStream(file),
+                    DecompressingInputStream.getSizeHint(file), microbesOnline).parse();
+        long fileSize = file.length();
+        long dataOffset;
+        int chunkCount;
+        TsvMatrixParser header = new TsvMatrixParser(new FileInputStream(file), fileSize,
+                microbesOnline);
+        try {
+            header.readHeader();
+            dataOffset = header.getDataOffset();
+            chunkCount = (int)Math.min(Math.max(1, threadCount),
+                    (fileSize - dataOffset) / MIN_CHUNK_SIZE);
+            if (chunkCount <= 1) {
+                header.rowIds = new String[INITIAL_ROW_CAPACITY];
+                header.values = new double[header.colCount * INITIAL_ROW_CAPACITY];
+                header.rowLimit = INITIAL_ROW_CAPACITY;
+                header.parseRows(header.headerLineCount);
+                return toMatrix(header.colIds, header.rowIds, header.rowCount, header.values);
+            }
+        } finally {
+            header.is.close();
+        }
+        long[] bounds = splitIntoChunks(file, dataOffset, fileSize, chunkCount);
+        chunkCount = bounds.length - 1;
+        ExecutorService executor = Executors.newFixedThreadPool(chunkCount);
+        try {
+            List<Future<Long>> counts = new ArrayList<Future<Long>>();
+            for (int i = 0; i < chunkCount; i++) {
+                final TsvMatrixParser chunk = openChunk(file, bounds[i], bounds[i + 1],
+                        microbesOnline);
+                counts.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        try {
+                            return chunk.countLines();
+                        } finally {
+                            chunk.is.close();
+                        }
+                    }
+                }));
+            }
+            long[] firstLines = new long[chunkCount + 1];
+            for (int i = 0; i < chunkCount; i++)
+                firstLines[i + 1] = firstLines[i] + getResult(counts.get(i));
+            int colCount = header.colCount;
+            long totalRows = firstLines[chunkCount];
+            if (totalRows > Integer.MAX_VALUE - 8 || totalRows * colCount > Integer.MAX_VALUE - 8)
+                throw new IllegalStateException("Matrix is too large: " + totalRows +
+                        " rows of " + colCount + " values");
+            String[] rowIds = new String[(int)totalRows];
+            double[] values = new double[(int)totalRows * colCount];
+            List<Future<Long>> results = new ArrayList<Future<Long>>();
+            for (int i = 0; i < chunkCount; i++) {
+                final TsvMatrixParser chunk = openChunk(file, bounds[i], bounds[i + 1],
+                        microbesOnline);
+                chunk.colIds = header.colIds;
+                chunk.colCount = colCount;
+                chunk.growable = false;
+                chunk.rowIds = rowIds;
+                chunk.values = values;
+                chunk.rowCount = (int)firstLines[i];
+                chunk.rowLimit = (int)firstLines[i + 1];
+                final long firstLine = header.headerLineCount + firstLines[i];
+                results.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        try {
+                            chunk.parseRows(firstLine);
+                            return (long)chunk.rowCount;
+                        } finally {
+                            chunk.is.close();
+                        }
+                    }
+                }));
+            }
+            // Errors are reported in order of chunks, so the first broken line wins
+            for (int i = 0; i < chunkCount; i++) {
+                long rowEnd = getResult(results.get(i));
+                if (rowEnd != firstLines[i + 1])
+                    throw new IllegalStateException("Internal inconsistency: " + rowEnd +
+                            " != " + firstLines[i + 1]);
+            }
+            return toMatrix(header.colIds, rowIds, rowIds.length, values);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static TsvMatrixParser openChunk(File file, long start, long end,
+            boolean microbesOnline) throws IOException {
+        FileInputStream fis = new FileInputStream(file);
+        fis.getChannel().position(start);
+        return new TsvMatrixParser(new BoundedInputStream(fis, end - start), end - start,
+                microbesOnline);
+    }
+
+    /**
+     * Splits range of file into at most chunkCount parts. Every part except the
+     * first one starts right after line terminator (CR LF pair is never broken).
+     */
+    static long[] splitIntoChunks(File file, long start, long end,
+            int chunkCount) throws IOException {
+        List<Long> bounds = new ArrayList<Long>();
+        bounds.add(start);
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] block = new byte[1 << 16];
+            for (int i = 1; i < chunkCount; i++) {
+                long last = bounds.get(bounds.size() - 1);
+                long target = Math.max(last, start + (end - start) * i / chunkCount);
+                long bound = end;
+                boolean afterCr = false;
+                search:
+                for (long blockPos = target; blockPos < end; blockPos += block.length) {
+                    raf.seek(blockPos);
+                    int len = raf.read(block, 0, (int)Math.min(block.length, end - blockPos));
+                    if (len <= 0)
+                        break;
+                    for (int j = 0; j < len; j++) {
+                        if (afterCr) {
+                            bound = blockPos + (block[j] == '\n' ? j + 1 : j);
+                            break search;
+                        }
+                        if (block[j] == '\n') {
+                            bound = blockPos + j + 1;
+                            break search;
+                        }
+                        afterCr = block[j] == '\r';
+                    }
+                }
+                if (bound >= end)
+                    break;
+                if (bound > last)
+                    bounds.add(bound);
+            }
+        } finally {
+            raf.close();
+        }
+        bounds.add(end);
+        long[] ret = new long[bounds.size()];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = bounds.get(i);
+        return ret;
+    }
+
+    private static StreamedMatrix<FloatMatrix2D> toMatrix(List<String> colIds,
+            String[] rowIds, int rowCount, double[] values) {
+        List<String> rowIdList = new ArrayList<String>(Arrays.asList(rowIds).subList(0, rowCount));
+        FloatMatrix2D data = new FloatMatrix2D().withRowIds(rowIdList).withColIds(colIds);
+        return new StreamedMatrix<FloatMatrix2D>(data,
+                new Float64Matrix(rowCount, colIds.size(), values));
+    }
+
+    /**
+     * Reads header of the format, sets column ids and number of lines before
+     * the first data row.
+     */
+    private void readHeader() throws IOException {
+        colIds = new ArrayList<String>();
+        if (microbesOnline) {
+            readMicrobesOnlineHeader();
+        } else {
+            if (!nextLine())
+                throw new IllegalStateException("No header line found");
+            int cellCount = splitLine();
+            // Trailing empty cells of header are ignored
+            while (cellCount > 0 && cellStart(cellCount - 1) == cellEnds[cellCount - 1])
+                cellCount--;
+            for (int i = 1; i < cellCount; i++)
+                colIds.add(unquote(cellText(i)));
+            // Numbering of lines in errors starts from the first data row
+            headerLineCount = 0;
+        }
+        colCount = colIds.size();
+    }
+
+    private void readMicrobesOnlineHeader() throws IOException {
+        MOState state = MOState.init;
+        Map<String, String> colNameToId = new LinkedHashMap<String, String>();
+        for (headerLineCount = 0; state != MOState.featBlock && nextLine(); headerLineCount++) {
+            String line = lineText();
+            switch (state) {
+            case init:
+                if (line.startsWith("^") && line.endsWith("Experiment MetaData")) {
+                    state = MOState.condHeader;
+                } else {
+                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
+                }
+                break;
+            case condHeader:
+                if (line.startsWith("!Log Level")) {
+                    state = MOState.condBlock;
+                } else {
+                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
+                }
+                break;
+            case condBlock:
+                if (line.startsWith("^") && line.endsWith("Data Section")) {
+                    state = MOState.featHeader;
+                } else if (line.startsWith("!")) {
+                    String[] parts = TAB_DIV.split(line.substring(1));
+                    String colName = parts[0] + " (" + parts[1] + ")";
+                    String colId = parts[2];
+                    if (!colId.contains(parts[1]))
+                        colId += " (" + parts[1] + ")";
+                    colNameToId.put(colName, colId);
+                } else {
+                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
+                }
+                break;
+            case featHeader:
+                if (line.startsWith("!Locus Id\tSystematic_Name\t")) {
+                    String[] parts = TAB_DIV.split(line);
+                    for (int i = 2; i < parts.length; i++) {
+                        String colName = parts[i];
+                        String colId = colNameToId.get(colName);
+                        if (colId == null)
+                            throw new IllegalStateException("Id wasn't found for column with name: " + colName);
+                        colIds.add(colId);
+                    }
+                    state = MOState.featBlock;
+                } else {
+                    throw new IllegalStateException("Unexpected line for [" + state + "] state: " + line);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported state: " + state);
+            }
+        }
+    }
+
+    /**
+     * Returns position in input right after header (including terminator of
+     * the last header line).
+     */
+    private long getDataOffset() throws IOException {
+        if (skipLf) {
+            if (pos == limit && !eof)
+                fill();
+            if (pos < limit) {
+                skipLf = false;
+                if (buf[pos] == '\n') {
+                    pos++;
+                    consumed++;
+                }
+            }
+        }
+        return consumed;
+    }
+
+    private long countLines() throws IOException {
+        long ret = 0;
+        while (nextLine())
+            ret++;
+        return ret;
+    }
+
+    /**
+     * Parses data rows till the end of input storing them starting from
+     * rowCount position.
+     * @param firstLine number of first line used in error messages
+     */
+    private void parseRows(long firstLine) throws IOException {
+        int idCell = microbesOnline ? 1 : 0;
+        int cellCount = colCount + idCell + 1;
+        for (long line = firstLine; nextLine(); line++) {
+            int partCount = splitLine();
+            int usedCount = partCount;
+            if (usedCount > cellCount && cellStart(usedCount - 1) == cellEnds[usedCount - 1])
+                usedCount--;
+            if (usedCount != cellCount)
+                throw new IllegalStateException("Feature row contain " + partCount + " != " +
+                        cellCount + " cells at line " + (line + 1) + ": " + lineText());
+            if (rowCount == rowLimit)
+                grow();
+            String rowId = cellText(idCell);
+            rowIds[rowCount] = microbesOnline ? rowId : unquote(rowId);
+            int offset = rowCount * colCount;
+            int firstValueCell = idCell + 1;
+            if (microbesOnline) {
+                // Only empty cells are missing values in this format
+                for (int i = 0; i < colCount; i++) {
+                    int start = cellStart(i + firstValueCell);
+                    int end = cellEnds[i + firstValueCell];
+                    values[offset + i] = start == end ? Double.NaN : parseDouble(buf, start, end);
+                }
+            } else {
+                for (int i = 0; i < colCount; i++)
+                    values[offset + i] = parseValue(buf, cellStart(i + firstValueCell),
+                            cellEnds[i + firstValueCell]);
+            }
+            rowCount++;
+        }
+    }
+
+    /**
+     * Grows row id and value buffers. When input size is known new capacity is
+     * estimated from average size of rows parsed so far, so buffers are usually
+     * allocated only once or twice.
+     */
+    private void grow() {
+        if (!growable)
+            throw new IllegalStateException("Internal inconsistency: chunk has more rows " +
+                    "than " + rowLimit);
+        long rowCapacity = Math.max(INITIAL_ROW_CAPACITY, rowCount + rowCount / 2L);
+        if (sizeHint > consumed && consumed > 0 && rowCount > 0)
+            rowCapacity = Math.max(rowCount + 16L, (long)(sizeHint * 1.02 * rowCount / consumed)
+                    + 16);
+        long maxRows = (Integer.MAX_VALUE - 8) / Math.max(1, colCount);
+        if (rowCapacity > maxRows)
+            rowCapacity = maxRows;
+        if (rowCapacity <= rowCount)
+            throw new IllegalStateException("Matrix is too large: more than " + rowCount +
+                    " rows of " + colCount + " values");
+        rowIds = Arrays.copyOf(rowIds, (int)rowCapacity);
+        values = Arrays.copyOf(values, (int)rowCapacity * colCount);
+        rowLimit = (int)rowCapacity;
+    }
+
+    /**
+     * Finds next line in buffer and sets lineStart/lineEnd. Line terminators
+     * are the same as in BufferedReader.readLine().
+     */
+    private boolean nextLine() throws IOException {
+        int scan = pos;
+        while (true) {
+            if (skipLf && pos < limit) {
+                skipLf = false;
+                if (buf[pos] == '\n') {
+                    pos++;
+                    consumed++;
+                }
+                scan = pos;
+            }
+            for (; scan < limit; scan++) {
+                byte b = buf[scan];
+                if (b == '\n' || b == '\r') {
+                    lineStart = pos;
+                    lineEnd = scan;
+                    consumed += scan + 1 - pos;
+                    pos = scan + 1;
+                    skipLf = b == '\r';
+                    return true;
+                }
+            }
+            if (eof) {
+                if (pos < limit) {
+                    lineStart = pos;
+                    lineEnd = limit;
+                    consumed += limit - pos;
+                    pos = limit;
+                    return true;
+                }
+                return false;
+            }
+            scan -= pos;
+            fill();
+        }
+    }
+
+    /**
+     * Moves unprocessed tail to the beginning of buffer (growing it if it's
+     * full) and reads more data.
+     */
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        } else if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int n = is.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+
+    /**
+     * Splits current line by tabs, end positions of cells are stored in
+     * cellEnds. Returns number of cells.
+     */
+    private int splitLine() {
+        int count = 0;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buf[i] == '\t') {
+                if (count == cellEnds.length)
+                    cellEnds = Arrays.copyOf(cellEnds, count * 2);
+                cellEnds[count++] = i;
+            }
+        }
+        if (count == cellEnds.length)
+            cellEnds = Arrays.copyOf(cellEnds, count * 2);
+        cellEnds[count++] = lineEnd;
+        return count;
+    }
+
+    private int cellStart(int cell) {
+        return cell == 0 ? lineStart : (cellEnds[cell - 1] + 1);
+    }
+
+    private String lineText() {
+        return new String(buf, lineStart, lineEnd - lineStart, UTF8);
+    }
+
+    private String cellText(int cell) {
+        int start = cellStart(cell);
+        return new String(buf, start, cellEnds[cell] - start, UTF8);
+    }
+
+    static double parseValue(byte[] buf, int start, int end) {
+        int len = end - start;
+        if (len >= 2 && buf[start] == '\"' && buf[end - 1] == '\"') {
+            // Rare case, it's processed as text
+            String text = new String(buf, start, len, UTF8);
+            return isMissingValue(text) ? Double.NaN : Double.parseDouble(text);
+        }
+        if (len == 0 || (len == 1 && buf[start] == '-') ||
+                (len == 2 && (buf[start] | 0x20) == 'n' && (buf[start + 1] | 0x20) == 'a') ||
+                (len == 4 && (buf[start] | 0x20) == 'n' && (buf[start + 1] | 0x20) == 'u' &&
+                (buf[start + 2] | 0x20) == 'l' && (buf[start + 3] | 0x20) == 'l'))
+            return Double.NaN;
+        return parseDouble(buf, start, end);
+    }
+
+    /**
+     * Parses decimal number. Fast path covers numbers with up to 15-16
+     * significant digits and small exponents, where single multiplication or
+     * division by exact power of 10 gives correctly rounded result (the same
+     * as Double.parseDouble). Everything else goes to Double.parseDouble.
+     */
+    static double parseDouble(byte[] buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exp10 = 0;
+        boolean anyDigits = false;
+        boolean exact = true;
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9)
+                break;
+            anyDigits = true;
+            mantissa = mantissa * 10 + d;
+            if (mantissa >= MAX_EXACT_MANTISSA) {
+                exact = false;
+                break;
+            }
+        }
+        if (exact && i < end && buf[i] == '.') {
+            for (i++; i < end; i++) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9)
+                    break;
+                anyDigits = true;
+                mantissa = mantissa * 10 + d;
+                exp10--;
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    exact = false;
+                    break;
+                }
+            }
+        }
+        if (exact && anyDigits && i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            boolean negativeExp = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                negativeExp = buf[i] == '-';
+                i++;
+            }
+            int exp = 0;
+            int expStart = i;
+            for (; i < end && exp < 10000; i++) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9)
+                    break;
+                exp = exp * 10 + d;
+            }
+            if (i == expStart)
+                exact = false;
+            exp10 += negativeExp ? -exp : exp;
+        }
+        if (exact && anyDigits && i == end) {
+            if (mantissa == 0)
+                return negative ? -0.0 : 0.0;
+            if (exp10 >= -22 && exp10 <= 22) {
+                double value = exp10 >= 0 ? mantissa * POWERS_OF_10[exp10] :
+                    mantissa / POWERS_OF_10[-exp10];
+                return negative ? -value : value;
+            }
+        }
+        return Double.parseDouble(new String(buf, start, end - start, UTF8));
+    }
+
+    static boolean isMissingValue(String value) {
+        value = unquote(value);
+        return value.isEmpty() || value.equalsIgnoreCase("NA") || value.equalsIgnoreCase("NULL") ||
+                value.equals("-");
+    }
+
+    static String unquote(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '\"' &&
+                value.charAt(value.length() - 1) == '\"') {
+            try {
+                value = ObjectName.unquote(value);
+            } catch (Exception ex) {
+                value = value.substring(1, value.length() - 1);
+            }
+        }
+        return value;
+    }
+}
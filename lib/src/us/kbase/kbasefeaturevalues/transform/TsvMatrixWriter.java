@@ -0,0 +1,180 @@
+package us.kbase.kbasefeaturevalues.transform;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+
+/**
+ * Writer of matrix in simple tab-separated format (the same layout as
+ * ExpressionDownloader produces: "feature_ids" header, row ids replaced by
+ * mapped feature ids, empty cells for missing values). Text is formatted
+ * straight into large reusable byte buffer which is flushed to channel, so
+ * no strings are created per value.
+ */
+public class TsvMatrixWriter {
+    private static final int BUFFER_SIZE = 4 << 20;
+    private static final int MAX_VALUE_LENGTH = 32;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] buf;
+    private int pos = 0;
+
+    public TsvMatrixWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buf = new byte[BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(buf);
+    }
+
+    /**
+     * Writes matrix into file (existing file is overwritten).
+     */
+    public static void write(List<String> rowIds, List<String> colIds,
+            Map<String, String> featureMapping, PrimitiveMatrix values,
+            File target) throws IOException {
+        FileOutputStream fos = new FileOutputStream(target);
+        try {
+            new TsvMatrixWriter(fos.getChannel()).write(rowIds, colIds, featureMapping, values);
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * Writes matrix into channel, channel is not closed.
+     */
+    public void write(List<String> rowIds, List<String> colIds,
+            Map<String, String> featureMapping, PrimitiveMatrix values) throws IOException {
+        int colCount = colIds.size();
+        writeText("feature_ids");
+        for (String colId : colIds) {
+            writeByte('\t');
+            writeText(colId);
+        }
+        writeByte('\n');
+        double[] row = null;
+        for (int rowPos = 0; rowPos < rowIds.size(); rowPos++) {
+            String rowId = rowIds.get(rowPos);
+            String featureId = featureMapping == null ? null : featureMapping.get(rowId);
+            if (featureId == null)
+                featureId = rowId;
+            writeText(featureId);
+            row = values.getRow(rowPos, row);
+            for (int j = 0; j < colCount; j++) {
+                if (buf.length - pos < MAX_VALUE_LENGTH + 1)
+                    flush();
+                buf[pos++] = '\t';
+                if (!Double.isNaN(row[j]))
+                    pos = formatDouble(row[j], buf, pos);
+            }
+            writeByte('\n');
+        }
+        flush();
+    }
+
+    private void writeByte(char c) throws IOException {
+        if (pos == buf.length)
+            flush();
+        buf[pos++] = (byte)c;
+    }
+
+    private void writeText(String text) throws IOException {
+        byte[] data = text.getBytes(UTF8);
+        if (buf.length - pos < data.length)
+            flush();
+        if (data.length > buf.length) {
+            write(ByteBuffer.wrap(data));
+        } else {
+            System.arraycopy(data, 0, buf, pos, data.length);
+            pos += data.length;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.clear();
+        buffer.limit(pos);
+        write(buffer);
+        pos = 0;
+    }
+
+    private void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining())
+            channel.write(data);
+    }
+
+    /**
+     * Formats value into buffer and returns new position. Output has the same
+     * notation as Double.toString (plain for absolute values in [1e-3, 1e7),
+     * at least one fractional digit) and is parsed back to exactly the same
+     * double. Fast path finds the smallest number of fractional digits p for
+     * which round(value * 10^p) / 10^p gives the value back; both operands are
+     * exact there, so the check is the same as correctly rounded parsing of
+     * written text. Division is done only for p where scaled value is within
+     * rounding error of integer. Values which don't fit fast path go to
+     * Double.toString.
+     */
+    static int formatDouble(double value, byte[] buf, int pos) {
+        double abs = Math.abs(value);
+        if (abs >= 1e-3 && abs < 1e7) {
+            for (int p = 0; p < POWERS_OF_10.length; p++) {
+                double scaled = abs * POWERS_OF_10[p];
+                if (scaled >= MAX_EXACT_MANTISSA)
+                    break;
+                double rounded = Math.rint(scaled);
+                if (Math.abs(scaled - rounded) <= scaled * 1e-15 &&
+                        rounded / POWERS_OF_10[p] == abs) {
+                    if (value < 0)
+                        buf[pos++] = '-';
+                    return writeDecimal((long)rounded, p, buf, pos);
+                }
+            }
+        } else if (value == 0) {
+            if (Double.doubleToRawLongBits(value) != 0)
+                buf[pos++] = '-';
+            buf[pos++] = '0';
+            buf[pos++] = '.';
+            buf[pos++] = '0';
+            return pos;
+        }
+        String text = Double.toString(value);
+        for (int i = 0; i < text.length(); i++)
+            buf[pos++] = (byte)text.charAt(i);
+        return pos;
+    }
+
+    /**
+     * Writes mantissa * 10^-fractionDigits in plain notation. Digits are
+     * written backwards at the end of free space and then moved in place.
+     */
+    private static int writeDecimal(long mantissa, int fractionDigits, byte[] buf, int pos) {
+        int end = pos + MAX_VALUE_LENGTH - 1;
+        int i = end;
+        if (fractionDigits == 0)
+            buf[--i] = '0';
+        for (int k = 0; k < fractionDigits; k++) {
+            buf[--i] = (byte)('0' + mantissa % 10);
+            mantissa /= 10;
+        }
+        buf[--i] = '.';
+        // Leading zero is written for values below 1
+        do {
+            buf[--i] = (byte)('0' + mantissa % 10);
+            mantissa /= 10;
+        } while (mantissa > 0);
+        System.arraycopy(buf, i, buf, pos, end - i);
+        return pos + end - i;
+    }
+}
@@ -0,0 +1,115 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.ClusterQualities;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class ClusterQualitiesTest {
+
+    @Test
+    public void testQualities() throws Exception {
+        Random rnd = new Random(4949);
+        int rowCount = 90;
+        int colCount = 15;
+        PrimitiveMatrix values = PrimitiveMatrix.create(rowCount, colCount, StorageMode.float64);
+        long[] labels = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            // Cluster 4 has single row, rows of the last label aren't clustered
+            labels[i] = i == 0 ? 4 : i % 5 == 4 ? 0 : 1 + i % 3;
+            for (int j = 0; j < colCount; j++)
+                if (i % 7 != 0 || j != i % colCount)
+                    values.set(i, j, labels[i] * Math.sin(j) + rnd.nextGaussian());
+        }
+        ClusterQualities qualities = ClusterQualities.calculate(values, labels, 3);
+        Assert.assertEquals(4, qualities.getClusterCount());
+        for (int c = 1; c <= 3; c++) {
+            List<double[]> rows = new ArrayList<double[]>();
+            for (int i = 0; i < rowCount; i++)
+                if (labels[i] == c)
+                    rows.add(values.getRow(i, null));
+            Assert.assertEquals("" + c, getMeanCorrelation(rows),
+                    qualities.getMeanCorrelations().get(c - 1), 1e-9);
+            Assert.assertEquals("" + c, getMsec(rows), qualities.getMsecs().get(c - 1), 1e-9);
+        }
+        Assert.assertTrue(Double.isNaN(qualities.getMeanCorrelations().get(3)));
+        Assert.assertTrue(Double.isNaN(qualities.getMsecs().get(3)));
+    }
+
+    /**
+     * Pearson correlation over pairwise complete observations (cor(...,
+     * use="pairwise.complete.obs") in R) averaged over pairs.
+     */
+    private static double getMeanCorrelation(List<double[]> rows) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            for (int k = i + 1; k < rows.size(); k++) {
+                List<double[]> pairs = new ArrayList<double[]>();
+                for (int j = 0; j < rows.get(i).length; j++)
+                    if (!Double.isNaN(rows.get(i)[j]) && !Double.isNaN(rows.get(k)[j]))
+                        pairs.add(new double[] {rows.get(i)[j], rows.get(k)[j]});
+                double avg1 = 0;
+                double avg2 = 0;
+                for (double[] pair : pairs) {
+                    avg1 += pair[0] / pairs.size();
+                    avg2 += pair[1] / pairs.size();
+                }
+                double cov = 0;
+                double var1 = 0;
+                double var2 = 0;
+                for (double[] pair : pairs) {
+                    cov += (pair[0] - avg1) * (pair[1] - avg2);
+                    var1 += (pair[0] - avg1) * (pair[0] - avg1);
+                    var2 += (pair[1] - avg2) * (pair[1] - avg2);
+                }
+                sum += cov / Math.sqrt(var1 * var2);
+                count++;
+            }
+        }
+        return sum / count;
+    }
+
+    /**
+     * MSEC as calc_cluster_props in ClusterServiceRImpl.r computes it.
+     */
+    private static double getMsec(List<double[]> rows) {
+        int colCount = rows.get(0).length;
+        double sum = 0;
+        int count = 0;
+        for (double[] row : rows)
+            for (double value : row)
+                if (!Double.isNaN(value)) {
+                    sum += value;
+                    count++;
+                }
+        double mean = sum / count;
+        double mseAll = 0;
+        for (double[] row : rows)
+            for (double value : row)
+                if (!Double.isNaN(value))
+                    mseAll += (value - mean) * (value - mean) / count;
+        double msec = 0;
+        for (int j = 0; j < colCount; j++) {
+            double colSum = 0;
+            int colPresent = 0;
+            for (double[] row : rows)
+                if (!Double.isNaN(row[j])) {
+                    colSum += row[j];
+                    colPresent++;
+                }
+            for (double[] row : rows)
+                if (!Double.isNaN(row[j]))
+                    msec += (row[j] - colSum / colPresent) * (row[j] - colSum / colPresent) /
+                        mseAll / count;
+        }
+        return msec;
+    }
+}
@@ -0,0 +1,56 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.RowOrdering;
+import us.kbase.kbasefeaturevalues.matrix.Dendrogram;
+import us.kbase.kbasefeaturevalues.matrix.DistanceKernel;
+import us.kbase.kbasefeaturevalues.matrix.HierarchicalClustering;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class DendrogramTest extends MatrixTestBase {
+
+    @Test
+    public void testLeafOrderAndCut() throws Exception {
+        Random rnd = new Random(4321);
+        PrimitiveMatrix values = PrimitiveMatrix.create(40, 9, StorageMode.float64);
+        for (int i = 0; i < values.getRowCount(); i++)
+            for (int j = 0; j < values.getColCount(); j++)
+                if (i % 3 != 0 || rnd.nextInt(5) > 0)
+                    values.set(i, j, rnd.nextGaussian() + (i % 4) * j * 0.3);
+        int n = values.getRowCount();
+        float[] distances = DistanceKernel.getRowDistances(values, null, 3);
+        for (String linkage : Arrays.asList(HierarchicalClustering.COMPLETE,
+                HierarchicalClustering.AVERAGE, HierarchicalClustering.SINGLE)) {
+            Dendrogram tree = new HierarchicalClustering().withLinkage(linkage)
+                    .cluster(distances.clone(), n);
+            Assert.assertEquals(n, tree.getLeafCount());
+            Assert.assertEquals(2 * n - 2, tree.getRoot());
+            // Newick tree lists leaves in the same order
+            int[] order = tree.getLeafOrder();
+            Assert.assertEquals(toList(order), RowOrdering.getLeafLabels(tree.toNewick()));
+            long[] all = tree.cut(1.0);
+            long[] none = tree.cut(-1.0);
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(1L, all[i]);
+                Assert.assertEquals(i + 1L, none[i]);
+            }
+        }
+        Assert.assertEquals("0;", new HierarchicalClustering().cluster(new float[0], 1).toNewick());
+    }
+
+    private static List<String> toList(int[] values) {
+        List<String> ret = new ArrayList<String>();
+        for (int value : values)
+            ret.add(String.valueOf(value));
+        return ret;
+    }
+}
@@ -0,0 +1,135 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.DistanceKernel;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class DistanceKernelTest extends MatrixTestBase {
+
+    @Test
+    public void testPearsonDistances() throws Exception {
+        Random rnd = new Random(4321);
+        PrimitiveMatrix values = PrimitiveMatrix.create(40, 9, StorageMode.float64);
+        for (int i = 0; i < values.getRowCount(); i++)
+            for (int j = 0; j < values.getColCount(); j++)
+                if (i % 3 != 0 || rnd.nextInt(5) > 0)
+                    values.set(i, j, rnd.nextGaussian() + (i % 4) * j * 0.3);
+        int n = values.getRowCount();
+        float[] distances = DistanceKernel.getRowDistances(values, null, 3);
+        for (int i = 0; i < n; i++)
+            for (int k = i + 1; k < n; k++)
+                assertClose("Distance " + i + ", " + k, 1 - bruteForceCorrelation(
+                        values.getRow(i, null), values.getRow(k, null)),
+                        (double)distances[DistanceKernel.index(n, i, k)], 1e-6);
+    }
+
+    @Test
+    public void testDistanceMetrics() throws Exception {
+        Random rnd = new Random(2468);
+        PrimitiveMatrix values = PrimitiveMatrix.create(30, 11, StorageMode.float64);
+        for (int i = 0; i < values.getRowCount(); i++)
+            for (int j = 0; j < values.getColCount(); j++)
+                if (i % 2 != 0 || rnd.nextInt(4) > 0)
+                    values.set(i, j, i % 5 == 0 ? rnd.nextInt(3) : rnd.nextGaussian() + i * j * 0.1);
+        int n = values.getRowCount();
+        for (String metric : Arrays.asList(DistanceKernel.PEARSON, DistanceKernel.ABS_PEARSON,
+                DistanceKernel.SPEARMAN, DistanceKernel.COSINE, DistanceKernel.EUCLIDEAN,
+                DistanceKernel.MANHATTAN)) {
+            float[] distances = DistanceKernel.getRowDistances(values, metric, 3);
+            for (int i = 0; i < n; i++) {
+                for (int k = i + 1; k < n; k++) {
+                    double expected = bruteForceDistance(values.getRow(i, null),
+                            values.getRow(k, null), metric);
+                    assertClose(metric + " " + i + ", " + k, expected,
+                            (double)distances[DistanceKernel.index(n, i, k)], 1e-5);
+                }
+            }
+        }
+        // Undefined distance is replaced by the largest one
+        PrimitiveMatrix disjoint = PrimitiveMatrix.fromValues(Arrays.asList(
+                Arrays.asList(1.0, null, 2.0), Arrays.asList(null, 3.0, null),
+                Arrays.asList(1.0, 7.0, 5.0)), 3, StorageMode.float64);
+        float[] distances = DistanceKernel.getRowDistances(disjoint, DistanceKernel.EUCLIDEAN, 1);
+        Assert.assertEquals((float)Math.sqrt(13.5), distances[DistanceKernel.index(3, 0, 2)]);
+        Assert.assertEquals((float)Math.sqrt(48), distances[DistanceKernel.index(3, 1, 2)]);
+        Assert.assertEquals(distances[DistanceKernel.index(3, 1, 2)],
+                distances[DistanceKernel.index(3, 0, 1)]);
+        Assert.assertEquals(1.0f, DistanceKernel.getRowDistances(disjoint, null, 1)[0]);
+        try {
+            DistanceKernel.get("canberra");
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("Unsupported distance metric: canberra", ex.getMessage());
+        }
+    }
+
+    private static double bruteForceDistance(double[] v1, double[] v2, String metric) {
+        List<Double> x = new ArrayList<Double>();
+        List<Double> y = new ArrayList<Double>();
+        for (int j = 0; j < v1.length; j++) {
+            if (!Double.isNaN(v1[j]) && !Double.isNaN(v2[j])) {
+                x.add(v1[j]);
+                y.add(v2[j]);
+            }
+        }
+        if (metric.equals(DistanceKernel.EUCLIDEAN) || metric.equals(DistanceKernel.MANHATTAN)) {
+            double sum = 0;
+            for (int j = 0; j < x.size(); j++) {
+                double diff = x.get(j) - y.get(j);
+                sum += metric.equals(DistanceKernel.EUCLIDEAN) ? diff * diff : Math.abs(diff);
+            }
+            sum *= (double)v1.length / x.size();
+            return metric.equals(DistanceKernel.EUCLIDEAN) ? Math.sqrt(sum) : sum;
+        }
+        if (metric.equals(DistanceKernel.COSINE)) {
+            double dot = 0;
+            double norm1 = 0;
+            double norm2 = 0;
+            for (int j = 0; j < x.size(); j++) {
+                dot += x.get(j) * y.get(j);
+                norm1 += x.get(j) * x.get(j);
+                norm2 += y.get(j) * y.get(j);
+            }
+            return norm1 == 0 || norm2 == 0 ? 1 : 1 - dot / Math.sqrt(norm1 * norm2);
+        }
+        if (metric.equals(DistanceKernel.SPEARMAN)) {
+            x = bruteForceRanks(x);
+            y = bruteForceRanks(y);
+        }
+        double[] a = new double[x.size()];
+        double[] b = new double[y.size()];
+        for (int j = 0; j < a.length; j++) {
+            a[j] = x.get(j);
+            b[j] = y.get(j);
+        }
+        double cor = a.length < 2 ? Double.NaN : bruteForceCorrelation(a, b);
+        if (Double.isNaN(cor))
+            return 1;
+        return 1 - (metric.equals(DistanceKernel.ABS_PEARSON) ? Math.abs(cor) : cor);
+    }
+
+    private static List<Double> bruteForceRanks(List<Double> values) {
+        List<Double> ret = new ArrayList<Double>();
+        for (double value : values) {
+            int less = 0;
+            int equal = 0;
+            for (double other : values) {
+                if (other < value)
+                    less++;
+                else if (other == value)
+                    equal++;
+            }
+            ret.add(less + (equal + 1) / 2.0);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,178 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.Dendrogram;
+import us.kbase.kbasefeaturevalues.matrix.DistanceKernel;
+import us.kbase.kbasefeaturevalues.matrix.HierarchicalClustering;
+import us.kbase.kbasefeaturevalues.matrix.MatrixView;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class HierarchicalClusteringTest extends MatrixTestBase {
+
+    @Test
+    public void testHierarchicalClustering() throws Exception {
+        Random rnd = new Random(4321);
+        PrimitiveMatrix values = PrimitiveMatrix.create(40, 9, StorageMode.float64);
+        for (int i = 0; i < values.getRowCount(); i++)
+            for (int j = 0; j < values.getColCount(); j++)
+                if (i % 3 != 0 || rnd.nextInt(5) > 0)
+                    values.set(i, j, rnd.nextGaussian() + (i % 4) * j * 0.3);
+        int n = values.getRowCount();
+        float[] distances = DistanceKernel.getRowDistances(values, null, 3);
+        for (String linkage : Arrays.asList(HierarchicalClustering.COMPLETE,
+                HierarchicalClustering.AVERAGE, HierarchicalClustering.SINGLE)) {
+            Dendrogram tree = new HierarchicalClustering().withLinkage(linkage)
+                    .cluster(distances.clone(), n);
+            // The same merges as closest pair agglomeration gives
+            List<Double> heights = new ArrayList<Double>();
+            Set<String> expected = bruteForceClusters(distances, n, linkage, heights);
+            Assert.assertEquals(linkage, expected, getClusters(tree));
+            for (int t = 0; t < n - 1; t++)
+                assertClose(linkage + " height " + t, heights.get(t), tree.getHeight(n + t),
+                        1e-5);
+            int[] order = tree.getLeafOrder();
+            // Optimal leaf ordering keeps clusters and minimizes cost over all flips
+            Dendrogram ordered = new HierarchicalClustering().withLinkage(linkage)
+                    .withOptimalLeafOrdering(true).cluster(distances.clone(), n);
+            Assert.assertEquals(linkage, expected, getClusters(ordered));
+            double optimal = getOrderCost(ordered.getLeafOrder(), distances, n);
+            Assert.assertTrue(optimal <= getOrderCost(order, distances, n) + 1e-6);
+        }
+        PrimitiveMatrix small = MatrixView.of(values, range(9), null);
+        float[] smallDistances = DistanceKernel.getRowDistances(small, DistanceKernel.PEARSON, 1);
+        for (String linkage : Arrays.asList(HierarchicalClustering.COMPLETE,
+                HierarchicalClustering.SINGLE)) {
+            Dendrogram tree = new HierarchicalClustering().withLinkage(linkage)
+                    .cluster(smallDistances.clone(), 9);
+            Dendrogram ordered = new HierarchicalClustering().withLinkage(linkage)
+                    .withOptimalLeafOrdering(true).cluster(smallDistances.clone(), 9);
+            assertClose(linkage + " optimal cost", bruteForceOptimalCost(tree, smallDistances),
+                    getOrderCost(ordered.getLeafOrder(), smallDistances, 9), 1e-6);
+        }
+        Dendrogram[] trees = new HierarchicalClustering().clusterRowsAndColumns(values, null, 4);
+        Assert.assertEquals(n, trees[0].getLeafCount());
+        Assert.assertEquals(values.getColCount(), trees[1].getLeafCount());
+        Assert.assertEquals(getClusters(trees[1]), getClusters(new HierarchicalClustering()
+                .cluster(DistanceKernel.getColumnDistances(values, null, 1), values.getColCount())));
+        try {
+            new HierarchicalClustering().withLinkage("ward");
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("Unsupported linkage criteria: ward", ex.getMessage());
+        }
+    }
+
+    /**
+     * Merges the closest pair of clusters at every step, returns sets of
+     * leaves of all clusters (as sorted lists) and heights of merges.
+     */
+    private static Set<String> bruteForceClusters(float[] distances, int n, String linkage,
+            List<Double> heights) {
+        List<List<Integer>> clusters = new ArrayList<List<Integer>>();
+        for (int i = 0; i < n; i++)
+            clusters.add(new ArrayList<Integer>(Arrays.asList(i)));
+        Set<String> ret = new HashSet<String>();
+        while (clusters.size() > 1) {
+            int bestA = -1;
+            int bestB = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int a = 0; a < clusters.size(); a++) {
+                for (int b = a + 1; b < clusters.size(); b++) {
+                    double dist = linkage.equals(HierarchicalClustering.SINGLE) ?
+                            Double.POSITIVE_INFINITY : 0;
+                    for (int i : clusters.get(a)) {
+                        for (int k : clusters.get(b)) {
+                            double d = distances[DistanceKernel.index(n, i, k)];
+                            if (linkage.equals(HierarchicalClustering.SINGLE))
+                                dist = Math.min(dist, d);
+                            else if (linkage.equals(HierarchicalClustering.COMPLETE))
+                                dist = Math.max(dist, d);
+                            else
+                                dist += d / clusters.get(a).size() / clusters.get(b).size();
+                        }
+                    }
+                    if (dist < best) {
+                        best = dist;
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+            List<Integer> merged = clusters.remove(bestB);
+            merged.addAll(clusters.remove(bestA));
+            Collections.sort(merged);
+            clusters.add(merged);
+            ret.add(merged.toString());
+            heights.add(best);
+        }
+        return ret;
+    }
+
+    private static Set<String> getClusters(Dendrogram tree) {
+        Set<String> ret = new HashSet<String>();
+        for (int node = tree.getLeafCount(); node <= tree.getRoot(); node++)
+            ret.add(getLeaves(tree, node, 0L, new ArrayList<Integer>()).toString());
+        return ret;
+    }
+
+    /**
+     * Collects leaves of node, children of internal node n + t are flipped
+     * if bit t of flips is set (leaves are sorted if flips is 0).
+     */
+    private static List<Integer> getLeaves(Dendrogram tree, int node, long flips,
+            List<Integer> ret) {
+        if (tree.isLeaf(node)) {
+            ret.add(node);
+            return ret;
+        }
+        List<Integer> left = getLeaves(tree, tree.getLeft(node), flips, new ArrayList<Integer>());
+        List<Integer> right = getLeaves(tree, tree.getRight(node), flips,
+                new ArrayList<Integer>());
+        if (flips == 0) {
+            ret.addAll(left);
+            ret.addAll(right);
+            Collections.sort(ret);
+        } else if ((flips >> (node - tree.getLeafCount()) & 1) == 0) {
+            ret.addAll(left);
+            ret.addAll(right);
+        } else {
+            ret.addAll(right);
+            ret.addAll(left);
+        }
+        return ret;
+    }
+
+    private static double bruteForceOptimalCost(Dendrogram tree, float[] distances) {
+        int n = tree.getLeafCount();
+        double ret = Double.POSITIVE_INFINITY;
+        // Bit n - 1 is always set to mark flips as not sorting
+        for (long flips = 0; flips < 1L << (n - 1); flips++) {
+            List<Integer> leaves = getLeaves(tree, tree.getRoot(), flips | 1L << (n - 1),
+                    new ArrayList<Integer>());
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++)
+                order[i] = leaves.get(i);
+            ret = Math.min(ret, getOrderCost(order, distances, n));
+        }
+        return ret;
+    }
+
+    private static double getOrderCost(int[] order, float[] distances, int n) {
+        double ret = 0;
+        for (int pos = 1; pos < order.length; pos++)
+            ret += distances[DistanceKernel.index(n, order[pos - 1], order[pos])];
+        return ret;
+    }
+}
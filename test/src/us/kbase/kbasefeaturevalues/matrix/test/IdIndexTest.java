@@ -0,0 +1,52 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.IdIndex;
+
+public class IdIndexTest {
+
+    @Test
+    public void testIdIndex() throws Exception {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++)
+            ids.add("gene" + (i * 7 % 1000));
+        ids.add("Gene5");
+        ids.add("gene3");
+        IdIndex index = IdIndex.build("row", ids);
+        Assert.assertEquals(1002, index.size());
+        for (int i = 0; i < 1000; i++)
+            Assert.assertEquals(i, index.indexOf(ids.get(i)));
+        // The first position of duplicated id is used
+        Assert.assertEquals(ids.indexOf("gene3"), index.indexOf("gene3"));
+        Assert.assertEquals(1000, index.indexOf("Gene5"));
+        Assert.assertEquals(-1, index.indexOf("gene1000"));
+        Assert.assertEquals(-1, index.indexOf(null));
+        int[] indeces = index.indecesOf(Arrays.asList("gene14", "gene0", "Gene5"));
+        Assert.assertEquals("[2, 0, 1000]", Arrays.toString(indeces));
+        try {
+            index.indecesOf(Arrays.asList("gene1", "x", "gene2", "y"));
+            Assert.fail("Unknown ids should be reported");
+        } catch (IdIndex.UnknownIdsException ex) {
+            Assert.assertEquals(Arrays.asList("x", "y"), ex.getUnknownIds());
+            Assert.assertEquals("Unknown row ids (2 of 4): x, y", ex.getMessage());
+        }
+        // Prefix search is case-insensitive and goes in order of ids
+        List<String> found = new ArrayList<String>();
+        for (int pos : index.findByPrefix("GENE99", -1))
+            found.add(index.getId(pos));
+        Assert.assertEquals(Arrays.asList("gene99", "gene990", "gene991", "gene992",
+                "gene993", "gene994", "gene995", "gene996", "gene997", "gene998", "gene999"),
+                found);
+        Assert.assertEquals(3, index.findByPrefix("gene5", 3).length);
+        Assert.assertEquals(112, index.findByPrefix("gene5", -1).length);
+        Assert.assertEquals(0, index.findByPrefix("genf", -1).length);
+        Assert.assertEquals(1002, index.findByPrefix("", -1).length);
+    }
+}
@@ -0,0 +1,56 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import us.kbase.common.service.UObject;
+import us.kbase.kbasefeaturevalues.ExpressionMatrix;
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.matrix.MappedMatrix;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFactory;
+import us.kbase.kbasefeaturevalues.matrix.MatrixStreamReader;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
+
+public class MappedMatrixTest extends MatrixTestBase {
+
+    @Test
+    public void testMappedMatrix() throws Exception {
+        File tempDir = Files.createTempDirectory("mapped_matrix").toFile();
+        try {
+            for (FloatMatrix2D data : loadTestMatrices()) {
+                for (StorageMode mode : StorageMode.values()) {
+                    PrimitiveMatrix expected = PrimitiveMatrix.fromFloatMatrix2D(data, mode);
+                    MatrixFactory factory = new MatrixFactory(mode, tempDir, 0);
+                    String json = UObject.getMapper().writeValueAsString(
+                            new ExpressionMatrix().withType("level").withData(data));
+                    StreamedMatrix<ExpressionMatrix> loaded = MatrixStreamReader.read(
+                            UObject.getMapper().getFactory().createParser(json),
+                            ExpressionMatrix.class, factory);
+                    PrimitiveMatrix actual = loaded.getValues();
+                    Assert.assertTrue(actual instanceof MappedMatrix);
+                    Assert.assertEquals(mode, actual.getStorageMode());
+                    Assert.assertEquals("level", loaded.getObject().getType());
+                    Assert.assertEquals(data.getRowIds(), loaded.getObject().getData().getRowIds());
+                    Assert.assertEquals(data.getColIds(), loaded.getObject().getData().getColIds());
+                    Assert.assertNull(loaded.getObject().getData().getValues());
+                    Assert.assertEquals(expected.toValues(), actual.toValues());
+                    checkStats(FloatMatrix2DUtil.getRowsStat(expected, null, null, false),
+                            FloatMatrix2DUtil.getRowsStat(actual, null, null, false), 0);
+                    ((MappedMatrix)actual).close();
+                }
+            }
+            // Mapped files are unlinked right after creation
+            Assert.assertEquals(0, tempDir.list().length);
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.MatrixCache;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFile;
+import us.kbase.kbasefeaturevalues.matrix.MatrixSummary;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class MatrixCacheTest {
+
+    @Test
+    public void testGetAndPut() throws Exception {
+        File tempDir = Files.createTempDirectory("matrix_cache").toFile();
+        try {
+            List<String> rowIds = Arrays.asList("g1", "g2", "\u03b1-gene");
+            List<String> colIds = Arrays.asList("c1", "c2");
+            MatrixCache cache = new MatrixCache(tempDir);
+            Assert.assertNull(cache.get("ws/matrix"));
+            Assert.assertNull(cache.get("1/2/3"));
+            PrimitiveMatrix values = PrimitiveMatrix.fromValues(Arrays.<List<Double>>asList(
+                    Arrays.<Double>asList(1.0, null), Arrays.asList(2.0, 3.0),
+                    Arrays.<Double>asList(null, null)),
+                    2, StorageMode.float32);
+            cache.put("1/2/3", rowIds, colIds, values);
+            MatrixFile mf = cache.get("1/2/3");
+            Assert.assertEquals(values.toValues(), mf.getValues().toValues());
+            Assert.assertTrue(mf.isMissing(0, 1));
+            Assert.assertFalse(mf.isMissing(1, 0));
+            Assert.assertNull(mf.getRowStats());
+            mf.close();
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+
+    @Test
+    public void testTruncatedEntries() throws Exception {
+        File tempDir = Files.createTempDirectory("matrix_cache").toFile();
+        try {
+            List<String> rowIds = new ArrayList<String>();
+            for (int i = 0; i < 100; i++)
+                rowIds.add("gene" + i);
+            List<String> colIds = Arrays.asList("c1", "c2", "c3");
+            PrimitiveMatrix values = PrimitiveMatrix.create(rowIds.size(), colIds.size(),
+                    StorageMode.float64);
+            MatrixCache cache = new MatrixCache(tempDir);
+            // Files cut at any point are dropped from cache instead of failing
+            for (boolean summary : new boolean[] {false, true}) {
+                File file = summary ? cache.getSummaryFile("1/1/1") : cache.getFile("1/1/1");
+                cache.put("1/1/1", rowIds, colIds, values);
+                cache.putSummary("1/1/1", MatrixSummary.build(values));
+                for (long size = file.length(); size > 0; size /= 3) {
+                    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                    try {
+                        raf.setLength(size - 1);
+                    } finally {
+                        raf.close();
+                    }
+                    if (summary) {
+                        Assert.assertNull(cache.getSummary("1/1/1"));
+                    } else {
+                        Assert.assertNull(cache.get("1/1/1"));
+                    }
+                    Assert.assertFalse(file.exists());
+                    Assert.assertEquals(0, cache.getTotalSize());
+                    cache.put("1/1/1", rowIds, colIds, values);
+                    cache.putSummary("1/1/1", MatrixSummary.build(values));
+                }
+            }
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+
+    @Test
+    public void testCacheEviction() throws Exception {
+        File tempDir = Files.createTempDirectory("matrix_cache").toFile();
+        try {
+            List<String> rowIds = new ArrayList<String>();
+            for (int i = 0; i < 100; i++)
+                rowIds.add("gene" + i);
+            List<String> colIds = Arrays.asList("c1", "c2", "c3");
+            PrimitiveMatrix values = PrimitiveMatrix.create(rowIds.size(), colIds.size(),
+                    StorageMode.float64);
+            MatrixCache cache = new MatrixCache(tempDir, Long.MAX_VALUE);
+            cache.put("1/1/1", rowIds, colIds, values);
+            long matrixSize = cache.getTotalSize();
+            cache.putSummary("1/1/1", MatrixSummary.build(values));
+            long entrySize = cache.getTotalSize();
+            Assert.assertEquals(cache.getFile("1/1/1").length() +
+                    cache.getSummaryFile("1/1/1").length(), entrySize);
+            // Limit fits two matrices, the least recently used one is removed
+            cache = new MatrixCache(tempDir, entrySize * 2 + entrySize / 2);
+            Assert.assertEquals(entrySize, cache.getTotalSize());
+            cache.put("1/2/1", rowIds, colIds, values);
+            cache.putSummary("1/2/1", MatrixSummary.build(values));
+            cache.get("1/1/1").close();
+            cache.put("1/3/1", rowIds, colIds, values);
+            cache.putSummary("1/3/1", MatrixSummary.build(values));
+            Assert.assertEquals(entrySize * 2, cache.getTotalSize());
+            Assert.assertNull(cache.get("1/2/1"));
+            Assert.assertNull(cache.getSummary("1/2/1"));
+            Assert.assertFalse(cache.getSummaryFile("1/2/1").exists());
+            MatrixFile mf = cache.get("1/1/1");
+            Assert.assertEquals(rowIds, mf.getRowIds());
+            // Removal of mapped file doesn't affect open container
+            cache.remove("1/1/1");
+            Assert.assertEquals(entrySize, cache.getTotalSize());
+            Assert.assertEquals(values.toValues(), mf.getValues().toValues());
+            mf.close();
+            Assert.assertNotNull(cache.getSummary("1/3/1"));
+            // Matrix exceeding the limit isn't kept
+            cache = new MatrixCache(tempDir, matrixSize / 2);
+            Assert.assertEquals(0, cache.getTotalSize());
+            cache.put("1/4/1", rowIds, colIds, values);
+            Assert.assertNull(cache.get("1/4/1"));
+            Assert.assertEquals(0, tempDir.listFiles()[0].list().length);
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+}
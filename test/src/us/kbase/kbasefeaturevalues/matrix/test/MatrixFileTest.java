@@ -0,0 +1,77 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.ItemStat;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFile;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+
+public class MatrixFileTest extends MatrixTestBase {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File tempDir = Files.createTempDirectory("matrix_file").toFile();
+        try {
+            for (int i = 2; i <= 6; i++) {
+                File inputFile = ExpressionUploader.findTabFile(new File("test/data/upload" + i));
+                FloatMatrix2D data = ExpressionUploader.parse(null, inputFile, "Simple",
+                        null, false, null, null, null).getData();
+                for (StorageMode mode : StorageMode.values()) {
+                    PrimitiveMatrix values = PrimitiveMatrix.fromFloatMatrix2D(data, mode);
+                    File file = new File(tempDir, "matrix" + i + "_" + mode + "." +
+                            MatrixFile.EXTENSION);
+                    MatrixFile.write(file, data.getRowIds(), data.getColIds(), values, mode, true);
+                    MatrixFile mf = MatrixFile.open(file);
+                    try {
+                        Assert.assertEquals(data.getRowIds(), mf.getRowIds());
+                        Assert.assertEquals(data.getColIds(), mf.getColIds());
+                        Assert.assertEquals(mode, mf.getValues().getStorageMode());
+                        Assert.assertEquals(values.toValues(), mf.getValues().toValues());
+                        for (int row = 0; row < values.getRowCount(); row++)
+                            for (int col = 0; col < values.getColCount(); col++)
+                                Assert.assertEquals(values.isMissing(row, col),
+                                        mf.isMissing(row, col));
+                        List<ItemStat> expected = FloatMatrix2DUtil.getRowsStat(values, null,
+                                null, false);
+                        Assert.assertEquals(expected.toString(), mf.getRowStats().toString());
+                    } finally {
+                        mf.close();
+                    }
+                }
+            }
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+
+    @Test
+    public void testIdsOnly() throws Exception {
+        File tempDir = Files.createTempDirectory("matrix_file").toFile();
+        try {
+            List<String> rowIds = Arrays.asList("g1", "g2", "\u03b1-gene");
+            List<String> colIds = Arrays.asList("c1", "c2");
+            File file = new File(tempDir, "ids." + MatrixFile.EXTENSION);
+            MatrixFile.write(file, rowIds, colIds, null, null, true);
+            MatrixFile mf = MatrixFile.open(file);
+            Assert.assertEquals(rowIds, mf.getRowIds());
+            Assert.assertEquals(colIds, mf.getColIds());
+            Assert.assertFalse(mf.hasValues());
+            Assert.assertNull(mf.getRowStats());
+            mf.close();
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+}
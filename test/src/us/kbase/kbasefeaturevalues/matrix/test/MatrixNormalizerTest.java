@@ -0,0 +1,111 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.MatrixNormalizer;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class MatrixNormalizerTest extends MatrixTestBase {
+
+    @Test
+    public void testNormalization() throws Exception {
+        Random rnd = new Random(1234);
+        PrimitiveMatrix orig = PrimitiveMatrix.create(3000, 12, StorageMode.float64);
+        for (int i = 0; i < orig.getRowCount(); i++)
+            for (int j = 0; j < orig.getColCount(); j++)
+                if (rnd.nextInt(10) > 0)
+                    orig.set(i, j, Math.exp(rnd.nextGaussian() + j * 0.1));
+        // Fused chain gives the same result as separate steps
+        String[] chains = {"log2,col_zscore,row_median_center", "ln,row_zscore,col_mean_center",
+                "log10,quantile,row_mean_center", "col_median_center,row_zscore,col_zscore",
+                "log2,missing_col_mean,row_mean_center"};
+        for (String chain : chains) {
+            List<String> steps = MatrixNormalizer.parseSteps(chain);
+            PrimitiveMatrix fused = copy(orig);
+            MatrixNormalizer.apply(fused, steps, null, 3);
+            PrimitiveMatrix separate = copy(orig);
+            for (String step : steps)
+                MatrixNormalizer.apply(separate, Arrays.asList(step), null, 1);
+            for (int i = 0; i < orig.getRowCount(); i++)
+                for (int j = 0; j < orig.getColCount(); j++)
+                    assertClose(chain + " [" + i + ", " + j + "]", separate.get(i, j),
+                            fused.get(i, j), FLOAT64_TOLERANCE);
+        }
+        PrimitiveMatrix zscore = copy(orig);
+        MatrixNormalizer.apply(zscore, Arrays.asList(MatrixNormalizer.COL_ZSCORE), null);
+        PrimitiveMatrix median = copy(orig);
+        MatrixNormalizer.apply(median, Arrays.asList(MatrixNormalizer.COL_MEDIAN_CENTER), null);
+        PrimitiveMatrix quantile = copy(orig);
+        MatrixNormalizer.apply(quantile, Arrays.asList(MatrixNormalizer.QUANTILE), null);
+        double[] prevQuantiles = null;
+        for (int j = 0; j < orig.getColCount(); j++) {
+            double[] col = zscore.getColumn(j, null);
+            assertClose("Mean " + j, 0.0, mean(col), FLOAT64_TOLERANCE);
+            double sq = 0;
+            int count = 0;
+            for (double v : col) {
+                if (!Double.isNaN(v)) {
+                    sq += v * v;
+                    count++;
+                }
+            }
+            assertClose("Std " + j, 1.0, Math.sqrt(sq / (count - 1)), FLOAT64_TOLERANCE);
+            Assert.assertEquals(0.0, sortedMedian(median.getColumn(j, null)), FLOAT64_TOLERANCE);
+            double[] quantiles = new double[5];
+            double[] sorted = compactSorted(quantile.getColumn(j, null));
+            for (int q = 0; q < quantiles.length; q++)
+                quantiles[q] = sorted[(sorted.length - 1) * q / (quantiles.length - 1)];
+            if (prevQuantiles != null)
+                for (int q = 0; q < quantiles.length; q++)
+                    Assert.assertEquals(prevQuantiles[q], quantiles[q], 0.05);
+            prevQuantiles = quantiles;
+        }
+        for (int size = 1; size < 50; size++) {
+            double[] data = new double[size];
+            for (int i = 0; i < size; i++)
+                data[i] = rnd.nextInt(10);
+            double expected = sortedMedian(data.clone());
+            Assert.assertEquals(expected, MatrixNormalizer.median(data, size), 0.0);
+        }
+        Assert.assertEquals("zscore", MatrixNormalizer.getRowNormalization(
+                MatrixNormalizer.parseSteps("row_mean_center, row_zscore")));
+        Assert.assertEquals("quantile", MatrixNormalizer.getColNormalization(
+                MatrixNormalizer.parseSteps("col_zscore,quantile")));
+        try {
+            MatrixNormalizer.parseSteps("log2,normalize");
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("Unsupported transformation type: normalize", ex.getMessage());
+        }
+        try {
+            MatrixNormalizer.apply(copy(median), Arrays.asList(MatrixNormalizer.LOG2), null);
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith(
+                    "Logarithm can't be applied to value"));
+        }
+    }
+
+    private static double[] compactSorted(double[] values) {
+        int count = 0;
+        for (double v : values)
+            if (!Double.isNaN(v))
+                values[count++] = v;
+        double[] ret = Arrays.copyOf(values, count);
+        Arrays.sort(ret);
+        return ret;
+    }
+
+    private static double sortedMedian(double[] values) {
+        double[] sorted = compactSorted(values);
+        int k = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[k] : (sorted[k - 1] + sorted[k]) / 2;
+    }
+}
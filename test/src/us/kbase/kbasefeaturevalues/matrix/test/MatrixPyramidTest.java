@@ -0,0 +1,69 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.MatrixPyramid;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class MatrixPyramidTest extends MatrixTestBase {
+
+    @Test
+    public void testPyramid() throws Exception {
+        Random rnd = new Random(4321);
+        PrimitiveMatrix values = PrimitiveMatrix.create(77, 23, StorageMode.float64);
+        for (int i = 0; i < values.getRowCount(); i++)
+            for (int j = 0; j < values.getColCount(); j++)
+                values.set(i, j, rnd.nextInt(5) == 0 || i == 70 ? Double.NaN :
+                    rnd.nextGaussian());
+        Assert.assertEquals(3, MatrixPyramid.getLevelFor(77, 10));
+        Assert.assertEquals(0, MatrixPyramid.getLevelFor(77, 77));
+        MatrixPyramid pyramid = new MatrixPyramid(77, 23, 2);
+        // Coarser levels are aggregated from finer ones built before
+        int[][] levels = {{0, 0}, {1, 2}, {3, 2}, {2, 4}, {6, 5}};
+        for (int[] l : levels) {
+            MatrixPyramid.Level level = pyramid.getLevel(l[0], l[1], values);
+            int rowBlock = 1 << l[0];
+            int colBlock = 1 << l[1];
+            Assert.assertEquals((77 + rowBlock - 1) / rowBlock, level.getRowBlocks());
+            Assert.assertEquals((23 + colBlock - 1) / colBlock, level.getColBlocks());
+            double[] means = level.getMeans();
+            double[] mins = level.getMins();
+            double[] maxs = level.getMaxs();
+            double[] missing = level.getMissingFractions();
+            for (int bi = 0, pos = 0; bi < level.getRowBlocks(); bi++) {
+                for (int bj = 0; bj < level.getColBlocks(); bj++, pos++) {
+                    double sum = 0;
+                    double min = Double.NaN;
+                    double max = Double.NaN;
+                    int present = 0;
+                    int cells = 0;
+                    for (int i = bi * rowBlock; i < Math.min(77, (bi + 1) * rowBlock); i++) {
+                        for (int j = bj * colBlock; j < Math.min(23, (bj + 1) * colBlock); j++) {
+                            cells++;
+                            double value = values.get(i, j);
+                            if (Double.isNaN(value))
+                                continue;
+                            sum += value;
+                            present++;
+                            min = present == 1 ? value : Math.min(min, value);
+                            max = present == 1 ? value : Math.max(max, value);
+                        }
+                    }
+                    String msg = Arrays.toString(l) + " [" + bi + ", " + bj + "]";
+                    assertClose(msg, present == 0 ? Double.NaN : sum / present, means[pos],
+                            FLOAT32_TOLERANCE);
+                    assertClose(msg, min, mins[pos], FLOAT32_TOLERANCE);
+                    assertClose(msg, max, maxs[pos], FLOAT32_TOLERANCE);
+                    assertClose(msg, 1.0 - (double)present / cells, missing[pos], 1e-12);
+                }
+            }
+        }
+        Assert.assertSame(pyramid.getLevel(1, 2, null), pyramid.getLevel(1, 2, null));
+    }
+}
@@ -0,0 +1,36 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.common.service.UObject;
+import us.kbase.kbasefeaturevalues.ExpressionMatrix;
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
+
+public class MatrixStreamWriterTest extends MatrixTestBase {
+
+    @Test
+    public void testStreamWriter() throws Exception {
+        for (FloatMatrix2D data : loadTestMatrices()) {
+            Map<String, String> featureMapping = new LinkedHashMap<String, String>();
+            featureMapping.put(data.getRowIds().get(0), "feature1");
+            ExpressionMatrix matrix = new ExpressionMatrix().withType("level").withScale("1.0")
+                    .withFeatureMapping(featureMapping).withData(data);
+            String expected = UObject.getMapper().writeValueAsString(matrix);
+            FloatMatrix2D idsOnly = new FloatMatrix2D().withRowIds(data.getRowIds())
+                    .withColIds(data.getColIds());
+            StreamedMatrix<ExpressionMatrix> streamed = new StreamedMatrix<ExpressionMatrix>(
+                    new ExpressionMatrix().withType("level").withScale("1.0")
+                    .withFeatureMapping(featureMapping).withData(idsOnly),
+                    PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float64));
+            Assert.assertEquals(expected, UObject.getMapper().writeValueAsString(streamed));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.GetMatrixSetStatParams;
+import us.kbase.kbasefeaturevalues.ItemSetStat;
+import us.kbase.kbasefeaturevalues.matrix.MatrixCache;
+import us.kbase.kbasefeaturevalues.matrix.MatrixSummary;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+
+public class MatrixSummaryTest extends MatrixTestBase {
+
+    @Test
+    public void testSummary() throws Exception {
+        File tempDir = Files.createTempDirectory("matrix_summary").toFile();
+        try {
+            for (int i = 2; i <= 6; i++) {
+                File inputFile = ExpressionUploader.findTabFile(new File("test/data/upload" + i));
+                FloatMatrix2D data = ExpressionUploader.parse(null, inputFile, "Simple",
+                        null, false, null, null, null).getData();
+                PrimitiveMatrix values = PrimitiveMatrix.fromFloatMatrix2D(data,
+                        StorageMode.float64);
+                MatrixCache cache = new MatrixCache(tempDir);
+                String ref = "1/" + i + "/1";
+                cache.putSummary(ref, MatrixSummary.build(values));
+                MatrixSummary summary = cache.getSummary(ref);
+                checkStats(FloatMatrix2DUtil.getRowsStat(values, null, null, false),
+                        summary.getRowsStat(null), FLOAT64_TOLERANCE);
+                checkStats(FloatMatrix2DUtil.getColumnsStat(values, null, null, false),
+                        summary.getColumnsStat(null), FLOAT64_TOLERANCE);
+                List<Long> rows = Arrays.asList(0L, (long)values.getRowCount() - 1);
+                List<Long> allCols = new ArrayList<Long>();
+                for (long j = 0; j < values.getColCount(); j++)
+                    allCols.add(j);
+                Assert.assertTrue(MatrixSummary.isFullRange(allCols, values.getColCount()));
+                GetMatrixSetStatParams params = new GetMatrixSetStatParams()
+                    .withItemIndecesFor(rows).withItemIndecesOn(allCols).withFlAvgs(1L)
+                    .withFlMins(1L).withFlMaxs(1L).withFlStds(1L).withFlMissingValues(1L);
+                ItemSetStat expected = FloatMatrix2DUtil.getRowsSetStat(values, params);
+                ItemSetStat actual = summary.getRowsSetStat(params);
+                Assert.assertEquals(expected.getMins(), actual.getMins());
+                Assert.assertEquals(expected.getMaxs(), actual.getMaxs());
+                Assert.assertEquals(expected.getMissingValues(), actual.getMissingValues());
+                for (int j = 0; j < rows.size(); j++) {
+                    Assert.assertEquals(expected.getAvgs().get(j), actual.getAvgs().get(j),
+                            FLOAT64_TOLERANCE);
+                    Assert.assertEquals(expected.getStds().get(j), actual.getStds().get(j),
+                            FLOAT64_TOLERANCE);
+                }
+            }
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import us.kbase.kbasefeaturevalues.ExpressionMatrix;
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.ItemStat;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+
+/**
+ * Test matrices and assertions shared by tests of matrix kernels.
+ */
+public abstract class MatrixTestBase {
+    protected static final double FLOAT64_TOLERANCE = 1e-9;
+    protected static final double FLOAT32_TOLERANCE = 1e-5;
+
+    protected static List<FloatMatrix2D> loadTestMatrices() throws Exception {
+        List<FloatMatrix2D> ret = new ArrayList<FloatMatrix2D>();
+        File moFile = new File("test/data/upload1",
+                "Desulfovibrio_vulgaris_Hildenborough_microarray_log_level_data.txt");
+        ret.add(ExpressionUploader.parseMicrobsOnlineFormat(new BufferedReader(
+                new FileReader(moFile))).getData());
+        for (int i = 2; i <= 6; i++) {
+            File inputFile = ExpressionUploader.findTabFile(new File("test/data/upload" + i));
+            ExpressionMatrix matrix = ExpressionUploader.parse(null, inputFile, "Simple",
+                    null, false, null, null, null);
+            ret.add(matrix.getData());
+        }
+        return ret;
+    }
+
+    protected static void checkStats(List<ItemStat> expected, List<ItemStat> actual,
+            double tolerance) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ItemStat exp = expected.get(i);
+            ItemStat act = actual.get(i);
+            Assert.assertEquals(exp.getIndexFor(), act.getIndexFor());
+            Assert.assertEquals(exp.getSize(), act.getSize());
+            Assert.assertEquals(exp.getMissingValues(), act.getMissingValues());
+            assertClose("Avg " + i, exp.getAvg(), act.getAvg(), tolerance);
+            assertClose("Min " + i, exp.getMin(), act.getMin(), tolerance);
+            assertClose("Max " + i, exp.getMax(), act.getMax(), tolerance);
+            assertClose("Std " + i, exp.getStd(), act.getStd(), tolerance);
+        }
+    }
+
+    protected static void assertClose(String message, Double expected, Double actual,
+            double tolerance) {
+        if (expected == null || actual == null) {
+            Assert.assertEquals(message, expected, actual);
+            return;
+        }
+        if (Double.isNaN(expected) || Double.isNaN(actual)) {
+            Assert.assertEquals(message, Double.isNaN(expected), Double.isNaN(actual));
+            return;
+        }
+        double scale = Math.max(1.0, Math.abs(expected));
+        if (Math.abs(expected - actual) > tolerance * scale)
+            Assert.fail(message + ": expected " + expected + " but was " + actual);
+    }
+
+    protected static int[] range(int size) {
+        int[] ret = new int[size];
+        for (int i = 0; i < size; i++)
+            ret[i] = i;
+        return ret;
+    }
+
+    protected static PrimitiveMatrix copy(PrimitiveMatrix values) {
+        return PrimitiveMatrix.fromValues(values.toValues(), values.getColCount(),
+                StorageMode.float64);
+    }
+
+    protected static double mean(double[] values) {
+        double sum = 0;
+        int count = 0;
+        for (double value : values) {
+            if (!Double.isNaN(value)) {
+                sum += value;
+                count++;
+            }
+        }
+        return sum / count;
+    }
+
+    protected static double bruteForceCorrelation(double[] v1, double[] v2) {
+        List<double[]> pairs = new ArrayList<double[]>();
+        for (int j = 0; j < v1.length; j++)
+            if (!Double.isNaN(v1[j]) && !Double.isNaN(v2[j]))
+                pairs.add(new double[] {v1[j], v2[j]});
+        double[] x = new double[pairs.size()];
+        double[] y = new double[pairs.size()];
+        for (int j = 0; j < x.length; j++) {
+            x[j] = pairs.get(j)[0];
+            y[j] = pairs.get(j)[1];
+        }
+        double mx = mean(x);
+        double my = mean(y);
+        double cov = 0;
+        double vx = 0;
+        double vy = 0;
+        for (int j = 0; j < x.length; j++) {
+            cov += (x[j] - mx) * (y[j] - my);
+            vx += (x[j] - mx) * (x[j] - mx);
+            vy += (y[j] - my) * (y[j] - my);
+        }
+        return cov / Math.sqrt(vx * vy);
+    }
+}
@@ -0,0 +1,89 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFactory;
+import us.kbase.kbasefeaturevalues.matrix.MatrixNormalizer;
+import us.kbase.kbasefeaturevalues.matrix.MatrixView;
+import us.kbase.kbasefeaturevalues.matrix.MissingBitmap;
+import us.kbase.kbasefeaturevalues.matrix.MissingValueImputer;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class MatrixViewTest extends MatrixTestBase {
+
+    @Test
+    public void testMatrixView() throws Exception {
+        Random rnd = new Random(4646);
+        int rowCount = 60;
+        int colCount = 40;
+        PrimitiveMatrix values = PrimitiveMatrix.create(rowCount, colCount, StorageMode.float64);
+        for (int i = 0; i < rowCount; i++)
+            for (int j = 0; j < colCount; j++)
+                if (rnd.nextInt(8) > 0)
+                    values.set(i, j, rnd.nextGaussian() + i % 4);
+        int[] rows = {3, 17, 5, 44, 59, 0, 21};
+        MatrixFactory factory = new MatrixFactory(StorageMode.float64);
+        // Sparse columns are read by cell, dense ones through row of parent
+        for (int[] cols : new int[][] {{1, 30, 7}, range(colCount / 2), null}) {
+            MatrixView view = MatrixView.of(values, rows, cols);
+            PrimitiveMatrix copy = view.materialize(factory);
+            int viewCols = cols == null ? colCount : cols.length;
+            Assert.assertEquals(rows.length, view.getRowCount());
+            Assert.assertEquals(viewCols, view.getColCount());
+            for (int i = 0; i < rows.length; i++) {
+                double[] row = view.getRow(i, null);
+                for (int j = 0; j < viewCols; j++) {
+                    double expected = values.get(rows[i], cols == null ? j : cols[j]);
+                    Assert.assertEquals(expected, copy.get(i, j), 0);
+                    Assert.assertEquals(expected, row[j], 0);
+                }
+            }
+            checkStats(FloatMatrix2DUtil.getRowsStat(copy, null, null, false),
+                    FloatMatrix2DUtil.getRowsStat(view, null, null, false), FLOAT64_TOLERANCE);
+            checkStats(FloatMatrix2DUtil.getColumnsStat(copy, null, null, false),
+                    FloatMatrix2DUtil.getColumnsStat(view, null, null, false), FLOAT64_TOLERANCE);
+            double[][] expected = FloatMatrix2DUtil.getRowsCorrelation(copy);
+            double[][] actual = FloatMatrix2DUtil.getRowsCorrelation(values, rows,
+                    cols == null ? range(colCount) : cols);
+            for (int i = 0; i < rows.length; i++)
+                for (int k = 0; k < rows.length; k++)
+                    Assert.assertEquals(expected[i][k], actual[i][k], FLOAT64_TOLERANCE);
+        }
+        // View of view refers to the original matrix and writes through
+        MatrixView inner = MatrixView.of(MatrixView.of(values, rows, null), new int[] {1, 3},
+                new int[] {2});
+        Assert.assertSame(values, inner.getParent());
+        Assert.assertEquals("[17, 44]", Arrays.toString(inner.getRowIndeces()));
+        values.set(17, 2, 1.5);
+        values.set(44, 2, Double.NaN);
+        MissingValueImputer.impute(inner, MissingValueImputer.GLOBAL_MEAN, null);
+        Assert.assertEquals(1.5, values.get(44, 2), 0);
+        // Copy pays off only for many passes over scattered cells
+        MatrixView scattered = MatrixView.of(values, rows, new int[] {1, 30, 7});
+        Assert.assertFalse(scattered.isCopyWorthIt(1));
+        Assert.assertTrue(scattered.isCopyWorthIt(10));
+        Assert.assertSame(scattered, scattered.prepare(1, factory));
+        Assert.assertFalse(MatrixView.of(values, rows, null).isCopyWorthIt(100));
+        Assert.assertSame(values, MatrixView.prepare(values, 100));
+        // Multi-pass kernels work on copy of view and write results into parent
+        Assert.assertTrue(scattered.isCopyWorthIt(2));
+        PrimitiveMatrix expected = scattered.materialize(factory);
+        MissingValueImputer.fillKnn(expected, MissingBitmap.build(expected), 2, 1);
+        MatrixNormalizer.apply(expected, Arrays.asList(MatrixNormalizer.COL_ZSCORE,
+                MatrixNormalizer.QUANTILE), null, 1);
+        MissingValueImputer.fillKnn(scattered, MissingBitmap.build(scattered), 2, 1);
+        MatrixNormalizer.apply(scattered, Arrays.asList(MatrixNormalizer.COL_ZSCORE,
+                MatrixNormalizer.QUANTILE), null, 1);
+        for (int i = 0; i < rows.length; i++)
+            for (int j = 0; j < scattered.getColCount(); j++)
+                Assert.assertEquals(expected.get(i, j), values.get(rows[i],
+                        scattered.getColIndeces()[j]), FLOAT64_TOLERANCE);
+    }
+}
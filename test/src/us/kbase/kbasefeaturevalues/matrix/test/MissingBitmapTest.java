@@ -0,0 +1,37 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.matrix.MissingBitmap;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class MissingBitmapTest extends MatrixTestBase {
+
+    @Test
+    public void testMissingPositions() throws Exception {
+        for (FloatMatrix2D data : loadTestMatrices()) {
+            PrimitiveMatrix orig = PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float64);
+            MissingBitmap missing = MissingBitmap.build(orig);
+            int rowCount = orig.getRowCount();
+            int colCount = orig.getColCount();
+            for (int i = 0; i < rowCount; i++) {
+                int j = -1;
+                int rowMissing = 0;
+                for (int col = 0; col < colCount; col++) {
+                    Assert.assertEquals(orig.isMissing(i, col), missing.isMissing(i, col));
+                    if (orig.isMissing(i, col)) {
+                        j = missing.nextMissing(i, j + 1);
+                        rowMissing++;
+                        Assert.assertEquals(col, j);
+                    }
+                }
+                Assert.assertEquals(-1, missing.nextMissing(i, j + 1));
+                Assert.assertEquals(rowMissing, missing.getMissingCount(i));
+            }
+        }
+    }
+}
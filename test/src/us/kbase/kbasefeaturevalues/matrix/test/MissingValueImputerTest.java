@@ -0,0 +1,96 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.MatrixUtil;
+import us.kbase.kbasefeaturevalues.matrix.MissingBitmap;
+import us.kbase.kbasefeaturevalues.matrix.MissingValueImputer;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class MissingValueImputerTest extends MatrixTestBase {
+
+    @Test
+    public void testImputation() throws Exception {
+        for (FloatMatrix2D data : loadTestMatrices()) {
+            PrimitiveMatrix orig = PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float64);
+            MissingBitmap missing = MissingBitmap.build(orig);
+            int rowCount = orig.getRowCount();
+            int colCount = orig.getColCount();
+            // Global mean is the same as for boxed values
+            PrimitiveMatrix global = copy(orig);
+            MissingValueImputer.impute(global, MissingValueImputer.GLOBAL_MEAN, null);
+            FloatMatrix2D boxed = new FloatMatrix2D().withValues(orig.toValues());
+            MatrixUtil.fillMissingValues(boxed);
+            Assert.assertEquals(boxed.getValues(), global.toValues());
+            PrimitiveMatrix rowMean = copy(orig);
+            MissingValueImputer.impute(rowMean, MissingValueImputer.ROW_MEAN, null);
+            PrimitiveMatrix colMean = copy(orig);
+            MissingValueImputer.impute(colMean, MissingValueImputer.COLUMN_MEAN, null);
+            int k = 5;
+            PrimitiveMatrix knn = copy(orig);
+            MissingValueImputer.fillKnn(knn, missing, k, 3);
+            List<Integer> complete = new ArrayList<Integer>();
+            for (int i = 0; i < rowCount; i++)
+                if (missing.getMissingCount(i) == 0)
+                    complete.add(i);
+            for (int i = 0; i < rowCount; i++) {
+                if (missing.getMissingCount(i) == 0)
+                    continue;
+                List<Integer> neighbours = bruteForceNeighbours(orig, i, complete, k);
+                for (int j = 0; j < colCount; j++) {
+                    if (!orig.isMissing(i, j)) {
+                        Assert.assertEquals(orig.get(i, j), rowMean.get(i, j));
+                        Assert.assertEquals(orig.get(i, j), colMean.get(i, j));
+                        Assert.assertEquals(orig.get(i, j), knn.get(i, j));
+                        continue;
+                    }
+                    assertClose("Row mean " + i, mean(orig.getRow(i, null)),
+                            rowMean.get(i, j), FLOAT64_TOLERANCE);
+                    assertClose("Column mean " + j, mean(orig.getColumn(j, null)),
+                            colMean.get(i, j), FLOAT64_TOLERANCE);
+                    if (missing.getMissingCount(i) == colCount)
+                        continue;
+                    double expected = 0;
+                    for (int n : neighbours)
+                        expected += orig.get(n, j);
+                    assertClose("KNN " + i + ", " + j, expected / neighbours.size(),
+                            knn.get(i, j), FLOAT64_TOLERANCE);
+                }
+            }
+        }
+    }
+
+    private static List<Integer> bruteForceNeighbours(final PrimitiveMatrix values,
+            final int row, List<Integer> candidates, int k) {
+        final Map<Integer, Double> dist = new LinkedHashMap<Integer, Double>();
+        for (int c : candidates) {
+            double d = 0;
+            for (int j = 0; j < values.getColCount(); j++) {
+                if (!values.isMissing(row, j)) {
+                    double diff = values.get(row, j) - values.get(c, j);
+                    d += diff * diff;
+                }
+            }
+            dist.put(c, d);
+        }
+        List<Integer> ret = new ArrayList<Integer>(candidates);
+        Collections.sort(ret, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(dist.get(o1), dist.get(o2));
+            }
+        });
+        return ret.subList(0, Math.min(k, ret.size()));
+    }
+}
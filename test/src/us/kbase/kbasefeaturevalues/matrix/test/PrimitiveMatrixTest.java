@@ -0,0 +1,65 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import us.kbase.common.service.UObject;
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.matrix.MatrixFactory;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class PrimitiveMatrixTest extends MatrixTestBase {
+
+    @Test
+    public void testTranspose() throws Exception {
+        FloatMatrix2D data = new FloatMatrix2D().withRowIds(Arrays.asList("r1", "r2", "r3"))
+                .withColIds(Arrays.asList("c1", "c2")).withValues(Arrays.asList(
+                        Arrays.asList(1.0, null), Arrays.asList(2.5, 3.0),
+                        Arrays.asList(null, -4.0)));
+        PrimitiveMatrix values = PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float32);
+        File tempDir = Files.createTempDirectory("transpose").toFile();
+        try {
+            for (MatrixFactory factory : Arrays.asList(new MatrixFactory(StorageMode.float64),
+                    new MatrixFactory(StorageMode.float32, tempDir, 0))) {
+                PrimitiveMatrix transposedValues = values.transpose(factory);
+                Assert.assertEquals(factory.getStorageMode(),
+                        transposedValues.getStorageMode());
+                FloatMatrix2D transposed = FloatMatrix2DUtil.asFloatMatrix2D(data.getColIds(),
+                        data.getRowIds(), transposedValues);
+                Assert.assertEquals(data.getColIds(), transposed.getRowIds());
+                Assert.assertEquals(data.getRowIds(), transposed.getColIds());
+                Assert.assertEquals("[[1.0, 2.5, null], [null, 3.0, -4.0]]",
+                        transposed.getValues().toString());
+                // Rows are serialized as usual lists
+                String json = UObject.getMapper().writeValueAsString(transposed);
+                Assert.assertEquals(transposed.getValues(), UObject.getMapper().readValue(json,
+                        FloatMatrix2D.class).getValues());
+            }
+        } finally {
+            FileUtils.deleteDirectory(tempDir);
+        }
+    }
+
+    @Test
+    public void testValuesRoundTrip() throws Exception {
+        for (FloatMatrix2D data : loadTestMatrices()) {
+            PrimitiveMatrix values = PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float64);
+            Assert.assertEquals(data.getValues(), values.toValues());
+            PrimitiveMatrix values32 = PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float32);
+            List<List<Double>> values32Boxed = values32.toValues();
+            for (int i = 0; i < data.getRowIds().size(); i++)
+                for (int j = 0; j < data.getColIds().size(); j++)
+                    assertClose("Value [" + i + ", " + j + "]", data.getValues().get(i).get(j),
+                            values32Boxed.get(i).get(j), FLOAT32_TOLERANCE);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package us.kbase.kbasefeaturevalues.matrix.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.matrix.MatrixFactory;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.RowFilter;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+
+public class RowFilterTest extends MatrixTestBase {
+
+    @Test
+    public void testRowFilter() throws Exception {
+        Random rnd = new Random(777);
+        final int rowCount = 1000;
+        int colCount = 12;
+        PrimitiveMatrix values = PrimitiveMatrix.create(rowCount, colCount, StorageMode.float64);
+        for (int i = 0; i < rowCount; i++)
+            for (int j = 0; j < colCount; j++)
+                if (rnd.nextInt(10) > i % 5)
+                    values.set(i, j, (i % 7 == 0 ? 5 : 1) * rnd.nextGaussian() + i % 3);
+        final RowFilter.Stats stats = RowFilter.getStats(values, 3);
+        // Sorting by variance is what top-K selection replaces
+        List<Integer> byVariance = new ArrayList<Integer>();
+        for (int i = 0; i < rowCount; i++)
+            byVariance.add(i);
+        Collections.sort(byVariance, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                double v1 = stats.getVariance(o1);
+                double v2 = stats.getVariance(o2);
+                return Double.compare(Double.isNaN(v2) ? -1 : v2, Double.isNaN(v1) ? -1 : v1);
+            }
+        });
+        for (int k : new int[] {0, 1, 10, 500, 999, 1000, 2000}) {
+            List<Integer> expected = new ArrayList<Integer>(byVariance.subList(0,
+                    Math.min(k, rowCount)));
+            Collections.sort(expected);
+            int[] actual = new RowFilter().withMaxRows(k).withThreadCount(3).apply(values);
+            Assert.assertEquals("k=" + k, expected.toString(), Arrays.toString(actual));
+        }
+        int[] actual = new RowFilter().withMaxMissingFraction(0.25).withMinMean(0.5)
+                .withMinVariance(1.0).withMinFoldChange(4.0).withScale("log2").apply(values);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < rowCount; i++) {
+            double[] row = values.getRow(i, null);
+            int present = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (double value : row) {
+                if (Double.isNaN(value))
+                    continue;
+                present++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            double mean = sum / present;
+            double ss = 0;
+            for (double value : row)
+                if (!Double.isNaN(value))
+                    ss += (value - mean) * (value - mean);
+            if (present >= 2 && (double)(colCount - present) / colCount <= 0.25 &&
+                    mean >= 0.5 && ss / (present - 1) >= 1.0 && max - min >= 2.0)
+                expected.add(i);
+        }
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.toString(), Arrays.toString(actual));
+        PrimitiveMatrix subset = RowFilter.subset(values, actual,
+                new MatrixFactory(StorageMode.float32));
+        Assert.assertEquals(actual.length, subset.getRowCount());
+        for (int j = 0; j < colCount; j++)
+            assertClose("" + j, values.get(actual[1], j), subset.get(1, j), FLOAT32_TOLERANCE);
+        // Uploaded matrices are log-ratio ones with numeric scale "1.0"
+        Assert.assertEquals(Arrays.toString(new RowFilter().withMinFoldChange(4.0)
+                .withScale("log2").apply(values)), Arrays.toString(new RowFilter()
+                .withMinFoldChange(4.0).withScale("1.0").withType("log-ratio").apply(values)));
+        try {
+            new RowFilter().withMinFoldChange(4.0).withScale("1.0").withType("level")
+                    .apply(values);
+            Assert.fail("Raw values which are not positive should be rejected");
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith(
+                    "Fold change is not defined for raw values which are not positive"));
+        }
+        PrimitiveMatrix levels = PrimitiveMatrix.fromValues(Arrays.<List<Double>>asList(
+                Arrays.asList(1.0, 2.0, 5.0), Arrays.<Double>asList(3.0, null, 4.0),
+                Arrays.asList(0.5, 2.0, 1.0)), 3, StorageMode.float64);
+        Assert.assertEquals("[0, 2]", Arrays.toString(new RowFilter().withMinFoldChange(4.0)
+                .withScale("1.0").withType("level").apply(levels)));
+    }
+}
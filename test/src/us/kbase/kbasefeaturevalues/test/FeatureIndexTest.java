@@ -0,0 +1,82 @@
+package us.kbase.kbasefeaturevalues.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import kbasegenomes.Feature;
+import kbasegenomes.Genome;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FeatureIndex;
+
+public class FeatureIndexTest {
+
+    @Test
+    public void testSameAsTwoPassMapping() throws Exception {
+        Random rnd = new Random(3456);
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < 40000; i++) {
+            List<String> aliases = new ArrayList<String>();
+            for (int j = rnd.nextInt(4); j > 0; j--)
+                aliases.add(rnd.nextInt(10) == 0 ? ("f" + rnd.nextInt(40000)) :
+                    ("a" + rnd.nextInt(100000)));
+            features.add(new Feature().withId("f" + i).withAliases(aliases));
+        }
+        Genome genome = new Genome().withFeatures(features);
+        List<String> rowIds = new ArrayList<String>();
+        for (int i = 0; i < 100000; i++)
+            rowIds.add(rnd.nextBoolean() ? ("f" + rnd.nextInt(50000)) : ("a" + rnd.nextInt(120000)));
+        Map<String, String> expected = twoPassMapping(rowIds, features);
+        Map<String, String> actual = FeatureIndex.build(genome).map(rowIds, null);
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testAmbiguousAliases() throws Exception {
+        Genome genome = new Genome().withFeatures(Arrays.asList(
+                new Feature().withId("f1").withAliases(Arrays.asList("a1", "a2", "f2")),
+                new Feature().withId("f2").withAliases(Arrays.asList("a1", "a3")),
+                new Feature().withId("f3").withAliases(Arrays.asList("a1", "a3", "a3"))));
+        FeatureIndex index = FeatureIndex.build(genome);
+        Assert.assertEquals(Arrays.asList("f1", "f2", "f3"), index.getAmbiguousFeatureIds("a1"));
+        Assert.assertEquals(Arrays.asList("f2", "f3"), index.getAmbiguousFeatureIds("a3"));
+        Assert.assertNull(index.getAmbiguousFeatureIds("a2"));
+        // Feature id has priority over alias of other feature
+        Assert.assertNull(index.getAmbiguousFeatureIds("f2"));
+        Assert.assertEquals("f2", index.getFeatureId("f2"));
+        List<String> warnings = new ArrayList<String>();
+        Map<String, String> mapping = index.map(Arrays.asList("a1", "a2", "f2", "x", "a1"),
+                warnings);
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("a1", "f1");
+        expected.put("a2", "f1");
+        expected.put("f2", "f2");
+        Assert.assertEquals(expected, mapping);
+        Assert.assertEquals(Arrays.asList("Row a1 matches alias of several features " +
+                "[f1, f2, f3], it's mapped to f1"), warnings);
+    }
+
+    private static Map<String, String> twoPassMapping(List<String> rowIds, 
+            List<Feature> features) {
+        Set<String> rowIdSet = new HashSet<String>(rowIds);
+        Map<String, String> ret = new LinkedHashMap<String, String>();
+        for (Feature feature : features) {
+            if (rowIdSet.remove(feature.getId()))
+                ret.put(feature.getId(), feature.getId());
+        }
+        for (Feature feature : features)
+            for (String alias : feature.getAliases())
+                if (rowIdSet.remove(alias))
+                    ret.put(alias, feature.getId());
+        return ret;
+    }
+}
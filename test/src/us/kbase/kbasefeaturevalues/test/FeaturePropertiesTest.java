@@ -0,0 +1,41 @@
+package us.kbase.kbasefeaturevalues.test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.Assert;
+
+import kbasegenomes.Feature;
+import kbasegenomes.Genome;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FeatureProperties;
+
+public class FeaturePropertiesTest {
+
+    @Test
+    public void testProperties() throws Exception {
+        Genome genome = new Genome().withId("g1").withScientificName("E. coli").withFeatures(
+                Arrays.asList(new Feature().withId("f1").withFunction("kinase").withType("CDS")
+                        .withAliases(Arrays.asList("a1", "b1")), new Feature().withId("f2")));
+        FeatureProperties props = FeatureProperties.build(genome);
+        Assert.assertEquals("g1", props.getGenomeId());
+        Assert.assertEquals("E. coli", props.getGenomeName());
+        Assert.assertEquals("a1; b1", props.getName("f1"));
+        Assert.assertEquals("", props.getName("f3"));
+        Assert.assertEquals("{function=kinase, type=CDS}", props.getProperties("f1",
+                Arrays.asList("function", "type")).toString());
+        Assert.assertEquals("{function=, aliases=}", props.getProperties("f2",
+                Arrays.asList("function", "aliases")).toString());
+        Assert.assertEquals(Collections.emptyMap(), props.getProperties("f3",
+                FeatureProperties.DEFAULT_TYPES));
+        try {
+            FeatureProperties.checkPropertyTypes(Arrays.asList("function", "strand"));
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith(
+                    "Unsupported property type: strand"));
+        }
+    }
+}
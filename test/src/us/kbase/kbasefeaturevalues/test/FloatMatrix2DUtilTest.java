@@ -0,0 +1,127 @@
+package us.kbase.kbasefeaturevalues.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.FloatMatrix2DUtil;
+import us.kbase.kbasefeaturevalues.ItemStat;
+import us.kbase.kbasefeaturevalues.PairwiseComparison;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.matrix.test.MatrixTestBase;
+
+public class FloatMatrix2DUtilTest extends MatrixTestBase {
+    private static final int MAX_CORRELATION_ROWS = 300;
+
+    @Test
+    public void testStatAccuracy() throws Exception {
+        for (FloatMatrix2D data : loadTestMatrices()) {
+            List<ItemStat> expectedRows = FloatMatrix2DUtil.getRowsStat(data, null, null, false);
+            List<ItemStat> expectedCols = FloatMatrix2DUtil.getColumnsStat(data, null, null, false);
+            for (StorageMode mode : StorageMode.values()) {
+                double tolerance = mode == StorageMode.float32 ? FLOAT32_TOLERANCE :
+                    FLOAT64_TOLERANCE;
+                PrimitiveMatrix values = PrimitiveMatrix.fromFloatMatrix2D(data, mode);
+                Assert.assertEquals(mode, values.getStorageMode());
+                checkStats(expectedRows, FloatMatrix2DUtil.getRowsStat(values, null, null,
+                        false), tolerance);
+                checkStats(expectedCols, FloatMatrix2DUtil.getColumnsStat(values, null, null,
+                        false), tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void testCorrelationAccuracy() throws Exception {
+        for (FloatMatrix2D data : loadTestMatrices()) {
+            // Boxed version doesn't support missing values so we compare on complete rows
+            int[] rowIndeces = completeRows(data, MAX_CORRELATION_ROWS);
+            int[] colIndeces = range(data.getColIds().size());
+            if (colIndeces.length < 2)
+                continue;
+            PairwiseComparison expected = FloatMatrix2DUtil.geRowstPairwiseComparison(data,
+                    rowIndeces, colIndeces);
+            for (StorageMode mode : StorageMode.values()) {
+                double tolerance = mode == StorageMode.float32 ? FLOAT32_TOLERANCE :
+                    FLOAT64_TOLERANCE;
+                PrimitiveMatrix values = PrimitiveMatrix.fromFloatMatrix2D(data, mode);
+                PairwiseComparison actual = FloatMatrix2DUtil.geRowstPairwiseComparison(values,
+                        rowIndeces, colIndeces);
+                checkPairwiseComparison(expected, actual, tolerance);
+                if (rowIndeces.length < 2)
+                    continue;
+                // Columns of transposed matrix are compared with rows
+                List<List<Double>> transposed = new ArrayList<List<Double>>();
+                for (int j = 0; j < colIndeces.length; j++) {
+                    List<Double> row = new ArrayList<Double>();
+                    for (int i : rowIndeces)
+                        row.add(data.getValues().get(i).get(j));
+                    transposed.add(row);
+                }
+                PairwiseComparison expectedCols = FloatMatrix2DUtil.geRowstPairwiseComparison(
+                        new FloatMatrix2D().withValues(transposed), colIndeces,
+                        range(rowIndeces.length));
+                checkPairwiseComparison(expectedCols, FloatMatrix2DUtil
+                        .getColumnsPairwiseComparison(values, rowIndeces, colIndeces), tolerance);
+            }
+        }
+    }
+
+    private static void checkPairwiseComparison(PairwiseComparison expected,
+            PairwiseComparison actual, double tolerance) {
+        int size = expected.getComparisonValues().size();
+        Assert.assertEquals(expected.getIndeces(), actual.getIndeces());
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++)
+                assertClose("Correlation [" + i + ", " + j + "]",
+                        expected.getComparisonValues().get(i).get(j),
+                        actual.getComparisonValues().get(i).get(j), tolerance);
+            assertClose("Avg " + i, expected.getAvgs().get(i), actual.getAvgs().get(i),
+                    tolerance);
+            assertClose("Min " + i, expected.getMins().get(i), actual.getMins().get(i),
+                    tolerance);
+            assertClose("Max " + i, expected.getMaxs().get(i), actual.getMaxs().get(i),
+                    tolerance);
+            assertClose("Std " + i, expected.getStds().get(i), actual.getStds().get(i),
+                    tolerance);
+        }
+    }
+
+    @Test
+    public void testWindowValues() throws Exception {
+        for (FloatMatrix2D data : loadTestMatrices()) {
+            int rowCount = data.getRowIds().size();
+            int colCount = data.getColIds().size();
+            PrimitiveMatrix values = PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float64);
+            int[] rowIndeces = new int[Math.min(rowCount, 50)];
+            for (int i = 0; i < rowIndeces.length; i++)
+                rowIndeces[i] = rowCount - 1 - i * 3 % rowCount;
+            // Both narrow (read by cells) and full (read by rows) windows
+            for (int[] colIndeces : Arrays.asList(new int[] {colCount - 1}, range(colCount))) {
+                List<Double> expected = new ArrayList<Double>();
+                for (List<Double> row : FloatMatrix2DUtil.getSubmatrixValues(values, rowIndeces,
+                        colIndeces))
+                    expected.addAll(row);
+                Assert.assertEquals(expected, FloatMatrix2DUtil.getWindowValues(values,
+                        rowIndeces, colIndeces));
+            }
+        }
+    }
+
+    private static int[] completeRows(FloatMatrix2D data, int maxCount) {
+        List<Integer> rows = new ArrayList<Integer>();
+        for (int i = 0; i < data.getRowIds().size() && rows.size() < maxCount; i++)
+            if (!data.getValues().get(i).contains(null))
+                rows.add(i);
+        int[] ret = new int[rows.size()];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = rows.get(i);
+        return ret;
+    }
+}
@@ -39,6 +39,7 @@ import datafileutil.FileToShockParams;
 import us.kbase.kbasefeaturevalues.BuildFeatureSetParams;
 import us.kbase.kbasefeaturevalues.ClusterHierarchicalParams;
 import us.kbase.kbasefeaturevalues.ClusterKMeansParams;
+import us.kbase.kbasefeaturevalues.ClusterTwoWayParams;
 import us.kbase.kbasefeaturevalues.ClustersFromDendrogramParams;
 import us.kbase.kbasefeaturevalues.CorrectMatrixParams;
 import us.kbase.kbasefeaturevalues.EstimateKParams;
@@ -59,6 +60,7 @@ import us.kbase.kbasefeaturevalues.LabeledCluster;
 import us.kbase.kbasefeaturevalues.MatrixDescriptor;
 import us.kbase.kbasefeaturevalues.MatrixStat;
 import us.kbase.kbasefeaturevalues.ReconnectMatrixToGenomeParams;
+import us.kbase.kbasefeaturevalues.RowOrdering;
 import us.kbase.kbasefeaturevalues.SubmatrixStat;
 import us.kbase.kbasefeaturevalues.TsvFileToMatrixParams;
 import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
@@ -195,6 +197,8 @@ public class KBaseFeatureValuesServerTest {
         String clustObj1Name = "clusters1";
         String clustObj2Name = "clusters2";
         String clustObj3Name = "clusters3";
+        String clustObj5Name = "clusters5";
+        String clustObj6Name = "clusters6";
         ExpressionMatrix data = new ExpressionMatrix().withType("log-ratio").withScale("1.0")
                 .withData(getSampleMatrix());
         getWsClient().saveObjects(new SaveObjectsParams().withWorkspace(testWsName).withObjects(Arrays.asList(
@@ -315,6 +319,41 @@ public class KBaseFeatureValuesServerTest {
         Tuple11<Long,String,String,String,Long,String,Long,String,String,Long,Map<String,String>> getInfoHcl = res3.getInfo();
         Assert.assertEquals(getInfoHcl.getE7()  + "/" + getInfoHcl.getE1() + "/" +  getInfoHcl.getE5(), wsRefHcl);
 
+        /////////////// Hierarchical for conditions /////////////////
+        impl.clusterHierarchical(new ClusterHierarchicalParams().withInputData(testWsName + "/" +
+                exprObjName).withConditionHeightCutoff(0.5).withDimension("conditions")
+                .withOutWorkspace(testWsName).withOutClustersetId(clustObj5Name), token, getContext());
+        FeatureClusters clSet5 = getWsClient().getObjects(Arrays.asList(new ObjectIdentity()
+                .withWorkspace(testWsName).withName(clustObj5Name))).get(0).getData()
+                .asClassInstance(FeatureClusters.class);
+        Assert.assertEquals(0, clSet5.getFeatureClusters().size());
+        Assert.assertNull(clSet5.getFeatureDendrogram());
+        int clusteredConditions = 0;
+        for (LabeledCluster cluster : clSet5.getConditionClusters()) {
+            for (String condition : cluster.getIdToPos().keySet())
+                Assert.assertTrue(data.getData().getColIds().contains(condition));
+            clusteredConditions += cluster.getIdToPos().size();
+        }
+        Assert.assertEquals(data.getData().getColIds().size(), clusteredConditions);
+        Assert.assertTrue(clSet5.getConditionDendrogram().endsWith(");"));
+
+        /////////////// Two-way hierarchical /////////////////
+        impl.clusterTwoWay(new ClusterTwoWayParams().withInputData(testWsName + "/" +
+                exprObjName).withFeatureHeightCutoff(0.5).withConditionHeightCutoff(0.5)
+                .withOptimalLeafOrdering(1L).withOutWorkspace(testWsName)
+                .withOutClustersetId(clustObj6Name), token, getContext());
+        FeatureClusters clSet6 = getWsClient().getObjects(Arrays.asList(new ObjectIdentity()
+                .withWorkspace(testWsName).withName(clustObj6Name))).get(0).getData()
+                .asClassInstance(FeatureClusters.class);
+        Assert.assertEquals(data.getData().getRowIds().size(), clSet6.getFeatureLeafOrder().size());
+        Assert.assertEquals(data.getData().getColIds().size(), clSet6.getConditionLeafOrder().size());
+        Assert.assertEquals(RowOrdering.getLeafLabels(clSet6.getFeatureDendrogram()).toString(),
+                clSet6.getFeatureLeafOrder().toString());
+        Assert.assertEquals(RowOrdering.getLeafLabels(clSet6.getConditionDendrogram()).toString(),
+                clSet6.getConditionLeafOrder().toString());
+        Assert.assertFalse(clSet6.getFeatureClusters().isEmpty());
+        Assert.assertFalse(clSet6.getConditionClusters().isEmpty());
+
         /////////////// From dendrogram /////////////////
         String wsRefCfd = impl.clustersFromDendrogram(new ClustersFromDendrogramParams().withInputData(testWsName + "/" +
                 clustObj2Name).withFeatureHeightCutoff(0.2).withOutWorkspace(testWsName)
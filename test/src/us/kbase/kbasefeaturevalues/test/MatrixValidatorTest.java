@@ -0,0 +1,99 @@
+package us.kbase.kbasefeaturevalues.test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import kbasegenomes.Feature;
+import kbasegenomes.Genome;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import us.kbase.common.service.UObject;
+import us.kbase.kbasefeaturevalues.AnalysisReport;
+import us.kbase.kbasefeaturevalues.ExpressionMatrix;
+import us.kbase.kbasefeaturevalues.FeatureIndex;
+import us.kbase.kbasefeaturevalues.MatrixValidator;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+
+public class MatrixValidatorTest {
+
+    @Test
+    public void testValidMatrix() throws Exception {
+        File inputFile = ExpressionUploader.findTabFile(new File("test/data/upload2"));
+        ExpressionMatrix matrix = ExpressionUploader.parse(null, inputFile, "Simple",
+                null, false, null, null, null);
+        String json = UObject.getMapper().writeValueAsString(matrix);
+        AnalysisReport report = validate(json, null, null, null, null);
+        Assert.assertEquals(report.getErrors().toString(), 0, report.getErrors().size());
+        Assert.assertEquals(4, report.getCheckResults().size());
+        Assert.assertFalse(report.getCheckResults().contains(0L));
+        Assert.assertTrue(report.getMessages().get(0), report.getMessages().get(0).equals(
+                "Matrix contains " + matrix.getData().getRowIds().size() + " rows and " +
+                matrix.getData().getColIds().size() + " columns"));
+    }
+
+    @Test
+    public void testProblems() throws Exception {
+        Genome genome = new Genome().withFeatures(Arrays.asList(
+                new Feature().withId("f1"), new Feature().withId("f2")));
+        String json = "{\"type\":\"level\",\"scale\":\"raw\",\"data\":{" +
+                "\"col_ids\":[\"c1\",\"c2\",\"c1\"]," +
+                "\"row_ids\":[\"r1\",\"r2\",\"r3\",\"\"]," +
+                "\"values\":[[1,2,3],[1e400,null,null],[-1,null],[null,null,null]]}," +
+                "\"feature_mapping\":{\"r1\":\"f1\",\"r2\":\"f3\",\"r5\":\"f2\"}}";
+        AnalysisReport report = validate(json, null, "level", "raw", FeatureIndex.build(genome));
+        Assert.assertEquals(Arrays.asList(0L, 0L, 0L, 0L, 0L, 0L), report.getCheckResults());
+        Assert.assertEquals(5, report.getErrors().size());
+        Assert.assertTrue(report.getErrors().get(0), report.getErrors().get(0).endsWith(
+                "2 problems, column id c1 is duplicated; row id at position 4 is empty"));
+        Assert.assertTrue(report.getErrors().get(1), report.getErrors().get(1).endsWith(
+                "row 3 contains 2 values instead of 3"));
+        Assert.assertTrue(report.getErrors().get(2), report.getErrors().get(2).endsWith(
+                "value at row 2, column 1 is infinite"));
+        Assert.assertTrue(report.getErrors().get(3), report.getErrors().get(3).endsWith(
+                "row r2 is mapped to feature f3 which is not found in genome; " +
+                "mapped row r5 is not found in matrix"));
+        Assert.assertTrue(report.getErrors().get(4), report.getErrors().get(4).endsWith(
+                "value -1.0 at row 3, column 1 is negative"));
+        Assert.assertTrue(report.getWarnings().toString(), report.getWarnings().get(0)
+                .endsWith("6 of 11 values are missing"));
+        Assert.assertEquals("1 rows don't contain any values", report.getWarnings().get(1));
+        Assert.assertTrue(report.getMessages().contains("Rows mapped to features: 1 of 4"));
+        // Missing values are errors for clustering
+        report = validate(json, "hierarchical", null, null, null);
+        Assert.assertEquals(Arrays.asList(0L, 0L, 0L, 0L, 0L), report.getCheckResults());
+        Assert.assertTrue(report.getErrors().get(3), report.getErrors().get(3).startsWith(
+                "There are no missing values (required for hierarchical): 3 problems"));
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        StringBuilder json = new StringBuilder("{\"data\":{\"col_ids\":[\"c1\"],\"row_ids\":[");
+        int rowCount = MatrixValidator.MAX_ERRORS * 3;
+        for (int i = 0; i < rowCount; i++)
+            json.append(i > 0 ? "," : "").append("\"r\"");
+        json.append("],\"values\":[");
+        for (int i = 0; i < rowCount; i++)
+            json.append(i > 0 ? "," : "").append("[1]");
+        json.append("]}}");
+        AnalysisReport report = validate(json.toString(), null, null, null, null);
+        Assert.assertEquals("Validation was stopped after " + MatrixValidator.MAX_ERRORS +
+                " errors", report.getErrors().get(report.getErrors().size() - 1));
+        Assert.assertTrue(report.getErrors().get(0), report.getErrors().get(0).contains(
+                ": " + MatrixValidator.MAX_ERRORS + " problems, row id r is duplicated; "));
+    }
+
+    private static AnalysisReport validate(String json, String method, String type,
+            String scale, FeatureIndex index) throws Exception {
+        JsonParser jp = UObject.getMapper().getFactory().createParser(json);
+        try {
+            return new MatrixValidator(method, type, scale, index).validate(jp);
+        } finally {
+            jp.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package us.kbase.kbasefeaturevalues.test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.LabeledCluster;
+import us.kbase.kbasefeaturevalues.RowOrdering;
+
+public class RowOrderingTest {
+
+    @Test
+    public void testLeafLabels() throws Exception {
+        Assert.assertEquals(Arrays.asList("3", "0", "2", "1"), RowOrdering.getLeafLabels(
+                "((3:0.1,(0:0.2,2:0.2)n1:0.3)n2:1.5, 1:2.0)root;"));
+        Assert.assertEquals(Arrays.asList("a b", "it's", "c"), RowOrdering.getLeafLabels(
+                "('a b','it''s',(c));"));
+    }
+
+    @Test
+    public void testMapLeafPositions() throws Exception {
+        Assert.assertEquals("((30:0.1,('x':0.2,20:0.2)n1:0.3)n2:1.5, 10:2.0)root;",
+                RowOrdering.mapLeafPositions("((2:0.1,('x':0.2,1:0.2)n1:0.3)n2:1.5, 0:2.0)root;",
+                        new int[] {10, 20, 30}));
+    }
+
+    @Test
+    public void testOrderings() throws Exception {
+        Assert.assertEquals("[3, 0, 2, 1, 4]", Arrays.toString(RowOrdering.fromDendrogram(
+                "((3:0.1,(0:0.2,2:0.2):0.3):1.5,1:2.0);", Arrays.asList("r0", "r1", "r2",
+                        "r3", "r4"))));
+        Assert.assertEquals("[2, 0, 1]", Arrays.toString(RowOrdering.fromDendrogram(
+                "(r2,(r0,r1));", Arrays.asList("r0", "r1", "r2"))));
+        Assert.assertEquals("[3, 1, 0, 2]", Arrays.toString(RowOrdering.fromLeafOrder(
+                Arrays.asList(3L, 1L), 4)));
+        Map<String, Long> c1 = new LinkedHashMap<String, Long>();
+        c1.put("r4", 4L);
+        c1.put("r1", 1L);
+        Map<String, Long> c2 = new LinkedHashMap<String, Long>();
+        c2.put("r2", 2L);
+        Assert.assertEquals("[1, 4, 2, 0, 3]", Arrays.toString(RowOrdering.fromClusters(
+                Arrays.asList(new LabeledCluster().withIdToPos(c1),
+                        new LabeledCluster().withIdToPos(c2)), 5)));
+        try {
+            RowOrdering.fromDendrogram("(0,7);", Arrays.asList("r0", "r1"));
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("Row position 7 is out of range [0, 2)", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package us.kbase.kbasefeaturevalues.transform.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
+import us.kbase.kbasefeaturevalues.transform.DecompressingInputStream;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+import us.kbase.kbasefeaturevalues.transform.TsvMatrixParser;
+
+public class TsvMatrixParserTest {
+
+    @Test
+    public void testNumbers() throws Exception {
+        Random rnd = new Random(1234);
+        String[] fixed = {"0", "-0", "1", "+2.5", "1e5", "1E-5", "-3.25e+2", ".5", "5.",
+                "123456789012345678901234567890", "0.1", "1e-300", "4.9e-324", "1.7976931348623157e308",
+                "NaN", "Infinity", "-Infinity", "1.5f", " 7 ", "0000012.5000", "9007199254740993"};
+        StringBuilder sb = new StringBuilder("id");
+        int colCount = 50;
+        for (int j = 0; j < colCount; j++)
+            sb.append("\tc").append(j);
+        sb.append("\n");
+        String[][] cells = new String[200][colCount];
+        for (int i = 0; i < cells.length; i++) {
+            sb.append("row").append(i);
+            for (int j = 0; j < colCount; j++) {
+                String cell;
+                int k = i * colCount + j;
+                if (k < fixed.length) {
+                    cell = fixed[k];
+                } else if (k % 3 == 0) {
+                    cell = Double.toString((rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(40) - 20));
+                } else if (k % 3 == 1) {
+                    cell = String.format("%.5f", rnd.nextGaussian());
+                } else {
+                    cell = Float.toString((float)rnd.nextGaussian());
+                }
+                cells[i][j] = cell;
+                sb.append("\t").append(cell);
+            }
+            sb.append("\n");
+        }
+        StreamedMatrix<FloatMatrix2D> parsed = parse(sb.toString());
+        for (int i = 0; i < cells.length; i++)
+            for (int j = 0; j < colCount; j++)
+                Assert.assertEquals(cells[i][j], Double.doubleToLongBits(Double.parseDouble(cells[i][j])),
+                        Double.doubleToLongBits(parsed.getValues().get(i, j)));
+    }
+
+    @Test
+    public void testFormatDetails() throws Exception {
+        String text = "\"gene\"\tc1\t\"c 2\"\t\t\r\n" +
+                "g1\t1.5\tNA\r\n" +
+                "\"g2\"\t-\t\"NA\"\t\r" +
+                "g3\tnull\t\n" +
+                "g4\t3\t4";
+        StreamedMatrix<FloatMatrix2D> parsed = parse(text);
+        Assert.assertEquals(Arrays.asList("c1", "c 2"), parsed.getObject().getColIds());
+        Assert.assertEquals(Arrays.asList("g1", "g2", "g3", "g4"), parsed.getObject().getRowIds());
+        Assert.assertEquals(Arrays.asList(Arrays.asList(1.5, null), Arrays.asList(null, null),
+                Arrays.asList(null, null), Arrays.asList(3.0, 4.0)), parsed.getValues().toValues());
+        try {
+            parse("id\tc1\tc2\ng1\t1\n");
+            Assert.fail("Row with wrong cell count was accepted");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("Feature row contain 2 != 3 cells at line 1: g1\t1", ex.getMessage());
+        }
+        try {
+            parse("");
+            Assert.fail("Empty input was accepted");
+        } catch (IllegalStateException ex) {
+            Assert.assertEquals("No header line found", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelChunks() throws Exception {
+        // Files should be larger than a few chunks of minimal size
+        Random rnd = new Random(4321);
+        int colCount = 20;
+        for (boolean microbesOnline : new boolean[] {false, true}) {
+            File file = File.createTempFile("parallel_", ".tsv");
+            try {
+                OutputStream os = new FileOutputStream(file);
+                try {
+                    StringBuilder sb = new StringBuilder();
+                    if (microbesOnline) {
+                        sb.append("^Log Level Experiment MetaData\n!Log Level Experiment ID\tGSM ID\n");
+                        for (int j = 0; j < colCount; j++)
+                            sb.append("!").append(j).append("\tGSM").append(j).append("\tc")
+                                .append(j).append("\n");
+                        sb.append("^Log Level Data Section\n!Locus Id\tSystematic_Name");
+                        for (int j = 0; j < colCount; j++)
+                            sb.append("\t").append(j).append(" (GSM").append(j).append(")");
+                    } else {
+                        sb.append("id");
+                        for (int j = 0; j < colCount; j++)
+                            sb.append("\tc").append(j);
+                    }
+                    sb.append("\r\n");
+                    for (int i = 0; sb.length() < (20 << 20); i++) {
+                        sb.append(microbesOnline ? (i + "\tDVU" + i) : ("g" + i));
+                        for (int j = 0; j < colCount; j++) {
+                            sb.append("\t");
+                            if (rnd.nextInt(10) > 0)
+                                sb.append(String.format("%.4f", rnd.nextGaussian()));
+                        }
+                        String[] eols = {"\n", "\r\n", "\r"};
+                        sb.append(eols[rnd.nextInt(eols.length)]);
+                    }
+                    os.write(sb.toString().getBytes("UTF-8"));
+                } finally {
+                    os.close();
+                }
+                StreamedMatrix<FloatMatrix2D> expected = new TsvMatrixParser(
+                        new FileInputStream(file), file.length(), microbesOnline).parse();
+                StreamedMatrix<FloatMatrix2D> actual = TsvMatrixParser.parse(file,
+                        microbesOnline, 4);
+                Assert.assertEquals(colCount, actual.getObject().getColIds().size());
+                Assert.assertEquals(expected.getObject().getColIds(), actual.getObject().getColIds());
+                Assert.assertEquals(expected.getObject().getRowIds(), actual.getObject().getRowIds());
+                Assert.assertEquals(expected.getValues().toValues(), actual.getValues().toValues());
+                // The first broken line is reported with its number in whole file
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.seek(raf.length() - 1);
+                    raf.write(new byte[] {'\n', 'x', '\n'});
+                } finally {
+                    raf.close();
+                }
+                int lineCount = expected.getObject().getRowIds().size() +
+                        (microbesOnline ? colCount + 4 : 0) + 1;
+                try {
+                    TsvMatrixParser.parse(file, microbesOnline, 4);
+                    Assert.fail("Broken row was accepted");
+                } catch (IllegalStateException ex) {
+                    Assert.assertEquals("Feature row contain 1 != " + (colCount + 
+                            (microbesOnline ? 2 : 1)) + " cells at line " + lineCount + ": x",
+                            ex.getMessage());
+                }
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        File dir = new File("test/data/upload2");
+        File input = ExpressionUploader.findTabFile(dir);
+        File gzFile = File.createTempFile("gzip_", ".tsv.gz");
+        try {
+            OutputStream os = new GZIPOutputStream(new FileOutputStream(gzFile));
+            try {
+                Files.copy(input.toPath(), os);
+            } finally {
+                os.close();
+            }
+            Assert.assertTrue(DecompressingInputStream.isGzip(gzFile));
+            Assert.assertFalse(DecompressingInputStream.isGzip(input));
+            Assert.assertEquals(input.length(), DecompressingInputStream.getSizeHint(gzFile));
+            StreamedMatrix<FloatMatrix2D> expected = TsvMatrixParser.parse(input, false, 4);
+            StreamedMatrix<FloatMatrix2D> actual = TsvMatrixParser.parse(gzFile, false, 4);
+            Assert.assertEquals(expected.getObject().getColIds(), actual.getObject().getColIds());
+            Assert.assertEquals(expected.getObject().getRowIds(), actual.getObject().getRowIds());
+            Assert.assertEquals(expected.getValues().toValues(), actual.getValues().toValues());
+        } finally {
+            gzFile.delete();
+        }
+    }
+
+    private static StreamedMatrix<FloatMatrix2D> parse(String text) throws Exception {
+        byte[] data = text.getBytes("UTF-8");
+        return new TsvMatrixParser(new ByteArrayInputStream(data), data.length).parse();
+    }
+}
@@ -0,0 +1,103 @@
+package us.kbase.kbasefeaturevalues.transform.test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import us.kbase.kbasefeaturevalues.FloatMatrix2D;
+import us.kbase.kbasefeaturevalues.matrix.Float64Matrix;
+import us.kbase.kbasefeaturevalues.matrix.PrimitiveMatrix;
+import us.kbase.kbasefeaturevalues.matrix.StorageMode;
+import us.kbase.kbasefeaturevalues.matrix.StreamedMatrix;
+import us.kbase.kbasefeaturevalues.transform.ExpressionDownloader;
+import us.kbase.kbasefeaturevalues.transform.ExpressionUploader;
+import us.kbase.kbasefeaturevalues.transform.TsvMatrixParser;
+import us.kbase.kbasefeaturevalues.transform.TsvMatrixWriter;
+
+public class TsvMatrixWriterTest {
+
+    @Test
+    public void testSameAsDownloader() throws Exception {
+        File tempDir = Files.createTempDirectory("tsv_writer").toFile();
+        try {
+            for (int i = 2; i <= 6; i++) {
+                File inputFile = ExpressionUploader.findTabFile(new File("test/data/upload" + i));
+                FloatMatrix2D data = ExpressionUploader.parse(null, inputFile, "Simple",
+                        null, false, null, null, null).getData();
+                Map<String, String> featureMapping = new LinkedHashMap<String, String>();
+                featureMapping.put(data.getRowIds().get(0), "feature1");
+                File expected = new File(tempDir, "expected.tsv");
+                ExpressionDownloader.generate(data, featureMapping, new PrintWriter(expected));
+                File actual = new File(tempDir, "actual.tsv");
+                TsvMatrixWriter.write(data.getRowIds(), data.getColIds(), featureMapping,
+                        PrimitiveMatrix.fromFloatMatrix2D(data, StorageMode.float64), actual);
+                Assert.assertEquals(new String(Files.readAllBytes(expected.toPath()), "UTF-8"),
+                        new String(Files.readAllBytes(actual.toPath()), "UTF-8"));
+            }
+        } finally {
+            for (File f : tempDir.listFiles())
+                f.delete();
+            tempDir.delete();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Random rnd = new Random(2345);
+        int rowCount = 500;
+        int colCount = 40;
+        double[] fixed = {0.0, -0.0, 1.0, -1.0, 0.1, 0.001, 9.99e-4, 1e7, 9999999.5, 1e-300,
+                Double.MIN_VALUE, Double.MAX_VALUE, 1.0 / 3, 123456.789, 0.30000000000000004,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double[] values = new double[rowCount * colCount];
+        for (int k = 0; k < values.length; k++) {
+            if (k < fixed.length) {
+                values[k] = fixed[k];
+            } else if (k % 4 == 0) {
+                values[k] = Double.longBitsToDouble(rnd.nextLong());
+            } else if (k % 4 == 1) {
+                values[k] = rnd.nextGaussian() * Math.pow(10, rnd.nextInt(12) - 4);
+            } else if (k % 4 == 2) {
+                values[k] = Math.round(rnd.nextGaussian() * 10000) / 10000.0;
+            } else {
+                values[k] = rnd.nextInt(20) == 0 ? Double.NaN : (float)rnd.nextGaussian();
+            }
+        }
+        List<String> rowIds = new ArrayList<String>();
+        for (int i = 0; i < rowCount; i++)
+            rowIds.add("g" + i);
+        List<String> colIds = new ArrayList<String>();
+        for (int j = 0; j < colCount; j++)
+            colIds.add("c" + j);
+        File file = File.createTempFile("tsv_writer", ".tsv");
+        try {
+            TsvMatrixWriter.write(rowIds, colIds, null,
+                    new Float64Matrix(rowCount, colCount, values), file);
+            StreamedMatrix<FloatMatrix2D> parsed = TsvMatrixParser.parse(file, false, 1);
+            Assert.assertEquals(rowIds, parsed.getObject().getRowIds());
+            Assert.assertEquals(colIds, parsed.getObject().getColIds());
+            for (int i = 0; i < rowCount; i++) {
+                for (int j = 0; j < colCount; j++) {
+                    double value = values[i * colCount + j];
+                    Assert.assertEquals("Value " + value, Double.doubleToLongBits(value),
+                            Double.doubleToLongBits(parsed.getValues().get(i, j)));
+                }
+            }
+            String text = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+            Assert.assertTrue(text.startsWith("feature_ids\tc0\t"));
+            Assert.assertTrue(text.contains("\ng0\t0.0\t-0.0\t1.0\t-1.0\t0.1\t0.001\t9.99E-4\t" +
+                    "1.0E7\t9999999.5\t"));
+        } finally {
+            file.delete();
+        }
+    }
+}